@@ -0,0 +1,79 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.model.HmDatapoint;
+import org.openhab.binding.homematic.internal.model.HmParamsetType;
+import org.openhab.binding.homematic.internal.model.HmValueType;
+
+/**
+ * Tests cases for {@link MetadataCache#isSameMetadata(Collection, Collection)}.
+ *
+ * @author agent - Initial contribution
+ */
+public class MetadataCacheTest {
+
+    private static HmDatapoint datapoint(String name, HmParamsetType paramsetType, Number maxValue) {
+        HmDatapoint dp = new HmDatapoint(name, name, HmValueType.FLOAT, null, false, paramsetType);
+        dp.setMinValue(0);
+        dp.setMaxValue(maxValue);
+        return dp;
+    }
+
+    private static List<HmDatapoint> metadata() {
+        return new ArrayList<HmDatapoint>(Arrays.asList(datapoint("LEVEL", HmParamsetType.VALUES, 1.0),
+                datapoint("LEVEL", HmParamsetType.MASTER, 1.0)));
+    }
+
+    @Test
+    public void sameMetadataWithDifferentValues() {
+        List<HmDatapoint> loaded = metadata();
+        loaded.get(0).setValue(0.5);
+        assertTrue(MetadataCache.isSameMetadata(metadata(), loaded));
+    }
+
+    @Test
+    public void virtualDatapointsAreIgnored() {
+        List<HmDatapoint> cached = metadata();
+        HmDatapoint virtual = datapoint("RELOAD_FROM_GATEWAY", HmParamsetType.VALUES, null);
+        virtual.setVirtual(true);
+        cached.add(virtual);
+        assertTrue(MetadataCache.isSameMetadata(cached, metadata()));
+    }
+
+    @Test
+    public void changedDescriptionIsDetected() {
+        List<HmDatapoint> loaded = metadata();
+        loaded.get(1).setMaxValue(1.01);
+        assertFalse(MetadataCache.isSameMetadata(metadata(), loaded));
+    }
+
+    @Test
+    public void addedOrRemovedDatapointIsDetected() {
+        List<HmDatapoint> loaded = metadata();
+        loaded.add(datapoint("WORKING", HmParamsetType.VALUES, null));
+        assertFalse(MetadataCache.isSameMetadata(metadata(), loaded));
+        assertFalse(MetadataCache.isSameMetadata(loaded, metadata()));
+    }
+
+    @Test
+    public void missingCacheEntryIsDetected() {
+        assertFalse(MetadataCache.isSameMetadata(null, metadata()));
+        assertTrue(MetadataCache.isSameMetadata(null, Collections.<HmDatapoint> emptyList()));
+    }
+}
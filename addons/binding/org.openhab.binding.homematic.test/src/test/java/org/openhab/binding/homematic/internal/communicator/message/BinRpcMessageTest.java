@@ -0,0 +1,194 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.message;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage.TYPE;
+
+/**
+ * Tests cases for {@link BinRpcMessage}.
+ *
+ * @author agent - Initial contribution
+ */
+public class BinRpcMessageTest {
+    private static final String ENCODING = "ISO-8859-1";
+
+    /**
+     * Builds the expected frame of an init request by hand, as described by the BIN-RPC protocol.
+     */
+    private static byte[] initRequestFrame() {
+        ByteBuffer frame = ByteBuffer.allocate(128);
+        frame.put("Bin".getBytes(StandardCharsets.US_ASCII)).put((byte) 0);
+        frame.putInt(0);
+        frame.putInt(4).put("init".getBytes(StandardCharsets.US_ASCII));
+        frame.putInt(2);
+        frame.putInt(3).putInt(23).put("binary://127.0.0.1:9126".getBytes(StandardCharsets.US_ASCII));
+        frame.putInt(3).putInt(4).put("hmid".getBytes(StandardCharsets.US_ASCII));
+        frame.putInt(4, frame.position() - 8);
+        return Arrays.copyOf(frame.array(), frame.position());
+    }
+
+    @Test
+    public void encodeKnownRequest() {
+        BinRpcMessage request = new BinRpcMessage("init", ENCODING);
+        request.addArg("binary://127.0.0.1:9126");
+        request.addArg("hmid");
+        assertArrayEquals(initRequestFrame(), request.createMessage());
+    }
+
+    @Test
+    public void decodeKnownRequest() throws IOException, ParseException {
+        BinRpcMessage message = new BinRpcMessage(initRequestFrame(), true, ENCODING);
+        assertEquals("init", message.getMethodName());
+        assertArrayEquals(new Object[] { "binary://127.0.0.1:9126", "hmid" }, message.getResponseData());
+    }
+
+    @Test
+    public void requestRoundTrip() throws IOException, ParseException {
+        Map<String, Object> struct = new HashMap<>();
+        struct.put("ADDRESS", "ABC0000001:1");
+        struct.put("LEVEL", 0.5);
+        struct.put("VALUES", Arrays.asList(1, "two", Boolean.FALSE));
+
+        BinRpcMessage request = new BinRpcMessage("event", ENCODING);
+        request.addArg("hmid");
+        request.addArg(42);
+        request.addArg(-7);
+        request.addArg(Boolean.TRUE);
+        request.addArg(0.1);
+        request.addArg(-21.375);
+        request.addArg(struct);
+        request.addArg(Collections.emptyList());
+
+        BinRpcMessage decoded = new BinRpcMessage(request.createMessage(), true, ENCODING);
+        assertEquals("event", decoded.getMethodName());
+
+        Object[] values = decoded.getResponseData();
+        assertEquals(8, values.length);
+        assertEquals("hmid", values[0]);
+        assertEquals(42, values[1]);
+        assertEquals(-7, values[2]);
+        assertEquals(Boolean.TRUE, values[3]);
+        assertEquals(0.1, (Double) values[4], 0.0);
+        assertEquals(-21.375, (Double) values[5], 0.0);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> decodedStruct = (Map<String, Object>) values[6];
+        assertEquals("ABC0000001:1", decodedStruct.get("ADDRESS"));
+        assertEquals(0.5, (Double) decodedStruct.get("LEVEL"), 0.0);
+        assertArrayEquals(new Object[] { 1, "two", Boolean.FALSE }, (Object[]) decodedStruct.get("VALUES"));
+        // Structs are decoded sorted by name
+        assertEquals(Arrays.asList("ADDRESS", "LEVEL", "VALUES"), new ArrayList<>(decodedStruct.keySet()));
+
+        assertArrayEquals(new Object[0], (Object[]) values[7]);
+    }
+
+    @Test
+    public void responseRoundTripFromStream() throws IOException {
+        BinRpcMessage response = new BinRpcMessage(null, TYPE.RESPONSE, ENCODING);
+        response.addArg("ok");
+        byte[] frame = response.createMessage();
+        assertEquals(1, frame[3]);
+
+        BinRpcMessage decoded = new BinRpcMessage(new ChunkedInputStream(frame, 3), false, ENCODING);
+        assertNull(decoded.getMethodName());
+        assertArrayEquals(new Object[] { "ok" }, decoded.getResponseData());
+    }
+
+    @Test
+    public void largeMessageRoundTrip() throws IOException {
+        List<Object> values = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            values.add("VALUE_" + i);
+        }
+        BinRpcMessage request = new BinRpcMessage("listDevices", ENCODING);
+        request.addArg(values);
+
+        byte[] frame = request.createMessage();
+        assertTrue(frame.length > 64 * 1024);
+
+        BinRpcMessage decoded = new BinRpcMessage(new ByteArrayInputStream(frame), true, ENCODING);
+        assertArrayEquals(values.toArray(), (Object[]) decoded.getResponseData()[0]);
+
+        // The buffer of the thread is still usable for small messages afterwards
+        encodeKnownRequest();
+    }
+
+    @Test(expected = UnsupportedEncodingException.class)
+    public void invalidSignature() throws IOException, ParseException {
+        byte[] frame = initRequestFrame();
+        frame[0] = 'X';
+        new BinRpcMessage(frame, true, ENCODING);
+    }
+
+    @Test(expected = EOFException.class)
+    public void shortHeader() throws IOException {
+        new BinRpcMessage(new ByteArrayInputStream(new byte[] { 'B', 'i', 'n', 0, 0, 0 }), true, ENCODING);
+    }
+
+    @Test(expected = EOFException.class)
+    public void truncatedStream() throws IOException {
+        byte[] frame = initRequestFrame();
+        new BinRpcMessage(new ByteArrayInputStream(Arrays.copyOf(frame, frame.length - 3)), true, ENCODING);
+    }
+
+    @Test(expected = EOFException.class)
+    public void truncatedContent() throws IOException, ParseException {
+        byte[] frame = initRequestFrame();
+        // The last string ends within its length field
+        new BinRpcMessage(Arrays.copyOf(frame, frame.length - 6), true, ENCODING);
+    }
+
+    @Test(expected = IOException.class)
+    public void unknownDataType() throws IOException, ParseException {
+        ByteBuffer frame = ByteBuffer.allocate(16);
+        frame.put("Bin".getBytes(StandardCharsets.US_ASCII)).put((byte) 1).putInt(8).putInt(0x42).putInt(0);
+        new BinRpcMessage(frame.array(), false, ENCODING);
+    }
+
+    /**
+     * Returns at most chunkSize bytes per read, like a socket that receives a message in several packets.
+     */
+    private static class ChunkedInputStream extends InputStream {
+        private final InputStream delegate;
+        private final int chunkSize;
+
+        ChunkedInputStream(byte[] data, int chunkSize) {
+            this.delegate = new ByteArrayInputStream(data);
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return delegate.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return delegate.read(b, off, Math.min(len, chunkSize));
+        }
+    }
+}
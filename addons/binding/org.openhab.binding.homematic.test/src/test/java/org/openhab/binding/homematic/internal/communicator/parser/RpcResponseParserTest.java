@@ -0,0 +1,73 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.parser;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.communicator.client.UnknownParameterSetException;
+import org.openhab.binding.homematic.internal.communicator.client.UnknownRpcFailureException;
+import org.openhab.binding.homematic.internal.communicator.client.UnknownRpcMethodException;
+import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
+
+/**
+ * Tests cases for {@link RpcResponseParser}.
+ *
+ * @author agent - Initial contribution
+ */
+public class RpcResponseParserTest {
+    private final RpcResponseParser parser = new RpcResponseParser(
+            new BinRpcMessage("system.multicall", "ISO-8859-1"));
+
+    private static Object[] fault(int faultCode, String faultString) {
+        Map<String, Object> fault = new HashMap<>();
+        fault.put("faultCode", faultCode);
+        fault.put("faultString", faultString);
+        return new Object[] { fault };
+    }
+
+    private Class<?> parseFault(int faultCode, String faultString) {
+        try {
+            parser.parse(fault(faultCode, faultString));
+        } catch (IOException e) {
+            return e.getClass();
+        }
+        fail("A fault must throw an exception");
+        return null;
+    }
+
+    @Test
+    public void successfulResponse() throws IOException {
+        Object[] response = new Object[] { "result" };
+        assertSame(response, parser.parse(response));
+    }
+
+    @Test
+    public void unknownMethod() {
+        assertEquals(UnknownRpcMethodException.class, parseFault(-32601, "requested method not found"));
+        assertEquals(UnknownRpcMethodException.class, parseFault(-1, "Unknown method name: system.multicall"));
+    }
+
+    @Test
+    public void otherFaultsAreNoUnknownMethod() {
+        assertEquals(UnknownRpcFailureException.class, parseFault(-1, "Failure"));
+        assertEquals(UnknownParameterSetException.class, parseFault(-3, "Unknown paramset"));
+        assertEquals(IOException.class, parseFault(-2, "Unknown instance"));
+        assertEquals(IOException.class, parseFault(-32603, "Internal error"));
+    }
+
+    @Test(expected = IOException.class)
+    public void emptyResponse() throws IOException {
+        parser.parse(new Object[0]);
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.misc;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.model.HmDatapointInfo;
+import org.openhab.binding.homematic.internal.model.HmParamsetType;
+
+/**
+ * Tests cases for {@link DelayedExecuter}.
+ *
+ * @author agent - Initial contribution
+ */
+public class DelayedExecuterTest {
+    private static final HmDatapointInfo LEVEL = new HmDatapointInfo("ABC0000001", HmParamsetType.VALUES, 1,
+            "LEVEL");
+    private static final HmDatapointInfo STATE = new HmDatapointInfo("ABC0000001", HmParamsetType.VALUES, 2,
+            "STATE");
+
+    private ScheduledExecutorService scheduler;
+    private DelayedExecuter executer;
+    private final List<String> executed = new CopyOnWriteArrayList<>();
+
+    @Before
+    public void setUp() {
+        scheduler = new ScheduledThreadPoolExecutor(1);
+        executer = new DelayedExecuter(scheduler);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void executesImmediatelyWithoutDelay() throws Exception {
+        executer.start(LEVEL, 0.0, () -> executed.add("immediate"));
+
+        assertThat(executed.size(), is(1));
+        assertThat(executer.getPendingCount(), is(0));
+        // Immediate executions are not delayed events
+        assertThat(executer.getExecutedCount(), is(0L));
+    }
+
+    @Test
+    public void latestValueWins() throws Exception {
+        CountDownLatch done = new CountDownLatch(1);
+        executer.start(LEVEL, 0.1, () -> executed.add("first"));
+        executer.start(LEVEL, 0.1, () -> {
+            executed.add("second");
+            done.countDown();
+        });
+        assertThat(executer.getPendingCount(), is(1));
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertThat(executed, is(Collections.singletonList("second")));
+        assertThat(executer.getCoalescedCount(), is(1L));
+        assertThat(executer.getExecutedCount(), is(1L));
+        assertThat(executer.getPendingCount(), is(0));
+    }
+
+    @Test
+    public void datapointsAreDelayedIndependently() throws Exception {
+        CountDownLatch done = new CountDownLatch(2);
+        executer.start(LEVEL, 0.05, done::countDown);
+        executer.start(STATE, 0.05, done::countDown);
+
+        assertTrue(done.await(2, TimeUnit.SECONDS));
+        assertThat(executer.getCoalescedCount(), is(0L));
+        assertThat(executer.getExecutedCount(), is(2L));
+    }
+
+    @Test
+    public void stopCancelsPendingEvents() throws Exception {
+        executer.start(LEVEL, 0.1, () -> executed.add("cancelled"));
+        executer.stop();
+        assertThat(executer.getPendingCount(), is(0));
+
+        Thread.sleep(300);
+        assertTrue(executed.isEmpty());
+    }
+}
@@ -47,6 +47,7 @@ public class HomematicConfig {
     private int binCallbackPort;
 
     private int socketMaxAlive = 900;
+    private int socketPoolSize = 2;
     private int timeout = 15;
 
     private HmGatewayInfo gatewayInfo;
@@ -145,6 +146,20 @@ public class HomematicConfig {
         this.socketMaxAlive = socketMaxAlive;
     }
 
+    /**
+     * Returns the maximum number of socket connections to a Homematic gateway per port.
+     */
+    public int getSocketPoolSize() {
+        return socketPoolSize;
+    }
+
+    /**
+     * Sets the maximum number of socket connections to a Homematic gateway per port.
+     */
+    public void setSocketPoolSize(int socketPoolSize) {
+        this.socketPoolSize = socketPoolSize;
+    }
+
     /**
      * Returns the timeout for the communication to a Homematic gateway in seconds.
      */
@@ -299,7 +314,8 @@ public class HomematicConfig {
                 .append("xmlCallbackPort", xmlCallbackPort).append("binCallbackPort", binCallbackPort)
                 .append("gatewayType", gatewayType).append("rfPort", getRfPort()).append("wiredPort", getWiredPort())
                 .append("hmIpPort", getHmIpPort()).append("cuxdPort", getCuxdPort()).append("groupPort", getGroupPort())
-                .append("timeout", timeout).append("socketMaxAlive", socketMaxAlive);
+                .append("timeout", timeout).append("socketMaxAlive", socketMaxAlive)
+                .append("socketPoolSize", socketPoolSize);
         return tsb.toString();
     }
 }
@@ -83,6 +83,8 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     public static final double DEFAULT_DISABLE_DELAY = 2.0;
     private static final long CONNECTION_TRACKER_INTERVAL_SECONDS = 15;
     private static final String GATEWAY_POOL_NAME = "homematicGateway";
+    private static final String DELAYED_EXECUTER_POOL_NAME = "homematicDelayedExecuter";
+    private static final long METADATA_VERIFICATION_DELAY_SECONDS = 60;
 
     private Map<TransferMode, RpcClient<?>> rpcClients = new HashMap<TransferMode, RpcClient<?>>();
     private Map<TransferMode, RpcServer> rpcServers = new HashMap<TransferMode, RpcServer>();
@@ -90,8 +92,10 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     protected HomematicConfig config;
     private String id;
     private HomematicGatewayAdapter gatewayAdapter;
-    private DelayedExecuter sendDelayedExecutor = new DelayedExecuter();
-    private DelayedExecuter receiveDelayedExecutor = new DelayedExecuter();
+    private DelayedExecuter sendDelayedExecutor = new DelayedExecuter(
+            ThreadPoolManager.getScheduledPool(DELAYED_EXECUTER_POOL_NAME));
+    private DelayedExecuter receiveDelayedExecutor = new DelayedExecuter(
+            ThreadPoolManager.getScheduledPool(DELAYED_EXECUTER_POOL_NAME));
     private Set<HmDatapointInfo> echoEvents = Collections.synchronizedSet(new HashSet<HmDatapointInfo>());
     private ScheduledFuture<?> connectionTrackerFuture;
     private ConnectionTrackerThread connectionTrackerThread;
@@ -100,6 +104,9 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     private static List<VirtualDatapointHandler> virtualDatapointHandlers = new ArrayList<VirtualDatapointHandler>();
     private boolean cancelLoadAllMetadata;
     private boolean initialized;
+    private MetadataCache metadataCache;
+    private boolean useMetadataCache;
+    private ScheduledFuture<?> metadataVerificationFuture;
 
     static {
         // loads all virtual datapoints
@@ -126,11 +133,13 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         this.id = id;
         this.config = config;
         this.gatewayAdapter = gatewayAdapter;
+        this.metadataCache = new MetadataCache(id);
     }
 
     @Override
     public void initialize() throws IOException {
         logger.debug("Initializing gateway with id '{}'", id);
+        useMetadataCache = true;
 
         HmGatewayInfo gatewayInfo = config.getGatewayInfo();
         if (gatewayInfo.isHomegear()) {
@@ -179,6 +188,10 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     public void dispose() {
         initialized = false;
         stopWatchdogs();
+        stopMetadataVerification();
+        logger.debug("Delayed events of gateway with id '{}': {} sent, {} received, {} coalesced", id,
+                sendDelayedExecutor.getExecutedCount(), receiveDelayedExecutor.getExecutedCount(),
+                sendDelayedExecutor.getCoalescedCount() + receiveDelayedExecutor.getCoalescedCount());
         sendDelayedExecutor.stop();
         receiveDelayedExecutor.stop();
         stopServers();
@@ -338,12 +351,20 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
 
     @Override
     public void loadAllDeviceMetadata() throws IOException {
+        stopMetadataVerification();
         cancelLoadAllMetadata = false;
         // load all device descriptions
         List<HmDevice> deviceDescriptions = getDeviceDescriptions();
 
+        // the persisted metadata is only used at startup, a later discovery scan reloads everything from the gateway
+        Map<String, Collection<HmDatapoint>> persistedDatapoints = useMetadataCache ? metadataCache.load()
+                : new HashMap<String, Collection<HmDatapoint>>();
+        useMetadataCache = false;
+        boolean metadataChanged = false;
+
         // loading datapoints for all channels
         Set<String> loadedDevices = new HashSet<String>();
+        Set<String> devicesFromCache = new HashSet<String>();
         Map<String, Collection<HmDatapoint>> datapointsByChannelIdCache = new HashMap<String, Collection<HmDatapoint>>();
         for (HmDevice device : deviceDescriptions) {
             if (!cancelLoadAllMetadata) {
@@ -354,25 +375,40 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
                         loadChannelValues(device.getChannel(HmChannel.CHANNEL_NUMBER_VARIABLE));
                         loadChannelValues(device.getChannel(HmChannel.CHANNEL_NUMBER_SCRIPT));
                     } else {
+                        // load the datapoints of all channels which are not cloned with as few requests as possible
+                        List<HmChannel> channelsToLoad = new ArrayList<HmChannel>();
+                        for (HmChannel channel : device.getChannels()) {
+                            String channelId = getChannelId(channel);
+                            if (!isClonedFromPreviousChannel(channel)
+                                    && !datapointsByChannelIdCache.containsKey(channelId)) {
+                                if (persistedDatapoints.containsKey(channelId)) {
+                                    datapointsByChannelIdCache.put(channelId, persistedDatapoints.get(channelId));
+                                    devicesFromCache.add(device.getAddress());
+                                } else {
+                                    channelsToLoad.add(channel);
+                                }
+                            }
+                        }
+                        if (!channelsToLoad.isEmpty()) {
+                            logger.trace("    Loading datapoints into channels {}", channelsToLoad);
+                            addChannelDatapoints(channelsToLoad, HmParamsetType.MASTER);
+                            addChannelDatapoints(channelsToLoad, HmParamsetType.VALUES);
+                            metadataChanged = true;
+                        }
+
                         for (HmChannel channel : device.getChannels()) {
                             logger.trace("  Loading channel {}", channel);
-                            // speed up metadata generation a little bit for equal channels in the gateway devices
-                            if ((DEVICE_TYPE_VIRTUAL.equals(device.getType())
-                                    || DEVICE_TYPE_VIRTUAL_WIRED.equals(device.getType())) && channel.getNumber() > 1) {
+                            if (isClonedFromPreviousChannel(channel)) {
                                 HmChannel previousChannel = device.getChannel(channel.getNumber() - 1);
                                 cloneAllDatapointsIntoChannel(channel, previousChannel.getDatapoints().values());
+                            } else if (channelsToLoad.contains(channel)) {
+                                datapointsByChannelIdCache.put(getChannelId(channel), channel.getDatapoints().values());
                             } else {
-                                String channelId = String.format("%s:%s:%s", channel.getDevice().getType(),
-                                        channel.getDevice().getFirmware(), channel.getNumber());
-                                Collection<HmDatapoint> cachedDatapoints = datapointsByChannelIdCache.get(channelId);
-                                if (cachedDatapoints != null) {
-                                    // clone all datapoints
-                                    cloneAllDatapointsIntoChannel(channel, cachedDatapoints);
-                                } else {
-                                    logger.trace("    Loading datapoints into channel {}", channel);
-                                    addChannelDatapoints(channel, HmParamsetType.MASTER);
-                                    addChannelDatapoints(channel, HmParamsetType.VALUES);
-                                    datapointsByChannelIdCache.put(channelId, channel.getDatapoints().values());
+                                // clone all datapoints
+                                cloneAllDatapointsIntoChannel(channel,
+                                        datapointsByChannelIdCache.get(getChannelId(channel)));
+                                if (persistedDatapoints.containsKey(getChannelId(channel))) {
+                                    devicesFromCache.add(device.getAddress());
                                 }
                             }
                         }
@@ -388,10 +424,128 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         }
         if (!cancelLoadAllMetadata) {
             devices.keySet().retainAll(loadedDevices);
+            if (metadataChanged || !datapointsByChannelIdCache.keySet().containsAll(persistedDatapoints.keySet())) {
+                metadataCache.save(datapointsByChannelIdCache);
+            }
+            devicesFromCache.retainAll(loadedDevices);
+            if (!devicesFromCache.isEmpty()) {
+                startMetadataVerification(devicesFromCache, datapointsByChannelIdCache);
+            }
         }
         initialized = true;
     }
 
+    /**
+     * Schedules the verification of the devices, that have been loaded from the metadata cache, on the gateway
+     * scheduler. The cached metadata is only keyed by device type and firmware, so it is compared with the paramset
+     * descriptions of the gateway once the startup has finished.
+     */
+    private void startMetadataVerification(Set<String> devicesFromCache,
+            Map<String, Collection<HmDatapoint>> datapointsByChannelIdCache) {
+        ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool(GATEWAY_POOL_NAME);
+        Map<String, Collection<HmDatapoint>> metadata = new HashMap<String, Collection<HmDatapoint>>(
+                datapointsByChannelIdCache);
+        metadataVerificationFuture = scheduler.schedule(() -> verifyCachedMetadata(devicesFromCache, metadata),
+                METADATA_VERIFICATION_DELAY_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void stopMetadataVerification() {
+        if (metadataVerificationFuture != null) {
+            metadataVerificationFuture.cancel(true);
+            metadataVerificationFuture = null;
+        }
+    }
+
+    /**
+     * Loads the paramset descriptions of the devices, that have been loaded from the metadata cache, from the
+     * gateway and compares them with the cache. Devices with changed metadata are reloaded and the cache is rewritten.
+     */
+    private void verifyCachedMetadata(Set<String> devicesFromCache,
+            Map<String, Collection<HmDatapoint>> datapointsByChannelIdCache) {
+        logger.debug("Verifying cached metadata of {} devices of gateway with id '{}'", devicesFromCache.size(), id);
+        try {
+            Set<String> verifiedChannelIds = new HashSet<String>();
+            Set<String> changedChannelIds = new HashSet<String>();
+            List<HmDevice> changedDevices = new ArrayList<HmDevice>();
+            for (HmDevice device : getDeviceDescriptions()) {
+                if (cancelLoadAllMetadata || Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                if (device.isGatewayExtras() || !devicesFromCache.contains(device.getAddress())) {
+                    continue;
+                }
+
+                // the datapoints of each channel id are only loaded once
+                List<HmChannel> channelsToVerify = new ArrayList<HmChannel>();
+                for (HmChannel channel : device.getChannels()) {
+                    if (!isClonedFromPreviousChannel(channel) && verifiedChannelIds.add(getChannelId(channel))) {
+                        channelsToVerify.add(channel);
+                    }
+                }
+                addChannelDatapoints(channelsToVerify, HmParamsetType.MASTER);
+                addChannelDatapoints(channelsToVerify, HmParamsetType.VALUES);
+                for (HmChannel channel : channelsToVerify) {
+                    String channelId = getChannelId(channel);
+                    if (!MetadataCache.isSameMetadata(datapointsByChannelIdCache.get(channelId),
+                            channel.getDatapoints().values())) {
+                        logger.debug("Metadata of channel '{}' differs from the cached metadata", channelId);
+                        changedChannelIds.add(channelId);
+                        datapointsByChannelIdCache.put(channelId, channel.getDatapoints().values());
+                    }
+                }
+
+                for (HmChannel channel : device.getChannels()) {
+                    if (changedChannelIds.contains(getChannelId(channel))) {
+                        changedDevices.add(device);
+                        break;
+                    }
+                }
+            }
+
+            for (HmDevice device : changedDevices) {
+                logger.debug("Reloading device '{}' with changed metadata", device.getAddress());
+                for (HmChannel channel : device.getChannels()) {
+                    if (isClonedFromPreviousChannel(channel)) {
+                        HmChannel previousChannel = device.getChannel(channel.getNumber() - 1);
+                        cloneAllDatapointsIntoChannel(channel, previousChannel.getDatapoints().values());
+                    } else if (channel.getDatapoints().isEmpty()
+                            && datapointsByChannelIdCache.containsKey(getChannelId(channel))) {
+                        // the channel id has been verified with another device
+                        cloneAllDatapointsIntoChannel(channel, datapointsByChannelIdCache.get(getChannelId(channel)));
+                    }
+                }
+                prepareDevice(device);
+                gatewayAdapter.onNewDevice(device);
+            }
+
+            if (!changedChannelIds.isEmpty()) {
+                metadataCache.save(datapointsByChannelIdCache);
+            }
+            logger.debug("Verified cached metadata of gateway with id '{}': {} of {} channels changed", id,
+                    changedChannelIds.size(), verifiedChannelIds.size());
+        } catch (IOException ex) {
+            logger.warn("Can't verify cached metadata of gateway with id '{}': {}", id, ex.getMessage());
+        }
+    }
+
+    /**
+     * Returns true, if the datapoints of the channel are cloned from the previous channel to speed up metadata
+     * generation a little bit for equal channels in the gateway devices.
+     */
+    private boolean isClonedFromPreviousChannel(HmChannel channel) {
+        String deviceType = channel.getDevice().getType();
+        return (DEVICE_TYPE_VIRTUAL.equals(deviceType) || DEVICE_TYPE_VIRTUAL_WIRED.equals(deviceType))
+                && channel.getNumber() > 1;
+    }
+
+    /**
+     * Returns the id of a channel for caching the datapoints of equal channels.
+     */
+    private String getChannelId(HmChannel channel) {
+        return String.format("%s:%s:%s", channel.getDevice().getType(), channel.getDevice().getFirmware(),
+                channel.getNumber());
+    }
+
     /**
      * Loads all datapoints from the gateway.
      */
@@ -399,12 +553,32 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         try {
             getRpcClient(channel.getDevice().getHmInterface()).addChannelDatapoints(channel, paramsetType);
         } catch (UnknownParameterSetException ex) {
-            logger.info(
-                    "Can not load metadata for device: {}, channel: {}, paramset: {}, maybe there are no channels available",
-                    channel.getDevice().getAddress(), channel.getNumber(), paramsetType);
+            addUnknownParamsetDatapoints(channel, paramsetType);
         }
     }
 
+    /**
+     * Loads all datapoints of the channels of one device from the gateway.
+     */
+    protected void addChannelDatapoints(List<HmChannel> channels, HmParamsetType paramsetType) throws IOException {
+        if (channels.isEmpty()) {
+            return;
+        }
+        HmInterface hmInterface = channels.get(0).getDevice().getHmInterface();
+        for (HmChannel channel : getRpcClient(hmInterface).addChannelDatapoints(channels, paramsetType)) {
+            addUnknownParamsetDatapoints(channel, paramsetType);
+        }
+    }
+
+    /**
+     * Called if the gateway does not know the paramset of the channel.
+     */
+    protected void addUnknownParamsetDatapoints(HmChannel channel, HmParamsetType paramsetType) throws IOException {
+        logger.info(
+                "Can not load metadata for device: {}, channel: {}, paramset: {}, maybe there are no channels available",
+                channel.getDevice().getAddress(), channel.getNumber(), paramsetType);
+    }
+
     /**
      * Loads all device descriptions from the gateway.
      */
@@ -634,10 +808,8 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
                     List<HmDevice> deviceDescriptions = getDeviceDescriptions();
                     for (HmDevice device : deviceDescriptions) {
                         if (device.getAddress().equals(address)) {
-                            for (HmChannel channel : device.getChannels()) {
-                                addChannelDatapoints(channel, HmParamsetType.MASTER);
-                                addChannelDatapoints(channel, HmParamsetType.VALUES);
-                            }
+                            addChannelDatapoints(device.getChannels(), HmParamsetType.MASTER);
+                            addChannelDatapoints(device.getChannels(), HmParamsetType.VALUES);
                             prepareDevice(device);
                             gatewayAdapter.onNewDevice(device);
                         }
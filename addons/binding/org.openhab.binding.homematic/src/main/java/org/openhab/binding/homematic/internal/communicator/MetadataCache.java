@@ -0,0 +1,148 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.commons.lang.builder.EqualsBuilder;
+import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.openhab.binding.homematic.internal.model.HmDatapoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persists the datapoint metadata of the channels of a gateway in the userdata folder. The metadata is stored with
+ * the same key as the in-memory cache in the gateway (device type, firmware and channel number), a device with a new
+ * firmware therefore gets a new entry and is loaded from the gateway. Entries of devices loaded from the cache are
+ * verified against the gateway in the background with {@link #isSameMetadata(Collection, Collection)}.
+ *
+ * @author agent - Initial contribution
+ */
+public class MetadataCache {
+    private final Logger logger = LoggerFactory.getLogger(MetadataCache.class);
+    private static final int FORMAT_VERSION = 1;
+
+    private File cacheFile;
+
+    public MetadataCache(String gatewayId) {
+        File cacheFolder = new File(ConfigConstants.getUserDataFolder() + File.separator + "homematic");
+        cacheFile = new File(cacheFolder, gatewayId + ".metadata");
+    }
+
+    /**
+     * Loads the cached datapoints by channel id, returns an empty map if the cache does not exist or is not readable.
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Collection<HmDatapoint>> load() {
+        Map<String, Collection<HmDatapoint>> datapointsByChannelId = new HashMap<String, Collection<HmDatapoint>>();
+        if (cacheFile.exists()) {
+            try (ObjectInputStream in = new ObjectInputStream(
+                    new BufferedInputStream(new FileInputStream(cacheFile)))) {
+                if (in.readInt() == FORMAT_VERSION) {
+                    datapointsByChannelId.putAll((Map<String, List<HmDatapoint>>) in.readObject());
+                    logger.debug("Loaded metadata of {} channels from '{}'", datapointsByChannelId.size(), cacheFile);
+                } else {
+                    logger.debug("Ignoring metadata cache '{}' with an old format", cacheFile);
+                }
+            } catch (IOException | ClassNotFoundException | ClassCastException ex) {
+                logger.warn("Can't load metadata cache '{}': {}", cacheFile, ex.getMessage());
+                datapointsByChannelId.clear();
+            }
+        }
+        return datapointsByChannelId;
+    }
+
+    /**
+     * Stores the datapoints by channel id, virtual datapoints and values are not stored.
+     */
+    public void save(Map<String, Collection<HmDatapoint>> datapointsByChannelId) {
+        HashMap<String, List<HmDatapoint>> cache = new HashMap<String, List<HmDatapoint>>();
+        for (Entry<String, Collection<HmDatapoint>> entry : datapointsByChannelId.entrySet()) {
+            List<HmDatapoint> datapoints = new ArrayList<HmDatapoint>();
+            for (HmDatapoint dp : entry.getValue()) {
+                if (!dp.isVirtual()) {
+                    datapoints.add(dp.clone());
+                }
+            }
+            // don't persist channels without metadata, e.g. if the paramset was not available
+            if (!datapoints.isEmpty()) {
+                cache.put(entry.getKey(), datapoints);
+            }
+        }
+
+        File tempFile = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
+        try {
+            cacheFile.getParentFile().mkdirs();
+            try (ObjectOutputStream out = new ObjectOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeObject(cache);
+            }
+            if (!tempFile.renameTo(cacheFile) && !(cacheFile.delete() && tempFile.renameTo(cacheFile))) {
+                throw new IOException("Can't rename " + tempFile);
+            }
+            logger.debug("Saved metadata of {} channels to '{}'", cache.size(), cacheFile);
+        } catch (IOException ex) {
+            logger.warn("Can't save metadata cache '{}': {}", cacheFile, ex.getMessage());
+            tempFile.delete();
+        }
+    }
+
+    /**
+     * Returns true if both collections describe the same datapoints, virtual datapoints and values are ignored.
+     */
+    public static boolean isSameMetadata(Collection<HmDatapoint> cached, Collection<HmDatapoint> loaded) {
+        Map<String, HmDatapoint> cachedByName = getMetadataByName(cached);
+        Map<String, HmDatapoint> loadedByName = getMetadataByName(loaded);
+        if (!cachedByName.keySet().equals(loadedByName.keySet())) {
+            return false;
+        }
+        for (Entry<String, HmDatapoint> entry : cachedByName.entrySet()) {
+            if (!isSameMetadata(entry.getValue(), loadedByName.get(entry.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<String, HmDatapoint> getMetadataByName(Collection<HmDatapoint> datapoints) {
+        Map<String, HmDatapoint> datapointsByName = new HashMap<String, HmDatapoint>();
+        if (datapoints != null) {
+            for (HmDatapoint dp : datapoints) {
+                if (!dp.isVirtual()) {
+                    datapointsByName.put(dp.getParamsetType() + ":" + dp.getName(), dp);
+                }
+            }
+        }
+        return datapointsByName;
+    }
+
+    private static boolean isSameMetadata(HmDatapoint cached, HmDatapoint loaded) {
+        return new EqualsBuilder().append(cached.getDescription(), loaded.getDescription())
+                .append(cached.getType(), loaded.getType()).append(cached.getDefaultValue(), loaded.getDefaultValue())
+                .append(cached.getMinValue(), loaded.getMinValue()).append(cached.getMaxValue(), loaded.getMaxValue())
+                .append(cached.getStep(), loaded.getStep()).append(cached.getOptions(), loaded.getOptions())
+                .append(cached.isReadOnly(), loaded.isReadOnly()).append(cached.isReadable(), loaded.isReadable())
+                .append(cached.getInfo(), loaded.getInfo()).append(cached.getUnit(), loaded.getUnit())
+                .append(cached.isTrigger(), loaded.isTrigger()).isEquals();
+    }
+}
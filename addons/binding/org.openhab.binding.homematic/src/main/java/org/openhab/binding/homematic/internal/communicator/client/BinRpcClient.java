@@ -10,17 +10,31 @@ package org.openhab.binding.homematic.internal.communicator.client;
 
 import java.io.IOException;
 import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
 import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
+import org.openhab.binding.homematic.internal.communicator.parser.GetParamsetDescriptionParser;
 import org.openhab.binding.homematic.internal.communicator.parser.RpcResponseParser;
+import org.openhab.binding.homematic.internal.model.HmChannel;
 import org.openhab.binding.homematic.internal.model.HmInterface;
+import org.openhab.binding.homematic.internal.model.HmParamsetType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Client implementation for sending messages via BIN-RPC to the Homematic server.
+ * <p>
+ * Messages are sent over a pool of sockets per port, so independent requests don't have to wait for each other.
+ * Bulk metadata reads are batched with system.multicall, unless the server reported system.multicall as an
+ * unknown method.
  *
  * @author Gerhard Riegler - Initial contribution
  */
@@ -28,6 +42,7 @@ public class BinRpcClient extends RpcClient<byte[]> {
     private final Logger logger = LoggerFactory.getLogger(BinRpcClient.class);
 
     private SocketHandler socketHandler;
+    private Set<Integer> multicallUnsupportedPorts = ConcurrentHashMap.newKeySet();
 
     public BinRpcClient(HomematicConfig config) {
         super(config);
@@ -53,13 +68,72 @@ public class BinRpcClient extends RpcClient<byte[]> {
     public void init(HmInterface hmInterface, String clientId) throws IOException {
         super.init(hmInterface, clientId);
         socketHandler.removeSocket(config.getRpcPort(hmInterface));
+        multicallUnsupportedPorts.remove(config.getRpcPort(hmInterface));
+    }
+
+    /**
+     * Loads the paramset descriptions of all channels with one system.multicall request. If the request fails, the
+     * descriptions are loaded with single requests. Only if the server does not know system.multicall, single
+     * requests are used for the port until the client is initialized again.
+     */
+    @Override
+    public List<HmChannel> addChannelDatapoints(List<HmChannel> channels, HmParamsetType paramsetType)
+            throws IOException {
+        if (channels.size() < 2 || multicallUnsupportedPorts.contains(config.getRpcPort(channels.get(0)))) {
+            return super.addChannelDatapoints(channels, paramsetType);
+        }
+        int port = config.getRpcPort(channels.get(0));
+
+        RpcRequest<byte[]> request = createRpcRequest("system.multicall");
+        List<Map<String, Object>> calls = new ArrayList<Map<String, Object>>();
+        for (HmChannel channel : channels) {
+            Map<String, Object> call = new HashMap<String, Object>();
+            call.put("methodName", "getParamsetDescription");
+            String address = getRpcAddress(channel.getDevice().getAddress()) + ":" + channel.getNumber();
+            call.put("params", Arrays.asList(address, paramsetType.toString()));
+            calls.add(call);
+        }
+        request.addArg(calls);
+
+        Object[] results;
+        try {
+            Object[] response = sendMessage(port, request);
+            if (!(response[0] instanceof Object[]) || ((Object[]) response[0]).length != channels.size()) {
+                throw new IOException("Unexpected system.multicall response");
+            }
+            results = (Object[]) response[0];
+        } catch (UnknownRpcMethodException ex) {
+            logger.debug("system.multicall not supported on port {}, sending single requests: {}", port,
+                    ex.getMessage());
+            multicallUnsupportedPorts.add(port);
+            return super.addChannelDatapoints(channels, paramsetType);
+        } catch (IOException ex) {
+            logger.debug("system.multicall failed on port {}, sending single requests: {}", port, ex.getMessage());
+            return super.addChannelDatapoints(channels, paramsetType);
+        }
+
+        List<HmChannel> unknownParamsetChannels = new ArrayList<HmChannel>();
+        for (int i = 0; i < results.length; i++) {
+            HmChannel channel = channels.get(i);
+            try {
+                if (results[i] instanceof Object[]) {
+                    new GetParamsetDescriptionParser(channel, paramsetType).parse((Object[]) results[i]);
+                } else {
+                    // a fault struct, throws the matching exception
+                    new RpcResponseParser(request).parse(new Object[] { results[i] });
+                }
+            } catch (UnknownParameterSetException ex) {
+                unknownParamsetChannels.add(channel);
+            }
+        }
+        return unknownParamsetChannels;
     }
 
     /**
      * Sends a BIN-RPC message and parses the response to see if there was an error.
      */
     @Override
-    protected synchronized Object[] sendMessage(int port, RpcRequest<byte[]> request) throws IOException {
+    protected Object[] sendMessage(int port, RpcRequest<byte[]> request) throws IOException {
         if (logger.isTraceEnabled()) {
             logger.trace("Client BinRpcRequest:\n{}", request);
         }
@@ -71,15 +145,13 @@ public class BinRpcClient extends RpcClient<byte[]> {
      */
     private Object[] sendMessage(int port, RpcRequest<byte[]> request, int rpcRetryCounter) throws IOException {
         BinRpcMessage resp = null;
+        SocketInfo socketInfo = socketHandler.getSocket(port);
         try {
-            Socket socket = socketHandler.getSocket(port);
+            Socket socket = socketInfo.getSocket();
             socket.getOutputStream().write(request.createMessage());
             resp = new BinRpcMessage(socket.getInputStream(), false, config.getEncoding());
-            return new RpcResponseParser(request).parse(resp.getResponseData());
-        } catch (UnknownRpcFailureException | UnknownParameterSetException rpcEx) {
-            // throw immediately, don't retry the message
-            throw rpcEx;
         } catch (IOException ioEx) {
+            socketHandler.invalidateSocket(port, socketInfo);
             if ("init".equals(request.getMethodName()) || rpcRetryCounter >= MAX_RPC_RETRY) {
                 throw ioEx;
             } else {
@@ -89,11 +161,18 @@ public class BinRpcClient extends RpcClient<byte[]> {
                 socketHandler.removeSocket(port);
                 return sendMessage(port, request, rpcRetryCounter);
             }
+        } catch (RuntimeException ex) {
+            socketHandler.invalidateSocket(port, socketInfo);
+            throw ex;
         } finally {
             if (logger.isTraceEnabled()) {
                 logger.trace("Client BinRpcResponse:\n{}", resp == null ? "null" : resp.toString());
             }
         }
+
+        // the complete response has been read, the socket can be used for the next request
+        socketHandler.releaseSocket(port, socketInfo);
+        return new RpcResponseParser(request).parse(resp.getResponseData());
     }
 
 }
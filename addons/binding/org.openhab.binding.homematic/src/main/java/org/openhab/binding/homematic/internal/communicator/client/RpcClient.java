@@ -9,6 +9,7 @@
 package org.openhab.binding.homematic.internal.communicator.client;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -168,6 +169,23 @@ public abstract class RpcClient<T> {
         new GetParamsetDescriptionParser(channel, paramsetType).parse(sendMessage(config.getRpcPort(channel), request));
     }
 
+    /**
+     * Loads all datapoint metadata into the given channels. Returns the channels the gateway does not know the
+     * paramset for.
+     */
+    public List<HmChannel> addChannelDatapoints(List<HmChannel> channels, HmParamsetType paramsetType)
+            throws IOException {
+        List<HmChannel> unknownParamsetChannels = new ArrayList<HmChannel>();
+        for (HmChannel channel : channels) {
+            try {
+                addChannelDatapoints(channel, paramsetType);
+            } catch (UnknownParameterSetException ex) {
+                unknownParamsetChannels.add(channel);
+            }
+        }
+        return unknownParamsetChannels;
+    }
+
     /**
      * Sets all datapoint values for the given channel.
      */
@@ -336,7 +354,7 @@ public abstract class RpcClient<T> {
     /**
      * Returns the rpc address from a device address, correctly handling groups.
      */
-    private String getRpcAddress(String address) {
+    protected String getRpcAddress(String address) {
         if (address != null && address.startsWith("T-")) {
             address = "*" + address.substring(2);
         }
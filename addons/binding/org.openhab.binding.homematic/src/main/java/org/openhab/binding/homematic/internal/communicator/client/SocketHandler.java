@@ -11,22 +11,26 @@ package org.openhab.binding.homematic.internal.communicator.client;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Simple socket cache class.
+ * Simple socket pool class, holds up to socketPoolSize connections per port.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 public class SocketHandler {
     private final Logger logger = LoggerFactory.getLogger(SocketHandler.class);
 
-    private Map<Integer, SocketInfo> socketsPerPort = new HashMap<Integer, SocketInfo>();
+    private Map<Integer, SocketPool> socketsPerPort = new HashMap<Integer, SocketPool>();
     private HomematicConfig config;
 
     public SocketHandler(HomematicConfig config) {
@@ -34,40 +38,91 @@ public class SocketHandler {
     }
 
     /**
-     * Returns a socket for the given port, (re)creates it if required.
+     * Borrows a socket for the given port, (re)creates it if required. Waits for a free socket if all sockets of the
+     * port are in use. The socket must be given back with {@link #releaseSocket(int, SocketInfo)} or
+     * {@link #invalidateSocket(int, SocketInfo)}.
      */
-    public Socket getSocket(int port) throws IOException {
-        SocketInfo socketInfo = socketsPerPort.get(port);
-        if (socketInfo == null) {
-            logger.trace("Creating new socket for port {}", port);
-            Socket socket = new Socket();
-            socket.setSoTimeout(config.getTimeout() * 1000);
-            socket.connect(new InetSocketAddress(config.getGatewayAddress(), port), socket.getSoTimeout());
-            socketInfo = new SocketInfo(socket);
-            socketsPerPort.put(port, socketInfo);
-        } else {
-            boolean isMaxAliveReached = System.currentTimeMillis()
-                    - socketInfo.getCreated() > (config.getSocketMaxAlive() * 1000);
-
-            if (isMaxAliveReached) {
+    public SocketInfo getSocket(int port) throws IOException {
+        SocketPool pool = getPool(port);
+        try {
+            if (!pool.permits.tryAcquire(config.getTimeout(), TimeUnit.SECONDS)) {
+                throw new IOException("No free socket available for port " + port);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a socket for port " + port);
+        }
+
+        try {
+            SocketInfo socketInfo;
+            synchronized (pool) {
+                socketInfo = pool.idleSockets.pollFirst();
+            }
+            if (socketInfo != null && isMaxAliveReached(socketInfo)) {
                 logger.debug("Max alive time reached for socket on port {}", port);
-                removeSocket(port);
-                return getSocket(port);
+                closeSilent(socketInfo.getSocket());
+                socketInfo = null;
+            }
+            if (socketInfo == null) {
+                logger.trace("Creating new socket for port {}", port);
+                Socket socket = new Socket();
+                socket.setSoTimeout(config.getTimeout() * 1000);
+                socket.connect(new InetSocketAddress(config.getGatewayAddress(), port), socket.getSoTimeout());
+                socketInfo = new SocketInfo(socket, pool.generation);
+            } else {
+                logger.trace("Returning socket for port {}", port);
             }
-            logger.trace("Returning socket for port {}", port);
+            return socketInfo;
+        } catch (IOException | RuntimeException ex) {
+            pool.permits.release();
+            throw ex;
         }
-        return socketInfo.getSocket();
     }
 
     /**
-     * Removes the socket for the given port from the cache.
+     * Gives a borrowed socket back to the pool of the port.
+     */
+    public void releaseSocket(int port, SocketInfo socketInfo) {
+        SocketPool pool = getPool(port);
+        synchronized (pool) {
+            if (socketInfo.getGeneration() == pool.generation) {
+                pool.idleSockets.addFirst(socketInfo);
+            } else {
+                // the pool has been flushed while the socket was in use
+                closeSilent(socketInfo.getSocket());
+            }
+        }
+        pool.permits.release();
+    }
+
+    /**
+     * Closes a borrowed socket, e.g. after a communication error.
+     */
+    public void invalidateSocket(int port, SocketInfo socketInfo) {
+        logger.trace("Closing Socket on port {}", port);
+        closeSilent(socketInfo.getSocket());
+        getPool(port).permits.release();
+    }
+
+    /**
+     * Removes all sockets for the given port from the cache, sockets in use are closed when they are released.
      */
     public void removeSocket(int port) {
-        SocketInfo socketInfo = socketsPerPort.get(port);
-        if (socketInfo != null) {
-            logger.trace("Closing Socket on port {}", port);
-            socketsPerPort.remove(port);
-            closeSilent(socketInfo.getSocket());
+        SocketPool pool;
+        synchronized (socketsPerPort) {
+            pool = socketsPerPort.get(port);
+        }
+        if (pool != null) {
+            synchronized (pool) {
+                pool.generation++;
+                if (!pool.idleSockets.isEmpty()) {
+                    logger.trace("Closing {} Socket(s) on port {}", pool.idleSockets.size(), port);
+                }
+                for (SocketInfo socketInfo : pool.idleSockets) {
+                    closeSilent(socketInfo.getSocket());
+                }
+                pool.idleSockets.clear();
+            }
         }
     }
 
@@ -75,14 +130,33 @@ public class SocketHandler {
      * Removes all cached sockets.
      */
     public void flush() {
-        synchronized (SocketHandler.class) {
-            Integer[] portsToRemove = socketsPerPort.keySet().toArray(new Integer[0]);
-            for (Integer key : portsToRemove) {
-                removeSocket(key);
+        Integer[] portsToRemove;
+        synchronized (socketsPerPort) {
+            portsToRemove = socketsPerPort.keySet().toArray(new Integer[0]);
+        }
+        for (Integer key : portsToRemove) {
+            removeSocket(key);
+        }
+    }
+
+    /**
+     * Returns the pool for the given port, creates it if required.
+     */
+    private SocketPool getPool(int port) {
+        synchronized (socketsPerPort) {
+            SocketPool pool = socketsPerPort.get(port);
+            if (pool == null) {
+                pool = new SocketPool(Math.max(1, config.getSocketPoolSize()));
+                socketsPerPort.put(port, pool);
             }
+            return pool;
         }
     }
 
+    private boolean isMaxAliveReached(SocketInfo socketInfo) {
+        return System.currentTimeMillis() - socketInfo.getCreated() > (config.getSocketMaxAlive() * 1000);
+    }
+
     /**
      * Silently closes the given socket.
      */
@@ -93,4 +167,17 @@ public class SocketHandler {
             // ignore
         }
     }
+
+    /**
+     * The idle sockets and the number of available sockets of a port.
+     */
+    private static class SocketPool {
+        private final Semaphore permits;
+        private final Deque<SocketInfo> idleSockets = new ArrayDeque<SocketInfo>();
+        private int generation;
+
+        public SocketPool(int size) {
+            permits = new Semaphore(size, true);
+        }
+    }
 }
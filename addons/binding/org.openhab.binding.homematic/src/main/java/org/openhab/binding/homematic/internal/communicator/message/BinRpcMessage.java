@@ -15,41 +15,53 @@ import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Handles BIN-RPC request and response messages to communicate with a Homematic gateway.
+ * <p>
+ * Received messages are read into a per thread buffer and decoded with primitive reads, only the decoded values are
+ * kept. Requests keep their arguments and are encoded into a per thread buffer when the message is created.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     private final Logger logger = LoggerFactory.getLogger(BinRpcMessage.class);
 
+    private static final int HEADER_LENGTH = 8;
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    // larger buffers, e.g. for the listDevices response, are not kept after the message has been decoded
+    private static final int MAX_CACHED_BUFFER_SIZE = 64 * 1024;
+    private static final ThreadLocal<ByteBuffer> BUFFER = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+        }
+    };
+
     public enum TYPE {
         REQUEST,
         RESPONSE;
     }
 
     private Object[] messageData;
-    private byte binRpcData[];
-    private int offset;
+    private List<Object> arguments = new ArrayList<Object>();
+    private ByteBuffer buffer;
 
     private String methodName;
     private TYPE type;
-    private int args;
     private String encoding;
 
     public BinRpcMessage(String methodName, String encoding) {
@@ -63,7 +75,6 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
         this.methodName = methodName;
         this.type = type;
         this.encoding = encoding;
-        createHeader();
     }
 
     /**
@@ -71,25 +82,31 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
      */
     public BinRpcMessage(InputStream is, boolean methodHeader, String encoding) throws IOException {
         this.encoding = encoding;
-        byte sig[] = new byte[8];
-        int length = is.read(sig, 0, 4);
+        ByteBuffer header = getBuffer(HEADER_LENGTH);
+        int length = read(is, header.array(), 0, 4);
         if (length != 4) {
             throw new EOFException("Only " + length + " bytes received reading signature");
         }
-        validateBinXSignature(sig);
-        length = is.read(sig, 4, 4);
+        validateBinXSignature(header.array());
+        length = read(is, header.array(), 4, 4);
         if (length != 4) {
             throw new EOFException("Only " + length + " bytes received reading message length");
         }
-        int datasize = (new BigInteger(ArrayUtils.subarray(sig, 4, 8))).intValue();
-        byte[] message = ArrayUtils.addAll(sig, IOUtils.toByteArray(is, datasize));
-        decodeMessage(message, methodHeader);
-    }
+        int datasize = header.getInt(4);
+        if (datasize < 0) {
+            throw new IOException("Invalid message length " + datasize);
+        }
 
-    private void validateBinXSignature(byte[] sig) throws UnsupportedEncodingException {
-        if (sig[0] != 'B' || sig[1] != 'i' || sig[2] != 'n') {
-            throw new UnsupportedEncodingException("No BinX signature");
+        ByteBuffer message = getBuffer(HEADER_LENGTH + datasize);
+        if (message != header) {
+            System.arraycopy(header.array(), 0, message.array(), 0, HEADER_LENGTH);
         }
+        length = read(is, message.array(), HEADER_LENGTH, datasize);
+        if (length != datasize) {
+            throw new EOFException("Only " + length + " bytes received reading message, expected " + datasize);
+        }
+        message.limit(HEADER_LENGTH + datasize);
+        decodeMessage(message, methodHeader);
     }
 
     /**
@@ -101,46 +118,72 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
             throw new EOFException("Only " + message.length + " bytes received");
         }
         validateBinXSignature(message);
-        decodeMessage(message, methodHeader);
+        decodeMessage(ByteBuffer.wrap(message), methodHeader);
     }
 
-    private void decodeMessage(byte[] message, boolean methodHeader) throws IOException {
-        binRpcData = message;
+    /**
+     * Returns the buffer of the current thread with at least the given capacity.
+     */
+    private static ByteBuffer getBuffer(int capacity) {
+        ByteBuffer buffer = BUFFER.get();
+        if (buffer.capacity() < capacity) {
+            buffer = ByteBuffer.allocate(Math.max(capacity, buffer.capacity() * 2));
+            if (buffer.capacity() <= MAX_CACHED_BUFFER_SIZE) {
+                BUFFER.set(buffer);
+            }
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Reads up to length bytes, returns the number of bytes read before the stream ended.
+     */
+    private static int read(InputStream is, byte[] data, int offset, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int read = is.read(data, offset + total, length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
 
-        offset = 8;
+    private void validateBinXSignature(byte[] sig) throws UnsupportedEncodingException {
+        if (sig[0] != 'B' || sig[1] != 'i' || sig[2] != 'n') {
+            throw new UnsupportedEncodingException("No BinX signature");
+        }
+    }
 
-        if (methodHeader) {
-            methodName = readString();
-            readInt();
+    private void decodeMessage(ByteBuffer message, boolean methodHeader) throws IOException {
+        buffer = message;
+        try {
+            buffer.position(HEADER_LENGTH);
+            if (methodHeader) {
+                methodName = readString();
+                buffer.getInt();
+            }
+            generateResponseData();
+        } catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+            throw new EOFException("Incomplete BIN-RPC message");
+        } finally {
+            buffer = null;
         }
-        generateResponseData();
     }
 
     public void setType(TYPE type) {
-        binRpcData[3] = type == TYPE.RESPONSE ? (byte) 1 : (byte) 0;
+        this.type = type;
     }
 
     private void generateResponseData() throws IOException {
-        offset = 8 + (methodName != null ? methodName.length() + 8 : 0);
+        buffer.position(HEADER_LENGTH + (methodName != null ? methodName.length() + 8 : 0));
         List<Object> values = new ArrayList<Object>();
-        while (offset < binRpcData.length) {
+        while (buffer.hasRemaining()) {
             values.add(readRpcValue());
         }
         messageData = values.toArray();
-        values.clear();
-    }
-
-    private void createHeader() {
-        binRpcData = new byte[256];
-        addString("Bin ");
-        setType(type);
-        addInt(0); // placeholder content length
-        if (methodName != null) {
-            addInt(methodName.length());
-            addString(methodName);
-            addInt(0); // placeholder arguments
-        }
-        setInt(4, offset - 8);
     }
 
     /**
@@ -148,16 +191,14 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
      */
     @Override
     public void addArg(Object argument) {
-        addObject(argument);
-        setInt(4, offset - 8);
-
-        if (methodName != null) {
-            setInt(12 + methodName.length(), ++args);
+        if (argument == null) {
+            throw new NullPointerException("Argument must not be null");
         }
+        arguments.add(argument);
     }
 
     public int getArgCount() {
-        return args;
+        return arguments.size();
     }
 
     @Override
@@ -165,16 +206,29 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
         return methodName;
     }
 
+    /**
+     * Encodes the request with all arguments.
+     */
     @Override
     public byte[] createMessage() {
-        trimBinRpcData();
-        return binRpcData;
-    }
-
-    private void trimBinRpcData() {
-        byte[] trimmed = new byte[offset];
-        System.arraycopy(binRpcData, 0, trimmed, 0, offset);
-        binRpcData = trimmed;
+        buffer = getBuffer(INITIAL_BUFFER_SIZE);
+        try {
+            addString("Bin ");
+            buffer.put(3, type == TYPE.RESPONSE ? (byte) 1 : (byte) 0);
+            addInt(0); // placeholder content length
+            if (methodName != null) {
+                addInt(methodName.length());
+                addString(methodName);
+                addInt(arguments.size());
+            }
+            for (Object argument : arguments) {
+                addObject(argument);
+            }
+            buffer.putInt(4, buffer.position() - HEADER_LENGTH);
+            return Arrays.copyOf(buffer.array(), buffer.position());
+        } finally {
+            buffer = null;
+        }
     }
 
     @Override
@@ -183,46 +237,42 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     }
 
     // read rpc values
-    private int readInt() {
-        byte bi[] = new byte[4];
-        System.arraycopy(binRpcData, offset, bi, 0, 4);
-        offset += 4;
-        return (new BigInteger(bi)).intValue();
-    }
-
     private String readString() throws UnsupportedEncodingException {
-        int len = readInt();
-        offset += len;
-        return new String(binRpcData, offset - len, len, encoding);
+        int len = buffer.getInt();
+        String string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), len, encoding);
+        buffer.position(buffer.position() + len);
+        return string;
     }
 
     private Object readRpcValue() throws IOException {
-        int type = readInt();
+        int type = buffer.getInt();
         switch (type) {
             case 1:
-                return new Integer(readInt());
+                return Integer.valueOf(buffer.getInt());
             case 2:
-                return binRpcData[offset++] != 0 ? Boolean.TRUE : Boolean.FALSE;
+                return buffer.get() != 0 ? Boolean.TRUE : Boolean.FALSE;
             case 3:
                 return readString();
             case 4:
-                int mantissa = readInt();
-                int exponent = readInt();
-                BigDecimal bd = new BigDecimal((double) mantissa / (double) (1 << 30) * Math.pow(2, exponent));
-                return bd.setScale(6, RoundingMode.HALF_DOWN).doubleValue();
+                int mantissa = buffer.getInt();
+                int exponent = buffer.getInt();
+                return readDouble(mantissa, exponent);
             case 5:
-                return new Date(readInt() * 1000);
+                return new Date(buffer.getInt() * 1000);
             case 0x100:
                 // Array
-                int numElements = readInt();
-                Collection<Object> array = new ArrayList<Object>();
-                while (numElements-- > 0) {
-                    array.add(readRpcValue());
+                int numElements = buffer.getInt();
+                if (numElements < 0 || numElements > buffer.remaining()) {
+                    throw new IOException("Invalid array size " + numElements);
                 }
-                return array.toArray();
+                Object[] array = new Object[numElements];
+                for (int i = 0; i < numElements; i++) {
+                    array[i] = readRpcValue();
+                }
+                return array;
             case 0x101:
                 // Struct
-                numElements = readInt();
+                numElements = buffer.getInt();
                 Map<String, Object> struct = new TreeMap<String, Object>();
                 while (numElements-- > 0) {
                     String name = readString();
@@ -231,34 +281,47 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
                 return struct;
 
             default:
-                for (int i = 0; i < binRpcData.length; i++) {
-                    logger.info("{} {}", Integer.toHexString(binRpcData[i]), (char) binRpcData[i]);
+                for (int i = 0; i < buffer.limit(); i++) {
+                    logger.info("{} {}", Integer.toHexString(buffer.get(i)), (char) buffer.get(i));
                 }
                 throw new IOException("Unknown data type " + type);
         }
     }
 
-    private void setInt(int position, int value) {
-        int temp = offset;
-        offset = position;
-        addInt(value);
-        offset = temp;
+    /**
+     * Decodes a double value, rounded to six decimal places.
+     */
+    private double readDouble(int mantissa, int exponent) {
+        double value = (double) mantissa / (double) (1 << 30) * Math.pow(2, exponent);
+        // a value with at most six binary decimal places has at most six decimal places, no rounding required
+        double scaled = value * 64;
+        if (scaled == Math.rint(scaled)) {
+            return value;
+        }
+        return new BigDecimal(value).setScale(6, RoundingMode.HALF_DOWN).doubleValue();
     }
 
-    private void addByte(byte b) {
-        if (offset == binRpcData.length) {
-            byte newdata[] = new byte[binRpcData.length * 2];
-            System.arraycopy(binRpcData, 0, newdata, 0, binRpcData.length);
-            binRpcData = newdata;
+    // write rpc values
+    private void ensureCapacity(int length) {
+        if (buffer.remaining() < length) {
+            ByteBuffer newBuffer = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + length));
+            buffer.flip();
+            newBuffer.put(buffer);
+            buffer = newBuffer;
+            if (buffer.capacity() <= MAX_CACHED_BUFFER_SIZE) {
+                BUFFER.set(buffer);
+            }
         }
-        binRpcData[offset++] = b;
+    }
+
+    private void addByte(byte b) {
+        ensureCapacity(1);
+        buffer.put(b);
     }
 
     private void addInt(int value) {
-        addByte((byte) (value >> 24));
-        addByte((byte) (value >> 16));
-        addByte((byte) (value >> 8));
-        addByte((byte) (value));
+        ensureCapacity(4);
+        buffer.putInt(value);
     }
 
     private void addDouble(double value) {
@@ -290,9 +353,8 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
         } catch (UnsupportedEncodingException use) {
             sd = string.getBytes();
         }
-        for (byte ch : sd) {
-            addByte(ch);
-        }
+        ensureCapacity(sd.length);
+        buffer.put(sd);
     }
 
     private void addList(Collection<?> collection) {
@@ -343,7 +405,7 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
                 if (key != null) {
                     addInt(key.length());
                     addString(key);
-                    addList(Collections.singleton(entry.getValue()));
+                    addObject(entry.getValue());
                 }
             }
         }
@@ -356,8 +418,11 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     @Override
     public String toString() {
         try {
-            trimBinRpcData();
-            generateResponseData();
+            if (messageData == null || !arguments.isEmpty()) {
+                // a request, dump the data as it is sent to the gateway
+                BinRpcMessage message = new BinRpcMessage(createMessage(), methodName != null, encoding);
+                return RpcUtils.dumpRpcMessage(methodName, message.getResponseData());
+            }
             return RpcUtils.dumpRpcMessage(methodName, messageData);
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage(), e);
@@ -14,6 +14,7 @@ import java.util.Map;
 import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.homematic.internal.communicator.client.UnknownParameterSetException;
 import org.openhab.binding.homematic.internal.communicator.client.UnknownRpcFailureException;
+import org.openhab.binding.homematic.internal.communicator.client.UnknownRpcMethodException;
 import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
 
 /**
@@ -22,6 +23,9 @@ import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
  * @author Gerhard Riegler - Initial contribution
  */
 public class RpcResponseParser extends CommonRpcParser<Object[], Object[]> {
+    // XML-RPC fault code of the specification for server errors, if the requested method is not found
+    private static final int FAULT_CODE_METHOD_NOT_FOUND = -32601;
+
     private RpcRequest<?> request;
 
     public RpcResponseParser(RpcRequest<?> request) {
@@ -43,6 +47,8 @@ public class RpcResponseParser extends CommonRpcParser<Object[], Object[]> {
                         throw new UnknownRpcFailureException(faultMessage);
                     } else if (faultCode.intValue() == -3 && StringUtils.equals("Unknown paramset", faultString)) {
                         throw new UnknownParameterSetException(faultMessage);
+                    } else if (isUnknownMethod(faultCode, faultString)) {
+                        throw new UnknownRpcMethodException(faultMessage);
                     }
                     throw new IOException(faultMessage);
                 }
@@ -51,4 +57,16 @@ public class RpcResponseParser extends CommonRpcParser<Object[], Object[]> {
         }
         throw new IOException("Unknown Result: " + message);
     }
+
+    /**
+     * Returns true if the fault reports a method, that is not known by the server.
+     */
+    private boolean isUnknownMethod(Number faultCode, String faultString) {
+        if (faultCode.intValue() == FAULT_CODE_METHOD_NOT_FOUND) {
+            return true;
+        }
+        String fault = StringUtils.lowerCase(faultString);
+        return StringUtils.contains(fault, "unknown method") || StringUtils.contains(fault, "method not found")
+                || StringUtils.contains(fault, "no such method");
+    }
 }
@@ -11,8 +11,10 @@ package org.openhab.binding.homematic.internal.misc;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.openhab.binding.homematic.internal.model.HmDatapointInfo;
 import org.slf4j.Logger;
@@ -20,13 +22,25 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Executes a callback method either immediately or after a given delay for a datapoint.
+ * <p>
+ * All delayed callbacks are scheduled on a shared scheduler. If a new callback for a datapoint is started while
+ * the previous one is still pending, the pending callback is dropped and the delay starts again, so only the
+ * latest value of a datapoint is executed.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 public class DelayedExecuter {
     private final Logger logger = LoggerFactory.getLogger(DelayedExecuter.class);
 
-    private Map<HmDatapointInfo, Timer> delayedEvents = new HashMap<HmDatapointInfo, Timer>();
+    private final ScheduledExecutorService scheduler;
+    private final Map<HmDatapointInfo, DelayedEvent> delayedEvents = new HashMap<>();
+
+    private final AtomicLong executedEvents = new AtomicLong();
+    private final AtomicLong coalescedEvents = new AtomicLong();
+
+    public DelayedExecuter(ScheduledExecutorService scheduler) {
+        this.scheduler = scheduler;
+    }
 
     /**
      * Executes a callback method either immediately or after a given delay.
@@ -34,42 +48,84 @@ public class DelayedExecuter {
     public void start(final HmDatapointInfo dpInfo, final double delay, final DelayedExecuterCallback callback)
             throws IOException, HomematicClientException {
         if (delay > 0.0) {
-            synchronized (DelayedExecuter.class) {
+            synchronized (delayedEvents) {
                 logger.debug("Delaying event for {} seconds: '{}'", delay, dpInfo);
 
-                Timer timer = delayedEvents.get(dpInfo);
-                if (timer != null) {
-                    timer.cancel();
+                DelayedEvent pendingEvent = delayedEvents.get(dpInfo);
+                if (pendingEvent != null && pendingEvent.future.cancel(false)) {
+                    coalescedEvents.incrementAndGet();
                 }
 
-                timer = new Timer();
-                delayedEvents.put(dpInfo, timer);
-                timer.schedule(new TimerTask() {
-                    @Override
-                    public void run() {
-                        logger.debug("Executing delayed event for '{}'", dpInfo);
-                        delayedEvents.remove(dpInfo);
-                        try {
-                            callback.execute();
-                        } catch (Exception ex) {
-                            logger.error("{}", ex.getMessage(), ex);
-                        }
-                    }
-                }, (long) (delay * 1000));
+                DelayedEvent event = new DelayedEvent(dpInfo, callback);
+                event.future = scheduler.schedule(event, (long) (delay * 1000), TimeUnit.MILLISECONDS);
+                delayedEvents.put(dpInfo, event);
             }
         } else {
             callback.execute();
         }
     }
 
+    /**
+     * A scheduled callback of a datapoint.
+     */
+    private class DelayedEvent implements Runnable {
+        private final HmDatapointInfo dpInfo;
+        private final DelayedExecuterCallback callback;
+        private ScheduledFuture<?> future;
+
+        public DelayedEvent(HmDatapointInfo dpInfo, DelayedExecuterCallback callback) {
+            this.dpInfo = dpInfo;
+            this.callback = callback;
+        }
+
+        @Override
+        public void run() {
+            logger.debug("Executing delayed event for '{}'", dpInfo);
+            synchronized (delayedEvents) {
+                delayedEvents.remove(dpInfo, this);
+            }
+            executedEvents.incrementAndGet();
+            try {
+                callback.execute();
+            } catch (Exception ex) {
+                logger.error("{}", ex.getMessage(), ex);
+            }
+        }
+    }
+
     /**
      * Stops all delayed events.
      */
     public void stop() {
-        for (Timer timer : delayedEvents.values()) {
-            timer.cancel();
+        synchronized (delayedEvents) {
+            for (DelayedEvent pendingEvent : delayedEvents.values()) {
+                pendingEvent.future.cancel(false);
+            }
+            delayedEvents.clear();
         }
-        delayedEvents.clear();
+    }
+
+    /**
+     * Returns the number of delayed events waiting for execution.
+     */
+    public int getPendingCount() {
+        synchronized (delayedEvents) {
+            return delayedEvents.size();
+        }
+    }
+
+    /**
+     * Returns the number of delayed events that have been executed.
+     */
+    public long getExecutedCount() {
+        return executedEvents.get();
+    }
+
+    /**
+     * Returns the number of delayed events that have been replaced by a newer value before execution.
+     */
+    public long getCoalescedCount() {
+        return coalescedEvents.get();
     }
 
     /**
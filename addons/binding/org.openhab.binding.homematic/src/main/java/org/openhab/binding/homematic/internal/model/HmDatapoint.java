@@ -8,6 +8,8 @@
  */
 package org.openhab.binding.homematic.internal.model;
 
+import java.io.Serializable;
+
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
@@ -18,13 +20,15 @@ import org.openhab.binding.homematic.internal.misc.MiscUtils;
  *
  * @author Gerhard Riegler - Initial contribution
  */
-public class HmDatapoint implements Cloneable {
+public class HmDatapoint implements Cloneable, Serializable {
+    private static final long serialVersionUID = 1L;
 
-    private HmChannel channel;
+    // only the metadata is serialized
+    private transient HmChannel channel;
     private String name;
     private String description;
-    private Object value;
-    private Object previousValue;
+    private transient Object value;
+    private transient Object previousValue;
     private Object defaultValue;
     private HmValueType type;
     private HmParamsetType paramsetType;
@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.jeelink.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.jeelink.internal.lacrosse.LaCrosseTemperatureReading;
+import org.openhab.binding.jeelink.internal.lacrosse.LaCrosseTemperatureReadingConverter;
+
+/**
+ * Tests cases for {@link ReadingDispatcher}.
+ *
+ * @author agent - Initial contribution
+ */
+public class ReadingDispatcherTest {
+    private static final String LACROSSE = "LaCrosseITPlusReader";
+    private static final String OTHER = "OtherReader";
+
+    private static class RecordingHandler implements ReadingHandler<Reading> {
+        private final String sketchName;
+        private final String sensorId;
+        private final List<Reading> readings = new ArrayList<>();
+
+        RecordingHandler(String sketchName, String sensorId) {
+            this.sketchName = sketchName;
+            this.sensorId = sensorId;
+        }
+
+        @Override
+        public void handleReading(Reading r) {
+            readings.add(r);
+        }
+
+        @Override
+        public String getSketchName() {
+            return sketchName;
+        }
+
+        @Override
+        public String getSensorId() {
+            return sensorId;
+        }
+    }
+
+    private static class CountingConverter implements JeeLinkReadingConverter<Reading> {
+        private int createdReadings;
+
+        @Override
+        public Reading createReading(String inputLine) {
+            createdReadings++;
+            return () -> inputLine.substring(getLinePrefix().length());
+        }
+
+        @Override
+        public String getSketchName() {
+            return OTHER;
+        }
+
+        @Override
+        public String getLinePrefix() {
+            return "OK 22 ";
+        }
+    }
+
+    private ReadingDispatcher dispatcher;
+    private CountingConverter otherConverter;
+
+    @Before
+    public void setUp() {
+        dispatcher = new ReadingDispatcher();
+        otherConverter = new CountingConverter();
+        dispatcher.setConverters(Arrays.asList(new LaCrosseTemperatureReadingConverter(), otherConverter));
+    }
+
+    @Test
+    public void readingsAreDispatchedBySensorId() {
+        RecordingHandler sensor56 = new RecordingHandler(LACROSSE, "56");
+        RecordingHandler sensor49 = new RecordingHandler(LACROSSE, "49");
+        RecordingHandler allSensors = new RecordingHandler(LACROSSE, null);
+        dispatcher.addReadingHandler(sensor56);
+        dispatcher.addReadingHandler(sensor49);
+        dispatcher.addReadingHandler(allSensors);
+
+        Reading reading = dispatcher.dispatch("OK 9 56 1 4 156 37");
+        assertEquals("56", reading.getSensorId());
+        assertEquals(18.0, ((LaCrosseTemperatureReading) reading).getTemperature(), 0.001);
+        assertEquals(37, ((LaCrosseTemperatureReading) reading).getHumidity());
+
+        dispatcher.dispatch("OK 9 57 1 4 182 54");
+
+        assertEquals(Arrays.asList(reading), sensor56.readings);
+        assertTrue(sensor49.readings.isEmpty());
+        assertEquals(2, allSensors.readings.size());
+        assertEquals("57", allSensors.readings.get(1).getSensorId());
+    }
+
+    @Test
+    public void linesAreOnlyParsedByConverterWithMatchingPrefix() {
+        RecordingHandler lacrosse = new RecordingHandler(LACROSSE, null);
+        RecordingHandler other = new RecordingHandler(OTHER, "1");
+        dispatcher.addReadingHandler(lacrosse);
+        dispatcher.addReadingHandler(other);
+
+        dispatcher.dispatch("OK 9 56 1 4 156 37");
+        assertEquals(0, otherConverter.createdReadings);
+        assertEquals(1, lacrosse.readings.size());
+
+        dispatcher.dispatch("OK 22 1");
+        assertEquals(1, otherConverter.createdReadings);
+        assertEquals(1, other.readings.size());
+        assertEquals(1, lacrosse.readings.size());
+    }
+
+    @Test
+    public void unparsableLinesAreIgnored() {
+        RecordingHandler lacrosse = new RecordingHandler(LACROSSE, null);
+        dispatcher.addReadingHandler(lacrosse);
+
+        assertNull(dispatcher.dispatch("OK 9 56 1 4"));
+        assertNull(dispatcher.dispatch("[LaCrosseITPlusReader.10.1s (RFM69CW f:868300 r:17241)]"));
+        assertNull(dispatcher.dispatch(""));
+        assertTrue(lacrosse.readings.isEmpty());
+    }
+
+    @Test
+    public void convertersWithoutHandlersAreNotUsed() {
+        dispatcher.addReadingHandler(new RecordingHandler(LACROSSE, null));
+        dispatcher.addReadingHandler(new RecordingHandler("UnknownReader", null));
+
+        assertNull(dispatcher.dispatch("OK 22 1"));
+        assertEquals(0, otherConverter.createdReadings);
+    }
+
+    @Test
+    public void removedHandlersDoNotReceiveReadings() {
+        RecordingHandler sensor56 = new RecordingHandler(LACROSSE, "56");
+        dispatcher.addReadingHandler(sensor56);
+        dispatcher.addReadingHandler(sensor56);
+
+        dispatcher.dispatch("OK 9 56 1 4 156 37");
+        assertEquals(1, sensor56.readings.size());
+
+        dispatcher.removeReadingHandler(sensor56);
+        assertNull(dispatcher.dispatch("OK 9 56 1 4 156 37"));
+        assertEquals(1, sensor56.readings.size());
+    }
+
+    @Test
+    public void handlersAddedBeforeConvertersAreDispatchedTo() {
+        ReadingDispatcher dispatcher = new ReadingDispatcher();
+        RecordingHandler sensor56 = new RecordingHandler(LACROSSE, "56");
+        dispatcher.addReadingHandler(sensor56);
+        assertNull(dispatcher.dispatch("OK 9 56 1 4 156 37"));
+
+        dispatcher.setConverters(Arrays.asList(new LaCrosseTemperatureReadingConverter()));
+        dispatcher.dispatch("OK 9 56 1 4 156 37");
+        assertEquals(1, sensor56.readings.size());
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.jeelink.internal;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.openhab.binding.jeelink.internal.lacrosse.LaCrosseRollingReadingAverage;
+import org.openhab.binding.jeelink.internal.lacrosse.LaCrosseTemperatureReading;
+
+/**
+ * Tests cases for {@link RollingReadingAverage}.
+ *
+ * @author agent - Initial contribution
+ */
+public class RollingReadingAverageTest {
+
+    private static LaCrosseTemperatureReading reading(float temperature, int humidity, boolean batteryLow) {
+        return new LaCrosseTemperatureReading(56, 1, temperature, humidity, false, batteryLow);
+    }
+
+    @Test
+    public void noAverageWithoutReadings() {
+        assertNull(new LaCrosseRollingReadingAverage(3).getAverage());
+    }
+
+    @Test
+    public void averageOfPartiallyFilledBuffer() {
+        LaCrosseRollingReadingAverage average = new LaCrosseRollingReadingAverage(4);
+        average.add(reading(20.0f, 40, false));
+        average.add(reading(21.0f, 50, false));
+
+        LaCrosseTemperatureReading result = average.getAverage();
+        assertEquals(20.5f, result.getTemperature(), 0.0001f);
+        assertEquals(45, result.getHumidity());
+    }
+
+    @Test
+    public void oldestReadingsAreReplaced() {
+        LaCrosseRollingReadingAverage average = new LaCrosseRollingReadingAverage(3);
+        average.add(reading(10.0f, 10, false));
+        average.add(reading(20.0f, 20, false));
+        average.add(reading(30.0f, 30, false));
+        average.add(reading(40.0f, 40, false));
+        average.add(reading(50.0f, 50, false));
+
+        LaCrosseTemperatureReading result = average.getAverage();
+        assertEquals(40.0f, result.getTemperature(), 0.0001f);
+        assertEquals(40, result.getHumidity());
+    }
+
+    @Test
+    public void otherValuesAreTakenFromLatestReading() {
+        LaCrosseRollingReadingAverage average = new LaCrosseRollingReadingAverage(3);
+        average.add(reading(20.0f, 40, false));
+        average.add(reading(22.0f, 40, true));
+
+        LaCrosseTemperatureReading result = average.getAverage();
+        assertEquals("56", result.getSensorId());
+        assertTrue(result.isBatteryLow());
+    }
+
+    @Test
+    public void roundingErrorsDoNotAccumulate() {
+        LaCrosseRollingReadingAverage average = new LaCrosseRollingReadingAverage(5);
+        for (int i = 0; i < 100000; i++) {
+            average.add(reading(i % 2 == 0 ? 1e6f : 0.1f, 50, false));
+        }
+        for (int i = 0; i < 5; i++) {
+            average.add(reading(21.3f, 50, false));
+        }
+
+        assertEquals(21.3f, average.getAverage().getTemperature(), 0.0001f);
+    }
+}
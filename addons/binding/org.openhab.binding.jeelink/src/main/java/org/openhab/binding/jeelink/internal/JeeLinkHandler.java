@@ -8,10 +8,6 @@
  */
 package org.openhab.binding.jeelink.internal;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -39,8 +35,7 @@ public class JeeLinkHandler extends BaseBridgeHandler implements BridgeHandler,
     private final Logger logger = LoggerFactory.getLogger(JeeLinkHandler.class);
 
     private JeeLinkConnection connection;
-    private Map<String, JeeLinkReadingConverter> converters = new HashMap<>();
-    private Map<JeeLinkReadingConverter, List<ReadingHandler>> convSensorMap = new HashMap<>();
+    private final ReadingDispatcher dispatcher = new ReadingDispatcher();
 
     private AtomicBoolean connectionInitialized = new AtomicBoolean(false);
     private ScheduledFuture<?> connectJob;
@@ -54,9 +49,7 @@ public class JeeLinkHandler extends BaseBridgeHandler implements BridgeHandler,
         JeeLinkConfig cfg = getConfig().as(JeeLinkConfig.class);
 
         try {
-            for (JeeLinkReadingConverter c : SensorDefinition.createConverters(this)) {
-                converters.put(c.getSketchName(), c);
-            }
+            dispatcher.setConverters(SensorDefinition.createConverters(this));
 
             connection = AbstractJeeLinkConnection.createFor(cfg, scheduler, this);
             connection.openConnection();
@@ -83,32 +76,11 @@ public class JeeLinkHandler extends BaseBridgeHandler implements BridgeHandler,
     }
 
     public void addReadingHandler(ReadingHandler h) {
-        synchronized (convSensorMap) {
-            JeeLinkReadingConverter c = converters.get(h.getSketchName());
-            List<ReadingHandler> handlers = convSensorMap.get(c);
-            if (handlers == null) {
-                handlers = new ArrayList<>();
-                convSensorMap.put(c, handlers);
-            }
-
-            if (!handlers.contains(h)) {
-                handlers.add(h);
-            }
-        }
+        dispatcher.addReadingHandler(h);
     }
 
     public void removeReadingHandler(ReadingHandler h) {
-        synchronized (convSensorMap) {
-            JeeLinkReadingConverter c = converters.get(h.getSketchName());
-            List<ReadingHandler> handlers = convSensorMap.get(c);
-            if (handlers != null) {
-                handlers.remove(h);
-
-                if (handlers.isEmpty()) {
-                    convSensorMap.remove(c);
-                }
-            }
-        }
+        dispatcher.removeReadingHandler(h);
     }
 
     @Override
@@ -117,24 +89,18 @@ public class JeeLinkHandler extends BaseBridgeHandler implements BridgeHandler,
 
     @Override
     public void handleInput(String input) {
-        synchronized (convSensorMap) {
-            for (JeeLinkReadingConverter c : convSensorMap.keySet()) {
-                Reading r = c.createReading(input);
-                if (r != null) {
-                    if (!connectionInitialized.getAndSet(true)) {
-                        JeeLinkConfig cfg = getConfig().as(JeeLinkConfig.class);
-
-                        String initCommands = cfg.initCommands;
-                        if (initCommands != null && !initCommands.trim().isEmpty()) {
-                            logger.debug("Sending init commands for port {}: {}", connection.getPort(), initCommands);
-                            connection.sendInitCommands(initCommands);
-                        }
-                    }
-
-                    for (ReadingHandler h : convSensorMap.get(c)) {
-                        h.handleReading(r);
-                    }
-                }
+        if (input == null) {
+            return;
+        }
+
+        Reading r = dispatcher.dispatch(input);
+        if (r != null && !connectionInitialized.getAndSet(true)) {
+            JeeLinkConfig cfg = getConfig().as(JeeLinkConfig.class);
+
+            String initCommands = cfg.initCommands;
+            if (initCommands != null && !initCommands.trim().isEmpty()) {
+                logger.debug("Sending init commands for port {}: {}", connection.getPort(), initCommands);
+                connection.sendInitCommands(initCommands);
             }
         }
     }
@@ -17,4 +17,9 @@ public interface JeeLinkReadingConverter<R extends Reading> {
     public R createReading(String inputLine);
 
     public String getSketchName();
+
+    /**
+     * @return the start of all input lines this converter can create a reading of.
+     */
+    public String getLinePrefix();
 }
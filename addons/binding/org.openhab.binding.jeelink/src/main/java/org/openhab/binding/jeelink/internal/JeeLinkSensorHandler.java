@@ -47,18 +47,23 @@ public abstract class JeeLinkSensorHandler<R extends Reading> extends BaseThingH
         }
     }
 
+    @Override
+    public String getSensorId() {
+        return id;
+    }
+
     @Override
     public synchronized void handleCommand(ChannelUID channelUid, Command command) {
     }
 
     @Override
     public synchronized void initialize() {
-        JeeLinkHandler jlh = (JeeLinkHandler) getBridge().getHandler();
-        jlh.addReadingHandler(this);
-
         JeeLinkSensorConfig cfg = getConfigAs(JeeLinkSensorConfig.class);
         id = cfg.sensorId;
 
+        JeeLinkHandler jlh = (JeeLinkHandler) getBridge().getHandler();
+        jlh.addReadingHandler(this);
+
         statusUpdateJob = createStatusUpdateJob(scheduler, cfg.sensorTimeout);
 
         publisher = createPublisher();
@@ -68,11 +73,11 @@ public abstract class JeeLinkSensorHandler<R extends Reading> extends BaseThingH
 
     @Override
     public synchronized void dispose() {
-        id = null;
-
         JeeLinkHandler jlh = (JeeLinkHandler) getBridge().getHandler();
         jlh.removeReadingHandler(this);
 
+        id = null;
+
         if (statusUpdateJob != null) {
             statusUpdateJob.cancel(true);
             statusUpdateJob = null;
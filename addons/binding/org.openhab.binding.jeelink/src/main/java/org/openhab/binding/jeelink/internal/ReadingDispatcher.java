@@ -0,0 +1,99 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.jeelink.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dispatches input lines of a JeeLink USB Receiver to the handlers of the sensor they contain a reading of.
+ *
+ * An input line is only parsed by the converter whose line prefix it starts with. The handlers are kept in a map by
+ * converter and sensor ID, handlers for all sensors are stored with a null ID. The map is replaced when handlers are
+ * added or removed, so input is dispatched without locking.
+ *
+ * @author agent - Initial contribution
+ */
+class ReadingDispatcher {
+    private final Map<String, JeeLinkReadingConverter> converters = new HashMap<>();
+    private final List<ReadingHandler> readingHandlers = new ArrayList<>();
+    private volatile Map<JeeLinkReadingConverter, Map<String, List<ReadingHandler>>> convSensorMap = Collections
+            .emptyMap();
+
+    public synchronized void setConverters(Collection<JeeLinkReadingConverter<?>> newConverters) {
+        converters.clear();
+        for (JeeLinkReadingConverter c : newConverters) {
+            converters.put(c.getSketchName(), c);
+        }
+        updateConvSensorMap();
+    }
+
+    public synchronized void addReadingHandler(ReadingHandler h) {
+        if (!readingHandlers.contains(h)) {
+            readingHandlers.add(h);
+            updateConvSensorMap();
+        }
+    }
+
+    public synchronized void removeReadingHandler(ReadingHandler h) {
+        if (readingHandlers.remove(h)) {
+            updateConvSensorMap();
+        }
+    }
+
+    private void updateConvSensorMap() {
+        Map<JeeLinkReadingConverter, Map<String, List<ReadingHandler>>> newMap = new HashMap<>();
+        for (ReadingHandler h : readingHandlers) {
+            JeeLinkReadingConverter c = converters.get(h.getSketchName());
+            if (c != null) {
+                newMap.computeIfAbsent(c, k -> new HashMap<>()).computeIfAbsent(h.getSensorId(), k -> new ArrayList<>())
+                        .add(h);
+            }
+        }
+        convSensorMap = newMap;
+    }
+
+    /**
+     * Creates a reading of the input line and passes it to the handlers of its sensor and to the handlers of all
+     * sensors.
+     *
+     * @return the reading or null if no converter with handlers could create a reading of the input line.
+     */
+    @SuppressWarnings("unchecked")
+    public Reading dispatch(String input) {
+        for (Map.Entry<JeeLinkReadingConverter, Map<String, List<ReadingHandler>>> e : convSensorMap.entrySet()) {
+            JeeLinkReadingConverter c = e.getKey();
+            if (!input.startsWith(c.getLinePrefix())) {
+                continue;
+            }
+
+            Reading r = c.createReading(input);
+            if (r != null) {
+                Map<String, List<ReadingHandler>> sensorHandlers = e.getValue();
+                handleReading(sensorHandlers.get(r.getSensorId()), r);
+                handleReading(sensorHandlers.get(null), r);
+            }
+            return r;
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void handleReading(List<ReadingHandler> handlers, Reading r) {
+        if (handlers != null) {
+            for (ReadingHandler h : handlers) {
+                h.handleReading(r);
+            }
+        }
+    }
+}
@@ -17,4 +17,9 @@ public interface ReadingHandler<R extends Reading> {
     public void handleReading(R r);
 
     public String getSketchName();
+
+    /**
+     * @return the ID of the sensor whose readings are handled or null to handle the readings of all sensors.
+     */
+    public String getSensorId();
 }
@@ -11,48 +11,82 @@ package org.openhab.binding.jeelink.internal;
 /**
  * Computes a rolling average of readings.
  *
+ * The averaged values of the readings are kept in a primitive ring buffer together with their running totals, so no
+ * objects are created when a reading is added. The average reading is only created when it is requested.
+ *
  * @author Volker Bier - Initial contribution
  */
 public abstract class RollingReadingAverage<R extends Reading> {
+    private final int maxSize;
+    private final int valueCount;
+    private final float[] samples;
+    private final double[] totals;
     private int size = 0;
-    private int maxSize;
-    private R total = null;
     private int index = 0;
-    private R[] samples;
+    private R latest = null;
 
-    public RollingReadingAverage(R[] array) {
-        maxSize = array.length;
-        samples = array;
+    /**
+     * @param bufferSize the number of readings that are averaged
+     * @param valueCount the number of averaged values of each reading
+     */
+    public RollingReadingAverage(int bufferSize, int valueCount) {
+        maxSize = bufferSize;
+        this.valueCount = valueCount;
+        samples = new float[bufferSize * valueCount];
+        totals = new double[valueCount];
     }
 
-    public void add(R reading) {
+    public synchronized void add(R reading) {
         if (size < maxSize) {
             size++;
         }
 
-        if (total == null) {
-            total = reading;
-        } else {
-            total = add(total, reading);
-            total = substract(total, samples[index]);
+        int offset = index * valueCount;
+        for (int i = 0; i < valueCount; i++) {
+            float value = getValue(reading, i);
+            totals[i] += value - samples[offset + i];
+            samples[offset + i] = value;
         }
+        latest = reading;
 
-        samples[index] = reading;
         if (++index == maxSize) {
             index = 0;
+            recalculateTotals();
         }
     }
 
-    public R getAverage() {
-        if (total == null) {
+    public synchronized R getAverage() {
+        if (latest == null) {
             return null;
         }
-        return divide(total, size);
+
+        float[] averages = new float[valueCount];
+        for (int i = 0; i < valueCount; i++) {
+            averages[i] = (float) (totals[i] / size);
+        }
+        return createAverage(latest, averages);
     }
 
-    protected abstract R add(R value1, R value2);
+    /**
+     * Recalculates the totals once per round through the buffer, so rounding errors of the subtractions do not add up.
+     */
+    private void recalculateTotals() {
+        for (int i = 0; i < valueCount; i++) {
+            double total = 0;
+            for (int offset = i; offset < samples.length; offset += valueCount) {
+                total += samples[offset];
+            }
+            totals[i] = total;
+        }
+    }
 
-    protected abstract R substract(R from, R value);
+    /**
+     * @return the averaged value with the given index of the reading
+     */
+    protected abstract float getValue(R reading, int valueIndex);
 
-    protected abstract R divide(R value, int count);
+    /**
+     * @return a reading with the averaged values and the other values of the latest reading
+     */
+    protected abstract R createAverage(R latest, float[] averages);
 }
@@ -99,6 +99,11 @@ public class SensorDiscoveryService extends AbstractDiscoveryService {
             return sketchName;
         }
 
+        @Override
+        public String getSensorId() {
+            return null;
+        }
+
         @Override
         public void handleReading(Reading reading) {
             if (capture.get()) {
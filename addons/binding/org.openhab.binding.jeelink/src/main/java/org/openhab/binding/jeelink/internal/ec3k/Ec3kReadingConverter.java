@@ -29,6 +29,11 @@ public class Ec3kReadingConverter implements JeeLinkReadingConverter<Ec3kReading
         return "ec3kSerial";
     }
 
+    @Override
+    public String getLinePrefix() {
+        return "OK 22 ";
+    }
+
     @Override
     public Ec3kReading createReading(String inputLine) {
         if (inputLine != null) {
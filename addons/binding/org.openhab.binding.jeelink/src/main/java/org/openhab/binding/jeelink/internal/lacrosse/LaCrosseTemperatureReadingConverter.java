@@ -31,6 +31,11 @@ public class LaCrosseTemperatureReadingConverter implements JeeLinkReadingConver
         return "LaCrosseITPlusReader";
     }
 
+    @Override
+    public String getLinePrefix() {
+        return "OK 9 ";
+    }
+
     @Override
     public LaCrosseTemperatureReading createReading(String inputLine) {
         // parse lines only if we have registered listeners
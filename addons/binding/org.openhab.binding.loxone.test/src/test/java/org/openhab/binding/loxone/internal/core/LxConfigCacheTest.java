@@ -0,0 +1,85 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.loxone.internal.core;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests cases for {@link LxConfigCache}.
+ *
+ * @author agent - Initial contribution
+ */
+public class LxConfigCacheTest {
+    private static final String STRUCTURE = "{\"lastModified\":\"2017-06-01 10:00:00\",\n"
+            + "\"msInfo\":{\"msName\":\"Ä\"}}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void loadsSavedStructureOfSameVersion() {
+        new LxConfigCache(folder.getRoot(), "504F94A0BEEF", "admin").save("2017-06-01 10:00:00", STRUCTURE);
+
+        LxConfigCache cache = new LxConfigCache(folder.getRoot(), "504F94A0BEEF", "admin");
+        assertEquals(STRUCTURE, cache.load("2017-06-01 10:00:00"));
+    }
+
+    @Test
+    public void ignoresStructureOfOtherVersion() {
+        LxConfigCache cache = new LxConfigCache(folder.getRoot(), "504F94A0BEEF", "admin");
+        cache.save("2017-06-01 10:00:00", STRUCTURE);
+
+        assertNull(cache.load("2017-06-02 08:30:00"));
+        assertNull(cache.load(null));
+    }
+
+    @Test
+    public void newerSaveReplacesCachedStructure() {
+        LxConfigCache cache = new LxConfigCache(folder.getRoot(), "504F94A0BEEF", "admin");
+        cache.save("1", STRUCTURE);
+        cache.save("2", "{}");
+
+        assertNull(cache.load("1"));
+        assertEquals("{}", cache.load("2"));
+        assertArrayEquals(new String[] { "504F94A0BEEF_61646d696e.json" }, folder.getRoot().list());
+    }
+
+    @Test
+    public void missingCacheReturnsNull() {
+        LxConfigCache cache = new LxConfigCache(new File(folder.getRoot(), "loxone"), "504F94A0BEEF", "admin");
+        assertNull(cache.load("2017-06-01 10:00:00"));
+    }
+
+    @Test
+    public void miniserverIdIsSanitizedForFileName() {
+        LxConfigCache cache = new LxConfigCache(folder.getRoot(), "../192.168.1.10:80", "admin");
+        cache.save("1", STRUCTURE);
+
+        assertArrayEquals(new String[] { ".._192.168.1.10_80_61646d696e.json" }, folder.getRoot().list());
+        assertEquals(STRUCTURE, cache.load("1"));
+    }
+
+    @Test
+    public void usersHaveTheirOwnStructure() {
+        new LxConfigCache(folder.getRoot(), "504F94A0BEEF", "admin").save("1", STRUCTURE);
+        new LxConfigCache(folder.getRoot(), "504F94A0BEEF", "guest").save("1", "{}");
+
+        assertEquals(STRUCTURE, new LxConfigCache(folder.getRoot(), "504F94A0BEEF", "admin").load("1"));
+        assertEquals("{}", new LxConfigCache(folder.getRoot(), "504F94A0BEEF", "guest").load("1"));
+        // Users that only differ in characters that are not allowed in file names
+        new LxConfigCache(folder.getRoot(), "504F94A0BEEF", "gue_t").save("1", STRUCTURE);
+        assertNull(new LxConfigCache(folder.getRoot(), "504F94A0BEEF", "gue/t").load("1"));
+    }
+}
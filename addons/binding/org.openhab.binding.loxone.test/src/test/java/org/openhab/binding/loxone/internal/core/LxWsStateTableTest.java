@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.loxone.internal.core;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for the decoding of binary state updates by {@link LxWsStateTable} and their lookup in
+ * {@link LxStateIndex}.
+ *
+ * @author agent - Initial contribution
+ */
+public class LxWsStateTableTest {
+    private static final String TEMPERATURE = "0f3f63f5-02b1-1d6c-ffff403fb0c34b9e";
+    private static final String SWITCH = "10d2a8c1-0123-4567-89abcdef01234567";
+
+    /**
+     * Writes an UUID in the binary form of the Miniserver, first three fields in little endian order.
+     */
+    private static void putUuid(ByteBuffer buffer, String uuid) {
+        String hex = uuid.replace("-", "");
+        buffer.putInt((int) Long.parseLong(hex.substring(0, 8), 16));
+        buffer.putShort((short) Integer.parseInt(hex.substring(8, 12), 16));
+        buffer.putShort((short) Integer.parseInt(hex.substring(12, 16), 16));
+        for (int i = 16; i < 32; i += 2) {
+            buffer.put((byte) Integer.parseInt(hex.substring(i, i + 2), 16));
+        }
+    }
+
+    private static byte[] valueTable(String[] uuids, double[] values) {
+        ByteBuffer buffer = ByteBuffer.allocate(uuids.length * 24).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < uuids.length; i++) {
+            putUuid(buffer, uuids[i]);
+            buffer.putDouble(values[i]);
+        }
+        return buffer.array();
+    }
+
+    private static Map<LxUuid, Map<LxUuid, LxControlState>> stateMap(String... uuids) {
+        Map<LxUuid, Map<LxUuid, LxControlState>> stateMap = new HashMap<>();
+        for (String uuid : uuids) {
+            Map<LxUuid, LxControlState> perControl = new HashMap<>();
+            LxUuid stateUuid = new LxUuid(uuid);
+            perControl.put(new LxUuid(uuid + "-control"), new LxControlState(stateUuid, "value", null));
+            stateMap.put(stateUuid, perControl);
+        }
+        return stateMap;
+    }
+
+    @Test
+    public void decodesValueTable() {
+        byte[] data = valueTable(new String[] { TEMPERATURE, SWITCH }, new double[] { 21.5, 1 });
+        LxWsStateTable table = new LxWsStateTable(true, data, 0, data.length);
+
+        assertTrue(table.isValueTable());
+        assertEquals(2, table.getSize());
+        assertEquals(21.5, table.getValue(0), 0);
+        assertEquals(1.0, table.getValue(1), 0);
+        assertEquals(0x0f3f63f502b11d6cL, table.getUuidHigh(0));
+        assertEquals(0xffff403fb0c34b9eL, table.getUuidLow(0));
+        assertEquals(new LxUuid(TEMPERATURE).toString(), table.getUuidString(0));
+        assertEquals(new LxUuid(data, 24).toString(), table.getUuidString(1));
+    }
+
+    @Test
+    public void decodesTextTableWithPadding() {
+        byte[] first = "abcde".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "on".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(2 * 36 + 8 + 4).order(ByteOrder.LITTLE_ENDIAN);
+        putUuid(buffer, TEMPERATURE);
+        putUuid(buffer, SWITCH);
+        buffer.putInt(first.length);
+        buffer.put(first);
+        buffer.position(buffer.position() + 3);
+        putUuid(buffer, SWITCH);
+        putUuid(buffer, TEMPERATURE);
+        buffer.putInt(second.length);
+        buffer.put(second);
+        byte[] data = buffer.array();
+
+        LxWsStateTable table = new LxWsStateTable(false, data, 0, data.length);
+        assertFalse(table.isValueTable());
+        assertEquals(2, table.getSize());
+        assertEquals("abcde", table.getText(0));
+        assertEquals("on", table.getText(1));
+        assertEquals(new LxUuid(SWITCH).toString(), table.getUuidString(1));
+    }
+
+    @Test
+    public void decodesTableAtOffset() {
+        byte[] values = valueTable(new String[] { SWITCH }, new double[] { 0.5 });
+        byte[] data = new byte[8 + values.length];
+        System.arraycopy(values, 0, data, 8, values.length);
+
+        LxWsStateTable table = new LxWsStateTable(true, data, 8, values.length);
+        assertEquals(1, table.getSize());
+        assertEquals(0.5, table.getValue(0), 0);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void truncatedTableIsRejected() {
+        byte[] data = valueTable(new String[] { TEMPERATURE }, new double[] { 21.5 });
+        new LxWsStateTable(true, data, 0, data.length + 24);
+    }
+
+    @Test
+    public void indexFindsStatesOfDecodedUuids() {
+        Map<LxUuid, Map<LxUuid, LxControlState>> stateMap = stateMap(TEMPERATURE, SWITCH);
+        // two controls with the same state
+        stateMap.get(new LxUuid(SWITCH)).put(new LxUuid("other-control"),
+                new LxControlState(new LxUuid(SWITCH), "active", null));
+        // not a binary UUID, it is ignored
+        stateMap.putAll(stateMap("not-an-uuid"));
+        LxStateIndex index = new LxStateIndex(stateMap);
+
+        byte[] data = valueTable(new String[] { TEMPERATURE, SWITCH, "20d2a8c1-0123-4567-89abcdef01234567" },
+                new double[] { 21.5, 1, 0 });
+        LxWsStateTable table = new LxWsStateTable(true, data, 0, data.length);
+        assertEquals(1, index.find(table.getUuidHigh(0), table.getUuidLow(0)).length);
+        assertEquals(2, index.find(table.getUuidHigh(1), table.getUuidLow(1)).length);
+        assertNull(index.find(table.getUuidHigh(2), table.getUuidLow(2)));
+    }
+
+    @Test
+    public void indexFindsAllOfManyStates() {
+        String[] uuids = new String[500];
+        for (int i = 0; i < uuids.length; i++) {
+            uuids[i] = String.format("%08x-0000-0000-00000000%08x", i, i * 7919);
+        }
+        LxStateIndex index = new LxStateIndex(stateMap(uuids));
+
+        LxWsStateTable table = new LxWsStateTable(true, valueTable(uuids, new double[uuids.length]), 0,
+                uuids.length * 24);
+        for (int i = 0; i < uuids.length; i++) {
+            LxControlState[] states = index.find(table.getUuidHigh(i), table.getUuidLow(i));
+            assertNotNull(uuids[i], states);
+        }
+        assertNull(index.find(0x12345678L, 0x9abcdefL));
+    }
+}
@@ -385,6 +385,28 @@ public class LoxoneMiniserverHandler extends BaseThingHandler implements LxServe
         updateChannelStates(channelId, control);
     }
 
+    @Override
+    public void onControlStatesUpdate(Map<LxControl, Set<String>> updatedStates) {
+        // States that change the channels or state descriptions are handled one by one, all other states of a control
+        // are applied with a single update of its channels
+        updatedStates.forEach((control, stateNames) -> {
+            boolean updateChannels = false;
+            for (String stateName : stateNames) {
+                if ((control instanceof LxControlLightController
+                        && LxControlLightController.STATE_SCENE_LIST.equals(stateName))
+                        || (control instanceof LxControlLightControllerV2
+                                && LxControlLightControllerV2.STATE_MOODS_LIST.equals(stateName))) {
+                    onControlStateUpdate(control, stateName);
+                } else {
+                    updateChannels = true;
+                }
+            }
+            if (updateChannels) {
+                updateChannelStates(getChannelIdForControl(control, 0), control);
+            }
+        });
+    }
+
     @Override
     public void onServerGoesOnline() {
         logger.debug("Server goes online.");
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.loxone.internal.core;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.codec.binary.Hex;
+import org.eclipse.smarthome.config.core.ConfigConstants;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persists the structure file of a Miniserver (LoxApp3.json) in the userdata folder.
+ * <p>
+ * The file is stored together with its version, which is the last modification date reported by the Miniserver. A
+ * cached file is only used when the Miniserver reports the same version, otherwise it is downloaded again. The file
+ * depends on the rights of the user, so each user has its own cached file.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+class LxConfigCache {
+    private final Logger logger = LoggerFactory.getLogger(LxConfigCache.class);
+    private final File cacheFile;
+
+    /**
+     * Create a cache for a Miniserver
+     *
+     * @param miniserverId
+     *            identifier of the Miniserver, used as the file name
+     * @param user
+     *            user the structure file is downloaded with
+     */
+    LxConfigCache(String miniserverId, String user) {
+        this(new File(ConfigConstants.getUserDataFolder() + File.separator + "loxone"), miniserverId, user);
+    }
+
+    /**
+     * Create a cache for a Miniserver in the given folder
+     *
+     * @param cacheFolder
+     *            folder of the cached files
+     * @param miniserverId
+     *            identifier of the Miniserver, used as the file name
+     * @param user
+     *            user the structure file is downloaded with, hex encoded in the file name
+     */
+    LxConfigCache(File cacheFolder, String miniserverId, String user) {
+        String userHex = user == null ? "" : Hex.encodeHexString(user.getBytes(StandardCharsets.UTF_8));
+        cacheFile = new File(cacheFolder, miniserverId.replaceAll("[^a-zA-Z0-9_.-]", "_") + "_" + userHex + ".json");
+    }
+
+    /**
+     * Load the cached structure file if it has the given version
+     *
+     * @param version
+     *            version of the structure file reported by the Miniserver
+     * @return
+     *         JSON content of the structure file or null if there is no cached file of this version
+     */
+    String load(String version) {
+        if (version == null || !cacheFile.exists()) {
+            return null;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(cacheFile), StandardCharsets.UTF_8))) {
+            if (!version.equals(reader.readLine())) {
+                logger.debug("Cached structure file '{}' has an old version", cacheFile);
+                return null;
+            }
+            StringBuilder json = new StringBuilder((int) cacheFile.length());
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = reader.read(buffer)) >= 0) {
+                json.append(buffer, 0, read);
+            }
+            logger.debug("Loaded structure file version {} from '{}'", version, cacheFile);
+            return json.toString();
+        } catch (IOException e) {
+            logger.warn("Can't load structure file cache '{}': {}", cacheFile, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Store the structure file with its version
+     *
+     * @param version
+     *            version of the structure file reported by the Miniserver
+     * @param json
+     *            JSON content of the structure file
+     */
+    void save(String version, String json) {
+        File tempFile = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
+        try {
+            cacheFile.getParentFile().mkdirs();
+            try (Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(new FileOutputStream(tempFile), StandardCharsets.UTF_8))) {
+                writer.write(version);
+                writer.write('\n');
+                writer.write(json);
+            }
+            if (!tempFile.renameTo(cacheFile) && !(cacheFile.delete() && tempFile.renameTo(cacheFile))) {
+                throw new IOException("Can't rename " + tempFile);
+            }
+            logger.debug("Saved structure file version {} to '{}'", version, cacheFile);
+        } catch (IOException e) {
+            logger.warn("Can't save structure file cache '{}': {}", cacheFile, e.getMessage());
+            tempFile.delete();
+        }
+    }
+}
@@ -11,9 +11,12 @@ package org.openhab.binding.loxone.internal.core;
 import java.net.InetAddress;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -76,6 +79,8 @@ public class LxServer {
     // the state. It must be ensured that updates received for this state UUID are passed to all controls that have this
     // state UUID configured.
     private Map<LxUuid, Map<LxUuid, LxControlState>> states = new HashMap<>();
+    // Index of the states map by binary UUID, used to process state updates received from the Miniserver
+    private LxStateIndex stateIndex = new LxStateIndex(states);
     private List<LxServerListener> listeners = new ArrayList<>();
 
     // Services
@@ -390,24 +395,12 @@ public class LxServer {
                                 }
                                 break;
                             case STATE_UPDATE:
-                                LxWsStateUpdateEvent update = (LxWsStateUpdateEvent) wsMsg.getObject();
-                                Map<LxUuid, LxControlState> perStateUuid = findState(update.getUuid());
-                                if (perStateUuid != null) {
-                                    perStateUuid.forEach((controlUuid, state) -> {
-                                        state.setValue(update.getValue(), update.getText());
-                                        LxControl control = state.getControl();
-                                        if (control != null) {
-                                            logger.debug("[{}] State update {} ({}:{}) to value {}, text '{}'", debugId,
-                                                    update.getUuid(), control.getName(), state.getName(),
-                                                    update.getValue(), update.getText());
-                                            for (LxServerListener listener : listeners) {
-                                                listener.onControlStateUpdate(control, state.getName().toLowerCase());
-                                            }
-                                        } else {
-                                            logger.debug("[{}] State update {} ({}) of unknown control", debugId,
-                                                    update.getUuid(), state.getName());
-                                        }
-                                    });
+                                Map<LxControl, Set<String>> updatedStates = updateStates(
+                                        (LxWsStateTable) wsMsg.getObject());
+                                if (!updatedStates.isEmpty()) {
+                                    for (LxServerListener listener : listeners) {
+                                        listener.onControlStatesUpdate(updatedStates);
+                                    }
                                 }
                                 break;
                             case SERVER_ONLINE:
@@ -518,6 +511,53 @@ public class LxServer {
         removeUnusedFromMap(categories);
         removeUnusedFromMap(controls);
         removeUnusedFromMap(states);
+        stateIndex = new LxStateIndex(states);
+    }
+
+    /**
+     * Updates states from a table of state updates received from the Miniserver
+     *
+     * @param table
+     *            table of state updates
+     * @return
+     *         map of updated controls to the lower case names of their updated states
+     */
+    private Map<LxControl, Set<String>> updateStates(LxWsStateTable table) {
+        Map<LxControl, Set<String>> updatedStates = new LinkedHashMap<>();
+        boolean isValueTable = table.isValueTable();
+        int size = table.getSize();
+        int unknown = 0;
+        for (int i = 0; i < size; i++) {
+            LxControlState[] perStateUuid = stateIndex.find(table.getUuidHigh(i), table.getUuidLow(i));
+            if (perStateUuid == null) {
+                unknown++;
+                continue;
+            }
+            Double value = isValueTable ? Double.valueOf(table.getValue(i)) : null;
+            String text = isValueTable ? null : table.getText(i);
+            for (LxControlState state : perStateUuid) {
+                state.setValue(value, text);
+                LxControl control = state.getControl();
+                if (control != null) {
+                    if (logger.isTraceEnabled()) {
+                        logger.trace("[{}] State update {} ({}:{}) to value {}, text '{}'", debugId,
+                                table.getUuidString(i), control.getName(), state.getName(), value, text);
+                    }
+                    Set<String> stateNames = updatedStates.get(control);
+                    if (stateNames == null) {
+                        stateNames = new HashSet<>();
+                        updatedStates.put(control, stateNames);
+                    }
+                    stateNames.add(state.getName().toLowerCase());
+                } else {
+                    logger.debug("[{}] State update {} ({}) of unknown control", debugId, table.getUuidString(i),
+                            state.getName());
+                }
+            }
+        }
+        logger.debug("[{}] Processed {} {} state updates of {} controls, {} for unknown states", debugId, size,
+                isValueTable ? "value" : "text", updatedStates.size(), unknown);
+        return updatedStates;
     }
 
     /**
@@ -595,24 +635,6 @@ public class LxServer {
         return nr;
     }
 
-    /**
-     * Search for a state with given UUID
-     *
-     * @param id
-     *            UUID of state to locate
-     * @return
-     *         map of all state objects with control UUID as key
-     */
-    private Map<LxUuid, LxControlState> findState(LxUuid id) {
-        if (states == null || id == null) {
-            return null;
-        }
-        if (states.containsKey(id)) {
-            return states.get(id);
-        }
-        return null;
-    }
-
     /**
      * Search for a category on the server
      *
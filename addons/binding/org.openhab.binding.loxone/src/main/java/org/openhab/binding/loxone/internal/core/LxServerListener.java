@@ -8,6 +8,9 @@
  */
 package org.openhab.binding.loxone.internal.core;
 
+import java.util.Map;
+import java.util.Set;
+
 /**
  * Interface to get notifications about {@link LxServer} asynchronous events.
  * These events are triggered by messages received from Miniserver over websocket connection or the state of the
@@ -55,4 +58,21 @@ public interface LxServerListener {
      */
     void onControlStateUpdate(LxControl control, String stateName);
 
+    /**
+     * Called by {@link LxServer} thread when a table of state updates is received from the Loxone Miniserver. All
+     * states of the table are already updated when this method is called.
+     * <p>
+     * By default {@link #onControlStateUpdate(LxControl, String)} is called for each updated state.
+     *
+     * @param updatedStates
+     *            map of updated controls to the names of their updated states
+     */
+    default void onControlStatesUpdate(Map<LxControl, Set<String>> updatedStates) {
+        updatedStates.forEach((control, stateNames) -> {
+            for (String stateName : stateNames) {
+                onControlStateUpdate(control, stateName);
+            }
+        });
+    }
+
 }
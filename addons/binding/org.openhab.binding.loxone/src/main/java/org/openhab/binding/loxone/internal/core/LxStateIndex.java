@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.loxone.internal.core;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Index of control's states by the binary form of their UUID.
+ * <p>
+ * A state UUID is represented by two long values, as decoded by {@link LxWsStateTable}. The index is an open
+ * addressing hash table on these values, so state updates received from the Miniserver are assigned to their states
+ * without creating {@link LxUuid} objects. A state with a unique UUID can be configured in many controls, so each UUID
+ * maps to an array of all states with this UUID.
+ * <p>
+ * The index is not modified after it is created. It is rebuilt when a new configuration is received.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+class LxStateIndex {
+    private final long[] highs;
+    private final long[] lows;
+    private final LxControlState[][] states;
+    private final int mask;
+
+    /**
+     * Create an index of the given states
+     *
+     * @param stateMap
+     *            map of state UUID to a map of control UUID and state objects
+     */
+    LxStateIndex(Map<LxUuid, Map<LxUuid, LxControlState>> stateMap) {
+        int capacity = Integer.highestOneBit(Math.max(stateMap.size(), 8) * 2 - 1) << 1;
+        highs = new long[capacity];
+        lows = new long[capacity];
+        states = new LxControlState[capacity][];
+        mask = capacity - 1;
+
+        for (Map.Entry<LxUuid, Map<LxUuid, LxControlState>> entry : stateMap.entrySet()) {
+            String hex = entry.getKey().toString().replace("-", "");
+            if (hex.length() != 32) {
+                // not an UUID that can be received in a binary state update
+                continue;
+            }
+            long high;
+            long low;
+            try {
+                high = Long.parseUnsignedLong(hex.substring(0, 16), 16);
+                low = Long.parseUnsignedLong(hex.substring(16), 16);
+            } catch (NumberFormatException e) {
+                continue;
+            }
+            Collection<LxControlState> perUuid = entry.getValue().values();
+            int slot = slot(high, low);
+            while (states[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            highs[slot] = high;
+            lows[slot] = low;
+            states[slot] = perUuid.toArray(new LxControlState[perUuid.size()]);
+        }
+    }
+
+    /**
+     * Search for states with given UUID
+     *
+     * @param high
+     *            upper 64 bits of the state UUID
+     * @param low
+     *            lower 64 bits of the state UUID
+     * @return
+     *         all state objects with this UUID or null if not found
+     */
+    LxControlState[] find(long high, long low) {
+        int slot = slot(high, low);
+        while (states[slot] != null) {
+            if (highs[slot] == high && lows[slot] == low) {
+                return states[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private int slot(long high, long low) {
+        long hash = (high ^ low) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
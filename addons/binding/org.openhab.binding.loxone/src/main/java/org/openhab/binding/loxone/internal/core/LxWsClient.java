@@ -81,6 +81,13 @@ class LxWsClient {
     private static final String CMD_KEEPALIVE = "keepalive";
     private static final String CMD_ENABLE_UPDATES = "jdev/sps/enablebinstatusupdate";
     private static final String CMD_GET_APP_CONFIG = "data/LoxAPP3.json";
+    private static final String CMD_GET_APP_CONFIG_VERSION = "jdev/sps/LoxAPPversion3";
+
+    // Structure file persisted across restarts and the version of the structure file last passed to LxServer, which
+    // is kept across reconnects
+    private final LxConfigCache configCache;
+    private String configVersion;
+    private String pendingConfigVersion;
 
     /**
      * Internal state of the websocket client.
@@ -105,6 +112,10 @@ class LxWsClient {
          * Waiting for authentication
          */
         AUTHENTICATING,
+        /**
+         * Waiting for version of Miniserver's configuration
+         */
+        CHECKING_CONFIGURATION_VERSION,
         /**
          * Waiting for Miniserver's configuration
          */
@@ -238,6 +249,7 @@ class LxWsClient {
         this.port = port;
         this.user = user;
         this.password = password;
+        this.configCache = new LxConfigCache(host.getHostAddress() + "_" + port, user);
     }
 
     /**
@@ -605,20 +617,12 @@ class LxWsClient {
                         switch (header.type) {
                             case EVENT_TABLE_OF_VALUE_STATES:
                                 stopResponseTimeout();
-                                while (length > 0) {
-                                    LxWsStateUpdateEvent event = new LxWsStateUpdateEvent(true, data, offset);
-                                    offset += event.getSize();
-                                    length -= event.getSize();
-                                    notifyMaster(EventType.STATE_UPDATE, null, event);
-                                }
+                                notifyMaster(EventType.STATE_UPDATE, null,
+                                        new LxWsStateTable(true, data, offset, length));
                                 break;
                             case EVENT_TABLE_OF_TEXT_STATES:
-                                while (length > 0) {
-                                    LxWsStateUpdateEvent event = new LxWsStateUpdateEvent(false, data, offset);
-                                    offset += event.getSize();
-                                    length -= event.getSize();
-                                    notifyMaster(EventType.STATE_UPDATE, null, event);
-                                }
+                                notifyMaster(EventType.STATE_UPDATE, null,
+                                        new LxWsStateTable(false, data, offset, length));
                                 break;
                             case KEEPALIVE_RESPONSE:
                             case TEXT_MESSAGE:
@@ -689,22 +693,59 @@ class LxWsClient {
                                                 "Timeout on authentication procedure, response : " + subResp.value);
                                     } else if (code == 200) {
                                         logger.debug("[{}] Websocket authentication successfull.", debugId);
-                                        sendString(CMD_GET_APP_CONFIG);
-                                        setClientState(ClientState.UPDATING_CONFIGURATION);
+                                        sendString(CMD_GET_APP_CONFIG_VERSION);
+                                        setClientState(ClientState.CHECKING_CONFIGURATION_VERSION);
                                         startResponseTimeout();
                                     }
                                 }
                             }
                             break;
+                        case CHECKING_CONFIGURATION_VERSION:
+                            resp = gson.fromJson(msg, LxJsonResponse.class);
+                            String version = null;
+                            if (resp != null && resp.subResponse != null && resp.subResponse.code == 200) {
+                                version = resp.subResponse.value;
+                            }
+                            if (version != null && version.equals(configVersion)) {
+                                // server keeps the configuration and its controls from before the reconnect
+                                logger.debug("[{}] Configuration version {} not changed", debugId, version);
+                                startRunning();
+                                break;
+                            }
+                            String cached = configCache.load(version);
+                            LxJsonApp3 cachedConfig = null;
+                            if (cached != null) {
+                                try {
+                                    cachedConfig = gson.fromJson(cached, LxJsonApp3.class);
+                                } catch (JsonSyntaxException e) {
+                                    logger.debug("[{}] Error parsing cached configuration: {}", debugId,
+                                            e.getMessage());
+                                }
+                            }
+                            if (cachedConfig != null) {
+                                logger.debug("[{}] Using cached configuration version {}", debugId, version);
+                                configVersion = version;
+                                notifyMaster(EventType.RECEIVED_CONFIG, null, cachedConfig);
+                                startRunning();
+                            } else {
+                                logger.debug("[{}] Configuration version {} changed from {}, downloading", debugId,
+                                        version, configVersion);
+                                pendingConfigVersion = version;
+                                sendString(CMD_GET_APP_CONFIG);
+                                setClientState(ClientState.UPDATING_CONFIGURATION);
+                                startResponseTimeout();
+                            }
+                            break;
                         case UPDATING_CONFIGURATION:
                             LxJsonApp3 config = gson.fromJson(msg, LxJsonApp3.class);
                             if (config != null) {
                                 logger.debug("[{}] Received configuration from server", debugId);
+                                configVersion = pendingConfigVersion;
+                                if (configVersion != null) {
+                                    configCache.save(configVersion, msg);
+                                }
                                 notifyMaster(EventType.RECEIVED_CONFIG, null, config);
-                                sendString(CMD_ENABLE_UPDATES);
-                                setClientState(ClientState.RUNNING);
-                                startResponseTimeout();
-                                notifyMaster(EventType.SERVER_ONLINE, null, null);
+                                startRunning();
                             } else {
                                 notifyAndClose(LxOfflineReason.INTERNAL_ERROR,
                                         "Error processing received configuration");
@@ -722,6 +763,19 @@ class LxWsClient {
             }
         }
 
+        /**
+         * Enables state updates and notifies the {@link LxServer} that the Miniserver is online
+         *
+         * @throws IOException
+         *             exception when communication error occurs
+         */
+        private void startRunning() throws IOException {
+            sendString(CMD_ENABLE_UPDATES);
+            setClientState(ClientState.RUNNING);
+            startResponseTimeout();
+            notifyMaster(EventType.SERVER_ONLINE, null, null);
+        }
+
         /**
          * Stops keep alive thread and ceases sending keep alive messages to the Miniserver
          */
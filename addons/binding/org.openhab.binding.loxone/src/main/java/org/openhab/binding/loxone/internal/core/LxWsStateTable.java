@@ -0,0 +1,210 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.loxone.internal.core;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A table of control's state updates received from Loxone Miniserver in a single binary message.
+ * <p>
+ * The table is decoded into primitive arrays, one entry per state update. The state UUID is kept as two long values
+ * (see {@link LxStateIndex}), so no objects are created for the entries of a value table. The initial state dump of a
+ * Miniserver contains thousands of entries and is passed to the {@link LxServer} as a single table.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+class LxWsStateTable {
+    private static final int VALUE_ENTRY_SIZE = 24;
+
+    private final boolean valueTable;
+    private int size;
+    private long[] uuidHigh;
+    private long[] uuidLow;
+    private double[] values;
+    private String[] texts;
+
+    /**
+     * Decode a table of state updates from binary message
+     *
+     * @param isValueTable
+     *            true if this table updates double values, false if it updates text messages
+     * @param data
+     *            buffer with binary message received from Miniserver
+     * @param offset
+     *            offset in buffer where the table starts
+     * @param length
+     *            length of the table in bytes
+     * @throws IndexOutOfBoundsException
+     *             when the table is malformed
+     */
+    LxWsStateTable(boolean isValueTable, byte data[], int offset, int length) throws IndexOutOfBoundsException {
+        valueTable = isValueTable;
+        int capacity = isValueTable ? length / VALUE_ENTRY_SIZE : 16;
+        uuidHigh = new long[capacity];
+        uuidLow = new long[capacity];
+        if (isValueTable) {
+            values = new double[capacity];
+        } else {
+            texts = new String[capacity];
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(data).order(ByteOrder.LITTLE_ENDIAN);
+        int end = offset + length;
+        while (offset < end) {
+            if (size == uuidHigh.length) {
+                grow();
+            }
+            uuidHigh[size] = getUuidHigh(buffer, offset);
+            uuidLow[size] = getUuidLow(buffer, offset);
+            offset += 16;
+
+            if (isValueTable) {
+                values[size] = buffer.getDouble(offset);
+                offset += 8;
+            } else {
+                // icon UUID is skipped
+                offset += 16;
+                int textLen = buffer.getInt(offset);
+                offset += 4;
+                texts[size] = new String(data, offset, textLen);
+                offset += (textLen % 4 > 0 ? textLen + 4 - (textLen % 4) : textLen);
+            }
+            size++;
+        }
+    }
+
+    /**
+     * Get the upper 64 bits of the UUID at the given offset of a binary message.
+     * <p>
+     * First three UUID fields are sent in little endian order.
+     *
+     * @param buffer
+     *            little endian buffer with the binary message
+     * @param offset
+     *            offset of the UUID
+     * @return
+     *         upper 64 bits of the UUID
+     */
+    static long getUuidHigh(ByteBuffer buffer, int offset) {
+        return ((buffer.getInt(offset) & 0xffffffffL) << 32) | ((buffer.getShort(offset + 4) & 0xffffL) << 16)
+                | (buffer.getShort(offset + 6) & 0xffffL);
+    }
+
+    /**
+     * Get the lower 64 bits of the UUID at the given offset of a binary message.
+     * <p>
+     * Last eight bytes of an UUID are sent in big endian order.
+     *
+     * @param buffer
+     *            little endian buffer with the binary message
+     * @param offset
+     *            offset of the UUID
+     * @return
+     *         lower 64 bits of the UUID
+     */
+    static long getUuidLow(ByteBuffer buffer, int offset) {
+        return Long.reverseBytes(buffer.getLong(offset + 8));
+    }
+
+    private void grow() {
+        int capacity = uuidHigh.length * 2;
+        uuidHigh = Arrays.copyOf(uuidHigh, capacity);
+        uuidLow = Arrays.copyOf(uuidLow, capacity);
+        if (valueTable) {
+            values = Arrays.copyOf(values, capacity);
+        } else {
+            texts = Arrays.copyOf(texts, capacity);
+        }
+    }
+
+    /**
+     * Check if this table contains value or text updates
+     *
+     * @return
+     *         true if this table updates double values, false if it updates text messages
+     */
+    boolean isValueTable() {
+        return valueTable;
+    }
+
+    /**
+     * Get number of state updates in this table
+     *
+     * @return
+     *         number of state updates
+     */
+    int getSize() {
+        return size;
+    }
+
+    /**
+     * Get upper 64 bits of the UUID of a state update
+     *
+     * @param index
+     *            index of the state update
+     * @return
+     *         upper 64 bits of the state UUID
+     */
+    long getUuidHigh(int index) {
+        return uuidHigh[index];
+    }
+
+    /**
+     * Get lower 64 bits of the UUID of a state update
+     *
+     * @param index
+     *            index of the state update
+     * @return
+     *         lower 64 bits of the state UUID
+     */
+    long getUuidLow(int index) {
+        return uuidLow[index];
+    }
+
+    /**
+     * Get value of a state update of a value table
+     *
+     * @param index
+     *            index of the state update
+     * @return
+     *         new value of the state
+     */
+    double getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Get text of a state update of a text table
+     *
+     * @param index
+     *            index of the state update
+     * @return
+     *         new text of the state
+     */
+    String getText(int index) {
+        return texts[index];
+    }
+
+    /**
+     * Get the UUID of a state update in the format used for logging
+     *
+     * @param index
+     *            index of the state update
+     * @return
+     *         UUID string as created by {@link LxUuid}
+     */
+    String getUuidString(int index) {
+        String high = String.format("%016x", uuidHigh[index]);
+        return (high.substring(0, 8) + "-" + high.substring(8, 12) + "-" + high.substring(12, 16) + "-"
+                + String.format("%016x", uuidLow[index])).toUpperCase();
+    }
+}
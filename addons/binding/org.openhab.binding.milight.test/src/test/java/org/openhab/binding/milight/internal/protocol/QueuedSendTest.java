@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.milight.internal.protocol;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link QueuedSend}. The commands are sent to a socket on the loopback interface.
+ *
+ * @author agent - Initial contribution
+ */
+public class QueuedSendTest {
+    private static final int RECEIVE_TIMEOUT_MS = 500;
+
+    private DatagramSocket bridge;
+    private QueuedSend queuedSend;
+
+    @Before
+    public void setUp() throws IOException {
+        bridge = new DatagramSocket(0, InetAddress.getLoopbackAddress());
+        bridge.setSoTimeout(RECEIVE_TIMEOUT_MS);
+        createQueue(new DatagramSocket());
+    }
+
+    private void createQueue(DatagramSocket socket) {
+        queuedSend = new QueuedSend(socket);
+        queuedSend.setAddress(InetAddress.getLoopbackAddress());
+        queuedSend.setPort(bridge.getLocalPort());
+        queuedSend.setDelayBetweenCommands(0);
+    }
+
+    @After
+    public void tearDown() {
+        queuedSend.dispose();
+        queuedSend.getSocket().close();
+        bridge.close();
+    }
+
+    /**
+     * @return the first byte of each received packet until no packet is received within the timeout
+     */
+    private List<Integer> receive(int maxPackets) throws IOException {
+        List<Integer> received = new ArrayList<>();
+        byte[] buffer = new byte[16];
+        while (received.size() < maxPackets) {
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+            try {
+                bridge.receive(packet);
+            } catch (SocketTimeoutException e) {
+                break;
+            }
+            received.add((int) packet.getData()[0]);
+        }
+        return received;
+    }
+
+    private static byte[] data(int value) {
+        return new byte[] { (byte) value, 0x00, 0x55 };
+    }
+
+    @Test
+    public void newerCommandsReplaceQueuedCommandsOfSameCategory() throws IOException {
+        queuedSend.queueRepeatable(1, data(1));
+        queuedSend.queueRepeatable(2, data(2));
+        queuedSend.queueRepeatable(1, data(3));
+        queuedSend.queueRepeatable(3, data(4));
+        queuedSend.queueRepeatable(2, data(5));
+        queuedSend.start();
+
+        assertEquals(Arrays.asList(3, 4, 5), receive(10));
+    }
+
+    @Test
+    public void nonCategorisedCommandsAreAllSent() throws IOException {
+        queuedSend.queue(QueueItem.createNonRepeatable(data(1)));
+        queuedSend.queue(QueueItem.createNonRepeatable(data(2)));
+        queuedSend.queue(QueueItem.createRepeatable(data(3)));
+        queuedSend.start();
+
+        assertEquals(Arrays.asList(1, 2, 3), receive(10));
+    }
+
+    @Test
+    public void commandChainsAreSentInOrder() throws IOException {
+        queuedSend.queueRepeatable(1, data(1), data(2), data(3));
+        queuedSend.queue(QueueItem.createRepeatable(2, data(4)).addNonRepeatable(data(5)));
+        queuedSend.start();
+
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), receive(10));
+    }
+
+    @Test
+    public void onlyRepeatableCommandsAreRepeated() throws IOException {
+        queuedSend.setRepeatCommands(3);
+        queuedSend.queue(QueueItem.createRepeatable(1, data(1)));
+        queuedSend.queue(QueueItem.createNonRepeatable(2, data(2)));
+        queuedSend.start();
+
+        assertEquals(Arrays.asList(1, 1, 1, 2), receive(10));
+    }
+
+    @Test
+    public void commandsQueuedWhileSendingAreSent() throws IOException {
+        queuedSend.start();
+        queuedSend.queueRepeatable(1, data(1));
+        assertEquals(Arrays.asList(1), receive(1));
+
+        queuedSend.queueRepeatable(1, data(2));
+        assertEquals(Arrays.asList(2), receive(1));
+    }
+
+    @Test
+    public void delayBetweenCommandsIsKept() throws IOException {
+        queuedSend.setDelayBetweenCommands(100);
+        queuedSend.queueRepeatable(1, data(1));
+        queuedSend.queueRepeatable(2, data(2));
+        queuedSend.queueRepeatable(3, data(3));
+        queuedSend.start();
+
+        long start = System.nanoTime();
+        assertEquals(Arrays.asList(1, 2, 3), receive(3));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(190));
+    }
+
+    @Test
+    public void commandsQueuedDuringSendKeepDelayAndOrder() throws IOException, InterruptedException {
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch sent = new CountDownLatch(1);
+        final List<Long> sendTimes = Collections.synchronizedList(new ArrayList<>());
+        queuedSend.getSocket().close();
+        // The first send blocks until the test has queued more commands
+        createQueue(new DatagramSocket() {
+            @Override
+            public void send(DatagramPacket p) throws IOException {
+                sendTimes.add(System.nanoTime());
+                sending.countDown();
+                try {
+                    sent.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                super.send(p);
+            }
+        });
+        queuedSend.setDelayBetweenCommands(50);
+        queuedSend.start();
+
+        queuedSend.queue(QueueItem.createNonRepeatable(data(1)).addNonRepeatable(data(2)));
+        assertTrue(sending.await(1, TimeUnit.SECONDS));
+        queuedSend.queue(QueueItem.createNonRepeatable(data(3)));
+        queuedSend.queue(QueueItem.createNonRepeatable(data(4)));
+        Thread.sleep(50);
+        sent.countDown();
+
+        assertEquals(Arrays.asList(1, 2, 3, 4), receive(10));
+        assertEquals(4, sendTimes.size());
+        for (int i = 1; i < sendTimes.size(); ++i) {
+            assertTrue(sendTimes.get(i) - sendTimes.get(i - 1) >= TimeUnit.MILLISECONDS.toNanos(45));
+        }
+    }
+
+    @Test
+    public void disposedQueueDoesNotSend() throws IOException {
+        queuedSend.setDelayBetweenCommands(200);
+        queuedSend.queueRepeatable(1, data(1));
+        queuedSend.queueRepeatable(2, data(2));
+        queuedSend.start();
+
+        assertEquals(Arrays.asList(1), receive(1));
+        queuedSend.dispose();
+        assertTrue(receive(10).isEmpty());
+    }
+}
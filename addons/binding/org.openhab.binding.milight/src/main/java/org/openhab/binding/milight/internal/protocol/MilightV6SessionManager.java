@@ -17,11 +17,11 @@ import java.net.SocketException;
 import java.nio.ByteBuffer;
 import java.util.Enumeration;
 import java.util.Iterator;
-import java.util.Map;
-import java.util.TreeMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,7 +52,7 @@ public class MilightV6SessionManager implements Runnable {
 
     // The used sequence number for a command will be present in the response of the iBox. This
     // allows us to identify failed command deliveries.
-    private byte sequence_no = 0;
+    private final AtomicInteger sequence_no = new AtomicInteger();
     // The sequence number is 16 bits, we use 8 bits only and a fixed value for the other 8 bits.
     private byte fixed_seq_no = 0x00;
 
@@ -100,8 +100,9 @@ public class MilightV6SessionManager implements Runnable {
     private long lastSessionConfirmed = 0;
     // Quits the receive thread if set to true
     private boolean willbeclosed = false;
-    // Keep track of send commands and their sequence number
-    private Map<Byte, Long> used_sequence_no = new TreeMap<Byte, Long>();
+    // Keep track of send commands by their sequence number. The send time in ms is stored at the index of the
+    // sequence number and reset to 0 by the confirmation, so responses are matched without any locking.
+    private final AtomicLongArray used_sequence_no = new AtomicLongArray(256);
     // The receive thread for all bridge responses.
     private Thread sessionThread;
 
@@ -200,23 +201,23 @@ public class MilightV6SessionManager implements Runnable {
         return fixed_seq_no;
     }
 
-    // Get the second byte of a new sequence number. Add that to a queue of used sequence numbers.
-    // The bridge response will remove the queued number. This method also checks
-    // for non confirmed sequence numbers older that 2 seconds and report them.
+    // Get the second byte of a new sequence number. Add that to the used sequence numbers.
+    // The bridge response will remove the used number.
     byte getNextSequenceNo2() {
-        byte t = sequence_no;
-        long current = System.currentTimeMillis();
-        used_sequence_no.put(t, current);
-        // Check old seq no:
-        for (Iterator<Map.Entry<Byte, Long>> it = used_sequence_no.entrySet().iterator(); it.hasNext();) {
-            Map.Entry<Byte, Long> entry = it.next();
-            if (entry.getValue() + 2000 < current) {
-                logger.warn("Command not confirmed: {}", entry.getKey());
-                it.remove();
+        byte t = (byte) sequence_no.getAndIncrement();
+        used_sequence_no.set(t & 0xFF, System.currentTimeMillis());
+        return t;
+    }
+
+    // Check for non confirmed sequence numbers older than 2 seconds and report them.
+    private void check_unconfirmed_sequence_no() {
+        long outdated = System.currentTimeMillis() - 2000;
+        for (int i = 0; i < used_sequence_no.length(); ++i) {
+            long sent = used_sequence_no.get(i);
+            if (sent != 0 && sent < outdated && used_sequence_no.compareAndSet(i, sent, 0)) {
+                logger.warn("Command not confirmed: {}", (byte) i);
             }
         }
-        ++sequence_no;
-        return t;
     }
 
     // You have to call that if you are done with this object, we have to clean up
@@ -336,6 +337,7 @@ public class MilightV6SessionManager implements Runnable {
      * @throws InterruptedException
      */
     public void keep_alive(int periodic_interval_ms) throws InterruptedException {
+        check_unconfirmed_sequence_no();
         if (lastSessionConfirmed != 0 && lastSessionConfirmed + 2 * periodic_interval_ms < System.currentTimeMillis()) {
             sessionState = SessionState.SESSION_INVALID;
             lastSessionConfirmed = 0;
@@ -516,7 +518,7 @@ public class MilightV6SessionManager implements Runnable {
                     }
                     // 88 00 00 00 03 SN SN 00 // two byte sequence number, we use the later one only
                     case (byte) 0x88:
-                        used_sequence_no.remove(buffer[6]);
+                        used_sequence_no.set(buffer[6] & 0xFF, 0);
                         if (buffer[07] == 0) {
                             if (DEBUG_SESSION) {
                                 logger.debug("Confirmation received for command: {}", String.valueOf(buffer[6]));
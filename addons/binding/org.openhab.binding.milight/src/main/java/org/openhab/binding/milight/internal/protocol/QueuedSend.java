@@ -13,10 +13,13 @@ import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.SocketException;
 import java.util.Iterator;
-import java.util.NoSuchElementException;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -27,6 +30,9 @@ import org.slf4j.LoggerFactory;
  * delay only. The user may issue absolute brightness or color changes faster than 1/10s though, and we don't
  * want to just queue up those commands but apply the newest command only.
  *
+ * The queues of all bridges are processed by a shared thread pool. Instead of sleeping between two commands, the
+ * next command of a bridge is scheduled for the time the bridge accepts a command again.
+ *
  * @author David Graeff <david.graeff@web.de>
  * @since 2.1
  *
@@ -34,35 +40,54 @@ import org.slf4j.LoggerFactory;
 public class QueuedSend implements Runnable {
     private final Logger logger = LoggerFactory.getLogger(QueuedSend.class);
 
-    BlockingQueue<QueueItem> queue = new LinkedBlockingQueue<>(20);
+    private static final String THREAD_POOL_NAME = "milight";
+    private static final int MAX_QUEUE_SIZE = 20;
+
+    // Queued items by their unique command id, or by the item itself for non-categorised items. A replaced item is
+    // removed in O(1) and the new item is added at the end of the queue.
+    private final Map<Object, QueueItem> queue = new LinkedHashMap<>();
     protected final DatagramPacket packet;
     protected final DatagramSocket datagramSocket;
     private int delay_between_commands = 100;
     private int repeat_commands = 1;
     private boolean willbeclosed = false;
-    private Thread thread;
+    private ScheduledExecutorService scheduler;
+    // The send job of this queue, null if no job is scheduled or sending
+    private ScheduledFuture<?> sendJob;
+    // The command chain that is being sent. A chain is always sent completely, even if it is replaced.
+    private QueueItem current;
+    // The time in ns at which the bridge accepts the next command
+    private long nextSendTime = 0;
 
     public static final byte NO_CATEGORY = 0;
 
     /**
-     * Creates a new send queue and starts the background thread. Call setAddress and
-     * setPort before using any of the queue commands.
+     * Creates a new send queue. Call setAddress and setPort before using any of the queue commands.
      *
      * @throws SocketException
      */
     public QueuedSend() throws SocketException {
+        this(new DatagramSocket());
+    }
+
+    /**
+     * Creates a new send queue that sends with the given socket.
+     */
+    QueuedSend(DatagramSocket datagramSocket) {
         byte[] a = new byte[0];
         packet = new DatagramPacket(a, a.length);
-        datagramSocket = new DatagramSocket();
+        this.datagramSocket = datagramSocket;
     }
 
     /**
-     * Start the send thread of this queue. Call dispose() to quit the thread.
+     * Start sending the queued commands. Call dispose() to stop sending.
      */
-    public void start() {
+    public synchronized void start() {
         willbeclosed = false;
-        thread = new Thread(this);
-        thread.start();
+        scheduler = ThreadPoolManager.getScheduledPool(THREAD_POOL_NAME);
+        if (!queue.isEmpty()) {
+            scheduleSend();
+        }
     }
 
     public int getDelayBetweenCommands() {
@@ -84,78 +109,87 @@ public class QueuedSend implements Runnable {
     }
 
     /**
-     * The queue process
+     * Sends the next command of the queue. Scheduled on the shared thread pool whenever there is a command to send
+     * and the bridge accepts a new command.
      */
     @Override
     public void run() {
-        QueueItem item = null;
-        while (!willbeclosed) {
+        QueueItem item;
+        synchronized (this) {
+            // The send job is kept until the next send time is set, so no other job is scheduled while sending
+            if (willbeclosed) {
+                sendJob = null;
+                return;
+            }
+
             // If the command belongs to a chain of commands, get the next command now.
-            if (item != null && item.next != null) {
-                item = item.next;
+            if (current != null && current.next != null) {
+                item = current.next;
             } else {
-                try {
-                    // block/wait for another item
-                    item = queue.take();
-                } catch (InterruptedException e) {
-                    if (!willbeclosed) {
-                        logger.error("Queue take failed: {}", e.getLocalizedMessage());
-                    }
-                    break;
+                Iterator<QueueItem> iterator = queue.values().iterator();
+                if (!iterator.hasNext()) {
+                    current = null;
+                    sendJob = null;
+                    return;
                 }
+                item = iterator.next();
+                iterator.remove();
             }
+            current = item;
+        }
 
-            if (item == null || item.unique_command_id == QueueItem.INVALID) {
-                // Just in case it is a command chain, set the item to null to not process any chained commands.
-                item = null;
-                continue;
-            }
+        packet.setData(item.data);
+        try {
+            for (int i = 0; i < (item.repeatable ? repeat_commands : 1); ++i) {
+                datagramSocket.send(packet);
 
-            packet.setData(item.data);
-            try {
-                for (int i = 0; i < (item.repeatable ? repeat_commands : 1); ++i) {
-                    datagramSocket.send(packet);
-
-                    if (logger.isDebugEnabled()) {
-                        StringBuilder s = new StringBuilder();
-                        for (int c = 0; c < item.data.length; ++c) {
-                            s.append(String.format("%02X ", item.data[c]));
-                        }
-                        logger.debug("Sent packet '{}' to bridge {}", s.toString(),
-                                packet.getAddress().getHostAddress());
+                if (logger.isDebugEnabled()) {
+                    StringBuilder s = new StringBuilder();
+                    for (int c = 0; c < item.data.length; ++c) {
+                        s.append(String.format("%02X ", item.data[c]));
                     }
+                    logger.debug("Sent packet '{}' to bridge {}", s.toString(), packet.getAddress().getHostAddress());
                 }
-
-            } catch (Exception e) {
-                logger.error("Failed to send Message to '{}': {}", packet.getAddress().getHostAddress(),
-                        e.getMessage());
             }
 
-            try {
-                Thread.sleep((item.custom_delay_time != 0) ? item.custom_delay_time : delay_between_commands);
-            } catch (InterruptedException e) {
-                if (!willbeclosed) {
-                    logger.error("Queue sleep failed: {}", e.getLocalizedMessage());
-                }
-                break;
+        } catch (Exception e) {
+            logger.error("Failed to send Message to '{}': {}", packet.getAddress().getHostAddress(), e.getMessage());
+        }
+
+        synchronized (this) {
+            int delay = (item.custom_delay_time != 0) ? item.custom_delay_time : delay_between_commands;
+            nextSendTime = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+            sendJob = null;
+            if (item.next != null || !queue.isEmpty()) {
+                scheduleSend();
+            } else {
+                current = null;
             }
         }
+    }
 
+    /**
+     * Schedules the send job for the time the bridge accepts the next command, if it is not scheduled or sending yet.
+     * Must be called with the lock of this object held.
+     */
+    private void scheduleSend() {
+        if (sendJob == null && !willbeclosed && scheduler != null) {
+            long delay = Math.max(0, nextSendTime - System.nanoTime());
+            sendJob = scheduler.schedule(this, delay, TimeUnit.NANOSECONDS);
+        }
     }
 
     /**
      * Once disposed, this object can't be reused anymore.
      */
-    public void dispose() {
+    public synchronized void dispose() {
         willbeclosed = true;
-        if (thread != null) {
-            try {
-                thread.join(delay_between_commands);
-            } catch (InterruptedException e) {
-            }
-            thread.interrupt();
+        if (sendJob != null) {
+            sendJob.cancel(false);
+            sendJob = null;
         }
-        thread = null;
+        queue.clear();
+        current = null;
     }
 
     public void setRepeatTimes(int times) {
@@ -163,29 +197,22 @@ public class QueuedSend implements Runnable {
     }
 
     /**
-     * Mark all commands in the queue invalid that have the same unique id as the given one. This does not synchronise
-     * with the sender thread. If an element has been started to being processed, this method has no more effect on that
-     * element. Command chains are always executed in a row. Even if the head of the command queue has been marked
-     * as invalid, if the processing has been started, the chain will be processed completely.
+     * Add an item to the end of the queue and remove the queued item with the same unique id. If an element has
+     * been started to being processed, this method has no more effect on that element. Command chains are always
+     * executed in a row. Even if the head of the command queue has been replaced, if the processing has been started,
+     * the chain will be processed completely.
      *
-     * @param unique_command_id
+     * @param item A queue item
      */
-    private void remove_from_queue(int unique_command_id) {
-        Iterator<QueueItem> iterator = queue.iterator();
-        while (iterator.hasNext()) {
-            try {
-                QueueItem item = iterator.next();
-                if (item != null && item.unique_command_id == unique_command_id) {
-                    item.unique_command_id = QueueItem.INVALID; // invalidate
-                }
-            } catch (IllegalStateException e) {
-                // Ignore threading errors
-                logger.error("{}", e.getLocalizedMessage());
-            } catch (NoSuchElementException e) {
-                // The element might have been processed already while iterate.
-                // Ignore NoSuchElementException here.
-            }
+    private synchronized void add_to_queue(QueueItem item) {
+        Object key = (item.unique_command_id != NO_CATEGORY) ? Integer.valueOf(item.unique_command_id) : item;
+        queue.remove(key);
+        if (queue.size() >= MAX_QUEUE_SIZE) {
+            logger.debug("Send queue for bridge {} is full, dropping command", packet.getAddress());
+            return;
         }
+        queue.put(key, item);
+        scheduleSend();
     }
 
     /**
@@ -202,13 +229,12 @@ public class QueuedSend implements Runnable {
      * @param data Data to be send
      */
     public void queueRepeatable(int unique_command_id, byte[]... data) {
-        remove_from_queue(unique_command_id);
         QueueItem item = QueueItem.createRepeatable(unique_command_id, data[0]);
         QueueItem next = item;
         for (int i = 1; i < data.length; ++i) {
             next = next.addRepeatable(data[i]);
         }
-        queue.offer(item);
+        add_to_queue(item);
     }
 
     /**
@@ -220,10 +246,7 @@ public class QueuedSend implements Runnable {
      * @param item A queue item, cannot be null.
      */
     public void queue(QueueItem item) {
-        if (item.unique_command_id != NO_CATEGORY) {
-            remove_from_queue(item.unique_command_id);
-        }
-        queue.offer(item);
+        add_to_queue(item);
     }
 
     public InetAddress getAddr() {
@@ -0,0 +1,160 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.openhab.binding.network.internal.utils.NetworkUtils;
+import org.openhab.binding.network.internal.utils.NetworkUtils.NeighbourEntry;
+
+/**
+ * Tests cases for {@see ArpSweep}
+ *
+ * @author agent - Initial contribution
+ */
+public class ArpSweepTest {
+    private static final String NEIGHBOUR_TABLE = "192.168.0.1 dev eth0 lladdr aa:bb:cc:dd:ee:ff REACHABLE\n"
+            + "192.168.0.2 dev eth0  FAILED\n"
+            + "192.168.0.4 dev eth0 lladdr aa:bb:cc:dd:ee:01 STALE\n"
+            + "192.168.0.5 dev eth0 lladdr aa:bb:cc:dd:ee:02 DELAY\n"
+            + "192.168.0.6 dev eth0  INCOMPLETE\n"
+            + "192.168.1.3 dev wlan0 lladdr aa:bb:cc:dd:ee:00 router REACHABLE\n";
+
+    @Mock
+    NetworkUtils networkUtils;
+
+    ArpSweep subject;
+
+    @Before
+    public void setUp() throws IOException, InterruptedException {
+        MockitoAnnotations.initMocks(this);
+        when(networkUtils.readNeighbourTable()).thenReturn(table(NEIGHBOUR_TABLE));
+        subject = new ArpSweep();
+        subject.networkUtils = networkUtils;
+    }
+
+    private static Map<String, NeighbourEntry> table(String table) throws IOException {
+        return new NetworkUtils().parseNeighbourTable(new StringReader(table));
+    }
+
+    @Test
+    public void parseTable() throws IOException {
+        Map<String, NeighbourEntry> table = table(NEIGHBOUR_TABLE);
+        assertThat(table.size(), is(6));
+        assertThat(table.get("192.168.0.1").getInterfaceName(), is("eth0"));
+        assertThat(table.get("192.168.0.1").getHardwareAddress(), is("aa:bb:cc:dd:ee:ff"));
+        assertTrue(table.get("192.168.0.1").isReachable());
+        assertThat(table.get("192.168.1.3").getInterfaceName(), is("wlan0"));
+        assertThat(table.get("192.168.1.3").getHardwareAddress(), is("aa:bb:cc:dd:ee:00"));
+        assertTrue(table.get("192.168.1.3").isReachable());
+        // Failed and incomplete entries have no hardware address
+        assertNull(table.get("192.168.0.2").getHardwareAddress());
+        assertFalse(table.get("192.168.0.2").isUnconfirmed());
+        assertFalse(table.get("192.168.0.6").isUnconfirmed());
+        // Stale entries may belong to devices that already left the network
+        assertFalse(table.get("192.168.0.4").isReachable());
+        assertTrue(table.get("192.168.0.4").isUnconfirmed());
+        assertThat(table.get("192.168.0.5").getState(), is("DELAY"));
+        assertTrue(table.get("192.168.0.5").isUnconfirmed());
+    }
+
+    @Test
+    public void unchangedStaleEntryIsNotPresent() throws Exception {
+        CompletableFuture<String> stale = subject.probe(InetAddress.getByName("192.168.0.4"), 100);
+        assertNull(stale.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void staleEntryThatBecomesReachableIsPresent() throws Exception {
+        when(networkUtils.readNeighbourTable()).thenReturn(
+                table("192.168.0.4 dev eth0 lladdr aa:bb:cc:dd:ee:01 STALE\n"),
+                table("192.168.0.4 dev eth0 lladdr aa:bb:cc:dd:ee:01 STALE\n"),
+                table("192.168.0.4 dev eth0 lladdr aa:bb:cc:dd:ee:01 DELAY\n"),
+                table("192.168.0.4 dev eth0 lladdr aa:bb:cc:dd:ee:01 REACHABLE\n"));
+        CompletableFuture<String> stale = subject.probe(InetAddress.getByName("192.168.0.4"), 1000);
+        assertThat(stale.get(2, TimeUnit.SECONDS), is("eth0"));
+        // The table before the packet, one read for each state change
+        verify(networkUtils, times(4)).readNeighbourTable();
+    }
+
+    @Test
+    public void freshlyResolvedEntryIsPresent() throws Exception {
+        when(networkUtils.readNeighbourTable()).thenReturn(table("192.168.0.2 dev eth0  FAILED\n"),
+                table("192.168.0.2 dev eth0 lladdr aa:bb:cc:dd:ee:03 STALE\n"));
+        CompletableFuture<String> resolved = subject.probe(InetAddress.getByName("192.168.0.2"), 1000);
+        assertThat(resolved.get(2, TimeUnit.SECONDS), is("eth0"));
+    }
+
+    @Test
+    public void tableReadsAreCapped() throws Exception {
+        CompletableFuture<String> stale = subject.probe(InetAddress.getByName("192.168.0.4"), 3000);
+        // The table before the packet, reads after 50, 100, 200, 400 and 800ms and at the deadline
+        assertNull(stale.get(5, TimeUnit.SECONDS));
+        verify(networkUtils, times(1 + ArpSweep.MAX_TABLE_READS_PER_TARGET)).readNeighbourTable();
+    }
+
+    @Test
+    public void lateJoinerHasItsOwnDeadline() throws Exception {
+        InetAddress stale = InetAddress.getByName("192.168.0.4");
+        CompletableFuture<String> first = subject.probe(stale, 200);
+        Thread.sleep(150);
+        CompletableFuture<String> late = subject.probe(InetAddress.getByName("192.168.0.5"), 1000);
+        long start = System.nanoTime();
+        assertNull(first.get(1, TimeUnit.SECONDS));
+        // The late joiner is still checked after the deadline of the first target
+        assertFalse(late.isDone());
+        assertNull(late.get(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) > 500);
+    }
+
+    @Test
+    public void fanOutToAllRequesters() throws Exception {
+        InetAddress reachable = InetAddress.getByName("192.168.0.1");
+        InetAddress unreachable = InetAddress.getByName("192.168.0.2");
+
+        CompletableFuture<String> first = subject.probe(reachable, 100);
+        CompletableFuture<String> second = subject.probe(reachable, 100);
+        CompletableFuture<String> third = subject.probe(unreachable, 100);
+
+        assertThat(first.get(1, TimeUnit.SECONDS), is("eth0"));
+        assertThat(second.get(1, TimeUnit.SECONDS), is("eth0"));
+        assertNull(third.get(1, TimeUnit.SECONDS));
+
+        // All requests are handled by one sweep with one socket
+        verify(networkUtils, times(1)).sendNeighbourSolicitations(anyObject());
+    }
+
+    @Test
+    public void sweepAll() throws Exception {
+        Map<InetAddress, String> result = subject.sweep(Arrays.asList(InetAddress.getByName("192.168.0.1"),
+                InetAddress.getByName("192.168.0.2"), InetAddress.getByName("192.168.1.3")), 100);
+        assertThat(result.keySet(),
+                hasItems(InetAddress.getByName("192.168.0.1"), InetAddress.getByName("192.168.1.3")));
+        assertThat(result.size(), is(2));
+
+        // Nothing to check
+        assertThat(subject.sweep(Collections.emptyList(), 100).size(), is(0));
+    }
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for {@see PresenceDetectionScheduler}
+ *
+ * @author agent - Initial contribution
+ */
+public class PresenceDetectionSchedulerTest {
+    @Test
+    public void limitProbesPerInterface() throws Exception {
+        PresenceDetectionScheduler subject = new PresenceDetectionScheduler(4, 1);
+        AtomicInteger concurrentProbes = new AtomicInteger();
+        AtomicInteger maxConcurrentProbes = new AtomicInteger();
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; ++i) {
+            futures.add(subject.submit("TESTinterface", () -> {
+                maxConcurrentProbes.accumulateAndGet(concurrentProbes.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException ignored) {
+                }
+                concurrentProbes.decrementAndGet();
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.SECONDS);
+        }
+
+        // Only one probe at a time is allowed on the same interface
+        assertThat(maxConcurrentProbes.get(), is(1));
+        assertThat(subject.getCompletedProbes(), is(4L));
+        assertThat(subject.getQueueDepth(), is(0));
+    }
+
+    @Test
+    public void saturatedInterfaceDoesNotBlockOtherInterfaces() throws Exception {
+        PresenceDetectionScheduler subject = new PresenceDetectionScheduler(2, 1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Future<?>> blocked = new ArrayList<>();
+        for (int i = 0; i < 3; ++i) {
+            blocked.add(subject.submit("saturatedInterface", () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ignored) {
+                }
+            }));
+        }
+
+        // Two probes wait for the saturated interface
+        assertThat(subject.getQueueDepth(), is(2));
+
+        // The waiting probes of the saturated interface must not occupy the second worker thread
+        subject.submit("otherInterface", () -> {
+        }).get(1, TimeUnit.SECONDS);
+
+        release.countDown();
+        for (Future<?> future : blocked) {
+            future.get(1, TimeUnit.SECONDS);
+        }
+        assertThat(subject.getCompletedProbes(), is(4L));
+    }
+
+    @Test
+    public void cancelledWaitingProbeReleasesInterface() throws Exception {
+        PresenceDetectionScheduler subject = new PresenceDetectionScheduler(2, 1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<?> running = subject.submit("TESTinterface", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        Future<?> cancelled = subject.submit("TESTinterface", () -> fail("Cancelled probe must not run"));
+        Future<?> waiting = subject.submit("TESTinterface", () -> {
+        });
+        cancelled.cancel(true);
+
+        release.countDown();
+        running.get(1, TimeUnit.SECONDS);
+        waiting.get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void initialDelayWithinFirstTenthOfInterval() {
+        PresenceDetectionScheduler subject = new PresenceDetectionScheduler(1, 1);
+        assertThat(subject.getInitialDelay(0), is(0L));
+        assertThat(subject.getInitialDelay(5), is(0L));
+        for (int i = 0; i < 100; ++i) {
+            long delay = subject.getInitialDelay(60000);
+            assertTrue(delay >= 0 && delay < 6000);
+        }
+    }
+}
@@ -16,7 +16,7 @@ import static org.mockito.Mockito.*;
 import java.io.IOException;
 import java.net.UnknownHostException;
 import java.util.Collections;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
@@ -49,7 +49,10 @@ public class PresenceDetectionTest {
     PresenceDetectionListener listener;
 
     @Mock
-    ExecutorService executorService;
+    PresenceDetectionScheduler scheduler;
+
+    @Mock
+    Future<?> future;
 
     @Mock
     Consumer<PresenceDetectionValue> callback;
@@ -88,11 +91,11 @@ public class PresenceDetectionTest {
         subject.waitForPresenceDetection();
     }
 
-    // Depending on the amount of test methods an according amount of threads is spawned.
-    // We will check if they spawn and return in time.
+    // Depending on the amount of test methods an according amount of checks is submitted.
+    // We will check if they are submitted and return in time.
     @Test
     public void threadCountTest() {
-        assertNull(subject.executorService);
+        assertNull(subject.detectionFutures);
 
         doNothing().when(subject).performARPping(anyObject());
         doNothing().when(subject).performJavaPing();
@@ -101,13 +104,13 @@ public class PresenceDetectionTest {
 
         subject.performPresenceDetection(false);
 
-        // Thread count: ARP + ICMP + 1*TCP
+        // Check count: ARP + ICMP + 1*TCP
         assertThat(subject.detectionChecks, is(3));
-        assertNotNull(subject.executorService);
+        assertNotNull(subject.detectionFutures);
 
         subject.waitForPresenceDetection();
         assertThat(subject.detectionChecks, is(0));
-        assertNull(subject.executorService);
+        assertNull(subject.detectionFutures);
     }
 
     @Test
@@ -139,20 +142,21 @@ public class PresenceDetectionTest {
                 anyObject(), anyInt());
         doReturn(true).when(networkUtils).servicePing(anyString(), anyInt(), anyInt());
 
-        doReturn(executorService).when(subject).getThreadsFor(anyInt());
+        subject.scheduler = scheduler;
+        doReturn(future).when(scheduler).submit(anyObject(), anyObject());
 
         // We expect no valid value
         assertTrue(subject.cache.isExpired());
         // Get value will issue a PresenceDetection internally.
         subject.getValue(callback);
         verify(subject).performPresenceDetection(eq(false));
-        assertNotNull(subject.executorService);
+        assertNotNull(subject.detectionFutures);
         // There should be no straight callback yet
         verify(callback, times(0)).accept(anyObject());
 
         // Perform the different presence detection threads now
         ArgumentCaptor<Runnable> capture = ArgumentCaptor.forClass(Runnable.class);
-        verify(executorService, times(3)).execute(capture.capture());
+        verify(scheduler, times(3)).submit(anyObject(), capture.capture());
         for (Runnable r : capture.getAllValues()) {
             r.run();
         }
@@ -177,6 +177,7 @@ public class NetworkHandler extends BaseThingHandler implements PresenceDetectio
             presenceDetection.setUseDhcpSniffing(configuration.allowDHCPlisten);
             presenceDetection.setUseIcmpPing(configuration.allowSystemPings);
             presenceDetection.setUseArpPing(true, configuration.arpPingToolPath);
+            presenceDetection.setUseArpSweep(configuration.useArpSweep);
         }
 
         this.retries = handlerConfiguration.retry.intValue();
@@ -187,8 +188,12 @@ public class NetworkHandler extends BaseThingHandler implements PresenceDetectio
         presenceDetection.startAutomaticRefresh(scheduler);
 
         // Update properties (after startAutomaticRefresh, to get the correct dhcp state)
-        updateProperty(NetworkBindingConstants.PROPERTY_ARP_STATE,
-                presenceDetection.arpPingMethod() != null ? presenceDetection.arpPingMethod().name() : "Disabled");
+        if (presenceDetection.isUsingArpSweep()) {
+            updateProperty(NetworkBindingConstants.PROPERTY_ARP_STATE, "ARP_SWEEP");
+        } else {
+            updateProperty(NetworkBindingConstants.PROPERTY_ARP_STATE,
+                    presenceDetection.arpPingMethod() != null ? presenceDetection.arpPingMethod().name() : "Disabled");
+        }
         updateProperty(NetworkBindingConstants.PROPERTY_ICMP_STATE,
                 presenceDetection.getPingMethod() != null ? presenceDetection.getPingMethod().name() : "Disabled");
         updateProperty(NetworkBindingConstants.PROPERTY_PRESENCE_DETECTION_TYPE, "");
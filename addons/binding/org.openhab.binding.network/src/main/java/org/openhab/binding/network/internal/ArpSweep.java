@@ -0,0 +1,324 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.binding.network.internal.utils.NetworkUtils;
+import org.openhab.binding.network.internal.utils.NetworkUtils.NeighbourEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A singleton, that checks many IPv4 addresses at once by using the kernel neighbour table ("ip neigh")
+ * instead of forking an arping process per address.
+ *
+ * Probe requests of all {@link PresenceDetection} objects (and the discovery) are checked by one sweep. Requests that
+ * arrive while a sweep is running join it. The neighbour table is read before a target is checked, then one UDP
+ * packet is sent to each new target with a single socket, which makes the kernel resolve or re-confirm the hardware
+ * addresses. The table is read again after 50ms, 100ms, 200ms, ... and a last time at the deadline of a target, but
+ * at most {@link #MAX_TABLE_READS_PER_TARGET} times for each target. One table read is shared by all targets of the
+ * sweep. The result is fanned back to every requester.
+ *
+ * A target is present if its entry is REACHABLE, or if it is STALE, DELAY or PROBE with a hardware address that the
+ * entry did not have before the packet was sent. The kernel keeps the unchanged STALE entries of devices that left the
+ * network, and re-confirms the entry of a present device only about 5 seconds after it has been used again. Such an
+ * entry is present as soon as it changes to REACHABLE within the deadline of the target.
+ *
+ * @author agent - Initial contribution
+ */
+public class ArpSweep {
+    // Requests within this time window are combined before the sweep starts
+    static final int COLLECT_WINDOW_IN_MS = 20;
+    // The neighbour table is read after 50ms, 100ms, 200ms, ... until the deadline of a target is reached
+    static final int FIRST_READ_IN_MS = 50;
+    // The maximum number of table reads for one target after the packet has been sent, including the read at the
+    // deadline
+    static final int MAX_TABLE_READS_PER_TARGET = 6;
+    // Reads that are due within this time are done with the same table read
+    private static final long COALESCE_READS_NS = TimeUnit.MILLISECONDS.toNanos(20);
+
+    /**
+     * An address that is checked by a sweep.
+     */
+    private static class Target {
+        final List<CompletableFuture<String>> requesters = new ArrayList<>(1);
+        long deadline;
+        NeighbourEntry entryBeforeProbe;
+        long nextRead;
+        long readInterval = TimeUnit.MILLISECONDS.toNanos(FIRST_READ_IN_MS);
+        int readsLeft = MAX_TABLE_READS_PER_TARGET;
+    }
+
+    private static ArpSweep instance;
+
+    private final Logger logger = LoggerFactory.getLogger(ArpSweep.class);
+    private final ScheduledExecutorService sweepExecutor;
+    NetworkUtils networkUtils = new NetworkUtils();
+
+    // Requested targets that have not been added to the sweep yet. Guarded by this.
+    private Map<InetAddress, Target> pendingTargets = new HashMap<>();
+    private boolean sweepRunning;
+
+    /**
+     * Returns the binding wide instance. The instance is created on first access.
+     */
+    public static synchronized ArpSweep getInstance() {
+        if (instance == null) {
+            instance = new ArpSweep();
+        }
+        return instance;
+    }
+
+    ArpSweep() {
+        sweepExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "presenceDetectionArpSweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Return true if a sweep can be performed on this system.
+     */
+    public boolean isAvailable() {
+        return networkUtils.isNeighbourTableAvailable();
+    }
+
+    /**
+     * Requests the given address to be checked by the sweep.
+     *
+     * @param address An IPv4 address
+     * @param timeoutInMS The maximum time to wait for the address to be resolved, starting now
+     * @return A future that completes with the interface name the address was found on, or with null if the
+     *         address has not been reachable in time.
+     */
+    public CompletableFuture<String> probe(InetAddress address, int timeoutInMS) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutInMS);
+        synchronized (this) {
+            Target target = pendingTargets.computeIfAbsent(address, a -> {
+                Target t = new Target();
+                t.deadline = deadline;
+                return t;
+            });
+            target.requesters.add(result);
+            // Requesters of the same address share the earliest deadline
+            if (deadline - target.deadline < 0) {
+                target.deadline = deadline;
+            }
+            if (!sweepRunning) {
+                sweepRunning = true;
+                sweepExecutor.schedule(this::performSweep, COLLECT_WINDOW_IN_MS, TimeUnit.MILLISECONDS);
+            } else {
+                notifyAll();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Performs the sweep until all targets, including those that join while it is running, are found or have
+     * reached their deadline. Called by the sweep thread.
+     */
+    void performSweep() {
+        final Map<InetAddress, Target> targets = new HashMap<>();
+        int tableReads = 0;
+        boolean finished = false;
+        try {
+            while (true) {
+                Map<InetAddress, Target> newTargets;
+                synchronized (this) {
+                    newTargets = pendingTargets;
+                    pendingTargets = new HashMap<>();
+                    if (newTargets.isEmpty()) {
+                        if (targets.isEmpty()) {
+                            sweepRunning = false;
+                            finished = true;
+                            break;
+                        }
+                        // Wait for the next read, or for a new target to join
+                        long wait = nextRead(targets) - System.nanoTime();
+                        if (wait > 0) {
+                            TimeUnit.NANOSECONDS.timedWait(this, wait);
+                            if (!pendingTargets.isEmpty()) {
+                                continue;
+                            }
+                        }
+                    }
+                }
+
+                Map<String, NeighbourEntry> table = networkUtils.readNeighbourTable();
+                tableReads++;
+                final long now = System.nanoTime();
+
+                if (!newTargets.isEmpty()) {
+                    // Join new targets of an address that is already checked
+                    for (Iterator<Map.Entry<InetAddress, Target>> it = newTargets.entrySet().iterator(); it
+                            .hasNext();) {
+                        Map.Entry<InetAddress, Target> entry = it.next();
+                        Target existing = targets.get(entry.getKey());
+                        if (existing != null) {
+                            existing.requesters.addAll(entry.getValue().requesters);
+                            if (entry.getValue().deadline - existing.deadline < 0) {
+                                existing.deadline = entry.getValue().deadline;
+                            }
+                            it.remove();
+                        }
+                    }
+                    for (Map.Entry<InetAddress, Target> entry : newTargets.entrySet()) {
+                        Target target = entry.getValue();
+                        target.entryBeforeProbe = table.get(entry.getKey().getHostAddress());
+                        target.nextRead = now + target.readInterval;
+                    }
+                    targets.putAll(newTargets);
+                }
+
+                checkTargets(targets, table, now);
+
+                // Send the packets after the table has been read, so changed entries can be told apart
+                Set<InetAddress> unresolved = new HashSet<>(newTargets.keySet());
+                unresolved.retainAll(targets.keySet());
+                if (!unresolved.isEmpty()) {
+                    networkUtils.sendNeighbourSolicitations(unresolved);
+                }
+            }
+            logger.trace("ARP sweep finished after {} table reads", tableReads);
+        } catch (IOException e) {
+            logger.debug("ARP sweep failed", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Reset interrupt flag
+        } finally {
+            if (!finished) {
+                // The sweep failed, nothing can be found anymore
+                synchronized (this) {
+                    targets.putAll(pendingTargets);
+                    pendingTargets = new HashMap<>();
+                    sweepRunning = false;
+                }
+                for (Target target : targets.values()) {
+                    complete(target.requesters, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * Completes the found targets and the targets that have reached their deadline or their maximum number of table
+     * reads, and schedules the next read of the others.
+     */
+    private void checkTargets(Map<InetAddress, Target> targets, Map<String, NeighbourEntry> table, long now) {
+        for (Iterator<Map.Entry<InetAddress, Target>> it = targets.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<InetAddress, Target> entry = it.next();
+            Target target = entry.getValue();
+            NeighbourEntry neighbour = table.get(entry.getKey().getHostAddress());
+            if (isPresent(target.entryBeforeProbe, neighbour)) {
+                complete(target.requesters, neighbour.getInterfaceName());
+                it.remove();
+                continue;
+            }
+
+            if (target.nextRead - now > COALESCE_READS_NS) {
+                // This read was not due for the target
+                if (target.deadline - now <= 0) {
+                    complete(target.requesters, null);
+                    it.remove();
+                }
+                continue;
+            }
+            target.readsLeft--;
+            if (target.readsLeft <= 0 || target.deadline - now <= 0) {
+                complete(target.requesters, null);
+                it.remove();
+                continue;
+            }
+            // The last read is done at the deadline
+            target.nextRead = target.readsLeft == 1 ? target.deadline
+                    : Math.min(now + target.readInterval, target.deadline);
+            target.readInterval *= 2;
+        }
+    }
+
+    private static long nextRead(Map<InetAddress, Target> targets) {
+        Iterator<Target> it = targets.values().iterator();
+        long nextRead = it.next().nextRead;
+        while (it.hasNext()) {
+            long read = it.next().nextRead;
+            if (read - nextRead < 0) {
+                nextRead = read;
+            }
+        }
+        return nextRead;
+    }
+
+    /**
+     * Returns true if the neighbour table entry shows that the destination is present.
+     *
+     * @param before The entry before the packet was sent to the destination, may be null
+     * @param now The current entry, may be null
+     */
+    static boolean isPresent(NeighbourEntry before, NeighbourEntry now) {
+        if (now == null) {
+            return false;
+        }
+        if (now.isReachable()) {
+            return true;
+        }
+        // The hardware address has been resolved after the packet has been sent
+        return before != now && now.isUnconfirmed()
+                && (before == null || !now.getHardwareAddress().equals(before.getHardwareAddress()));
+    }
+
+    private void complete(List<CompletableFuture<String>> requesters, String interfaceName) {
+        for (CompletableFuture<String> requester : requesters) {
+            requester.complete(interfaceName);
+        }
+    }
+
+    /**
+     * Requests the given addresses to be checked by the sweep and waits for the result.
+     *
+     * @param addresses IPv4 addresses
+     * @param timeoutInMS The maximum time to wait for the addresses to be resolved
+     * @return The addresses that have been found and the interface names they were found on.
+     */
+    public Map<InetAddress, String> sweep(Iterable<InetAddress> addresses, int timeoutInMS)
+            throws InterruptedException {
+        Map<InetAddress, CompletableFuture<String>> requests = new HashMap<>();
+        for (InetAddress address : addresses) {
+            requests.put(address, probe(address, timeoutInMS));
+        }
+        Map<InetAddress, String> result = new HashMap<>();
+        for (Map.Entry<InetAddress, CompletableFuture<String>> request : requests.entrySet()) {
+            try {
+                String interfaceName = request.getValue().get();
+                if (interfaceName != null) {
+                    result.put(request.getKey(), interfaceName);
+                }
+            } catch (ExecutionException ignored) {
+                // A probe future is never completed exceptionally
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+}
@@ -23,11 +23,18 @@ public class NetworkBindingConfiguration {
     public Boolean allowDHCPlisten = true;
     public BigDecimal cacheDeviceStateTimeInMS = BigDecimal.valueOf(2000);
     public String arpPingToolPath = "arping";
+    public Boolean useArpSweep = false;
+    public BigDecimal maxConcurrentProbes = BigDecimal.valueOf(PresenceDetectionScheduler.DEFAULT_POOL_SIZE);
+    public BigDecimal maxProbesPerInterface = BigDecimal
+            .valueOf(PresenceDetectionScheduler.DEFAULT_PROBES_PER_INTERFACE);
 
     public void update(@NonNull NetworkBindingConfiguration newConfiguration) {
         this.allowSystemPings = newConfiguration.allowSystemPings;
         this.allowDHCPlisten = newConfiguration.allowDHCPlisten;
         this.cacheDeviceStateTimeInMS = newConfiguration.cacheDeviceStateTimeInMS;
         this.arpPingToolPath = newConfiguration.arpPingToolPath;
+        this.useArpSweep = newConfiguration.useArpSweep;
+        this.maxConcurrentProbes = newConfiguration.maxConcurrentProbes;
+        this.maxProbesPerInterface = newConfiguration.maxProbesPerInterface;
     }
 }
@@ -61,6 +61,8 @@ public class NetworkHandlerFactory extends BaseThingHandlerFactory {
         // configuration, the values are automatically available in all handlers. Because they all
         // share the same instance.
         configuration.update(new Configuration(config).as(NetworkBindingConfiguration.class));
+        PresenceDetectionScheduler.getInstance().configure(configuration.maxConcurrentProbes.intValue(),
+                configuration.maxProbesPerInterface.intValue());
     }
 
     @Override
@@ -13,13 +13,17 @@ import java.net.Inet4Address;
 import java.net.InetAddress;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Consumer;
 
 import org.apache.commons.lang.StringUtils;
@@ -47,6 +51,7 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     private boolean useDHCPsniffing = false;
     private ArpPingUtilEnum arpPingMethod = null;
     private String arpPingUtilPath = "arping";
+    private boolean useArpSweep = false;
     private IpPingMethodEnum pingMethod = null;
     private boolean iosDevice;
     private Set<Integer> tcpPorts = new HashSet<Integer>();
@@ -62,7 +67,9 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     private final PresenceDetectionListener updateListener;
     private ScheduledFuture<?> refreshJob;
     private InetAddress destination;
-    ExecutorService executorService;
+    PresenceDetectionScheduler scheduler = PresenceDetectionScheduler.getInstance();
+    ArpSweep arpSweep = ArpSweep.getInstance();
+    List<Future<?>> detectionFutures;
     private String dhcpState = "off";
     Integer currentCheck = 0;
     int detectionChecks;
@@ -101,6 +108,9 @@ public class PresenceDetection implements IPRequestReceivedCallback {
                 arpPingMethod = null;
             }
         }
+        if (useArpSweep && !(destination instanceof Inet4Address)) {
+            useArpSweep = false;
+        }
     }
 
     public void setServicePorts(Set<Integer> ports) {
@@ -160,6 +170,25 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         return arpPingMethod;
     }
 
+    /**
+     * Enables or disables the ARP sweep mode. Instead of executing the arping utility for each interface,
+     * the destination is checked together with all other destinations by the binding wide {@link ArpSweep},
+     * that uses the kernel neighbour table. Will be automatically disabled if the destination is not an IPv4 address
+     * or if the neighbour table is not available on this system. If enabled, it takes precedence over ARP pings.
+     *
+     * @param enable Enable or disable the ARP sweep mode
+     */
+    public void setUseArpSweep(boolean enable) {
+        useArpSweep = enable && destination instanceof Inet4Address && arpSweep.isAvailable();
+    }
+
+    /**
+     * Return true if the ARP sweep mode is used.
+     */
+    public boolean isUsingArpSweep() {
+        return useArpSweep;
+    }
+
     public IpPingMethodEnum getPingMethod() {
         return pingMethod;
     }
@@ -202,14 +231,10 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         cache.getValue(callback);
     }
 
-    public ExecutorService getThreadsFor(int threadCount) {
-        return Executors.newFixedThreadPool(threadCount);
-    }
-
     /**
      * Perform a presence detection with ICMP-, ARP ping and
-     * TCP connection attempts simultaneously. A fixed thread pool will be created with as many
-     * thread as necessary to perform all tests at once.
+     * TCP connection attempts simultaneously. All checks are submitted to the binding wide
+     * {@link PresenceDetectionScheduler}.
      *
      * This is a NO-OP, if there is already an ongoing detection or if the cached value
      * is not expired yet.
@@ -223,7 +248,7 @@ public class PresenceDetection implements IPRequestReceivedCallback {
      * @return Return true if a presence detection is performed and false otherwise.
      */
     public boolean performPresenceDetection(boolean waitForDetectionToFinish) {
-        if (executorService != null) {
+        if (detectionFutures != null) {
             logger.debug(
                     "There is already an ongoing presence discovery for {} and a new one was issued by the scheduler! TCP Port {}",
                     hostname, tcpPorts);
@@ -241,7 +266,9 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         if (pingMethod != null) {
             detectionChecks += 1;
         }
-        if (arpPingMethod != null) {
+        if (useArpSweep) {
+            detectionChecks += 1;
+        } else if (arpPingMethod != null) {
             interfaceNames = networkUtils.getInterfaceNames();
             detectionChecks += interfaceNames.size();
         }
@@ -250,38 +277,49 @@ public class PresenceDetection implements IPRequestReceivedCallback {
             return false;
         }
 
-        executorService = getThreadsFor(detectionChecks);
+        // Probes that finish early have to wait in checkIfFinished() until all probes are submitted
+        synchronized (this) {
+            detectionFutures = new ArrayList<>(detectionChecks);
 
-        for (Integer tcpPort : tcpPorts) {
-            executorService.execute(() -> {
-                Thread.currentThread().setName("presenceDetectionTCP_" + hostname + " " + String.valueOf(tcpPort));
-                performServicePing(tcpPort);
-                checkIfFinished();
-            });
-        }
-
-        // ARP ping for IPv4 addresses. Use an own executor for each network interface
-        if (interfaceNames != null) {
-            for (final String interfaceName : interfaceNames) {
-                executorService.execute(() -> {
-                    Thread.currentThread().setName("presenceDetectionARP_" + hostname + " " + interfaceName);
-                    performARPping(interfaceName);
+            for (Integer tcpPort : tcpPorts) {
+                detectionFutures.add(scheduler.submit(null, () -> {
+                    performServicePing(tcpPort);
                     checkIfFinished();
-                });
+                }));
             }
-        }
 
-        // ICMP ping
-        if (pingMethod != null) {
-            executorService.execute(() -> {
-                if (pingMethod != IpPingMethodEnum.JAVA_PING) {
-                    Thread.currentThread().setName("presenceDetectionICMP_" + hostname);
-                    performSystemPing();
-                } else {
-                    performJavaPing();
+            // ARP ping for IPv4 addresses. The scheduler limits the concurrent probes per network interface
+            if (interfaceNames != null) {
+                for (final String interfaceName : interfaceNames) {
+                    detectionFutures.add(scheduler.submit(interfaceName, () -> {
+                        performARPping(interfaceName);
+                        checkIfFinished();
+                    }));
                 }
-                checkIfFinished();
-            });
+            }
+
+            // ARP sweep. One sweep checks the destinations of all presence detection objects at once
+            if (useArpSweep) {
+                final long pingTime = System.nanoTime();
+                detectionFutures.add(arpSweep.probe(destination, timeoutInMS).thenAccept(interfaceName -> {
+                    if (interfaceName != null) {
+                        arpSweepResult(interfaceName, Math.round((System.nanoTime() - pingTime) / 1000000.0f));
+                    }
+                    checkIfFinished();
+                }));
+            }
+
+            // ICMP ping
+            if (pingMethod != null) {
+                detectionFutures.add(scheduler.submit(null, () -> {
+                    if (pingMethod != IpPingMethodEnum.JAVA_PING) {
+                        performSystemPing();
+                    } else {
+                        performJavaPing();
+                    }
+                    checkIfFinished();
+                }));
+            }
         }
 
         if (waitForDetectionToFinish) {
@@ -294,17 +332,16 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     /**
      * Calls updateListener.finalDetectionResult() with a final result value.
      * Safe to be called from different threads. After a call to this method,
-     * the presence detection process is finished and all threads are forcefully
-     * shut down.
+     * the presence detection process is finished and all remaining checks are
+     * cancelled.
      */
     private synchronized void submitFinalResult() {
         // Do nothing if we are not in a detection process
-        if (executorService == null) {
+        if (detectionFutures == null) {
             return;
         }
         // Finish the detection process
-        executorService.shutdownNow();
-        executorService = null;
+        cancelDetection();
         detectionChecks = 0;
 
         PresenceDetectionValue v;
@@ -337,21 +374,47 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     }
 
     /**
-     * Waits for the presence detection threads to finish. Returns immediately
+     * Cancels all queued and running checks of the current detection process.
+     */
+    private synchronized void cancelDetection() {
+        if (detectionFutures == null) {
+            return;
+        }
+        for (Future<?> future : detectionFutures) {
+            future.cancel(true);
+        }
+        detectionFutures = null;
+    }
+
+    /**
+     * Waits for the presence detection checks to finish. Returns immediately
      * if no presence detection is performed right now.
+     *
+     * All checks run in parallel and share one deadline of the configured timeout, so this returns after at most one
+     * timeout. Checks that are still running or queued by then are reported as unreachable.
      */
     public void waitForPresenceDetection() {
-        if (executorService == null) {
-            return;
+        List<Future<?>> futures;
+        synchronized (this) {
+            if (detectionFutures == null) {
+                return;
+            }
+            futures = new ArrayList<>(detectionFutures);
         }
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutInMS + 100);
         try {
-            // We may get interrupted here by cancelRefreshJob().
-            executorService.awaitTermination(timeoutInMS + 100, TimeUnit.MILLISECONDS);
+            for (Future<?> future : futures) {
+                try {
+                    // We may get interrupted here by cancelRefreshJob().
+                    future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                } catch (CancellationException | ExecutionException | TimeoutException ignored) {
+                    // The final result is submitted below in any case
+                }
+            }
             submitFinalResult();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt(); // Reset interrupt flag
-            executorService.shutdownNow();
-            executorService = null;
+            cancelDetection();
         }
     }
 
@@ -383,7 +446,7 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     protected void performServicePing(int tcpPort) {
         logger.trace("Perform TCP presence detection for {} on port", hostname, tcpPorts);
         try {
-            double pingTime = System.nanoTime();
+            long pingTime = System.nanoTime();
             if (networkUtils.servicePing(destination.getHostAddress(), tcpPort, timeoutInMS)) {
                 final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
                 PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.TCP_CONNECTION, latency);
@@ -411,7 +474,7 @@ public class PresenceDetection implements IPRequestReceivedCallback {
                 networkUtils.wakeUpIOS(destination);
                 Thread.sleep(50);
             }
-            double pingTime = System.nanoTime();
+            long pingTime = System.nanoTime();
             if (networkUtils.nativeARPPing(arpPingMethod, arpPingUtilPath, interfaceName, destination.getHostAddress(),
                     timeoutInMS)) {
                 final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
@@ -425,6 +488,18 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         }
     }
 
+    /**
+     * Called if the destination has been found in the kernel neighbour table by an ARP sweep.
+     *
+     * @param interfaceName The interface the destination was found on
+     * @param latency The time between the sweep request and the result
+     */
+    protected void arpSweepResult(String interfaceName, double latency) {
+        logger.trace("ARP sweep found {} on interface {}", hostname, interfaceName);
+        PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.ARP_PING, latency);
+        updateListener.partialDetectionResult(v);
+    }
+
     /**
      * Performs a java ping. It is not recommended to use this, as it is not interruptible,
      * and will not work on windows systems reliably and will fall back from ICMP pings to
@@ -434,7 +509,7 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     protected void performJavaPing() {
         try {
             logger.trace("Perform java ping presence detection for {}", hostname);
-            double pingTime = System.nanoTime();
+            long pingTime = System.nanoTime();
             if (destination.isReachable(timeoutInMS)) {
                 final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
                 PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.ICMP_PING, latency);
@@ -448,7 +523,7 @@ public class PresenceDetection implements IPRequestReceivedCallback {
     protected void performSystemPing() {
         try {
             logger.trace("Perform native ping presence detection for {}", hostname);
-            double pingTime = System.nanoTime();
+            long pingTime = System.nanoTime();
             if (networkUtils.nativePing(pingMethod, destination.getHostAddress(), timeoutInMS)) {
                 final double latency = Math.round((System.nanoTime() - pingTime) / 1000000.0f);
                 PresenceDetectionValue v = updateReachableValue(PresenceDetectionType.ICMP_PING, latency);
@@ -469,6 +544,7 @@ public class PresenceDetection implements IPRequestReceivedCallback {
 
     /**
      * Start/Restart a fixed scheduled runner to update the devices reach-ability state.
+     * The first run is delayed by a random fraction of the refresh interval.
      *
      * @param scheduledExecutorService A scheduler to run pings periodically.
      */
@@ -476,8 +552,9 @@ public class PresenceDetection implements IPRequestReceivedCallback {
         if (refreshJob != null && !refreshJob.isDone()) {
             refreshJob.cancel(true);
         }
-        refreshJob = scheduledExecutorService.scheduleWithFixedDelay(() -> performPresenceDetection(true), 0,
-                refreshIntervalInMS, TimeUnit.MILLISECONDS);
+        // Spread the refresh jobs of all things over the refresh interval
+        refreshJob = scheduledExecutorService.scheduleWithFixedDelay(() -> performPresenceDetection(true),
+                scheduler.getInitialDelay(refreshIntervalInMS), refreshIntervalInMS, TimeUnit.MILLISECONDS);
 
         enableDHCPListen(useDHCPsniffing);
     }
@@ -0,0 +1,262 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.network.internal;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A singleton, shared by all {@link PresenceDetection} objects of the binding. All TCP, ARP and ICMP
+ * probes are executed on one bounded worker pool instead of a thread pool per detection run.
+ *
+ * The amount of probes that hit the same network interface at once is limited as well. Probes of a saturated
+ * interface wait in a queue of that interface and are only handed to the pool when a probe of the same interface
+ * finishes, so they never occupy worker threads that probes of other interfaces could use. Probes that are not bound
+ * to a specific interface (ICMP, TCP) are only limited by the pool size.
+ *
+ * Some statistics (queue depth, probe latency, queue wait time) are collected to be able to size the pool.
+ *
+ * @author agent - Initial contribution
+ */
+public class PresenceDetectionScheduler {
+    public static final int DEFAULT_POOL_SIZE = 16;
+    public static final int DEFAULT_PROBES_PER_INTERFACE = 8;
+    private static final long STATISTICS_LOG_INTERVAL_NS = TimeUnit.MINUTES.toNanos(1);
+    // The initial delay of a refresh job is at most this fraction of its refresh interval
+    private static final int MAX_INITIAL_DELAY_FRACTION = 10;
+
+    private static PresenceDetectionScheduler instance;
+
+    private final Logger logger = LoggerFactory.getLogger(PresenceDetectionScheduler.class);
+    private final ThreadPoolExecutor executor;
+    private final Map<String, InterfaceQueue> interfaceQueues = new ConcurrentHashMap<>();
+    private volatile int probesPerInterface;
+
+    // Statistics
+    private final AtomicLong completedProbes = new AtomicLong();
+    private final AtomicLong totalProbeTimeNs = new AtomicLong();
+    private final AtomicLong maxProbeTimeNs = new AtomicLong();
+    private final AtomicLong totalQueueWaitNs = new AtomicLong();
+    private final AtomicLong lastStatisticsLogNs = new AtomicLong(System.nanoTime());
+
+    /**
+     * Returns the binding wide instance. The instance is created on first access.
+     */
+    public static synchronized PresenceDetectionScheduler getInstance() {
+        if (instance == null) {
+            instance = new PresenceDetectionScheduler(DEFAULT_POOL_SIZE, DEFAULT_PROBES_PER_INTERFACE);
+        }
+        return instance;
+    }
+
+    PresenceDetectionScheduler(int poolSize, int probesPerInterface) {
+        final AtomicInteger threadCounter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "presenceDetection-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // Idle worker threads are released again, the pool only consumes threads while probes are executed.
+        executor.allowCoreThreadTimeOut(true);
+        this.probesPerInterface = probesPerInterface;
+    }
+
+    /**
+     * Changes the pool size and the per interface limit. Probes that are already running are not affected.
+     *
+     * @param poolSize The maximum amount of concurrently executed probes
+     * @param probesPerInterface The maximum amount of concurrently executed probes on the same interface
+     */
+    public synchronized void configure(int poolSize, int probesPerInterface) {
+        if (poolSize < 1 || probesPerInterface < 1) {
+            throw new IllegalArgumentException("Pool size and probes per interface must be positive");
+        }
+        if (poolSize > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(poolSize);
+            executor.setCorePoolSize(poolSize);
+        } else {
+            executor.setCorePoolSize(poolSize);
+            executor.setMaximumPoolSize(poolSize);
+        }
+        if (this.probesPerInterface != probesPerInterface) {
+            this.probesPerInterface = probesPerInterface;
+            // Running and waiting probes finish on the old queues, new probes use new ones.
+            interfaceQueues.clear();
+        }
+    }
+
+    /**
+     * Queue a probe for execution.
+     *
+     * @param interfaceName The network interface the probe is bound to or null if not bound to a specific interface.
+     * @param probe The probe
+     * @return A future that can be used to wait for or to cancel the probe.
+     */
+    public Future<?> submit(String interfaceName, Runnable probe) {
+        final long queuedAt = System.nanoTime();
+        Runnable measuredProbe = () -> {
+            // Taken after the interface admitted the probe, so the queue wait includes the wait for the interface
+            final long startedAt = System.nanoTime();
+            try {
+                probe.run();
+            } finally {
+                recordProbe(startedAt - queuedAt, System.nanoTime() - startedAt);
+            }
+        };
+
+        if (interfaceName == null) {
+            return executor.submit(measuredProbe);
+        }
+
+        InterfaceQueue queue = interfaceQueues.computeIfAbsent(interfaceName,
+                name -> new InterfaceQueue(probesPerInterface));
+        FutureTask<Void> task = new FutureTask<Void>(measuredProbe, null) {
+            @Override
+            public void run() {
+                try {
+                    super.run();
+                } finally {
+                    queue.finished();
+                }
+            }
+        };
+        queue.submit(task);
+        return task;
+    }
+
+    /**
+     * Admits at most a given amount of probes of one interface to the worker pool. Further probes wait here and are
+     * passed to the pool when a running probe of the interface finishes. A cancelled probe still passes through the
+     * pool, but returns immediately.
+     */
+    private class InterfaceQueue {
+        private final int limit;
+        private final Queue<Runnable> waiting = new ArrayDeque<>();
+        private int running;
+
+        InterfaceQueue(int limit) {
+            this.limit = limit;
+        }
+
+        synchronized void submit(Runnable task) {
+            if (running < limit) {
+                running++;
+                executor.execute(task);
+            } else {
+                waiting.add(task);
+            }
+        }
+
+        synchronized int waitingCount() {
+            return waiting.size();
+        }
+
+        synchronized void finished() {
+            Runnable next = waiting.poll();
+            if (next != null) {
+                executor.execute(next);
+            } else {
+                running--;
+            }
+        }
+    }
+
+    /**
+     * Returns a random delay within the first tenth of the given refresh interval. Refresh jobs that are started with
+     * this initial delay do not all fire at the same time, while a new thing still gets its first status soon.
+     *
+     * @param refreshIntervalInMS The refresh interval in milliseconds
+     * @return An initial delay in milliseconds
+     */
+    public long getInitialDelay(long refreshIntervalInMS) {
+        if (refreshIntervalInMS <= 0) {
+            return 0;
+        }
+        long maxDelay = refreshIntervalInMS / MAX_INITIAL_DELAY_FRACTION;
+        return maxDelay > 0 ? ThreadLocalRandom.current().nextLong(maxDelay) : 0;
+    }
+
+    private void recordProbe(long queueWaitNs, long probeTimeNs) {
+        long completed = completedProbes.incrementAndGet();
+        totalQueueWaitNs.addAndGet(queueWaitNs);
+        totalProbeTimeNs.addAndGet(probeTimeNs);
+        maxProbeTimeNs.accumulateAndGet(probeTimeNs, Math::max);
+
+        long now = System.nanoTime();
+        long lastLog = lastStatisticsLogNs.get();
+        if (now - lastLog > STATISTICS_LOG_INTERVAL_NS && lastStatisticsLogNs.compareAndSet(lastLog, now)) {
+            logger.debug(
+                    "Presence detection statistics: {} probes, queue depth {}, active {}, avg latency {} ms, max latency {} ms, avg queue wait {} ms",
+                    completed, getQueueDepth(), getActiveProbes(), getAverageProbeLatency(), getMaxProbeLatency(),
+                    getAverageQueueWait());
+        }
+    }
+
+    /**
+     * Returns the amount of probes that are waiting for a free worker thread or for their interface.
+     */
+    public int getQueueDepth() {
+        int depth = executor.getQueue().size();
+        for (InterfaceQueue queue : interfaceQueues.values()) {
+            depth += queue.waitingCount();
+        }
+        return depth;
+    }
+
+    /**
+     * Returns the amount of probes that are executed right now.
+     */
+    public int getActiveProbes() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Returns the amount of executed probes since the binding was started.
+     */
+    public long getCompletedProbes() {
+        return completedProbes.get();
+    }
+
+    /**
+     * Returns the average execution time of a probe in milliseconds.
+     */
+    public double getAverageProbeLatency() {
+        long completed = completedProbes.get();
+        return completed == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalProbeTimeNs.get() / completed);
+    }
+
+    /**
+     * Returns the maximum execution time of a probe in milliseconds.
+     */
+    public double getMaxProbeLatency() {
+        return TimeUnit.NANOSECONDS.toMillis(maxProbeTimeNs.get());
+    }
+
+    /**
+     * Returns the average time in milliseconds a probe had to wait for its interface and a free worker thread.
+     */
+    public double getAverageQueueWait() {
+        long completed = completedProbes.get();
+        return completed == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalQueueWaitNs.get() / completed);
+    }
+}
@@ -10,7 +10,9 @@ package org.openhab.binding.network.internal.discovery;
 
 import static org.openhab.binding.network.NetworkBindingConstants.*;
 
+import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -24,6 +26,7 @@ import org.eclipse.smarthome.config.discovery.AbstractDiscoveryService;
 import org.eclipse.smarthome.config.discovery.DiscoveryResultBuilder;
 import org.eclipse.smarthome.config.discovery.DiscoveryService;
 import org.eclipse.smarthome.core.thing.ThingUID;
+import org.openhab.binding.network.internal.ArpSweep;
 import org.openhab.binding.network.internal.NetworkBindingConfiguration;
 import org.openhab.binding.network.internal.PresenceDetection;
 import org.openhab.binding.network.internal.PresenceDetectionListener;
@@ -61,6 +64,7 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
     private ExecutorService executorService = null;
     private final NetworkBindingConfiguration configuration = new NetworkBindingConfiguration();
     NetworkUtils networkUtils = new NetworkUtils();
+    ArpSweep arpSweep = ArpSweep.getInstance();
 
     public NetworkDiscoveryService() {
         super(SUPPORTED_THING_TYPES_UIDS, (int) Math.round(
@@ -123,6 +127,13 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
         executorService = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
         scannedIPcount = 0;
 
+        // In ARP sweep mode, all IPs are checked in one pass over the kernel neighbour table
+        // instead of an ICMP and ARP ping process per IP. Only TCP services are scanned per IP.
+        final boolean useArpSweep = configuration.useArpSweep && arpSweep.isAvailable();
+        if (useArpSweep) {
+            executorService.execute(() -> performArpSweep(networkIPs));
+        }
+
         for (String ip : networkIPs) {
             final PresenceDetection s = new PresenceDetection(this, 2000);
             try {
@@ -135,8 +146,10 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
             s.setUseDhcpSniffing(false);
             s.setTimeout(PING_TIMEOUT_IN_MS);
             // Ping devices
-            s.setUseIcmpPing(true);
-            s.setUseArpPing(true, configuration.arpPingToolPath);
+            if (!useArpSweep) {
+                s.setUseIcmpPing(true);
+                s.setUseArpPing(true, configuration.arpPingToolPath);
+            }
             // TCP devices
             s.setServicePorts(tcp_service_ports);
 
@@ -154,6 +167,29 @@ public class NetworkDiscoveryService extends AbstractDiscoveryService implements
         }
     }
 
+    /**
+     * Checks all given IPs with one ARP sweep and submits every found IP as ping device.
+     *
+     * @param networkIPs The IPs to check
+     */
+    private void performArpSweep(Set<String> networkIPs) {
+        List<InetAddress> addresses = new ArrayList<>(networkIPs.size());
+        for (String ip : networkIPs) {
+            try {
+                addresses.add(InetAddress.getByName(ip));
+            } catch (UnknownHostException ignored) {
+                // Skip IPs that cannot be converted to an InetAddress
+            }
+        }
+        try {
+            for (InetAddress address : arpSweep.sweep(addresses, PING_TIMEOUT_IN_MS).keySet()) {
+                newPingDevice(address.getHostAddress());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // Reset interrupt flag
+        }
+    }
+
     @Override
     protected synchronized void stopScan() {
         super.stopScan();
@@ -8,7 +8,11 @@
  */
 package org.openhab.binding.network.internal.utils;
 
+import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.ConnectException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
@@ -22,10 +26,15 @@ import java.net.Socket;
 import java.net.SocketAddress;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
@@ -39,6 +48,60 @@ import org.eclipse.smarthome.io.net.exec.ExecUtil;
  * @author David Graeff <david.graeff@web.de>
  */
 public class NetworkUtils {
+    /** Possible locations of the iproute2 utility on Linux systems, that reports the kernel neighbour table */
+    private static final String[] IP_TOOL_PATHS = { "/sbin/ip", "/bin/ip", "/usr/sbin/ip", "/usr/bin/ip" };
+
+    /**
+     * An entry of the kernel neighbour table.
+     */
+    public static class NeighbourEntry {
+        private final String interfaceName;
+        private final String hardwareAddress;
+        private final String state;
+
+        public NeighbourEntry(String interfaceName, String hardwareAddress, String state) {
+            this.interfaceName = interfaceName;
+            this.hardwareAddress = hardwareAddress;
+            this.state = state;
+        }
+
+        public String getInterfaceName() {
+            return interfaceName;
+        }
+
+        /**
+         * Returns the hardware address or null if it is not resolved (INCOMPLETE, FAILED).
+         */
+        public String getHardwareAddress() {
+            return hardwareAddress;
+        }
+
+        public String getState() {
+            return state;
+        }
+
+        /**
+         * Returns true if the neighbour has recently confirmed its hardware address.
+         */
+        public boolean isReachable() {
+            return "REACHABLE".equals(state);
+        }
+
+        /**
+         * Returns true if the hardware address is known, but has not been confirmed recently. The kernel keeps these
+         * entries of devices that already left the network, and confirms the entry of a present device only about
+         * 5 seconds after it has been used again (DELAY, PROBE).
+         */
+        public boolean isUnconfirmed() {
+            return hardwareAddress != null && ("STALE".equals(state) || "DELAY".equals(state) || "PROBE".equals(state));
+        }
+
+        @Override
+        public String toString() {
+            return interfaceName + " " + hardwareAddress + " " + state;
+        }
+    }
+
     /**
      * Gets every IPv4 Address on each Interface except the loopback
      * The Address format is ip/subnet
@@ -298,6 +361,99 @@ public class NetworkUtils {
         return proc.waitFor() == 0;
     }
 
+    /**
+     * Return true if the kernel neighbour table can be read on this system (Linux with iproute2 only).
+     */
+    public boolean isNeighbourTableAvailable() {
+        return getIpToolPath() != null;
+    }
+
+    private String getIpToolPath() {
+        for (String path : IP_TOOL_PATHS) {
+            if (new File(path).canExecute()) {
+                return path;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the IPv4 part of the kernel neighbour table with "ip -4 neigh show". The ARP table in /proc/net/arp
+     * is not used, because it does not tell a confirmed entry apart from a stale one of a device that already left.
+     *
+     * @return A map of IPv4 addresses to their entries
+     * @throws IOException The table could not be read
+     * @throws InterruptedException The thread has been interrupted while waiting for the ip utility
+     */
+    public Map<String, NeighbourEntry> readNeighbourTable() throws IOException, InterruptedException {
+        String ipToolPath = getIpToolPath();
+        if (ipToolPath == null) {
+            throw new IOException("The ip utility is not available");
+        }
+        Process proc = new ProcessBuilder(ipToolPath, "-4", "neigh", "show").redirectErrorStream(true).start();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(proc.getInputStream(), StandardCharsets.US_ASCII))) {
+            return parseNeighbourTable(reader);
+        } finally {
+            proc.waitFor();
+        }
+    }
+
+    /**
+     * Parses the output of "ip -4 neigh show". The format is:
+     *
+     * <pre>
+     * 192.168.0.1 dev eth0 lladdr aa:bb:cc:dd:ee:ff REACHABLE
+     * 192.168.0.2 dev eth0 lladdr aa:bb:cc:dd:ee:00 STALE
+     * 192.168.0.3 dev eth0  FAILED
+     * </pre>
+     *
+     * @param reader A reader of the table content
+     * @return A map of IPv4 addresses to their entries
+     * @throws IOException The table could not be read
+     */
+    public Map<String, NeighbourEntry> parseNeighbourTable(Reader reader) throws IOException {
+        Map<String, NeighbourEntry> result = new HashMap<>();
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        String line;
+        while ((line = lines.readLine()) != null) {
+            String[] columns = StringUtils.split(line);
+            if (columns.length < 4 || !"dev".equals(columns[1])) {
+                continue;
+            }
+            String hardwareAddress = null;
+            for (int i = 3; i < columns.length - 2; ++i) {
+                if ("lladdr".equals(columns[i])) {
+                    hardwareAddress = columns[i + 1];
+                }
+            }
+            result.put(columns[0], new NeighbourEntry(columns[2], hardwareAddress, columns[columns.length - 1]));
+        }
+        return result;
+    }
+
+    /**
+     * Sends an empty UDP packet on port 5353 to each of the given addresses with one socket. The kernel will
+     * resolve the hardware address of each on-link destination and update its neighbour table. iOS devices are
+     * woken up by the packet as well (see {@link #wakeUpIOS(InetAddress)}).
+     *
+     * @param addresses IPv4 addresses
+     * @throws IOException The socket could not be opened
+     */
+    public void sendNeighbourSolicitations(Iterable<InetAddress> addresses) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(0);
+        try (DatagramChannel channel = DatagramChannel.open()) {
+            for (InetAddress address : addresses) {
+                try {
+                    channel.send(buffer, new InetSocketAddress(address, 5353));
+                } catch (IOException ignored) {
+                    // Unreachable networks etc. are reported per destination, continue with the next one
+                }
+                buffer.rewind();
+            }
+        }
+    }
+
     /**
      * iOS devices are in a deep sleep mode, where they only listen to UDP traffic on port 5353 (Bonjour service
      * discovery). A packet on port 5353 will wake up the network stack to respond to ARP pings at least.
@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.plugwise.internal;
+
+import static org.junit.Assert.*;
+import static org.openhab.binding.plugwise.internal.PlugwiseCommunicationContext.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.plugwise.internal.protocol.AcknowledgementMessage;
+import org.openhab.binding.plugwise.internal.protocol.Message;
+import org.openhab.binding.plugwise.internal.protocol.PowerInformationResponseMessage;
+import org.openhab.binding.plugwise.internal.protocol.field.MessageType;
+
+/**
+ * Tests cases for the parsing of received frames by {@link PlugwiseMessageProcessor}.
+ *
+ * @author agent - Initial contribution
+ */
+public class PlugwiseMessageProcessorTest {
+
+    private static final String MAC = "000D6F0000A1B2C3";
+
+    private PlugwiseCommunicationContext context;
+    private PlugwiseMessageProcessor processor;
+
+    @Before
+    public void setUp() {
+        context = new PlugwiseCommunicationContext();
+        processor = new PlugwiseMessageProcessor(context);
+    }
+
+    private static String frame(String message) {
+        return PROTOCOL_HEADER + message + Message.getCRC(message) + PROTOCOL_TRAILER;
+    }
+
+    private void parse(String frame) {
+        byte[] bytes = frame.getBytes(StandardCharsets.US_ASCII);
+        // Received frames are at the start of the larger read buffer
+        ByteBuffer readBuffer = ByteBuffer.allocate(MAX_BUFFER_SIZE);
+        readBuffer.put(bytes);
+        readBuffer.flip();
+        processor.parseAndQueue(readBuffer);
+    }
+
+    private void assertNothingQueued() {
+        assertTrue(context.getAcknowledgedQueue().isEmpty());
+        assertTrue(context.getReceivedQueue().isEmpty());
+    }
+
+    @Test
+    public void acknowledgementIsQueuedForSender() {
+        parse(frame("000000A100C1"));
+
+        AcknowledgementMessage ack = context.getAcknowledgedQueue().poll();
+        assertNotNull(ack);
+        assertEquals(0xA1, ack.getSequenceNumber());
+        assertTrue(ack.isSuccess());
+        assertTrue(context.getReceivedQueue().isEmpty());
+    }
+
+    @Test
+    public void extendedAcknowledgementIsQueuedForProcessing() {
+        parse(frame("0000FFFF00D8" + MAC));
+
+        Message message = context.getReceivedQueue().poll();
+        assertTrue(message instanceof AcknowledgementMessage);
+        assertEquals(MAC, message.getMACAddress().toString());
+        assertTrue(context.getAcknowledgedQueue().isEmpty());
+    }
+
+    @Test
+    public void powerInformationResponseIsParsed() {
+        parse(frame("00130102" + MAC + "000A0050" + "00001000" + "00000000" + "0000"));
+
+        Message message = context.getReceivedQueue().poll();
+        assertEquals(MessageType.POWER_INFORMATION_RESPONSE, message.getType());
+        assertEquals(0x0102, message.getSequenceNumber());
+        PowerInformationResponseMessage response = (PowerInformationResponseMessage) message;
+        assertEquals(10, response.getOneSecond().getPulses());
+        assertEquals(80, response.getEightSecond().getPulses());
+        assertEquals(4096, response.getOneHourConsumed().getPulses());
+    }
+
+    @Test
+    public void lowerCaseHexIsAccepted() {
+        String message = "000000a100c1";
+        parse(PROTOCOL_HEADER + message + Message.getCRC(message).toLowerCase() + PROTOCOL_TRAILER);
+
+        assertEquals(0xA1, context.getAcknowledgedQueue().poll().getSequenceNumber());
+    }
+
+    @Test
+    public void frameWithInvalidCrcIsDropped() {
+        parse(PROTOCOL_HEADER + "000000A100C1" + "0000" + PROTOCOL_TRAILER);
+        assertNothingQueued();
+    }
+
+    @Test
+    public void frameWithInvalidHeaderIsDropped() {
+        parse(frame("000000A100C1").replace(PROTOCOL_HEADER, "\u0005\u0005\u0003\u0004"));
+        assertNothingQueued();
+    }
+
+    @Test
+    public void shortFramesAreDropped() {
+        parse("");
+        parse(PROTOCOL_TRAILER);
+        parse(PROTOCOL_HEADER + PROTOCOL_TRAILER);
+        parse(PROTOCOL_HEADER + "0000" + PROTOCOL_TRAILER);
+        parse(PROTOCOL_HEADER + "000000A1C" + PROTOCOL_TRAILER);
+        assertNothingQueued();
+    }
+
+    @Test
+    public void frameWithNonHexFieldsIsDropped() {
+        parse(PROTOCOL_HEADER + "00X000A100C1" + Message.getCRC("00X000A100C1") + PROTOCOL_TRAILER);
+        parse(PROTOCOL_HEADER + "000000A100C1" + "GHIJ" + PROTOCOL_TRAILER);
+        parse("# APSRequestNodeInfo: Quering node" + PROTOCOL_TRAILER);
+        assertNothingQueued();
+    }
+
+    @Test
+    public void frameWithMalformedPayloadIsDropped() {
+        // Payloads that are too short, too long or contain non-hex digits at fixed offsets
+        parse(frame("000000A100C"));
+        parse(frame("000000A100C1AB"));
+        parse(frame("00130102" + MAC + "000A0050"));
+        parse(frame("00130102" + MAC + "000A005Z" + "00001000" + "00000000" + "0000"));
+        assertNothingQueued();
+
+        // A following frame is still parsed
+        parse(frame("000000A200C1"));
+        assertEquals(0xA2, context.getAcknowledgedQueue().poll().getSequenceNumber());
+    }
+
+    @Test
+    public void unknownMessageTypeIsDropped() {
+        parse(frame("ABCD00A100C1"));
+        assertNothingQueued();
+    }
+}
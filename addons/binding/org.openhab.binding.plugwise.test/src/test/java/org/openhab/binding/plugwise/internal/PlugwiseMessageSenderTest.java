@@ -0,0 +1,51 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.plugwise.internal;
+
+import static org.junit.Assert.*;
+import static org.openhab.binding.plugwise.internal.PlugwiseMessageSender.isNewerSequenceNumber;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for the matching of acknowledgements by sequence number in {@link PlugwiseMessageSender}.
+ *
+ * @author agent - Initial contribution
+ */
+public class PlugwiseMessageSenderTest {
+
+    @Test
+    public void anySequenceNumberIsNewerWhenLastIsUnknown() {
+        assertTrue(isNewerSequenceNumber(0x0000, -1));
+        assertTrue(isNewerSequenceNumber(0x1234, -1));
+        assertTrue(isNewerSequenceNumber(0xFFFF, -1));
+    }
+
+    @Test
+    public void followingSequenceNumbersAreNewer() {
+        assertTrue(isNewerSequenceNumber(0x0101, 0x0100));
+        assertTrue(isNewerSequenceNumber(0x0103, 0x0100));
+        assertTrue(isNewerSequenceNumber(0x8100, 0x0101));
+    }
+
+    @Test
+    public void lateSequenceNumbersAreNotNewer() {
+        assertFalse(isNewerSequenceNumber(0x0100, 0x0100));
+        assertFalse(isNewerSequenceNumber(0x00FF, 0x0100));
+        assertFalse(isNewerSequenceNumber(0x8100, 0x0100));
+    }
+
+    @Test
+    public void sequenceNumbersWrapAround() {
+        assertTrue(isNewerSequenceNumber(0x0000, 0xFFFF));
+        assertTrue(isNewerSequenceNumber(0x0002, 0xFFFE));
+        assertFalse(isNewerSequenceNumber(0xFFFF, 0x0000));
+        assertFalse(isNewerSequenceNumber(0xFFFE, 0x0002));
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.plugwise.internal.protocol;
+
+import static org.junit.Assert.*;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import org.junit.Test;
+import org.openhab.binding.plugwise.internal.protocol.field.MACAddress;
+import org.openhab.binding.plugwise.internal.protocol.field.MessageType;
+
+/**
+ * Tests cases for the CRC, hex parsing and fixed offset payload fields of {@link Message} and its subclasses.
+ *
+ * @author agent - Initial contribution
+ */
+public class MessageTest {
+
+    private static final String MAC = "000D6F0000A1B2C3";
+
+    private static byte[] ascii(String string) {
+        return string.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void crcOfKnownMessages() {
+        assertEquals("2442", Message.getCRC("0000000D6F0000A1B2C3"));
+        assertEquals("AB92", Message.getCRC("000000C1"));
+        assertEquals("F698", Message.getCRC("00000001"));
+        assertEquals("0000", Message.getCRC(""));
+    }
+
+    @Test
+    public void crcOfByteRangeMatchesCrcOfString() {
+        byte[] frame = ascii("\u0005\u0005\u0003\u00030000000D6F0000A1B2C32442\r\n");
+        assertEquals(0x2442, Message.getCRC(frame, 4, 20));
+    }
+
+    @Test
+    public void messageHexStringEndsWithCrc() {
+        Message message = new PowerInformationRequestMessage(new MACAddress(MAC));
+        String hexString = message.toHexString();
+
+        String body = hexString.substring(0, hexString.length() - 4);
+        assertEquals("0012" + MAC, body);
+        assertEquals(Message.getCRC(body), hexString.substring(body.length()));
+    }
+
+    @Test
+    public void parseHexOfByteRange() {
+        byte[] bytes = ascii("xx00A1ffFFyy");
+        assertEquals(0xA1, Message.parseHex(bytes, 2, 4));
+        assertEquals(0xFFFF, Message.parseHex(bytes, 6, 4));
+        assertEquals(0, Message.parseHex(bytes, 2, 0));
+        assertEquals(-1, Message.parseHex(bytes, 0, 4));
+        assertEquals(-1, Message.parseHex(bytes, 8, 4));
+    }
+
+    @Test
+    public void acknowledgementCodes() {
+        assertTrue(new AcknowledgementMessage(MessageType.ACKNOWLEDGEMENT_V1, 1, "00C1").isSuccess());
+        assertTrue(new AcknowledgementMessage(MessageType.ACKNOWLEDGEMENT_V1, 1, "00C2").isError());
+
+        AcknowledgementMessage extended = new AcknowledgementMessage(MessageType.ACKNOWLEDGEMENT_V1, 1, "00DE" + MAC);
+        assertTrue(extended.isExtended());
+        assertEquals(AcknowledgementMessage.ExtensionCode.OFF_ACK, extended.getExtensionCode());
+        assertEquals(MAC, extended.getMACAddress().toString());
+
+        AcknowledgementMessage v2 = new AcknowledgementMessage(MessageType.ACKNOWLEDGEMENT_V2, 1, MAC + "00D8");
+        assertEquals(AcknowledgementMessage.ExtensionCode.ON_ACK, v2.getExtensionCode());
+
+        AcknowledgementMessage unknown = new AcknowledgementMessage(MessageType.ACKNOWLEDGEMENT_V1, 1, "0001");
+        assertEquals(AcknowledgementMessage.ExtensionCode.UNKNOWN, unknown.getExtensionCode());
+    }
+
+    @Test(expected = PlugwisePayloadMismatchException.class)
+    public void shortAcknowledgementIsRejected() {
+        new AcknowledgementMessage(MessageType.ACKNOWLEDGEMENT_V1, 1, "00C");
+    }
+
+    @Test(expected = PlugwisePayloadMismatchException.class)
+    public void shortPowerInformationIsRejected() {
+        new PowerInformationResponseMessage(1, MAC + "000A0050");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void powerInformationWithNonHexDigitsIsRejected() {
+        new PowerInformationResponseMessage(1, MAC + "000A005Z" + "00001000" + "00000000" + "0000");
+    }
+
+    @Test
+    public void powerBufferDatapoints() {
+        // 2017-06 plus 60 minutes, 2017-06 plus 120 minutes, two empty datapoints, log address 1
+        String payload = MAC + "1106003C" + "00000064" + "11060078" + "000000C8" + "FFFFFFFF" + "00000000"
+                + "FFFFFFFF" + "00000000" + "00044020";
+        PowerBufferResponseMessage message = new PowerBufferResponseMessage(1, payload);
+
+        assertEquals(MAC, message.getMACAddress().toString());
+        assertEquals(1, message.getLogAddress());
+        assertEquals(100, message.getDatapoints()[0].getPulses());
+        ZonedDateTime end = ZonedDateTime.of(2017, 6, 1, 1, 0, 0, 0, ZoneOffset.UTC);
+        assertEquals(end.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime(),
+                message.getDatapoints()[0].getEnd());
+        assertNull(message.getDatapoints()[2]);
+        assertEquals(200, message.getMostRecentDatapoint().getPulses());
+    }
+
+    @Test(expected = PlugwisePayloadMismatchException.class)
+    public void shortPowerBufferIsRejected() {
+        new PowerBufferResponseMessage(1, MAC + "1106003C00000064");
+    }
+}
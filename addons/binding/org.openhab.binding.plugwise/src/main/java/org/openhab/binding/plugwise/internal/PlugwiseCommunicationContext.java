@@ -11,10 +11,11 @@ package org.openhab.binding.plugwise.internal;
 import java.io.IOException;
 import java.util.Comparator;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.PriorityBlockingQueue;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.io.IOUtils;
 import org.openhab.binding.plugwise.internal.config.PlugwiseStickConfig;
@@ -68,8 +69,21 @@ public class PlugwiseCommunicationContext {
     private final BlockingQueue<Message> receivedQueue = new ArrayBlockingQueue<>(MAX_BUFFER_SIZE, true);
     private final PriorityBlockingQueue<PlugwiseQueuedMessage> sendQueue = new PriorityBlockingQueue<>(MAX_BUFFER_SIZE,
             QUEUED_MESSAGE_COMPERATOR);
-    private final BlockingQueue<PlugwiseQueuedMessage> sentQueue = new ArrayBlockingQueue<>(MAX_BUFFER_SIZE, true);
-    private final ReentrantLock sentQueueLock = new ReentrantLock();
+    // Acknowledged messages waiting for a response by sequence number, oldest first. Guarded by itself.
+    private final Map<Integer, PlugwiseQueuedMessage> sentMessages = new LinkedHashMap<Integer, PlugwiseQueuedMessage>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, PlugwiseQueuedMessage> eldest) {
+            if (size() > MAX_BUFFER_SIZE) {
+                // For some reason Plugwise devices, or the Stick, does not send responses to Requests.
+                // They clog the sent messages. Let's flush the oldest one
+                logger.debug("Flushing from sentMessages: {}", eldest.getValue().getMessage());
+                return true;
+            }
+            return false;
+        }
+    };
     private final PlugwiseFilteredMessageListenerList filteredListeners = new PlugwiseFilteredMessageListenerList();
 
     private PlugwiseStickConfig configuration;
@@ -79,7 +93,29 @@ public class PlugwiseCommunicationContext {
         acknowledgedQueue.clear();
         receivedQueue.clear();
         sendQueue.clear();
-        sentQueue.clear();
+        synchronized (sentMessages) {
+            sentMessages.clear();
+        }
+    }
+
+    /**
+     * Stores an acknowledged message until the response with the same sequence number is received
+     */
+    public void addSentMessage(PlugwiseQueuedMessage queuedMessage) {
+        synchronized (sentMessages) {
+            sentMessages.put(queuedMessage.getMessage().getSequenceNumber(), queuedMessage);
+        }
+    }
+
+    /**
+     * Removes the acknowledged message with the given sequence number
+     *
+     * @return the removed message or null if there is no message with this sequence number
+     */
+    public PlugwiseQueuedMessage removeSentMessage(int sequenceNumber) {
+        synchronized (sentMessages) {
+            return sentMessages.remove(sequenceNumber);
+        }
     }
 
     public void closeSerialPort() {
@@ -140,14 +176,6 @@ public class PlugwiseCommunicationContext {
         return sendQueue;
     }
 
-    public BlockingQueue<PlugwiseQueuedMessage> getSentQueue() {
-        return sentQueue;
-    }
-
-    public ReentrantLock getSentQueueLock() {
-        return sentQueueLock;
-    }
-
     public SerialPort getSerialPort() {
         return serialPort;
     }
@@ -12,15 +12,13 @@ import static org.openhab.binding.plugwise.internal.PlugwiseCommunicationContext
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.Iterator;
+import java.nio.charset.StandardCharsets;
 import java.util.TooManyListenersException;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
-import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.plugwise.internal.protocol.AcknowledgementMessage;
 import org.openhab.binding.plugwise.internal.protocol.Message;
 import org.openhab.binding.plugwise.internal.protocol.MessageFactory;
+import org.openhab.binding.plugwise.internal.protocol.PlugwisePayloadMismatchException;
 import org.openhab.binding.plugwise.internal.protocol.field.MessageType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -61,8 +59,9 @@ public class PlugwiseMessageProcessor implements SerialPortEventListener {
 
     }
 
-    /** Matches Plugwise responses into the following groups: protocolHeader command sequence payload CRC */
-    private static final Pattern RESPONSE_PATTERN = Pattern.compile("(.{4})(\\w{4})(\\w{4})(\\w*?)(\\w{4})");
+    /** Received frames consist of: protocolHeader(4) command(4) sequence(4) payload(0..n) CRC(4) */
+    private static final int HEADER_LENGTH = PROTOCOL_HEADER.length();
+    private static final int MIN_FRAME_LENGTH = HEADER_LENGTH + 12;
 
     private final Logger logger = LoggerFactory.getLogger(PlugwiseMessageProcessor.class);
     private final PlugwiseCommunicationContext context;
@@ -77,33 +76,43 @@ public class PlugwiseMessageProcessor implements SerialPortEventListener {
     }
 
     /**
-     * Parse a buffer into a Message and put it in the appropriate queue for further processing
+     * Parse a buffer into a Message and put it in the appropriate queue for further processing. The fields are decoded
+     * from the ASCII bytes at their fixed offsets, only the payload is converted into a string.
      *
-     * @param readBuffer - the string to parse
+     * @param readBuffer - the buffer to parse
      */
-    private void parseAndQueue(ByteBuffer readBuffer) {
+    void parseAndQueue(ByteBuffer readBuffer) {
         if (readBuffer != null) {
-            String response = new String(readBuffer.array(), 0, readBuffer.limit());
-            response = StringUtils.chomp(response);
-
-            Matcher matcher = RESPONSE_PATTERN.matcher(response);
+            byte[] frame = readBuffer.array();
+            int start = readBuffer.position();
+            int end = readBuffer.limit();
+            if (end - start >= 2 && frame[end - 2] == CR && frame[end - 1] == LF) {
+                end -= 2;
+            }
 
-            if (matcher.matches()) {
-                String protocolHeader = matcher.group(1);
-                String messageTypeHex = matcher.group(2);
-                String sequence = matcher.group(3);
-                String payload = matcher.group(4);
-                String crc = matcher.group(5);
+            int messageTypeOffset = start + HEADER_LENGTH;
+            int crcOffset = end - 4;
+            long messageTypeValue = -1;
+            long sequenceNumber = -1;
+            long crc = -1;
+            if (end - start >= MIN_FRAME_LENGTH) {
+                messageTypeValue = Message.parseHex(frame, messageTypeOffset, 4);
+                sequenceNumber = Message.parseHex(frame, messageTypeOffset + 4, 4);
+                crc = Message.parseHex(frame, crcOffset, 4);
+            }
 
-                if (protocolHeader.equals(PROTOCOL_HEADER)) {
-                    String calculatedCRC = Message.getCRC(messageTypeHex + sequence + payload);
-                    if (calculatedCRC.equals(crc)) {
-                        MessageType messageType = MessageType.forValue(Integer.parseInt(messageTypeHex, 16));
-                        int sequenceNumber = Integer.parseInt(sequence, 16);
+            if (messageTypeValue >= 0 && sequenceNumber >= 0 && crc >= 0) {
+                if (hasProtocolHeader(frame, start)) {
+                    int calculatedCRC = Message.getCRC(frame, messageTypeOffset, crcOffset - messageTypeOffset);
+                    if (calculatedCRC == crc) {
+                        MessageType messageType = MessageType.forValue((int) messageTypeValue);
+                        int payloadOffset = messageTypeOffset + 8;
+                        String payload = new String(frame, payloadOffset, crcOffset - payloadOffset,
+                                StandardCharsets.US_ASCII);
 
                         if (messageType == null) {
                             logger.debug("Received unrecognized message: messageTypeHex=0x{}, sequence={}, payload={}",
-                                    messageTypeHex, sequenceNumber, payload);
+                                    String.format("%04X", messageTypeValue), sequenceNumber, payload);
                             return;
                         }
 
@@ -111,7 +120,7 @@ public class PlugwiseMessageProcessor implements SerialPortEventListener {
                                 sequenceNumber, payload);
 
                         try {
-                            Message message = messageFactory.createMessage(messageType, sequenceNumber, payload);
+                            Message message = messageFactory.createMessage(messageType, (int) sequenceNumber, payload);
 
                             if (message instanceof AcknowledgementMessage
                                     && !((AcknowledgementMessage) message).isExtended()) {
@@ -121,46 +130,49 @@ public class PlugwiseMessageProcessor implements SerialPortEventListener {
                                 logger.debug("Adding to receivedQueue: {}", message);
                                 context.getReceivedQueue().put(message);
                             }
-                        } catch (IllegalArgumentException e) {
+                        } catch (IllegalArgumentException | PlugwisePayloadMismatchException e) {
                             logger.warn("Failed to create message", e);
                         } catch (InterruptedException e) {
                             Thread.interrupted();
                         }
                     } else {
-                        logger.warn("Plugwise protocol CRC error: {} does not match {} in message", calculatedCRC, crc);
+                        logger.warn("Plugwise protocol CRC error: {} does not match {} in message",
+                                String.format("%04X", calculatedCRC), String.format("%04X", crc));
                     }
                 } else {
-                    logger.debug("Plugwise protocol header error: {} in message {}", protocolHeader, response);
+                    logger.debug("Plugwise protocol header error: {} in message {}",
+                            new String(frame, start, HEADER_LENGTH, StandardCharsets.US_ASCII),
+                            new String(frame, start, end - start, StandardCharsets.US_ASCII));
+                }
+            } else {
+                String response = new String(frame, start, end - start, StandardCharsets.US_ASCII);
+                if (!response.contains("APSRequestNodeInfo") && !response.contains("APSSetSleepBehaviour")
+                        && !response.startsWith("# ")) {
+                    logger.warn("Plugwise protocol message error: {}", response);
                 }
-            } else if (!response.contains("APSRequestNodeInfo") && !response.contains("APSSetSleepBehaviour")
-                    && !response.startsWith("# ")) {
-                logger.warn("Plugwise protocol message error: {}", response);
             }
         }
     }
 
+    private boolean hasProtocolHeader(byte[] frame, int offset) {
+        for (int i = 0; i < HEADER_LENGTH; i++) {
+            if (frame[offset + i] != PROTOCOL_HEADER.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void processMessage(Message message) {
         context.getFilteredListeners().notifyListeners(message);
 
         // After processing the response to a message, we remove any reference to the original request
-        // stored in the sentQueue
+        // stored in the sent messages
         // WARNING: We assume that each request sent out can only be followed bye EXACTLY ONE response - so
         // far it seems that the Plugwise protocol is operating in that way
-
-        try {
-            context.getSentQueueLock().lock();
-
-            Iterator<PlugwiseQueuedMessage> messageIterator = context.getSentQueue().iterator();
-            while (messageIterator.hasNext()) {
-                PlugwiseQueuedMessage queuedSentMessage = messageIterator.next();
-                if (queuedSentMessage.getMessage().getSequenceNumber() == message.getSequenceNumber()) {
-                    logger.debug("Removing from sentQueue: {}", queuedSentMessage.getMessage());
-                    context.getSentQueue().remove(queuedSentMessage);
-                    break;
-                }
-            }
-        } finally {
-            context.getSentQueueLock().unlock();
+        PlugwiseQueuedMessage queuedSentMessage = context.removeSentMessage(message.getSequenceNumber());
+        if (queuedSentMessage != null) {
+            logger.debug("Removing from sentMessages: {}", queuedSentMessage.getMessage());
         }
     }
 
@@ -14,6 +14,9 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 import org.openhab.binding.plugwise.internal.protocol.AcknowledgementMessage;
@@ -29,6 +32,24 @@ import org.slf4j.LoggerFactory;
  */
 public class PlugwiseMessageSender {
 
+    /**
+     * A message that has been written to the Stick and waits for its acknowledgement.
+     */
+    private static class InFlightMessage {
+        private final PlugwiseQueuedMessage queuedMessage;
+        private final String packetString;
+        private final long sentNanos;
+        private final long deadlineNanos;
+
+        public InFlightMessage(PlugwiseQueuedMessage queuedMessage, String packetString, long sentNanos,
+                long timeoutNanos) {
+            this.queuedMessage = queuedMessage;
+            this.packetString = packetString;
+            this.sentNanos = sentNanos;
+            this.deadlineNanos = sentNanos + timeoutNanos;
+        }
+    }
+
     private class MessageSenderThread extends Thread {
 
         public MessageSenderThread() {
@@ -40,13 +61,8 @@ public class PlugwiseMessageSender {
         public void run() {
             while (!interrupted()) {
                 try {
-                    PlugwiseQueuedMessage queuedMessage = context.getSendQueue().take();
-                    logger.debug("Took message from sendQueue (length={})", context.getSendQueue().size());
-                    if (queuedMessage == null) {
-                        continue;
-                    }
-                    sendMessage(queuedMessage);
-                    sleep(context.getConfiguration().getMessageWaitTime());
+                    sendQueuedMessages();
+                    receiveAcknowledgement();
                 } catch (InterruptedException e) {
                     // That's our signal to stop
                     break;
@@ -64,9 +80,47 @@ public class PlugwiseMessageSender {
     /** After exceeding this threshold the Stick is set offline */
     private static final int MAX_SEQUENTIAL_WRITE_ERRORS = 15;
 
+    /** Maximum number of messages written to the Stick that are not yet acknowledged */
+    private static final int SEND_WINDOW_SIZE = 3;
+
+    /**
+     * Maximum number of window slots used by {@link PlugwiseMessagePriority#UPDATE_AND_DISCOVERY} messages, so
+     * commands never wait for background polling to be acknowledged
+     */
+    private static final int MAX_IN_FLIGHT_UPDATES = SEND_WINDOW_SIZE - 1;
+
+    /**
+     * Bounds of the acknowledgement timeout. Normally an ACK is received within 75ms, but a busy Stick can take much
+     * longer so the timeout is never shorter than the fixed timeout that was used before it became adaptive.
+     */
+    private static final long MIN_ACK_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long MAX_ACK_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(3);
+
+    /** Sequence numbers assigned by the Stick are 16-bit and wrap around */
+    private static final int SEQUENCE_NUMBER_MASK = 0xFFFF;
+
+    /** Maximum time to wait for an ACK before checking the sendQueue for messages that fit in the window */
+    private static final long ACK_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
     private final Logger logger = LoggerFactory.getLogger(PlugwiseMessageSender.class);
     private final PlugwiseCommunicationContext context;
 
+    // Messages in the order they are written, the Stick acknowledges them in the same order
+    private final Deque<InFlightMessage> inFlightMessages = new ArrayDeque<>(SEND_WINDOW_SIZE);
+    private int inFlightUpdates;
+    private long lastWriteNanos;
+
+    // Smoothed ACK latency and its mean deviation, used to compute the ACK timeout like the TCP retransmission timeout
+    private long smoothedAckNanos;
+    private long ackDeviationNanos;
+
+    // Sequence number of the last ACK received from the Stick, or -1 when it is not yet known
+    private int lastAckSequenceNumber = -1;
+
+    // After an ACK timeout, ACKs are discarded until this time because they can no longer be matched to messages
+    private boolean discardingAcks;
+    private long discardAcksUntilNanos;
+
     private WritableByteChannel outputChannel;
     private int sequentialWriteErrors;
     private MessageSenderThread thread;
@@ -87,7 +141,43 @@ public class PlugwiseMessageSender {
         }
     }
 
-    private void sendMessage(PlugwiseQueuedMessage queuedMessage) throws InterruptedException {
+    /**
+     * Writes queued messages to the Stick while there is room in the send window. Blocks until a message is queued
+     * when no message is waiting for an acknowledgement.
+     */
+    private void sendQueuedMessages() throws InterruptedException {
+        if (discardingAcks) {
+            return;
+        }
+        PriorityBlockingQueue<PlugwiseQueuedMessage> sendQueue = context.getSendQueue();
+        while (inFlightMessages.size() < SEND_WINDOW_SIZE) {
+            PlugwiseQueuedMessage queuedMessage;
+            if (inFlightMessages.isEmpty()) {
+                queuedMessage = sendQueue.take();
+            } else {
+                // The queue is ordered by priority, so an update at its head means no command is waiting
+                queuedMessage = sendQueue.peek();
+                if (queuedMessage == null || (isUpdate(queuedMessage) && inFlightUpdates >= MAX_IN_FLIGHT_UPDATES)) {
+                    return;
+                }
+                queuedMessage = sendQueue.poll();
+                if (queuedMessage == null) {
+                    return;
+                }
+            }
+            logger.debug("Took message from sendQueue (length={})", sendQueue.size());
+
+            // Keep the configured time between messages sent on the ZigBee network
+            long waitNanos = lastWriteNanos + TimeUnit.MILLISECONDS.toNanos(context.getConfiguration()
+                    .getMessageWaitTime()) - System.nanoTime();
+            if (waitNanos > 0 && lastWriteNanos != 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+            sendMessage(queuedMessage);
+        }
+    }
+
+    private void sendMessage(PlugwiseQueuedMessage queuedMessage) {
         if (queuedMessage.getAttempts() < MAX_RETRIES) {
             queuedMessage.increaseAttempts();
 
@@ -110,34 +200,10 @@ public class PlugwiseMessageSender {
                 return;
             }
 
-            // Poll the acknowledgement message for at most 1 second, normally it is received within 75ms
-            AcknowledgementMessage ack = context.getAcknowledgedQueue().poll(1, TimeUnit.SECONDS);
-            logger.debug("Removing from acknowledgedQueue: {}", ack);
-
-            if (ack == null) {
-                logger.warn("Error sending: No ACK received after 1 second: {}", packetString);
-            } else if (!ack.isSuccess()) {
-                if (ack.isError()) {
-                    logger.warn("Error sending: Negative ACK: {}", packetString);
-                }
-            } else {
-                // Update the sent message with the new sequence number
-                message.setSequenceNumber(ack.getSequenceNumber());
-
-                // Place the sent message in the sent queue
-                logger.debug("Adding to sentQueue: {}", message);
-                context.getSentQueueLock().lock();
-                try {
-                    if (context.getSentQueue().size() == PlugwiseCommunicationContext.MAX_BUFFER_SIZE) {
-                        // For some reason Plugwise devices, or the Stick, does not send responses to Requests.
-                        // They clog the sent queue. Let's flush some part of the queue
-                        PlugwiseQueuedMessage someMessage = context.getSentQueue().poll();
-                        logger.debug("Flushing from sentQueue: {}", someMessage);
-                    }
-                    context.getSentQueue().put(queuedMessage);
-                } finally {
-                    context.getSentQueueLock().unlock();
-                }
+            lastWriteNanos = System.nanoTime();
+            inFlightMessages.add(new InFlightMessage(queuedMessage, packetString, lastWriteNanos, getAckTimeout()));
+            if (isUpdate(queuedMessage)) {
+                inFlightUpdates++;
             }
         } else {
             // Max attempts reached. We give up, and to a network reset
@@ -146,8 +212,158 @@ public class PlugwiseMessageSender {
         }
     }
 
+    /**
+     * Waits for the acknowledgement of the oldest message in the send window. The wait is short when there is room
+     * in the window, so newly queued messages are sent without waiting for the ACK.
+     */
+    private void receiveAcknowledgement() throws InterruptedException {
+        if (discardingAcks) {
+            discardAcknowledgement();
+            return;
+        }
+
+        InFlightMessage oldest = inFlightMessages.peek();
+        if (oldest == null) {
+            return;
+        }
+
+        long waitNanos = oldest.deadlineNanos - System.nanoTime();
+        if (inFlightMessages.size() < SEND_WINDOW_SIZE) {
+            waitNanos = Math.min(waitNanos, ACK_POLL_NANOS);
+        }
+        AcknowledgementMessage ack = context.getAcknowledgedQueue().poll(Math.max(waitNanos, 0),
+                TimeUnit.NANOSECONDS);
+        long now = System.nanoTime();
+
+        if (ack == null) {
+            if (now - oldest.deadlineNanos >= 0) {
+                logger.warn("Error sending: No ACK received after {}ms: {}",
+                        TimeUnit.NANOSECONDS.toMillis(now - oldest.sentNanos), oldest.packetString);
+                dropInFlightMessages();
+            }
+            return;
+        }
+
+        // The Stick acknowledges messages in the order they are written and assigns increasing sequence numbers, so
+        // an ACK with an old sequence number belongs to a message that has already been given up on
+        if (!isNewerSequenceNumber(ack.getSequenceNumber(), lastAckSequenceNumber)) {
+            logger.debug("Discarding ACK with old sequence number {}: {}", lastAckSequenceNumber, ack);
+            return;
+        }
+        lastAckSequenceNumber = ack.getSequenceNumber();
+        removeOldest();
+        logger.debug("Removing from acknowledgedQueue: {}", ack);
+        updateAckTimeout(now - oldest.sentNanos);
+
+        if (!ack.isSuccess()) {
+            if (ack.isError()) {
+                logger.warn("Error sending: Negative ACK: {}", oldest.packetString);
+            }
+        } else {
+            // Update the sent message with the new sequence number
+            Message message = oldest.queuedMessage.getMessage();
+            message.setSequenceNumber(ack.getSequenceNumber());
+
+            // Keep the sent message until its response is received
+            logger.debug("Adding to sentMessages: {}", message);
+            context.addSentMessage(oldest.queuedMessage);
+        }
+    }
+
+    private void removeOldest() {
+        InFlightMessage oldest = inFlightMessages.poll();
+        if (oldest != null && isUpdate(oldest.queuedMessage)) {
+            inFlightUpdates--;
+        }
+    }
+
+    /**
+     * Gives up on all messages in the send window after the oldest one was not acknowledged in time. A late ACK of
+     * that message can't be told apart from the ACK of the next one, so all ACKs are discarded until the other
+     * messages have timed out as well. The messages are not resent, because the Stick may have processed them even
+     * though their ACK was not received.
+     */
+    private void dropInFlightMessages() {
+        long lastDeadlineNanos = inFlightMessages.peekLast().deadlineNanos;
+        for (InFlightMessage inFlightMessage : inFlightMessages) {
+            if (inFlightMessage.deadlineNanos - lastDeadlineNanos > 0) {
+                lastDeadlineNanos = inFlightMessage.deadlineNanos;
+            }
+            logger.debug("Dropping unacknowledged message: {}", inFlightMessage.queuedMessage.getMessage());
+        }
+        inFlightMessages.clear();
+        inFlightUpdates = 0;
+
+        discardingAcks = true;
+        discardAcksUntilNanos = lastDeadlineNanos + MIN_ACK_TIMEOUT_NANOS;
+    }
+
+    /**
+     * Discards the ACKs received after an ACK timeout while keeping track of their sequence numbers, so any ACK
+     * received later that is not newer is discarded as well.
+     */
+    private void discardAcknowledgement() throws InterruptedException {
+        long waitNanos = discardAcksUntilNanos - System.nanoTime();
+        if (waitNanos <= 0) {
+            discardingAcks = false;
+            return;
+        }
+
+        AcknowledgementMessage ack = context.getAcknowledgedQueue().poll(waitNanos, TimeUnit.NANOSECONDS);
+        if (ack != null) {
+            logger.debug("Discarding ACK received after an ACK timeout: {}", ack);
+            if (isNewerSequenceNumber(ack.getSequenceNumber(), lastAckSequenceNumber)) {
+                lastAckSequenceNumber = ack.getSequenceNumber();
+            }
+        }
+    }
+
+    /**
+     * @return true if the sequence number was assigned by the Stick after the last sequence number, or if the last
+     *         sequence number is not known
+     */
+    static boolean isNewerSequenceNumber(int sequenceNumber, int lastSequenceNumber) {
+        if (lastSequenceNumber < 0) {
+            return true;
+        }
+        int distance = (sequenceNumber - lastSequenceNumber) & SEQUENCE_NUMBER_MASK;
+        return distance != 0 && distance <= SEQUENCE_NUMBER_MASK / 2;
+    }
+
+    private boolean isUpdate(PlugwiseQueuedMessage queuedMessage) {
+        return queuedMessage.getPriority() == PlugwiseMessagePriority.UPDATE_AND_DISCOVERY;
+    }
+
+    /**
+     * @return the ACK timeout based on the measured ACK latency, or the maximum timeout before the first ACK
+     */
+    private long getAckTimeout() {
+        if (smoothedAckNanos == 0) {
+            return MAX_ACK_TIMEOUT_NANOS;
+        }
+        long timeout = smoothedAckNanos + 4 * ackDeviationNanos;
+        return Math.min(Math.max(timeout, MIN_ACK_TIMEOUT_NANOS), MAX_ACK_TIMEOUT_NANOS);
+    }
+
+    private void updateAckTimeout(long ackNanos) {
+        if (smoothedAckNanos == 0) {
+            smoothedAckNanos = ackNanos;
+            ackDeviationNanos = ackNanos / 2;
+        } else {
+            ackDeviationNanos += (Math.abs(ackNanos - smoothedAckNanos) - ackDeviationNanos) / 4;
+            smoothedAckNanos += (ackNanos - smoothedAckNanos) / 8;
+        }
+        logger.trace("ACK received after {}ms, ACK timeout is now {}ms", TimeUnit.NANOSECONDS.toMillis(ackNanos),
+                TimeUnit.NANOSECONDS.toMillis(getAckTimeout()));
+    }
+
     public void start() throws PlugwiseInitializationException {
         sequentialWriteErrors = 0;
+        inFlightMessages.clear();
+        inFlightUpdates = 0;
+        lastWriteNanos = 0;
+        lastAckSequenceNumber = -1;
+        discardingAcks = false;
         try {
             outputChannel = Channels.newChannel(context.getSerialPort().getOutputStream());
         } catch (IOException e) {
@@ -12,8 +12,6 @@ import static org.openhab.binding.plugwise.internal.protocol.field.MessageType.*
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.openhab.binding.plugwise.internal.protocol.field.MACAddress;
 import org.openhab.binding.plugwise.internal.protocol.field.MessageType;
@@ -75,9 +73,10 @@ public class AcknowledgementMessage extends Message {
         }
     }
 
-    private static final Pattern V1_SHORT_PAYLOAD_PATTERN = Pattern.compile("(\\w{4})");
-    private static final Pattern V1_EXTENDED_PAYLOAD_PATTERN = Pattern.compile("(\\w{4})(\\w{16})");
-    private static final Pattern V2_EXTENDED_PAYLOAD_PATTERN = Pattern.compile("(\\w{16})(\\w{4})");
+    // Payload lengths, the fields are at fixed offsets: V1 code(4) [MAC(16)], V2 MAC(16) code(4)
+    private static final int V1_SHORT_PAYLOAD_LENGTH = 4;
+    private static final int V1_EXTENDED_PAYLOAD_LENGTH = 20;
+    private static final int V2_EXTENDED_PAYLOAD_LENGTH = 20;
 
     private ExtensionCode code;
 
@@ -124,40 +123,31 @@ public class AcknowledgementMessage extends Message {
     }
 
     private void parseV1Payload() {
-        Matcher shortMatcher = V1_SHORT_PAYLOAD_PATTERN.matcher(payload);
-        Matcher extendedMatcher = V1_EXTENDED_PAYLOAD_PATTERN.matcher(payload);
-
-        if (extendedMatcher.matches()) {
-            code = ExtensionCode.forValue(Integer.parseInt(extendedMatcher.group(1), 16));
-            if (code == null) {
-                code = ExtensionCode.UNKNOWN;
-            }
-            macAddress = new MACAddress(extendedMatcher.group(2));
-        } else if (shortMatcher.matches()) {
-            code = ExtensionCode.forValue(Integer.parseInt(shortMatcher.group(1), 16));
-            if (code == null) {
-                code = ExtensionCode.UNKNOWN;
-            }
+        if (payload.length() == V1_EXTENDED_PAYLOAD_LENGTH) {
+            code = parseExtensionCode(0);
+            macAddress = new MACAddress(payload.substring(4, 20));
+        } else if (payload.length() == V1_SHORT_PAYLOAD_LENGTH) {
+            code = parseExtensionCode(0);
         } else {
             code = ExtensionCode.UNKNOWN;
-            throw new PlugwisePayloadMismatchException(ACKNOWLEDGEMENT_V1, V1_SHORT_PAYLOAD_PATTERN,
-                    V1_EXTENDED_PAYLOAD_PATTERN, payload);
+            throw new PlugwisePayloadMismatchException(ACKNOWLEDGEMENT_V1, V1_SHORT_PAYLOAD_LENGTH,
+                    V1_EXTENDED_PAYLOAD_LENGTH, payload);
         }
     }
 
     private void parseV2Payload() {
-        Matcher matcher = V2_EXTENDED_PAYLOAD_PATTERN.matcher(payload);
-
-        if (matcher.matches()) {
-            macAddress = new MACAddress(matcher.group(1));
-            code = ExtensionCode.forValue(Integer.parseInt(matcher.group(2), 16));
-            if (code == null) {
-                code = ExtensionCode.UNKNOWN;
-            }
+        if (payload.length() == V2_EXTENDED_PAYLOAD_LENGTH) {
+            macAddress = new MACAddress(payload.substring(0, 16));
+            code = parseExtensionCode(16);
         } else {
             code = ExtensionCode.UNKNOWN;
-            throw new PlugwisePayloadMismatchException(ACKNOWLEDGEMENT_V2, V2_EXTENDED_PAYLOAD_PATTERN, payload);
+            throw new PlugwisePayloadMismatchException(ACKNOWLEDGEMENT_V2, V2_EXTENDED_PAYLOAD_LENGTH, payload);
         }
     }
 
+    private ExtensionCode parseExtensionCode(int offset) {
+        ExtensionCode code = ExtensionCode.forValue((int) parseHex(payload, offset, 4));
+        return code != null ? code : ExtensionCode.UNKNOWN;
+    }
+
 }
@@ -8,7 +8,7 @@
  */
 package org.openhab.binding.plugwise.internal.protocol;
 
-import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 
 import org.openhab.binding.plugwise.internal.protocol.field.MACAddress;
 import org.openhab.binding.plugwise.internal.protocol.field.MessageType;
@@ -33,31 +33,69 @@ import org.openhab.binding.plugwise.internal.protocol.field.MessageType;
  */
 public abstract class Message {
 
-    public static String getCRC(String string) {
-        int crc = 0x0000;
+    /** Lookup table of the CRC-16 (polynomial 0x1021) of each byte value */
+    private static final int[] CRC_TABLE = new int[256];
+
+    static {
         int polynomial = 0x1021; // 0001 0000 0010 0001 (0, 5, 12)
+        for (int i = 0; i < CRC_TABLE.length; i++) {
+            int crc = i << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ polynomial : crc << 1;
+            }
+            CRC_TABLE[i] = crc & 0xFFFF;
+        }
+    }
 
-        byte[] bytes = new byte[0];
-        try {
-            bytes = string.getBytes("ASCII");
-        } catch (UnsupportedEncodingException e) {
-            return "";
+    /**
+     * Calculates the CRC of ASCII characters in a byte array, so received frames can be checked without creating
+     * strings.
+     */
+    public static int getCRC(byte[] bytes, int offset, int length) {
+        int crc = 0x0000;
+        for (int i = offset; i < offset + length; i++) {
+            crc = ((crc << 8) ^ CRC_TABLE[((crc >> 8) ^ bytes[i]) & 0xFF]) & 0xFFFF;
         }
+        return crc;
+    }
 
-        for (byte b : bytes) {
-            for (int i = 0; i < 8; i++) {
-                boolean bit = ((b >> (7 - i) & 1) == 1);
-                boolean c15 = ((crc >> 15 & 1) == 1);
-                crc <<= 1;
-                if (c15 ^ bit) {
-                    crc ^= polynomial;
-                }
+    public static String getCRC(String string) {
+        byte[] bytes = string.getBytes(StandardCharsets.US_ASCII);
+        return String.format("%04X", getCRC(bytes, 0, bytes.length));
+    }
+
+    /**
+     * Parses ASCII hex characters in a byte array.
+     *
+     * @return the parsed value or -1 if any of the characters is not a hex digit
+     */
+    public static long parseHex(byte[] bytes, int offset, int length) {
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int digit = Character.digit(bytes[i], 16);
+            if (digit < 0) {
+                return -1;
             }
+            value = (value << 4) | digit;
         }
-
-        crc &= 0xFFFF;
-
-        return (String.format("%04X", crc));
+        return value;
+    }
+
+    /**
+     * Parses the hex characters of a field at a fixed offset in a payload, without creating a substring.
+     *
+     * @throws NumberFormatException when any of the characters is not a hex digit
+     */
+    protected static long parseHex(String string, int offset, int length) {
+        long value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int digit = Character.digit(string.charAt(i), 16);
+            if (digit < 0) {
+                throw new NumberFormatException("Invalid hex digit at index " + i + " of: " + string);
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
     }
 
     protected MessageType type;
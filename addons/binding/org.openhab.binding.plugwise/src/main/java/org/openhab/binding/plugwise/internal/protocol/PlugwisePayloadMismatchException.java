@@ -33,4 +33,14 @@ public class PlugwisePayloadMismatchException extends RuntimeException {
                 pattern.pattern()));
     }
 
+    public PlugwisePayloadMismatchException(MessageType messageType, int length0, int length1, String payload) {
+        super(String.format("Plugwise %s payload mismatch: %s does not have a length of %d or %d", messageType.name(),
+                payload, length0, length1));
+    }
+
+    public PlugwisePayloadMismatchException(MessageType messageType, int length, String payload) {
+        super(String.format("Plugwise %s payload mismatch: %s does not have a length of %d", messageType.name(),
+                payload, length));
+    }
+
 }
@@ -12,8 +12,6 @@ import static java.time.ZoneOffset.UTC;
 import static org.openhab.binding.plugwise.internal.protocol.field.MessageType.POWER_BUFFER_RESPONSE;
 
 import java.time.ZonedDateTime;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.openhab.binding.plugwise.internal.protocol.field.Energy;
 import org.openhab.binding.plugwise.internal.protocol.field.MACAddress;
@@ -29,9 +27,9 @@ import org.openhab.binding.plugwise.internal.protocol.field.PowerCalibration;
  */
 public class PowerBufferResponseMessage extends Message {
 
-    private static final Pattern PAYLOAD_PATTERN = Pattern
-            .compile("(\\w{16})(\\w{8})(\\w{8})(\\w{8})(\\w{8})(\\w{8})(\\w{8})(\\w{8})(\\w{8})(\\w{8})");
-    private static final String EMPTY_TIMESTAMP = "FFFFFFFF";
+    // MAC(16) 4 x (time(8) pulses(8)) logAddress(8)
+    private static final int PAYLOAD_LENGTH = 88;
+    private static final long EMPTY_TIMESTAMP = 0xFFFFFFFFL;
 
     private Energy[] datapoints;
     private int logAddress;
@@ -58,35 +56,33 @@ public class PowerBufferResponseMessage extends Message {
         return result;
     }
 
-    private Energy parseEnergy(String timeHex, String pulsesHex) {
-        ZonedDateTime utcDateTime = !timeHex.equals(EMPTY_TIMESTAMP) ? parseDateTime(timeHex) : null;
-        if (utcDateTime == null) {
+    private Energy parseEnergy(int offset) {
+        long time = parseHex(payload, offset, 8);
+        if (time == EMPTY_TIMESTAMP) {
             return null;
         }
-        long pulses = Long.parseLong(pulsesHex, 16);
-        return new Energy(utcDateTime, pulses);
+        long pulses = parseHex(payload, offset + 8, 8);
+        return new Energy(parseDateTime(time), pulses);
     }
 
     @Override
     protected void parsePayload() {
-        Matcher matcher = PAYLOAD_PATTERN.matcher(payload);
-        if (matcher.matches()) {
-            macAddress = new MACAddress(matcher.group(1));
+        if (payload.length() == PAYLOAD_LENGTH) {
+            macAddress = new MACAddress(payload.substring(0, 16));
             datapoints = new Energy[4];
-            datapoints[0] = parseEnergy(matcher.group(2), matcher.group(3));
-            datapoints[1] = parseEnergy(matcher.group(4), matcher.group(5));
-            datapoints[2] = parseEnergy(matcher.group(6), matcher.group(7));
-            datapoints[3] = parseEnergy(matcher.group(8), matcher.group(9));
-            logAddress = (Integer.parseInt(matcher.group(10), 16) - 278528) / 32;
+            for (int i = 0; i < datapoints.length; i++) {
+                datapoints[i] = parseEnergy(16 + i * 16);
+            }
+            logAddress = (int) ((parseHex(payload, 80, 8) - 278528) / 32);
         } else {
-            throw new PlugwisePayloadMismatchException(POWER_BUFFER_RESPONSE, PAYLOAD_PATTERN, payload);
+            throw new PlugwisePayloadMismatchException(POWER_BUFFER_RESPONSE, PAYLOAD_LENGTH, payload);
         }
     }
 
-    private ZonedDateTime parseDateTime(String timeHex) {
-        int year = Integer.parseInt(timeHex.substring(0, 2), 16) + 2000;
-        int month = Integer.parseInt(timeHex.substring(2, 4), 16);
-        int minutes = Integer.parseInt(timeHex.substring(4, 8), 16);
+    private ZonedDateTime parseDateTime(long time) {
+        int year = (int) (time >>> 24) + 2000;
+        int month = (int) ((time >>> 16) & 0xFF);
+        int minutes = (int) (time & 0xFFFF);
 
         return ZonedDateTime.of(year, month, 1, 0, 0, 0, 0, UTC).plusMinutes(minutes);
     }
@@ -13,8 +13,6 @@ import static org.openhab.binding.plugwise.internal.protocol.field.MessageType.P
 
 import java.time.Duration;
 import java.time.ZonedDateTime;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.openhab.binding.plugwise.internal.protocol.field.Energy;
 import org.openhab.binding.plugwise.internal.protocol.field.MACAddress;
@@ -28,7 +26,8 @@ import org.openhab.binding.plugwise.internal.protocol.field.MACAddress;
  */
 public class PowerInformationResponseMessage extends Message {
 
-    private static final Pattern PAYLOAD_PATTERN = Pattern.compile("(\\w{16})(\\w{4})(\\w{4})(\\w{8})(\\w{8})(\\w{4})");
+    // MAC(16) oneSecond(4) eightSecond(4) oneHourConsumed(8) oneHourProduced(8) nanosCorrection(4)
+    private static final int PAYLOAD_LENGTH = 44;
     private static final double NANOSECONDS_CORRECTION_DIVISOR = 0.000046875; // 46875 divided by nanos per second
 
     private Energy oneSecond;
@@ -59,19 +58,16 @@ public class PowerInformationResponseMessage extends Message {
 
     @Override
     protected void parsePayload() {
-        Matcher matcher = PAYLOAD_PATTERN.matcher(payload);
-        if (matcher.matches()) {
+        if (payload.length() == PAYLOAD_LENGTH) {
             ZonedDateTime utcNow = ZonedDateTime.now(UTC);
-            macAddress = new MACAddress(matcher.group(1));
-            nanosCorrection = Math.round(Integer.parseInt(matcher.group(6), 16) / NANOSECONDS_CORRECTION_DIVISOR);
-            oneSecond = new Energy(utcNow, Integer.parseInt(matcher.group(2), 16),
-                    Duration.ofSeconds(1, nanosCorrection));
-            eightSecond = new Energy(utcNow, Integer.parseInt(matcher.group(3), 16),
-                    Duration.ofSeconds(8, nanosCorrection));
-            oneHourConsumed = new Energy(utcNow, Long.parseLong(matcher.group(4), 16), Duration.ofHours(1));
-            oneHourProduced = new Energy(utcNow, Long.parseLong(matcher.group(5), 16), Duration.ofHours(1));
+            macAddress = new MACAddress(payload.substring(0, 16));
+            nanosCorrection = Math.round(parseHex(payload, 40, 4) / NANOSECONDS_CORRECTION_DIVISOR);
+            oneSecond = new Energy(utcNow, parseHex(payload, 16, 4), Duration.ofSeconds(1, nanosCorrection));
+            eightSecond = new Energy(utcNow, parseHex(payload, 20, 4), Duration.ofSeconds(8, nanosCorrection));
+            oneHourConsumed = new Energy(utcNow, parseHex(payload, 24, 8), Duration.ofHours(1));
+            oneHourProduced = new Energy(utcNow, parseHex(payload, 32, 8), Duration.ofHours(1));
         } else {
-            throw new PlugwisePayloadMismatchException(POWER_INFORMATION_RESPONSE, PAYLOAD_PATTERN, payload);
+            throw new PlugwisePayloadMismatchException(POWER_INFORMATION_RESPONSE, PAYLOAD_LENGTH, payload);
         }
     }
 
@@ -0,0 +1,109 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.junit.Test;
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
+import org.openhab.binding.rfxcom.internal.messages.RFXComDeviceMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComMessageFactory;
+
+/**
+ * Test for RFXCom-binding
+ *
+ * @author agent - Initial contribution
+ */
+public class DeviceMessageRouterTest {
+    // Temperature message, sub type TEMP1, device id 1
+    private static final String TEMPERATURE_MESSAGE = "08500110000180BC69";
+    // Temperature message, sub type TEMP2, device id 1
+    private static final String TEMPERATURE_MESSAGE_TEMP2 = "08500210000180BC69";
+
+    private final DeviceMessageRouter router = new DeviceMessageRouter();
+    private final List<RFXComDeviceMessage> handlerMessages = new ArrayList<>();
+    private final List<RFXComDeviceMessage> discoveryMessages = new ArrayList<>();
+    private final DeviceMessageListener handler = (bridge, message) -> handlerMessages.add(message);
+    private final DeviceMessageListener discovery = (bridge, message) -> discoveryMessages.add(message);
+
+    private void route(String hexMessage) throws RFXComException {
+        RFXComDeviceMessage message = (RFXComDeviceMessage) RFXComMessageFactory
+                .createMessage(DatatypeConverter.parseHexBinary(hexMessage));
+        router.route(null, message);
+    }
+
+    @Test
+    public void testRegisteredDevice() throws RFXComException {
+        router.register(handler, PacketType.TEMPERATURE, "1");
+        router.registerUnmatched(discovery);
+
+        route(TEMPERATURE_MESSAGE);
+
+        assertEquals(1, handlerMessages.size());
+        assertEquals(0, discoveryMessages.size());
+        assertEquals(1, router.getRoutedPackets());
+        assertEquals(0, router.getUnmatchedPackets());
+    }
+
+    @Test
+    public void testOtherSubType() throws RFXComException {
+        // The sub type is not part of the route
+        router.register(handler, PacketType.TEMPERATURE, "1");
+        router.registerUnmatched(discovery);
+
+        route(TEMPERATURE_MESSAGE_TEMP2);
+
+        assertEquals(1, handlerMessages.size());
+        assertEquals(0, discoveryMessages.size());
+    }
+
+    @Test
+    public void testUnknownDevice() throws RFXComException {
+        // Same device id, but different packet type
+        router.register(handler, PacketType.HUMIDITY, "1");
+        router.registerUnmatched(discovery);
+
+        route(TEMPERATURE_MESSAGE);
+
+        assertEquals(0, handlerMessages.size());
+        assertEquals(1, discoveryMessages.size());
+        assertEquals(0, router.getRoutedPackets());
+        assertEquals(1, router.getUnmatchedPackets());
+    }
+
+    @Test
+    public void testUnregister() throws RFXComException {
+        router.register(handler, PacketType.TEMPERATURE, "1");
+        assertTrue(router.unregister(handler));
+        assertFalse(router.unregister(handler));
+
+        route(TEMPERATURE_MESSAGE);
+
+        assertEquals(0, handlerMessages.size());
+        assertEquals(1, router.getDroppedPackets());
+    }
+
+    @Test
+    public void testReregisterReplacesDevice() throws RFXComException {
+        router.register(handler, PacketType.TEMPERATURE, "2");
+        router.register(handler, PacketType.TEMPERATURE, "1");
+
+        route(TEMPERATURE_MESSAGE);
+        route(TEMPERATURE_MESSAGE);
+
+        assertEquals(2, handlerMessages.size());
+        assertEquals(2, router.getRoutedPackets());
+    }
+}
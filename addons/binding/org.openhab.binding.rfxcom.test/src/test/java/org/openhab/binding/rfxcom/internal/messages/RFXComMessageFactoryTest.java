@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal.messages;
+
+import static org.junit.Assert.*;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.junit.Test;
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComMessageNotImplementedException;
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComUnsupportedValueException;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
+
+/**
+ * Test for RFXCom-binding
+ *
+ * @author agent - Initial contribution
+ */
+public class RFXComMessageFactoryTest {
+
+    @Test
+    public void testDecodeByPacketType() throws RFXComException {
+        RFXComMessage temperature = RFXComMessageFactory
+                .createMessage(DatatypeConverter.parseHexBinary("08500110000180BC69"));
+        assertTrue(temperature instanceof RFXComTemperatureMessage);
+        assertEquals("Temperature", -18.8d, ((RFXComTemperatureMessage) temperature).temperature, 0.001);
+
+        RFXComMessage temperatureHumidity = RFXComMessageFactory
+                .createMessage(DatatypeConverter.parseHexBinary("0A5201800F0201294C0349"));
+        assertTrue(temperatureHumidity instanceof RFXComTemperatureHumidityMessage);
+        assertEquals(PacketType.TEMPERATURE_HUMIDITY, ((RFXComBaseMessage) temperatureHumidity).getPacketType());
+    }
+
+    @Test
+    public void testCreateByPacketType() throws RFXComException {
+        RFXComMessage message = RFXComMessageFactory.createMessage(PacketType.LIGHTING2);
+        assertTrue(message instanceof RFXComLighting2Message);
+        assertNotSame(message, RFXComMessageFactory.createMessage(PacketType.LIGHTING2));
+    }
+
+    @Test(expected = RFXComException.class)
+    public void testMessageWithoutDefaultConstructor() throws RFXComException {
+        RFXComMessageFactory.createMessage(PacketType.INTERFACE_MESSAGE);
+    }
+
+    @Test(expected = RFXComMessageNotImplementedException.class)
+    public void testNotImplementedPacketType() throws RFXComException {
+        RFXComMessageFactory.createMessage(DatatypeConverter.parseHexBinary("08120000000000000000"));
+    }
+
+    @Test(expected = RFXComUnsupportedValueException.class)
+    public void testUnknownPacketType() throws RFXComException {
+        RFXComMessageFactory.createMessage(DatatypeConverter.parseHexBinary("08FF0000000000000000"));
+    }
+
+    @Test(expected = RFXComException.class)
+    public void testTruncatedPacket() throws RFXComException {
+        RFXComMessageFactory.createMessage(DatatypeConverter.parseHexBinary("085001"));
+    }
+}
@@ -9,9 +9,7 @@
 package org.openhab.binding.rfxcom.handler;
 
 import java.io.IOException;
-import java.util.List;
 import java.util.Queue;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -27,6 +25,7 @@ import org.eclipse.smarthome.core.thing.ThingStatusDetail;
 import org.eclipse.smarthome.core.thing.binding.BaseBridgeHandler;
 import org.eclipse.smarthome.core.types.Command;
 import org.openhab.binding.rfxcom.internal.DeviceMessageListener;
+import org.openhab.binding.rfxcom.internal.DeviceMessageRouter;
 import org.openhab.binding.rfxcom.internal.config.RFXComBridgeConfiguration;
 import org.openhab.binding.rfxcom.internal.connector.RFXComConnectorInterface;
 import org.openhab.binding.rfxcom.internal.connector.RFXComEventListener;
@@ -36,6 +35,7 @@ import org.openhab.binding.rfxcom.internal.connector.RFXComTcpConnector;
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComMessageNotImplementedException;
 import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
 import org.openhab.binding.rfxcom.internal.messages.RFXComDeviceMessage;
 import org.openhab.binding.rfxcom.internal.messages.RFXComInterfaceControlMessage;
 import org.openhab.binding.rfxcom.internal.messages.RFXComInterfaceMessage;
@@ -62,7 +62,7 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
     private RFXComConnectorInterface connector = null;
     private MessageListener eventListener = new MessageListener();
 
-    private List<DeviceMessageListener> deviceStatusListeners = new CopyOnWriteArrayList<>();
+    private DeviceMessageRouter deviceMessageRouter = new DeviceMessageRouter();
 
     private RFXComBridgeConfiguration configuration = null;
     private ScheduledFuture<?> connectorTask;
@@ -118,9 +118,10 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
     public synchronized void dispose() {
         logger.debug("Handler disposed.");
 
-        for (DeviceMessageListener deviceStatusListener : deviceStatusListeners) {
-            unregisterDeviceStatusListener(deviceStatusListener);
-        }
+        logger.debug("Device messages routed: {}, unmatched: {}, dropped: {}",
+                deviceMessageRouter.getRoutedPackets(), deviceMessageRouter.getUnmatchedPackets(),
+                deviceMessageRouter.getDroppedPackets());
+        deviceMessageRouter.clear();
 
         if (connector != null) {
             connector.removeEventListener(eventListener);
@@ -288,15 +289,7 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
 
                     transmitQueue.sendNext();
                 } else if (message instanceof RFXComDeviceMessage) {
-                    for (DeviceMessageListener deviceStatusListener : deviceStatusListeners) {
-                        try {
-                            deviceStatusListener.onDeviceMessageReceived(getThing().getUID(),
-                                    (RFXComDeviceMessage) message);
-                        } catch (Exception e) {
-                            // catch all exceptions give all handlers a fair chance of handling the messages
-                            logger.error("An exception occurred while calling the DeviceStatusListener", e);
-                        }
-                    }
+                    deviceMessageRouter.route(getThing().getUID(), (RFXComDeviceMessage) message);
                 } else {
                     logger.warn("The received message cannot be processed, please create an "
                             + "issue at the relevant tracker. Received message: {}", message);
@@ -318,19 +311,37 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         }
     }
 
+    /**
+     * Registers a listener for the messages of devices that are not known to the bridge, e.g. the discovery.
+     */
     public boolean registerDeviceStatusListener(DeviceMessageListener deviceStatusListener) {
         if (deviceStatusListener == null) {
             throw new IllegalArgumentException("It's not allowed to pass a null deviceStatusListener.");
         }
-        return deviceStatusListeners.contains(deviceStatusListener) ? false
-                : deviceStatusListeners.add(deviceStatusListener);
+        return deviceMessageRouter.registerUnmatched(deviceStatusListener);
+    }
+
+    /**
+     * Registers a listener for the messages of the device with the given packet type and device id.
+     */
+    public void registerDeviceStatusListener(DeviceMessageListener deviceStatusListener, PacketType packetType,
+            String deviceId) {
+        if (deviceStatusListener == null) {
+            throw new IllegalArgumentException("It's not allowed to pass a null deviceStatusListener.");
+        }
+        deviceMessageRouter.register(deviceStatusListener, packetType, deviceId);
     }
 
     public boolean unregisterDeviceStatusListener(DeviceMessageListener deviceStatusListener) {
         if (deviceStatusListener == null) {
             throw new IllegalArgumentException("It's not allowed to pass a null deviceStatusListener.");
         }
-        return deviceStatusListeners.remove(deviceStatusListener);
+        boolean removed = deviceMessageRouter.unregister(deviceStatusListener);
+        return deviceMessageRouter.unregisterUnmatched(deviceStatusListener) || removed;
+    }
+
+    public DeviceMessageRouter getDeviceMessageRouter() {
+        return deviceMessageRouter;
     }
 
     public RFXComBridgeConfiguration getConfiguration() {
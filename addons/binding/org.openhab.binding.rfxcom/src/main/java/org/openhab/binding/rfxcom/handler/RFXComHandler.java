@@ -10,6 +10,8 @@ package org.openhab.binding.rfxcom.handler;
 
 import static org.openhab.binding.rfxcom.RFXComBindingConstants.*;
 
+import java.util.Map;
+
 import org.eclipse.jdt.annotation.NonNull;
 import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.library.types.OnOffType;
@@ -19,6 +21,7 @@ import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.ThingStatusDetail;
 import org.eclipse.smarthome.core.thing.ThingStatusInfo;
+import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.ThingUID;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandler;
 import org.eclipse.smarthome.core.thing.binding.ThingHandler;
@@ -29,6 +32,7 @@ import org.openhab.binding.rfxcom.internal.DeviceMessageListener;
 import org.openhab.binding.rfxcom.internal.config.RFXComDeviceConfiguration;
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComMessageNotImplementedException;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage;
 import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
 import org.openhab.binding.rfxcom.internal.messages.RFXComDeviceMessage;
 import org.openhab.binding.rfxcom.internal.messages.RFXComMessage;
@@ -49,6 +53,9 @@ public class RFXComHandler extends BaseThingHandler implements DeviceMessageList
 
     private RFXComBridgeHandler bridgeHandler;
     private RFXComDeviceConfiguration config;
+    // The sub type byte of the configured sub type, or null if it is not known for the packet type
+    private Byte expectedSubType;
+    private boolean subTypeMismatchReported;
 
     public RFXComHandler(@NonNull Thing thing) {
         super(thing);
@@ -103,7 +110,13 @@ public class RFXComHandler extends BaseThingHandler implements DeviceMessageList
                     "RFXCOM device missing deviceId or subType");
         } else if (thingHandler != null && bridgeStatus != null) {
             bridgeHandler = (RFXComBridgeHandler) thingHandler;
-            bridgeHandler.registerDeviceStatusListener(this);
+            try {
+                registerDeviceStatusListener();
+            } catch (RFXComException | IllegalArgumentException e) {
+                logger.debug("Unable to register thing {}", getThing().getUID(), e);
+                updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR, e.getMessage());
+                return;
+            }
 
             if (bridgeStatus == ThingStatus.ONLINE) {
                 updateStatus(ThingStatus.ONLINE);
@@ -115,6 +128,60 @@ public class RFXComHandler extends BaseThingHandler implements DeviceMessageList
         }
     }
 
+    /**
+     * Registers this handler at the bridge for the messages of the configured device only. The sub type is not part
+     * of the registration, messages of another sub type are reported in {@link #checkSubType(RFXComDeviceMessage)}.
+     */
+    private void registerDeviceStatusListener() throws RFXComException {
+        PacketType packetType = null;
+        for (Map.Entry<PacketType, ThingTypeUID> entry : PACKET_TYPE_THING_TYPE_UID_MAP.entrySet()) {
+            if (entry.getValue().equals(getThing().getThingTypeUID())) {
+                packetType = entry.getKey();
+            }
+        }
+        if (packetType == null) {
+            throw new RFXComMessageNotImplementedException(
+                    "No packet type for thing type " + getThing().getThingTypeUID());
+        }
+
+        expectedSubType = null;
+        subTypeMismatchReported = false;
+        RFXComDeviceMessage<?> msg = null;
+        try {
+            msg = (RFXComDeviceMessage<?>) RFXComMessageFactory.createMessage(packetType);
+        } catch (RFXComException e) {
+            // Packet types without a message that can be created have nothing to check the sub type against
+            logger.debug("Sub type {} of thing {} is not checked: {}", config.subType, getThing().getUID(),
+                    e.getMessage());
+        }
+        if (msg != null) {
+            try {
+                expectedSubType = msg.convertSubTypeToByte(config.subType);
+            } catch (RFXComException e) {
+                logger.warn("Sub type {} of thing {} is not known for packet type {}", config.subType,
+                        getThing().getUID(), packetType);
+            }
+        }
+
+        bridgeHandler.registerDeviceStatusListener(this, packetType, config.deviceId);
+    }
+
+    /**
+     * Warns once if a message of the device does not have the configured sub type. The message is handled anyway,
+     * because the device id identifies the device.
+     */
+    private void checkSubType(RFXComDeviceMessage message) {
+        if (expectedSubType == null || subTypeMismatchReported || !(message instanceof RFXComBaseMessage)) {
+            return;
+        }
+        byte receivedSubType = ((RFXComBaseMessage) message).subType;
+        if (receivedSubType != expectedSubType) {
+            subTypeMismatchReported = true;
+            logger.warn("Thing {} is configured with sub type {}, but device {} sent a message of sub type 0x{}",
+                    getThing().getUID(), config.subType, config.deviceId, String.format("%02X", receivedSubType));
+        }
+    }
+
     @Override
     public void dispose() {
         logger.debug("Thing {} disposed.", getThing().getUID());
@@ -128,27 +195,22 @@ public class RFXComHandler extends BaseThingHandler implements DeviceMessageList
     @Override
     public void onDeviceMessageReceived(ThingUID bridge, RFXComDeviceMessage message) {
         try {
-            String id = message.getDeviceId();
-            if (config.deviceId.equals(id)) {
-                String receivedId = PACKET_TYPE_THING_TYPE_UID_MAP.get(message.getPacketType()).getId();
-                logger.debug("Received message from bridge: {} message: {}", bridge, message);
-
-                if (receivedId.equals(getThing().getThingTypeUID().getId())) {
-                    updateStatus(ThingStatus.ONLINE);
-
-                    for (Channel channel : getThing().getChannels()) {
-                        String channelId = channel.getUID().getId();
-
-                        try {
-                            if (channelId.equals(CHANNEL_LOW_BATTERY)) {
-                                updateState(channelId, isLowBattery(message.convertToState(CHANNEL_BATTERY_LEVEL)));
-                            } else {
-                                updateState(channelId, message.convertToState(channelId));
-                            }
-                        } catch (RFXComException e) {
-                            logger.trace("{} does not handle {}", channelId, message);
-                        }
+            // The bridge only routes messages of the registered device to this handler
+            logger.debug("Received message from bridge: {} message: {}", bridge, message);
+            checkSubType(message);
+            updateStatus(ThingStatus.ONLINE);
+
+            for (Channel channel : getThing().getChannels()) {
+                String channelId = channel.getUID().getId();
+
+                try {
+                    if (channelId.equals(CHANNEL_LOW_BATTERY)) {
+                        updateState(channelId, isLowBattery(message.convertToState(CHANNEL_BATTERY_LEVEL)));
+                    } else {
+                        updateState(channelId, message.convertToState(channelId));
                     }
+                } catch (RFXComException e) {
+                    logger.trace("{} does not handle {}", channelId, message);
                 }
             }
         } catch (Exception e) {
@@ -0,0 +1,187 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.smarthome.core.thing.ThingUID;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
+import org.openhab.binding.rfxcom.internal.messages.RFXComDeviceMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link DeviceMessageRouter} delivers received device messages of one bridge to the listeners that
+ * registered for the packet type and device id of the message. Messages of devices without a registered
+ * listener are delivered to the unmatched listeners (the discovery service) instead. The sub type is not
+ * part of the route, the same device may send messages of more than one sub type.
+ *
+ * Registration happens rarely (thing initialization and disposal), routing happens for every received
+ * packet, therefore the routing path does not take any lock.
+ *
+ * @author agent - Initial contribution
+ */
+public class DeviceMessageRouter {
+    private final Logger logger = LoggerFactory.getLogger(DeviceMessageRouter.class);
+
+    private final Map<DeviceKey, List<DeviceMessageListener>> routes = new ConcurrentHashMap<>();
+    private final List<DeviceMessageListener> unmatchedListeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong routedPackets = new AtomicLong();
+    private final AtomicLong unmatchedPackets = new AtomicLong();
+    private final AtomicLong droppedPackets = new AtomicLong();
+
+    /**
+     * Registers a listener for the messages of one device. A listener is registered for one device only,
+     * an earlier registration of the same listener is replaced.
+     *
+     * @param listener The listener
+     * @param packetType The packet type of the device
+     * @param deviceId The device id, as returned by {@link RFXComDeviceMessage#getDeviceId()}
+     */
+    public synchronized void register(DeviceMessageListener listener, PacketType packetType, String deviceId) {
+        unregister(listener);
+        routes.computeIfAbsent(new DeviceKey(packetType, deviceId), key -> new CopyOnWriteArrayList<>())
+                .add(listener);
+    }
+
+    /**
+     * Removes the device registration of the given listener.
+     *
+     * @param listener The listener
+     * @return true if the listener was registered
+     */
+    public synchronized boolean unregister(DeviceMessageListener listener) {
+        boolean removed = false;
+        for (Map.Entry<DeviceKey, List<DeviceMessageListener>> route : routes.entrySet()) {
+            if (route.getValue().remove(listener)) {
+                removed = true;
+                if (route.getValue().isEmpty()) {
+                    routes.remove(route.getKey());
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Registers a listener for the messages of all devices that do not have a registered listener.
+     *
+     * @param listener The listener
+     * @return false if the listener was already registered
+     */
+    public boolean registerUnmatched(DeviceMessageListener listener) {
+        return unmatchedListeners.addIfAbsent(listener);
+    }
+
+    /**
+     * Removes a listener registered by {@link #registerUnmatched(DeviceMessageListener)}.
+     *
+     * @param listener The listener
+     * @return true if the listener was registered
+     */
+    public boolean unregisterUnmatched(DeviceMessageListener listener) {
+        return unmatchedListeners.remove(listener);
+    }
+
+    /**
+     * Removes all registrations.
+     */
+    public synchronized void clear() {
+        routes.clear();
+        unmatchedListeners.clear();
+    }
+
+    /**
+     * Delivers the message to the listeners registered for the device, or to the unmatched listeners
+     * if there are none.
+     *
+     * @param bridge The bridge the message was received from
+     * @param message The received message
+     */
+    public void route(ThingUID bridge, RFXComDeviceMessage message) {
+        List<DeviceMessageListener> listeners = routes
+                .get(new DeviceKey(message.getPacketType(), message.getDeviceId()));
+        if (listeners != null && !listeners.isEmpty()) {
+            routedPackets.incrementAndGet();
+            deliver(listeners, bridge, message);
+        } else if (!unmatchedListeners.isEmpty()) {
+            unmatchedPackets.incrementAndGet();
+            logger.debug("No thing for message, passing it to the discovery: {}", message);
+            deliver(unmatchedListeners, bridge, message);
+        } else {
+            droppedPackets.incrementAndGet();
+            logger.debug("No listener for message: {}", message);
+        }
+    }
+
+    private void deliver(List<DeviceMessageListener> listeners, ThingUID bridge, RFXComDeviceMessage message) {
+        for (DeviceMessageListener listener : listeners) {
+            try {
+                listener.onDeviceMessageReceived(bridge, message);
+            } catch (Exception e) {
+                // catch all exceptions give all handlers a fair chance of handling the messages
+                logger.error("An exception occurred while calling the DeviceStatusListener", e);
+            }
+        }
+    }
+
+    /**
+     * Returns the amount of messages that have been delivered to a registered device listener.
+     */
+    public long getRoutedPackets() {
+        return routedPackets.get();
+    }
+
+    /**
+     * Returns the amount of messages of unknown devices that have been delivered to the unmatched listeners.
+     */
+    public long getUnmatchedPackets() {
+        return unmatchedPackets.get();
+    }
+
+    /**
+     * Returns the amount of messages that could not be delivered to any listener.
+     */
+    public long getDroppedPackets() {
+        return droppedPackets.get();
+    }
+
+    private static class DeviceKey {
+        private final PacketType packetType;
+        private final String deviceId;
+
+        DeviceKey(PacketType packetType, String deviceId) {
+            this.packetType = packetType;
+            this.deviceId = deviceId;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(packetType, deviceId);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof DeviceKey)) {
+                return false;
+            }
+            DeviceKey other = (DeviceKey) obj;
+            return packetType == other.packetType && Objects.equals(deviceId, other.deviceId);
+        }
+    }
+}
@@ -61,6 +61,15 @@ public interface RFXComDeviceMessage<T> extends RFXComMessage {
      */
     T convertSubType(String subType) throws RFXComUnsupportedValueException;
 
+    /**
+     * Procedure for converting sub type as string to the sub type byte of the packet.
+     *
+     * @param subType
+     * @return sub type byte.
+     * @throws RFXComUnsupportedValueException if the given subType cannot be converted
+     */
+    byte convertSubTypeToByte(String subType) throws RFXComUnsupportedValueException;
+
     /**
      * Procedure to set sub type.
      *
@@ -16,6 +16,7 @@ import org.eclipse.smarthome.core.types.State;
 import org.openhab.binding.rfxcom.internal.config.RFXComDeviceConfiguration;
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComUnsupportedChannelException;
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComUnsupportedValueException;
 
 /**
  * A base class for all device messages, so this is not about things as interface messages
@@ -39,6 +40,11 @@ abstract class RFXComDeviceMessageImpl<T> extends RFXComBaseMessage implements R
         this.setDeviceId(config.deviceId);
     }
 
+    @Override
+    public byte convertSubTypeToByte(String subType) throws RFXComUnsupportedValueException {
+        return ((ByteEnumWrapper) convertSubType(subType)).toByte();
+    }
+
     @Override
     public State convertToState(String channelId) throws RFXComUnsupportedChannelException {
         switch (channelId) {
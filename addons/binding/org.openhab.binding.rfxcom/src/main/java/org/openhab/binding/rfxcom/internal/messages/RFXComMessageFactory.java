@@ -8,74 +8,101 @@
  */
 package org.openhab.binding.rfxcom.internal.messages;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.function.Supplier;
 
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComMessageNotImplementedException;
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComUnsupportedValueException;
 import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
 
 /**
+ * Creates RFXCOM messages. Received packets are decoded by a table, which is keyed on the packet type
+ * and holds a constructor reference of the message class for each supported packet type.
  *
  * @author Pauli Anttila - Initial contribution
  */
 public class RFXComMessageFactory {
 
-    @SuppressWarnings("serial")
-    private static final Map<PacketType, Class<? extends RFXComMessage>> MESSAGE_CLASSES = Collections
-            .unmodifiableMap(new HashMap<PacketType, Class<? extends RFXComMessage>>() {
-                {
-                    put(PacketType.INTERFACE_CONTROL, RFXComInterfaceControlMessage.class);
-                    put(PacketType.INTERFACE_MESSAGE, RFXComInterfaceMessage.class);
-                    put(PacketType.TRANSMITTER_MESSAGE, RFXComTransmitterMessage.class);
-                    put(PacketType.UNDECODED_RF_MESSAGE, RFXComUndecodedRFMessage.class);
-                    put(PacketType.LIGHTING1, RFXComLighting1Message.class);
-                    put(PacketType.LIGHTING2, RFXComLighting2Message.class);
-                    // put(PacketType.LIGHTING3, RFXComLighting3Message.class);
-                    put(PacketType.LIGHTING4, RFXComLighting4Message.class);
-                    put(PacketType.LIGHTING5, RFXComLighting5Message.class);
-                    put(PacketType.LIGHTING6, RFXComLighting6Message.class);
-                    put(PacketType.CHIME, RFXComChimeMessage.class);
-                    // put(PacketType.FAN, RFXComFanMessage.class);
-                    put(PacketType.CURTAIN1, RFXComCurtain1Message.class);
-                    put(PacketType.BLINDS1, RFXComBlinds1Message.class);
-                    put(PacketType.RFY, RFXComRfyMessage.class);
-                    put(PacketType.HOME_CONFORT, RFXComHomeConfortMessage.class);
-                    put(PacketType.SECURITY1, RFXComSecurity1Message.class);
-                    put(PacketType.SECURITY2, RFXComSecurity2Message.class);
-                    // put(PacketType.CAMERA1, RFXComCamera1Message.class);
-                    // put(PacketType.REMOTE_CONTROL, RFXComRemoteControlMessage.class);
-                    put(PacketType.THERMOSTAT1, RFXComThermostat1Message.class);
-                    // put(PacketType.THERMOSTAT2, RFXComThermostat2Message.class);
-                    // put(PacketType.THERMOSTAT3, RFXComThermostat3Message.class);
-                    // put(PacketType.RADIATOR1, RFXComRadiator1Message.class);
-                    put(PacketType.BBQ, RFXComBBQTemperatureMessage.class);
-                    put(PacketType.TEMPERATURE_RAIN, RFXComTemperatureRainMessage.class);
-                    put(PacketType.TEMPERATURE, RFXComTemperatureMessage.class);
-                    put(PacketType.HUMIDITY, RFXComHumidityMessage.class);
-                    put(PacketType.TEMPERATURE_HUMIDITY, RFXComTemperatureHumidityMessage.class);
-                    // put(PacketType.BAROMETRIC, RFXComBarometricMessage.class);
-                    put(PacketType.TEMPERATURE_HUMIDITY_BAROMETRIC, RFXComTemperatureHumidityBarometricMessage.class);
-                    put(PacketType.RAIN, RFXComRainMessage.class);
-                    put(PacketType.WIND, RFXComWindMessage.class);
-                    put(PacketType.UV, RFXComUVMessage.class);
-                    put(PacketType.DATE_TIME, RFXComDateTimeMessage.class);
-                    // put(PacketType.CURRENT, RFXComCurrentMessage.class);
-                    put(PacketType.ENERGY, RFXComEnergyMessage.class);
-                    put(PacketType.CURRENT_ENERGY, RFXComCurrentEnergyMessage.class);
-                    // put(PacketType.POWER, RFXComPowerMessage.class);
-                    // put(PacketType.WEIGHT, RFXComWeightMessage.class);
-                    // put(PacketType.GAS, RFXComGasMessage.class);
-                    // put(PacketType.WATER, RFXComWaterMessage.class);
-                    // put(PacketType.RFXSENSOR, RFXComRFXSensorMessage.class);
-                    // put(PacketType.RFXMETER, RFXComRFXMeterMessage.class);
-                    // put(PacketType.FS20, RFXComFS20Message.class);
-                    // put(PacketType.IO_LINES, RFXComIOLinesMessage.class);
-                }
-            });
+    /**
+     * Creates a message from a received packet.
+     */
+    @FunctionalInterface
+    private interface PacketDecoder {
+        RFXComMessage decode(byte[] packet) throws RFXComException;
+    }
+
+    private static final Map<PacketType, Supplier<RFXComMessage>> MESSAGE_SUPPLIERS = new EnumMap<>(
+            PacketType.class);
+    private static final Map<PacketType, PacketDecoder> MESSAGE_DECODERS = new EnumMap<>(PacketType.class);
+
+    /**
+     * Packet types indexed by their unsigned byte value, to avoid a search over all packet types for every packet.
+     */
+    private static final PacketType[] PACKET_TYPES = new PacketType[256];
+
+    static {
+        for (PacketType packetType : PacketType.values()) {
+            PACKET_TYPES[packetType.toByte() & 0xFF] = packetType;
+        }
+
+        register(PacketType.INTERFACE_CONTROL, null, RFXComInterfaceControlMessage::new);
+        register(PacketType.INTERFACE_MESSAGE, null, RFXComInterfaceMessage::new);
+        register(PacketType.TRANSMITTER_MESSAGE, RFXComTransmitterMessage::new, RFXComTransmitterMessage::new);
+        register(PacketType.UNDECODED_RF_MESSAGE, RFXComUndecodedRFMessage::new, RFXComUndecodedRFMessage::new);
+        register(PacketType.LIGHTING1, RFXComLighting1Message::new, RFXComLighting1Message::new);
+        register(PacketType.LIGHTING2, RFXComLighting2Message::new, RFXComLighting2Message::new);
+        // register(PacketType.LIGHTING3, RFXComLighting3Message::new, RFXComLighting3Message::new);
+        register(PacketType.LIGHTING4, RFXComLighting4Message::new, RFXComLighting4Message::new);
+        register(PacketType.LIGHTING5, RFXComLighting5Message::new, RFXComLighting5Message::new);
+        register(PacketType.LIGHTING6, RFXComLighting6Message::new, RFXComLighting6Message::new);
+        register(PacketType.CHIME, RFXComChimeMessage::new, RFXComChimeMessage::new);
+        // register(PacketType.FAN, RFXComFanMessage::new, RFXComFanMessage::new);
+        register(PacketType.CURTAIN1, RFXComCurtain1Message::new, RFXComCurtain1Message::new);
+        register(PacketType.BLINDS1, RFXComBlinds1Message::new, RFXComBlinds1Message::new);
+        register(PacketType.RFY, RFXComRfyMessage::new, RFXComRfyMessage::new);
+        register(PacketType.HOME_CONFORT, RFXComHomeConfortMessage::new, RFXComHomeConfortMessage::new);
+        register(PacketType.SECURITY1, RFXComSecurity1Message::new, RFXComSecurity1Message::new);
+        register(PacketType.SECURITY2, RFXComSecurity2Message::new, RFXComSecurity2Message::new);
+        // register(PacketType.CAMERA1, RFXComCamera1Message::new, RFXComCamera1Message::new);
+        // register(PacketType.REMOTE_CONTROL, RFXComRemoteControlMessage::new, RFXComRemoteControlMessage::new);
+        register(PacketType.THERMOSTAT1, RFXComThermostat1Message::new, RFXComThermostat1Message::new);
+        // register(PacketType.THERMOSTAT2, RFXComThermostat2Message::new, RFXComThermostat2Message::new);
+        // register(PacketType.THERMOSTAT3, RFXComThermostat3Message::new, RFXComThermostat3Message::new);
+        // register(PacketType.RADIATOR1, RFXComRadiator1Message::new, RFXComRadiator1Message::new);
+        register(PacketType.BBQ, RFXComBBQTemperatureMessage::new, RFXComBBQTemperatureMessage::new);
+        register(PacketType.TEMPERATURE_RAIN, RFXComTemperatureRainMessage::new, RFXComTemperatureRainMessage::new);
+        register(PacketType.TEMPERATURE, RFXComTemperatureMessage::new, RFXComTemperatureMessage::new);
+        register(PacketType.HUMIDITY, RFXComHumidityMessage::new, RFXComHumidityMessage::new);
+        register(PacketType.TEMPERATURE_HUMIDITY, RFXComTemperatureHumidityMessage::new,
+                RFXComTemperatureHumidityMessage::new);
+        // register(PacketType.BAROMETRIC, RFXComBarometricMessage::new, RFXComBarometricMessage::new);
+        register(PacketType.TEMPERATURE_HUMIDITY_BAROMETRIC, RFXComTemperatureHumidityBarometricMessage::new,
+                RFXComTemperatureHumidityBarometricMessage::new);
+        register(PacketType.RAIN, RFXComRainMessage::new, RFXComRainMessage::new);
+        register(PacketType.WIND, RFXComWindMessage::new, RFXComWindMessage::new);
+        register(PacketType.UV, RFXComUVMessage::new, RFXComUVMessage::new);
+        register(PacketType.DATE_TIME, RFXComDateTimeMessage::new, RFXComDateTimeMessage::new);
+        // register(PacketType.CURRENT, RFXComCurrentMessage::new, RFXComCurrentMessage::new);
+        register(PacketType.ENERGY, RFXComEnergyMessage::new, RFXComEnergyMessage::new);
+        register(PacketType.CURRENT_ENERGY, RFXComCurrentEnergyMessage::new, RFXComCurrentEnergyMessage::new);
+        // register(PacketType.POWER, RFXComPowerMessage::new, RFXComPowerMessage::new);
+        // register(PacketType.WEIGHT, RFXComWeightMessage::new, RFXComWeightMessage::new);
+        // register(PacketType.GAS, RFXComGasMessage::new, RFXComGasMessage::new);
+        // register(PacketType.WATER, RFXComWaterMessage::new, RFXComWaterMessage::new);
+        // register(PacketType.RFXSENSOR, RFXComRFXSensorMessage::new, RFXComRFXSensorMessage::new);
+        // register(PacketType.RFXMETER, RFXComRFXMeterMessage::new, RFXComRFXMeterMessage::new);
+        // register(PacketType.FS20, RFXComFS20Message::new, RFXComFS20Message::new);
+        // register(PacketType.IO_LINES, RFXComIOLinesMessage::new, RFXComIOLinesMessage::new);
+    }
+
+    private static void register(PacketType packetType, Supplier<RFXComMessage> supplier, PacketDecoder decoder) {
+        if (supplier != null) {
+            MESSAGE_SUPPLIERS.put(packetType, supplier);
+        }
+        MESSAGE_DECODERS.put(packetType, decoder);
+    }
 
     /**
      * Command to reset RFXCOM controller.
@@ -106,39 +133,39 @@ public class RFXComMessageFactory {
             0x00, 0x00, 0x00, 0x00, 0x00 };
 
     public static RFXComMessage createMessage(PacketType packetType) throws RFXComException {
-
-        try {
-            Class<? extends RFXComMessage> cl = MESSAGE_CLASSES.get(packetType);
-            if (cl == null) {
-                throw new RFXComMessageNotImplementedException("Message " + packetType + " not implemented");
+        Supplier<RFXComMessage> supplier = MESSAGE_SUPPLIERS.get(packetType);
+        if (supplier == null) {
+            if (MESSAGE_DECODERS.containsKey(packetType)) {
+                throw new RFXComException("Message " + packetType + " can only be created from a received packet");
             }
-            return cl.newInstance();
-        } catch (IllegalAccessException | InstantiationException e) {
-            throw new RFXComException(e);
+            throw new RFXComMessageNotImplementedException("Message " + packetType + " not implemented");
         }
+        return supplier.get();
     }
 
     public static RFXComMessage createMessage(byte[] packet) throws RFXComException {
-        PacketType packetType = ByteEnumUtil.fromByte(PacketType.class, (int) packet[1]);
+        PacketType packetType = getPacketType(packet);
 
+        PacketDecoder decoder = MESSAGE_DECODERS.get(packetType);
+        if (decoder == null) {
+            throw new RFXComMessageNotImplementedException("Message " + packetType + " not implemented");
+        }
         try {
-            Class<? extends RFXComMessage> cl = MESSAGE_CLASSES.get(packetType);
-            if (cl == null) {
-                throw new RFXComMessageNotImplementedException("Message " + packetType + " not implemented");
-            }
-            Constructor<?> c = cl.getConstructor(byte[].class);
-            return (RFXComMessage) c.newInstance(packet);
-        } catch (InvocationTargetException e) {
-            if (e.getCause() instanceof RFXComException) {
-                throw (RFXComException) e.getCause();
-            } else {
-                throw new RFXComException(e);
-            }
-        } catch (NoSuchMethodException | IllegalAccessException | InstantiationException e) {
+            return decoder.decode(packet);
+        } catch (RuntimeException e) {
+            // Malformed packets, for example too short ones, must not stop the receiver
             throw new RFXComException(e);
         }
     }
 
+    private static PacketType getPacketType(byte[] packet) throws RFXComUnsupportedValueException {
+        PacketType packetType = PACKET_TYPES[packet[1] & 0xFF];
+        if (packetType == null) {
+            throw new RFXComUnsupportedValueException(PacketType.class, packet[1]);
+        }
+        return packetType;
+    }
+
     public static PacketType convertPacketType(String packetType) throws IllegalArgumentException {
 
         for (PacketType p : PacketType.values()) {
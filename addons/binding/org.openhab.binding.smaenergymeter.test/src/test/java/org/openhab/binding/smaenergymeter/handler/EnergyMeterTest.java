@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.smaenergymeter.handler;
+
+import static org.junit.Assert.*;
+import static org.openhab.binding.smaenergymeter.SMAEnergyMeterBindingConstants.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for the OBIS decoding of {@link EnergyMeter}.
+ *
+ * @author agent - Initial contribution
+ */
+public class EnergyMeterTest {
+    private long serialNumber = 1900123456L;
+
+    private final ByteArrayOutputStream values = new ByteArrayOutputStream();
+
+    private void writeUInt(long value, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            values.write((int) (value >>> (8 * i)));
+        }
+    }
+
+    private void writeObis(int channel, int index, int type, long value) {
+        values.write(channel);
+        values.write(index);
+        values.write(type);
+        values.write(0);
+        writeUInt(value, type);
+    }
+
+    /**
+     * Builds a telegram with the OBIS values written so far.
+     */
+    private byte[] telegram(int protocolId) {
+        byte[] obis = values.toByteArray();
+        byte[] bytes = new byte[0x1C + obis.length];
+        bytes[0] = 'S';
+        bytes[1] = 'M';
+        bytes[2] = 'A';
+        int dataLength = bytes.length - 0x10;
+        bytes[0x0C] = (byte) (dataLength >> 8);
+        bytes[0x0D] = (byte) dataLength;
+        bytes[0x10] = (byte) (protocolId >> 8);
+        bytes[0x11] = (byte) protocolId;
+        for (int i = 0; i < 4; i++) {
+            bytes[0x14 + i] = (byte) (serialNumber >>> (8 * (3 - i)));
+        }
+        System.arraycopy(obis, 0, bytes, 0x1C, obis.length);
+        return bytes;
+    }
+
+    @Test
+    public void decodesActualValuesAndCounters() throws IOException {
+        writeObis(0x00, 1, 4, 12345);
+        writeObis(0x00, 1, 8, 18000000L);
+        writeObis(0x00, 2, 4, 0);
+        writeObis(0x00, 13, 4, 987);
+        // unknown measurement and software version are skipped
+        writeObis(0x00, 99, 4, 0xFFFFFFFFL);
+        writeObis(0x90, 0, 0, 0);
+        writeUInt(0x01020304L, 4);
+        writeObis(0x00, 32, 4, 230123);
+        writeObis(0x00, 0, 0, 0);
+
+        EnergyMeter meter = new EnergyMeter();
+        byte[] bytes = telegram(0x6069);
+        meter.update(bytes, bytes.length);
+
+        assertEquals(String.valueOf(serialNumber), meter.getSerialNumber());
+        assertNotNull(meter.getLastUpdate());
+        assertEquals(1234.5, meter.getFields().get(CHANNEL_POWER_IN).getValue(), 0.0001);
+        assertEquals(5.0, meter.getFields().get(CHANNEL_ENERGY_IN).getValue(), 0.0001);
+        assertEquals(0.0, meter.getFields().get(CHANNEL_POWER_OUT).getValue(), 0.0001);
+        assertEquals(0.987, meter.getFields().get(CHANNEL_POWER_FACTOR).getValue(), 0.0001);
+        assertEquals(230.123, meter.getFields().get(CHANNEL_VOLTAGE_PHASE + 1).getValue(), 0.0001);
+        assertFalse(meter.getFields().get(CHANNEL_ENERGY_OUT).hasValue());
+        assertFalse(meter.getFields().get(CHANNEL_VOLTAGE_PHASE + 2).hasValue());
+    }
+
+    @Test
+    public void largeCounterIsUnsigned() throws IOException {
+        writeObis(0x00, 2, 8, 0x80000000L * 3600000L);
+
+        EnergyMeter meter = new EnergyMeter();
+        byte[] bytes = telegram(0x6069);
+        meter.update(bytes, bytes.length);
+        assertEquals(0x80000000L, meter.getFields().get(CHANNEL_ENERGY_OUT).getValue(), 0.0001);
+    }
+
+    @Test
+    public void truncatedValueIsIgnored() throws IOException {
+        writeObis(0x00, 1, 4, 100);
+        writeObis(0x00, 1, 8, 3600000L);
+
+        EnergyMeter meter = new EnergyMeter();
+        byte[] bytes = telegram(0x6069);
+        meter.update(bytes, bytes.length - 3);
+        assertEquals(10.0, meter.getFields().get(CHANNEL_POWER_IN).getValue(), 0.0001);
+        assertFalse(meter.getFields().get(CHANNEL_ENERGY_IN).hasValue());
+    }
+
+    @Test
+    public void rejectsOtherTelegrams() {
+        byte[] bytes = telegram(0x6065);
+        assertNull(EnergyMeter.getSerialNumber(bytes, bytes.length));
+
+        bytes = telegram(0x6069);
+        assertEquals(String.valueOf(serialNumber), EnergyMeter.getSerialNumber(bytes, bytes.length));
+        assertNull(EnergyMeter.getSerialNumber(bytes, 0x10));
+        bytes[0] = 'X';
+        assertNull(EnergyMeter.getSerialNumber(bytes, bytes.length));
+    }
+
+    @Test
+    public void largeSerialNumberIsSigned() throws IOException {
+        serialNumber = 3000123456L;
+
+        EnergyMeter meter = new EnergyMeter();
+        byte[] bytes = telegram(0x6069);
+        meter.update(bytes, bytes.length);
+        assertEquals("-1294843840", meter.getSerialNumber());
+        assertEquals("-1294843840", EnergyMeter.getSerialNumber(bytes, bytes.length));
+    }
+
+    @Test(expected = IOException.class)
+    public void updateRejectsOtherTelegrams() throws IOException {
+        byte[] bytes = telegram(0x6065);
+        new EnergyMeter().update(bytes, bytes.length);
+    }
+}
@@ -33,5 +33,13 @@ public class SMAEnergyMeterBindingConstants {
     public static final String CHANNEL_POWER_OUT = "powerOut";
     public static final String CHANNEL_ENERGY_IN = "energyIn";
     public static final String CHANNEL_ENERGY_OUT = "energyOut";
+    public static final String CHANNEL_POWER_FACTOR = "powerFactor";
+
+    // Channel IDs of the phases, the phase number (1-3) is appended
+    public static final String CHANNEL_POWER_IN_PHASE = "powerInL";
+    public static final String CHANNEL_POWER_OUT_PHASE = "powerOutL";
+    public static final String CHANNEL_VOLTAGE_PHASE = "voltageL";
+    public static final String CHANNEL_CURRENT_PHASE = "currentL";
+    public static final String CHANNEL_POWER_FACTOR_PHASE = "powerFactorL";
 
 }
@@ -8,75 +8,133 @@
  */
 package org.openhab.binding.smaenergymeter.handler;
 
+import static org.openhab.binding.smaenergymeter.SMAEnergyMeterBindingConstants.*;
+
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.InetAddress;
-import java.net.MulticastSocket;
-import java.nio.ByteBuffer;
-import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import org.eclipse.smarthome.core.library.types.DecimalType;
 
 /**
- * The {@link EnergyMeter} class is responsible for communication with the SMA device
- * and extracting the data fields out of the received telegrams.
+ * The {@link EnergyMeter} class holds the values of one SMA device and extracts the data fields out of the received
+ * telegrams.
+ *
+ * A telegram starts with the "SMA" header, the protocol id of the energy meter at 0x10 and the serial number at 0x14.
+ * It is followed by a list of OBIS values starting at 0x1C, each with a 4 byte header (channel, measurement index,
+ * type, tariff) and a 4 byte actual value or an 8 byte counter.
  *
  * @author Osman Basha - Initial contribution
  */
 public class EnergyMeter {
 
-    private String multicastGroup;
-    private int port;
-
-    private String serialNumber;
-    private Date lastUpdate;
-
-    private final FieldDTO powerIn;
-    private final FieldDTO energyIn;
-    private final FieldDTO powerOut;
-    private final FieldDTO energyOut;
-
     public static final String DEFAULT_MCAST_GRP = "239.12.255.254";
     public static final int DEFAULT_MCAST_PORT = 9522;
 
-    public EnergyMeter(String multicastGroup, int port) {
-        this.multicastGroup = multicastGroup;
-        this.port = port;
+    private static final int PROTOCOL_ID_ENERGY_METER = 0x6069;
+    private static final int HEADER_LENGTH = 0x1C;
+    private static final int SOFTWARE_VERSION_CHANNEL = 0x90;
+    private static final int PHASE_INDEX_OFFSET = 20;
+
+    private String serialNumber;
+    private Date lastUpdate;
 
-        powerIn = new FieldDTO(0x20, 4, 10);
-        energyIn = new FieldDTO(0x28, 8, 3600000);
-        powerOut = new FieldDTO(0x34, 4, 10);
-        energyOut = new FieldDTO(0x3C, 8, 3600000);
+    private final Map<String, FieldDTO> fields = new LinkedHashMap<>();
+
+    // fields by measurement index
+    private final FieldDTO[] actualValueFields = new FieldDTO[256];
+    private final FieldDTO[] counterFields = new FieldDTO[256];
+
+    public EnergyMeter() {
+        addField(CHANNEL_POWER_IN, new FieldDTO(1, 4, 10));
+        addField(CHANNEL_ENERGY_IN, new FieldDTO(1, 8, 3600000));
+        addField(CHANNEL_POWER_OUT, new FieldDTO(2, 4, 10));
+        addField(CHANNEL_ENERGY_OUT, new FieldDTO(2, 8, 3600000));
+        addField(CHANNEL_POWER_FACTOR, new FieldDTO(13, 4, 1000));
+
+        for (int phase = 1; phase <= 3; phase++) {
+            int offset = phase * PHASE_INDEX_OFFSET;
+            addField(CHANNEL_POWER_IN_PHASE + phase, new FieldDTO(offset + 1, 4, 10));
+            addField(CHANNEL_POWER_OUT_PHASE + phase, new FieldDTO(offset + 2, 4, 10));
+            addField(CHANNEL_CURRENT_PHASE + phase, new FieldDTO(offset + 11, 4, 1000));
+            addField(CHANNEL_VOLTAGE_PHASE + phase, new FieldDTO(offset + 12, 4, 1000));
+            addField(CHANNEL_POWER_FACTOR_PHASE + phase, new FieldDTO(offset + 13, 4, 1000));
+        }
     }
 
-    public void update() throws IOException {
-        byte[] bytes = new byte[600];
-        try (MulticastSocket socket = new MulticastSocket(port)) {
-            socket.setSoTimeout(5000);
-            InetAddress address = InetAddress.getByName(multicastGroup);
-            socket.joinGroup(address);
+    private void addField(String channelId, FieldDTO field) {
+        fields.put(channelId, field);
+        if (field.getLength() == 4) {
+            actualValueFields[field.getObisIndex()] = field;
+        } else {
+            counterFields[field.getObisIndex()] = field;
+        }
+    }
 
-            DatagramPacket msgPacket = new DatagramPacket(bytes, bytes.length);
-            socket.receive(msgPacket);
+    /**
+     * Returns the serial number of the telegram or null, if it is not a telegram of an energy meter.
+     */
+    public static String getSerialNumber(byte[] bytes, int length) {
+        if (length < HEADER_LENGTH || bytes[0] != 'S' || bytes[1] != 'M' || bytes[2] != 'A'
+                || readUInt16(bytes, 0x10) != PROTOCOL_ID_ENERGY_METER) {
+            return null;
+        }
+        // Signed, like the serial numbers that are already stored in the thing UIDs and properties
+        return String.valueOf((int) readUInt32(bytes, 0x14));
+    }
 
-            String sma = new String(Arrays.copyOfRange(bytes, 0x00, 0x03));
-            if (!sma.equals("SMA")) {
-                throw new IOException("Not a SMA telegram." + sma);
+    /**
+     * Updates all fields with the values of the given telegram.
+     */
+    public void update(byte[] bytes, int length) throws IOException {
+        String telegramSerialNumber = getSerialNumber(bytes, length);
+        if (telegramSerialNumber == null) {
+            throw new IOException("Not a SMA energy meter telegram.");
+        }
+        serialNumber = telegramSerialNumber;
+
+        // the data length at 0x0C counts from the protocol id at 0x10
+        int end = Math.min(length, 0x10 + readUInt16(bytes, 0x0C));
+        int pos = HEADER_LENGTH;
+        while (pos + 4 <= end) {
+            int channel = bytes[pos] & 0xFF;
+            int index = bytes[pos + 1] & 0xFF;
+            int type = bytes[pos + 2] & 0xFF;
+            pos += 4;
+
+            FieldDTO field;
+            if (channel == SOFTWARE_VERSION_CHANNEL) {
+                field = null;
+                type = 4;
+            } else if (type == 4) {
+                field = actualValueFields[index];
+            } else if (type == 8) {
+                field = counterFields[index];
+            } else {
+                // end of the value list
+                break;
+            }
+            if (pos + type > end) {
+                break;
+            }
+            if (field != null) {
+                field.updateValue(bytes, pos);
             }
+            pos += type;
+        }
 
-            ByteBuffer buffer = ByteBuffer.wrap(Arrays.copyOfRange(bytes, 0x14, 0x18));
-            serialNumber = String.valueOf(buffer.getInt());
+        lastUpdate = new Date(System.currentTimeMillis());
+    }
 
-            powerIn.updateValue(bytes);
-            energyIn.updateValue(bytes);
-            powerOut.updateValue(bytes);
-            energyOut.updateValue(bytes);
+    private static int readUInt16(byte[] bytes, int address) {
+        return ((bytes[address] & 0xFF) << 8) | (bytes[address + 1] & 0xFF);
+    }
 
-            lastUpdate = new Date(System.currentTimeMillis());
-        } catch (Exception e) {
-            throw new IOException(e);
-        }
+    private static long readUInt32(byte[] bytes, int address) {
+        return ((bytes[address] & 0xFFL) << 24) | ((bytes[address + 1] & 0xFFL) << 16)
+                | ((bytes[address + 2] & 0xFFL) << 8) | (bytes[address + 3] & 0xFFL);
     }
 
     public String getSerialNumber() {
@@ -87,20 +145,27 @@ public class EnergyMeter {
         return lastUpdate;
     }
 
+    /**
+     * Returns all fields by channel id.
+     */
+    public Map<String, FieldDTO> getFields() {
+        return Collections.unmodifiableMap(fields);
+    }
+
     public DecimalType getPowerIn() {
-        return new DecimalType(powerIn.getValue());
+        return new DecimalType(fields.get(CHANNEL_POWER_IN).getValue());
     }
 
     public DecimalType getPowerOut() {
-        return new DecimalType(powerOut.getValue());
+        return new DecimalType(fields.get(CHANNEL_POWER_OUT).getValue());
     }
 
     public DecimalType getEnergyIn() {
-        return new DecimalType(energyIn.getValue());
+        return new DecimalType(fields.get(CHANNEL_ENERGY_IN).getValue());
     }
 
     public DecimalType getEnergyOut() {
-        return new DecimalType(energyOut.getValue());
+        return new DecimalType(fields.get(CHANNEL_ENERGY_OUT).getValue());
     }
 
 }
@@ -8,23 +8,21 @@
  */
 package org.openhab.binding.smaenergymeter.handler;
 
-import java.nio.ByteBuffer;
-import java.util.Arrays;
-
 /**
  * The {@link FieldDTO} class holds the data for a single field (i.e. the power purchased).
+ * A field is identified by the measurement index of its OBIS code, actual values have 4 bytes, counters 8 bytes.
  *
  * @author Osman Basha - Initial contribution
  */
 public class FieldDTO {
 
-    private final int address;
+    private final int obisIndex;
     private final int length;
     private final int divisor;
-    private float value;
+    private double value = Double.NaN;
 
-    public FieldDTO(int address, int length, int divisor) {
-        this.address = address;
+    public FieldDTO(int obisIndex, int length, int divisor) {
+        this.obisIndex = obisIndex;
         if ((length != 4) && (length != 8)) {
             throw new IllegalArgumentException("length should be 4 or 8 bytes");
         }
@@ -32,26 +30,40 @@ public class FieldDTO {
         this.divisor = divisor;
     }
 
-    public float getValue() {
+    public int getObisIndex() {
+        return obisIndex;
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns the value of the last telegram or NaN, if the meter does not send this field.
+     */
+    public double getValue() {
         return value;
     }
 
-    public void updateValue(byte[] bytes) {
+    public boolean hasValue() {
+        return !Double.isNaN(value);
+    }
+
+    public void updateValue(byte[] bytes, int address) {
         if (length == 4) {
-            value = (float) bytesToUInt16(Arrays.copyOfRange(bytes, address, address + 4)) / divisor;
+            value = (double) bytesToUInt32(bytes, address) / divisor;
         } else {
-            value = (float) bytesToUInt32(Arrays.copyOfRange(bytes, address, address + 8)) / divisor;
+            value = (double) bytesToUInt64(bytes, address) / divisor;
         }
     }
 
-    private int bytesToUInt16(byte[] bytes) {
-        ByteBuffer buffer = ByteBuffer.wrap(bytes);
-        return buffer.getInt();
+    private long bytesToUInt32(byte[] bytes, int address) {
+        return ((bytes[address] & 0xFFL) << 24) | ((bytes[address + 1] & 0xFFL) << 16)
+                | ((bytes[address + 2] & 0xFFL) << 8) | (bytes[address + 3] & 0xFFL);
     }
 
-    private long bytesToUInt32(byte[] bytes) {
-        ByteBuffer buffer = ByteBuffer.wrap(bytes);
-        return buffer.getLong();
+    private long bytesToUInt64(byte[] bytes, int address) {
+        return (bytesToUInt32(bytes, address) << 32) | bytesToUInt32(bytes, address + 4);
     }
 
 }
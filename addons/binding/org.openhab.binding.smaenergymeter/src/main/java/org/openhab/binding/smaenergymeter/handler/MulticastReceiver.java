@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.smaenergymeter.handler;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.MulticastSocket;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link MulticastReceiver} holds one multicast socket per group and port. It receives the telegrams of all
+ * energy meters in a single thread and passes them to the listeners of the sending meter and to the listeners of all
+ * meters (e.g. the discovery).
+ *
+ * @author agent - Initial contribution
+ */
+public class MulticastReceiver implements Runnable {
+
+    private final Logger logger = LoggerFactory.getLogger(MulticastReceiver.class);
+
+    // the telegrams of an energy meter are about 600 bytes
+    private static final int BUFFER_SIZE = 1024;
+    private static final String ALL_METERS = "";
+    private static final long ERROR_DELAY_MILLIS = 1000;
+
+    private static final Map<String, MulticastReceiver> receivers = new HashMap<>();
+
+    private final String multicastGroup;
+    private final int port;
+    private final Map<String, Set<TelegramListener>> listenersBySerialNumber = new ConcurrentHashMap<>();
+    private int listenerCount;
+
+    private MulticastSocket socket;
+    private Thread thread;
+
+    private MulticastReceiver(String multicastGroup, int port) {
+        this.multicastGroup = multicastGroup;
+        this.port = port;
+    }
+
+    /**
+     * Adds a listener for the telegrams of the given energy meter, starts the receiver for the group and port if
+     * required.
+     *
+     * @param serialNumber the serial number of the energy meter or null for all energy meters
+     */
+    public static synchronized void addListener(String multicastGroup, int port, String serialNumber,
+            TelegramListener listener) throws IOException {
+        String key = multicastGroup + ":" + port;
+        MulticastReceiver receiver = receivers.get(key);
+        if (receiver == null) {
+            receiver = new MulticastReceiver(multicastGroup, port);
+            receiver.start();
+            receivers.put(key, receiver);
+        }
+        receiver.add(serialNumber == null ? ALL_METERS : serialNumber, listener);
+    }
+
+    /**
+     * Removes the listener from all receivers, stops the receivers without listeners.
+     */
+    public static synchronized void removeListener(TelegramListener listener) {
+        for (MulticastReceiver receiver : receivers.values().toArray(new MulticastReceiver[0])) {
+            if (receiver.remove(listener) && receiver.listenerCount == 0) {
+                receiver.stop();
+                receivers.remove(receiver.multicastGroup + ":" + receiver.port);
+            }
+        }
+    }
+
+    private void add(String serialNumber, TelegramListener listener) {
+        Set<TelegramListener> listeners = listenersBySerialNumber.get(serialNumber);
+        if (listeners == null) {
+            listeners = new CopyOnWriteArraySet<>();
+            listenersBySerialNumber.put(serialNumber, listeners);
+        }
+        if (listeners.add(listener)) {
+            listenerCount++;
+        }
+    }
+
+    private boolean remove(TelegramListener listener) {
+        boolean removed = false;
+        for (Set<TelegramListener> listeners : listenersBySerialNumber.values()) {
+            if (listeners.remove(listener)) {
+                listenerCount--;
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    private void start() throws IOException {
+        socket = new MulticastSocket(port);
+        try {
+            socket.joinGroup(InetAddress.getByName(multicastGroup));
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        thread = new Thread(this, "SMAEnergyMeter-" + multicastGroup + ":" + port);
+        thread.setDaemon(true);
+        thread.start();
+        logger.debug("Started receiving telegrams on {}:{}", multicastGroup, port);
+    }
+
+    private void stop() {
+        // closing the socket ends the blocking receive of the thread
+        socket.close();
+        logger.debug("Stopped receiving telegrams on {}:{}", multicastGroup, port);
+    }
+
+    @Override
+    public void run() {
+        byte[] bytes = new byte[BUFFER_SIZE];
+        DatagramPacket packet = new DatagramPacket(bytes, bytes.length);
+        while (!socket.isClosed()) {
+            try {
+                packet.setLength(bytes.length);
+                socket.receive(packet);
+
+                String serialNumber = EnergyMeter.getSerialNumber(bytes, packet.getLength());
+                if (serialNumber == null) {
+                    logger.trace("Ignoring telegram from {}, not a SMA energy meter", packet.getAddress());
+                    continue;
+                }
+                notifyListeners(listenersBySerialNumber.get(serialNumber), serialNumber, bytes, packet.getLength());
+                notifyListeners(listenersBySerialNumber.get(ALL_METERS), serialNumber, bytes, packet.getLength());
+            } catch (IOException e) {
+                if (!socket.isClosed()) {
+                    logger.debug("Error receiving telegram on {}:{}: {}", multicastGroup, port, e.getMessage());
+                    try {
+                        Thread.sleep(ERROR_DELAY_MILLIS);
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private void notifyListeners(Set<TelegramListener> listeners, String serialNumber, byte[] bytes, int length) {
+        if (listeners != null) {
+            for (TelegramListener listener : listeners) {
+                try {
+                    listener.telegramReceived(serialNumber, bytes, length);
+                } catch (RuntimeException e) {
+                    logger.warn("Error processing telegram of SMA energy meter '{}'", serialNumber, e);
+                }
+            }
+        }
+    }
+
+}
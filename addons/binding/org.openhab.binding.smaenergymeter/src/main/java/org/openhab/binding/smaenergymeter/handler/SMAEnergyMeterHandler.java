@@ -8,12 +8,12 @@
  */
 package org.openhab.binding.smaenergymeter.handler;
 
-import static org.openhab.binding.smaenergymeter.SMAEnergyMeterBindingConstants.*;
-
 import java.io.IOException;
+import java.util.Map;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.thing.ChannelUID;
 import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingStatus;
@@ -29,13 +29,21 @@ import org.slf4j.LoggerFactory;
  * The {@link SMAEnergyMeterHandler} is responsible for handling commands, which are
  * sent to one of the channels.
  *
+ * The energy meter sends a telegram every second, the telegrams are received by the shared {@link MulticastReceiver}
+ * and the channels are updated at most once per polling period.
+ *
  * @author Osman Basha - Initial contribution
  */
-public class SMAEnergyMeterHandler extends BaseThingHandler {
+public class SMAEnergyMeterHandler extends BaseThingHandler implements TelegramListener {
+
+    private static final int TIMEOUT_SECONDS = 30;
 
     private Logger logger = LoggerFactory.getLogger(SMAEnergyMeterHandler.class);
     private EnergyMeter energyMeter;
-    private ScheduledFuture<?> pollingJob;
+    private String serialNumber;
+    private long pollingPeriodMillis;
+    private long lastStateUpdate;
+    private ScheduledFuture<?> timeoutJob;
 
     public SMAEnergyMeterHandler(Thing thing) {
         super(thing);
@@ -58,57 +66,94 @@ public class SMAEnergyMeterHandler extends BaseThingHandler {
         EnergyMeterConfig config = getConfigAs(EnergyMeterConfig.class);
 
         int port = (config.getPort() == null) ? EnergyMeter.DEFAULT_MCAST_PORT : config.getPort();
-        energyMeter = new EnergyMeter(config.getMcastGroup(), port);
-        try {
-            energyMeter.update();
+        int pollingPeriod = (config.getPollingPeriod() == null) ? 1 : config.getPollingPeriod();
+        pollingPeriodMillis = TimeUnit.SECONDS.toMillis(pollingPeriod);
+        lastStateUpdate = 0;
+        energyMeter = new EnergyMeter();
 
-            updateProperty(Thing.PROPERTY_VENDOR, "SMA");
-            updateProperty(Thing.PROPERTY_SERIAL_NUMBER, energyMeter.getSerialNumber());
-            logger.debug("Found a SMA Energy Meter with S/N '{}'", energyMeter.getSerialNumber());
+        // without a serial number, the handler takes the first energy meter it receives
+        serialNumber = getThing().getProperties().get(Thing.PROPERTY_SERIAL_NUMBER);
+        updateProperty(Thing.PROPERTY_VENDOR, "SMA");
+
+        try {
+            MulticastReceiver.addListener(config.getMcastGroup(), port, serialNumber, this);
         } catch (IOException e) {
-            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.OFFLINE.CONFIGURATION_ERROR, e.getMessage());
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR, e.getMessage());
             return;
         }
+        logger.debug("Listening to SMA Energy Meter '{}' on {}:{}, updating every {} sec.", serialNumber,
+                config.getMcastGroup(), port, pollingPeriod);
 
-        int pollingPeriod = (config.getPollingPeriod() == null) ? 30 : config.getPollingPeriod();
-        pollingJob = scheduler.scheduleWithFixedDelay(new Runnable() {
+        timeoutJob = scheduler.scheduleWithFixedDelay(new Runnable() {
             @Override
             public void run() {
-                updateData();
+                checkTimeout();
             }
-        }, 0, pollingPeriod, TimeUnit.SECONDS);
-        logger.debug("Polling job scheduled to run every {} sec. for '{}'", pollingPeriod, getThing().getUID());
+        }, TIMEOUT_SECONDS, TIMEOUT_SECONDS / 3, TimeUnit.SECONDS);
 
-        updateStatus(ThingStatus.ONLINE);
+        updateStatus(ThingStatus.UNKNOWN);
     }
 
     @Override
     public void dispose() {
         logger.debug("Disposing SMAEnergyMeter handler '{}'", getThing().getUID());
 
-        if (pollingJob != null) {
-            pollingJob.cancel(true);
-            pollingJob = null;
+        MulticastReceiver.removeListener(this);
+        if (timeoutJob != null) {
+            timeoutJob.cancel(true);
+            timeoutJob = null;
         }
-        energyMeter = null;
     }
 
-    private synchronized void updateData() {
-        logger.debug("Update SMAEnergyMeter data '{}'", getThing().getUID());
+    @Override
+    public synchronized void telegramReceived(String telegramSerialNumber, byte[] bytes, int length) {
+        if (serialNumber == null) {
+            serialNumber = telegramSerialNumber;
+            updateProperty(Thing.PROPERTY_SERIAL_NUMBER, serialNumber);
+            logger.debug("Found a SMA Energy Meter with S/N '{}'", serialNumber);
+        } else if (!serialNumber.equals(telegramSerialNumber)) {
+            return;
+        }
 
         try {
-            energyMeter.update();
+            energyMeter.update(bytes, length);
+        } catch (IOException e) {
+            logger.debug("Invalid telegram of SMA Energy Meter '{}': {}", serialNumber, e.getMessage());
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastStateUpdate >= pollingPeriodMillis) {
+            lastStateUpdate = now;
+            updateData();
+        }
+    }
 
-            updateState(CHANNEL_POWER_IN, energyMeter.getPowerIn());
-            updateState(CHANNEL_POWER_OUT, energyMeter.getPowerOut());
-            updateState(CHANNEL_ENERGY_IN, energyMeter.getEnergyIn());
-            updateState(CHANNEL_ENERGY_OUT, energyMeter.getEnergyOut());
+    private synchronized void updateData() {
+        if (energyMeter == null || energyMeter.getLastUpdate() == null) {
+            return;
+        }
+        logger.trace("Update SMAEnergyMeter data '{}'", getThing().getUID());
 
-            if (getThing().getStatus().equals(ThingStatus.OFFLINE)) {
-                updateStatus(ThingStatus.ONLINE);
+        for (Map.Entry<String, FieldDTO> field : energyMeter.getFields().entrySet()) {
+            if (field.getValue().hasValue()) {
+                updateState(field.getKey(), new DecimalType(field.getValue().getValue()));
             }
-        } catch (IOException e) {
-            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.OFFLINE.COMMUNICATION_ERROR, e.getMessage());
+        }
+
+        if (getThing().getStatus() != ThingStatus.ONLINE) {
+            updateStatus(ThingStatus.ONLINE);
+        }
+    }
+
+    private synchronized void checkTimeout() {
+        if (getThing().getStatus() == ThingStatus.OFFLINE) {
+            return;
+        }
+        long lastUpdate = energyMeter.getLastUpdate() == null ? 0 : energyMeter.getLastUpdate().getTime();
+        if (System.currentTimeMillis() - lastUpdate > TimeUnit.SECONDS.toMillis(TIMEOUT_SECONDS)) {
+            updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR,
+                    "No telegram received for " + TIMEOUT_SECONDS + " seconds");
         }
     }
 
@@ -0,0 +1,28 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.smaenergymeter.handler;
+
+/**
+ * The {@link TelegramListener} is notified by the {@link MulticastReceiver} about received energy meter telegrams.
+ *
+ * @author agent - Initial contribution
+ */
+public interface TelegramListener {
+
+    /**
+     * Called from the receiver thread for each telegram. The bytes are reused for the next telegram and must not be
+     * kept after this method returns.
+     *
+     * @param serialNumber the serial number of the sending energy meter
+     * @param bytes the received telegram
+     * @param length the length of the telegram
+     */
+    void telegramReceived(String serialNumber, byte[] bytes, int length);
+
+}
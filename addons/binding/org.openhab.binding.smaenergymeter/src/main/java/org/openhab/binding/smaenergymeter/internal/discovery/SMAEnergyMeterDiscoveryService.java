@@ -14,6 +14,7 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.config.discovery.AbstractDiscoveryService;
@@ -23,21 +24,32 @@ import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.ThingUID;
 import org.openhab.binding.smaenergymeter.handler.EnergyMeter;
+import org.openhab.binding.smaenergymeter.handler.MulticastReceiver;
+import org.openhab.binding.smaenergymeter.handler.TelegramListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * The {@link SMAEnergyMeterDiscoveryService} class implements a service
- * for discovering the SMA Energy Meter.
+ * for discovering the SMA Energy Meter. It listens to the telegrams of all energy meters on the default
+ * multicast group, while a scan or the background discovery is running.
  *
  * @author Osman Basha - Initial contribution
  */
-public class SMAEnergyMeterDiscoveryService extends AbstractDiscoveryService {
+public class SMAEnergyMeterDiscoveryService extends AbstractDiscoveryService implements TelegramListener {
 
     private final Logger logger = LoggerFactory.getLogger(SMAEnergyMeterDiscoveryService.class);
 
+    private static final int DISCOVERY_TIMEOUT = 15;
+    private static final long RESULT_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private boolean backgroundDiscovery;
+
+    // the meters send a telegram every second, the results are only updated once a minute
+    private final Map<String, Long> lastResults = new ConcurrentHashMap<>();
+
     public SMAEnergyMeterDiscoveryService() {
-        super(SUPPORTED_THING_TYPES_UIDS, 15, true);
+        super(SUPPORTED_THING_TYPES_UIDS, DISCOVERY_TIMEOUT, true);
     }
 
     @Override
@@ -46,41 +58,61 @@ public class SMAEnergyMeterDiscoveryService extends AbstractDiscoveryService {
     }
 
     @Override
-    protected void startBackgroundDiscovery() {
+    protected synchronized void startBackgroundDiscovery() {
         logger.debug("Start SMAEnergyMeter background discovery");
-        scheduler.schedule(new Runnable() {
-            @Override
-            public void run() {
-                discover();
-            }
-        }, 0, TimeUnit.SECONDS);
+        backgroundDiscovery = true;
+        startListening();
+    }
+
+    @Override
+    protected synchronized void stopBackgroundDiscovery() {
+        logger.debug("Stop SMAEnergyMeter background discovery");
+        backgroundDiscovery = false;
+        MulticastReceiver.removeListener(this);
     }
 
     @Override
     public void startScan() {
         logger.debug("Start SMAEnergyMeter scan");
-        discover();
+        lastResults.clear();
+        startListening();
     }
 
-    private synchronized void discover() {
-        logger.debug("Try to discover a SMA Energy Meter device");
+    @Override
+    public synchronized void stopScan() {
+        super.stopScan();
+        if (!backgroundDiscovery) {
+            MulticastReceiver.removeListener(this);
+        }
+    }
 
-        EnergyMeter energyMeter = new EnergyMeter(EnergyMeter.DEFAULT_MCAST_GRP, EnergyMeter.DEFAULT_MCAST_PORT);
+    private void startListening() {
+        logger.debug("Try to discover a SMA Energy Meter device");
         try {
-            energyMeter.update();
+            MulticastReceiver.addListener(EnergyMeter.DEFAULT_MCAST_GRP, EnergyMeter.DEFAULT_MCAST_PORT, null, this);
         } catch (IOException e) {
-            logger.debug("No SMA Energy Meter found.");
-            logger.debug("Diagnostic: ", e);
+            logger.debug("Can't receive telegrams of SMA Energy Meters: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void telegramReceived(String serialNumber, byte[] bytes, int length) {
+        long now = System.currentTimeMillis();
+        Long lastResult = lastResults.get(serialNumber);
+        if (lastResult != null && now - lastResult < RESULT_INTERVAL_MILLIS) {
             return;
         }
+        lastResults.put(serialNumber, now);
+
+        ThingUID uid = new ThingUID(THING_TYPE_ENERGY_METER, serialNumber);
 
-        logger.debug("Adding a new SMA Engergy Meter with S/N '{}' to inbox", energyMeter.getSerialNumber());
         Map<String, Object> properties = new HashMap<>();
         properties.put(Thing.PROPERTY_VENDOR, "SMA");
-        properties.put(Thing.PROPERTY_SERIAL_NUMBER, energyMeter.getSerialNumber());
-        ThingUID uid = new ThingUID(THING_TYPE_ENERGY_METER, energyMeter.getSerialNumber());
+        properties.put(Thing.PROPERTY_SERIAL_NUMBER, serialNumber);
         DiscoveryResult result = DiscoveryResultBuilder.create(uid)
                 .withProperties(properties)
+                .withRepresentationProperty(Thing.PROPERTY_SERIAL_NUMBER)
+                .withTTL(TimeUnit.MINUTES.toSeconds(5))
                 .withLabel("SMA Energy Meter")
                 .build();
         thingDiscovered(result);
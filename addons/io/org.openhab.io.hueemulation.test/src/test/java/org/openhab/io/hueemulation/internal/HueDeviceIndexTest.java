@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.hueemulation.internal;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.Gson;
+
+/**
+ * Tests cases for the Hue id assignment of {@link HueDeviceIndex}.
+ *
+ * @author agent - Initial contribution
+ */
+public class HueDeviceIndexTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File itemFile;
+    private ItemRegistry itemRegistry;
+    private List<Item> items;
+    private HueDeviceIndex index;
+
+    @Before
+    public void setUp() {
+        itemFile = new File(folder.getRoot(), "hueemulation/items.json");
+        items = new ArrayList<>();
+        itemRegistry = mock(ItemRegistry.class);
+        when(itemRegistry.getItems()).thenReturn(items);
+    }
+
+    @After
+    public void tearDown() {
+        if (index != null) {
+            index.stop();
+        }
+    }
+
+    private static Item item(String name, String... tags) {
+        Item item = mock(Item.class);
+        when(item.getName()).thenReturn(name);
+        when(item.getTags()).thenReturn(new HashSet<>(Arrays.asList(tags)));
+        return item;
+    }
+
+    private void start() {
+        index = new HueDeviceIndex(new Gson(), itemFile);
+        index.start(itemRegistry);
+    }
+
+    @Test
+    public void onlyTaggedItemsAreIndexed() {
+        items.add(item("Light", "Lighting"));
+        items.add(item("Temperature"));
+        items.add(item("Switch", "Switchable"));
+        start();
+
+        assertEquals(Arrays.asList(1, 2), new ArrayList<>(index.getIds()));
+        assertEquals("Light", index.getItemName(1));
+        assertEquals("Switch", index.getItemName(2));
+        assertNull(index.getItemName(3));
+        verify(itemRegistry).addRegistryChangeListener(index);
+    }
+
+    @Test
+    public void idsOfRemovedItemsAreNotReused() {
+        Item first = item("First", "Lighting");
+        Item second = item("Second", "Lighting");
+        items.add(first);
+        items.add(second);
+        start();
+
+        index.removed(second);
+        index.added(item("Third", "Lighting"));
+        assertEquals(Arrays.asList(1, 3), new ArrayList<>(index.getIds()));
+
+        index.updated(first, item("First"));
+        assertEquals(Collections.singletonList(3), new ArrayList<>(index.getIds()));
+    }
+
+    @Test
+    public void persistedIdsAreKept() throws IOException {
+        itemFile.getParentFile().mkdirs();
+        try (FileWriter writer = new FileWriter(itemFile)) {
+            writer.write("{\"4\":\"Light\",\"7\":\"Removed\"}");
+        }
+        items.add(item("Switch", "Switchable"));
+        items.add(item("Light", "Lighting"));
+        start();
+
+        assertEquals("Light", index.getItemName(4));
+        assertEquals("Switch", index.getItemName(8));
+        assertEquals(Arrays.asList(4, 8), new ArrayList<>(index.getIds()));
+    }
+
+    @Test
+    public void stopWritesPendingIds() throws IOException {
+        items.add(item("Light", "Lighting"));
+        start();
+        index.stop();
+        index = null;
+
+        assertTrue(itemFile.exists());
+        HueDeviceIndex reloaded = new HueDeviceIndex(new Gson(), itemFile);
+        reloaded.added(item("Switch", "Switchable"));
+        assertEquals("Switch", reloaded.getItemName(2));
+        reloaded.stop();
+    }
+}
@@ -0,0 +1,327 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.hueemulation.internal;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.ArrayUtils;
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.types.State;
+import org.openhab.io.hueemulation.internal.api.HueDevice;
+import org.openhab.io.hueemulation.internal.api.HueState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Keeps the items tagged for voice control as Hue devices. The index is updated by item registry events, so requests
+ * only read from it and never scan the item registry.
+ *
+ * The JSON of a device is kept until the state of its item changes. Changes of the Hue id assignments are written to
+ * disk with a delay, so that a burst of registry events results in a single write.
+ *
+ * @author agent - Initial contribution
+ */
+public class HueDeviceIndex implements ItemRegistryChangeListener {
+    private final Logger logger = LoggerFactory.getLogger(HueDeviceIndex.class);
+    private static final String[] SUPPORTED_TAGS = new String[] { "Switchable", "Lighting" };
+    private static final int SAVE_DELAY_SECONDS = 5;
+    private static final String THREADPOOL_NAME = "hueEmulation";
+
+    private final Gson gson;
+    private final File itemFile;
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool(THREADPOOL_NAME);
+    private ScheduledFuture<?> saveJob;
+    private boolean stopped;
+    private ItemRegistry itemRegistry;
+
+    // maps an item name to its Hue numeric id, only modified while holding the lock of this index
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    // the tagged items of the registry by their Hue id, ordered by that id
+    private final ConcurrentSkipListMap<Integer, HueDeviceEntry> devices = new ConcurrentSkipListMap<>();
+    // hue devices are assigned a numeric number starting with 1, if a device is removed that number is not used again
+    private int nextId = 1;
+
+    public HueDeviceIndex(Gson gson, File itemFile) {
+        this.gson = gson;
+        this.itemFile = itemFile;
+        load();
+    }
+
+    /**
+     * Starts listening to the item registry and adds all tagged items.
+     */
+    public synchronized void start(ItemRegistry itemRegistry) {
+        this.itemRegistry = itemRegistry;
+        stopped = false;
+        itemRegistry.addRegistryChangeListener(this);
+        rebuild(itemRegistry.getItems());
+    }
+
+    /**
+     * Stops listening to the item registry and writes pending id changes to disk.
+     */
+    public synchronized void stop() {
+        if (itemRegistry != null) {
+            itemRegistry.removeRegistryChangeListener(this);
+            itemRegistry = null;
+        }
+        if (saveJob != null) {
+            saveJob.cancel(false);
+            saveJob = null;
+            save();
+        }
+        stopped = true;
+    }
+
+    @Override
+    public synchronized void added(Item item) {
+        if (isTagged(item)) {
+            addDevice(item);
+        }
+    }
+
+    @Override
+    public synchronized void removed(Item item) {
+        Integer id = ids.remove(item.getName());
+        if (id != null) {
+            devices.remove(id);
+            scheduleSave();
+        }
+    }
+
+    @Override
+    public synchronized void updated(Item oldItem, Item item) {
+        if (isTagged(item)) {
+            addDevice(item);
+        } else {
+            removed(oldItem);
+        }
+    }
+
+    @Override
+    public synchronized void allItemsChanged(Collection<String> oldItemNames) {
+        if (itemRegistry != null) {
+            rebuild(itemRegistry.getItems());
+        }
+    }
+
+    /**
+     * Returns the name of the item with the given Hue id or null if there is no such device.
+     */
+    public String getItemName(Integer id) {
+        HueDeviceEntry entry = devices.get(id);
+        return entry == null ? null : entry.item.getName();
+    }
+
+    /**
+     * Returns the Hue ids of all devices in ascending order.
+     */
+    public NavigableSet<Integer> getIds() {
+        return devices.keySet();
+    }
+
+    /**
+     * Returns the JSON of the device with the given Hue id or null if there is no such device.
+     */
+    public String getDeviceJson(Integer id) {
+        HueDeviceEntry entry = devices.get(id);
+        return entry == null ? null : entry.getJson();
+    }
+
+    /**
+     * Returns the JSON object of all devices by their Hue id.
+     */
+    public String getDevicesJson() {
+        StringBuilder json = new StringBuilder(512);
+        json.append('{');
+        for (HueDeviceEntry entry : devices.values()) {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+            json.append('"').append(entry.id).append("\":").append(entry.getJson());
+        }
+        return json.append('}').toString();
+    }
+
+    private void rebuild(Collection<Item> items) {
+        Set<String> taggedItemNames = new HashSet<>();
+        for (Item item : items) {
+            if (isTagged(item)) {
+                taggedItemNames.add(item.getName());
+                addDevice(item);
+            }
+        }
+
+        // clean up removed entries
+        boolean modified = false;
+        for (Iterator<Map.Entry<String, Integer>> it = ids.entrySet().iterator(); it.hasNext();) {
+            Map.Entry<String, Integer> entry = it.next();
+            if (!taggedItemNames.contains(entry.getKey())) {
+                devices.remove(entry.getValue());
+                it.remove();
+                modified = true;
+            }
+        }
+        if (modified) {
+            scheduleSave();
+        }
+    }
+
+    private void addDevice(Item item) {
+        Integer id = ids.get(item.getName());
+        if (id == null) {
+            id = nextId++;
+            ids.put(item.getName(), id);
+            scheduleSave();
+        }
+        devices.put(id, new HueDeviceEntry(id, item));
+    }
+
+    private boolean isTagged(Item item) {
+        for (String tag : item.getTags()) {
+            if (ArrayUtils.contains(SUPPORTED_TAGS, tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void load() {
+        if (itemFile.exists()) {
+            JsonReader reader = null;
+            try {
+                reader = new JsonReader(new FileReader(itemFile));
+                Map<Integer, String> tmpMap = gson.fromJson(reader, new TypeToken<Map<Integer, String>>() {
+                }.getType());
+                if (tmpMap != null) {
+                    for (Map.Entry<Integer, String> entry : tmpMap.entrySet()) {
+                        ids.put(entry.getValue(), entry.getKey());
+                        nextId = Math.max(nextId, entry.getKey() + 1);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.error("Could not load item cache", e);
+            } finally {
+                IOUtils.closeQuietly(reader);
+            }
+        }
+    }
+
+    private void scheduleSave() {
+        if (saveJob == null && !stopped) {
+            saveJob = scheduler.schedule(() -> {
+                synchronized (HueDeviceIndex.this) {
+                    saveJob = null;
+                    save();
+                }
+            }, SAVE_DELAY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private void save() {
+        TreeMap<Integer, String> deviceMap = new TreeMap<>();
+        for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+            deviceMap.put(entry.getValue(), entry.getKey());
+        }
+        JsonWriter writer = null;
+        try {
+            itemFile.getParentFile().mkdirs();
+            writer = new JsonWriter(new FileWriter(itemFile));
+            gson.toJson(deviceMap, new TypeToken<Map<Integer, String>>() {
+            }.getType(), writer);
+        } catch (IOException e) {
+            logger.error("Could not persist item cache", e);
+        } finally {
+            IOUtils.closeQuietly(writer);
+        }
+    }
+
+    /**
+     * Converts an item state to a HueDevice
+     */
+    private HueDevice stateToDevice(Item item, State itemState, Integer key) {
+        HueState hueState;
+        if (itemState instanceof HSBType) {
+            HSBType color = (HSBType) itemState;
+            hueState = new HueState(color);
+        } else if (itemState instanceof DecimalType) {
+            short bri = (short) ((((DecimalType) itemState).intValue() * 255) / 100);
+            hueState = new HueState(bri);
+        } else if (itemState instanceof OnOffType) {
+            short bri = (short) (((OnOffType) itemState) == OnOffType.ON ? 255 : 0);
+            hueState = new HueState(bri);
+        } else {
+            hueState = new HueState((short) 0);
+        }
+
+        return new HueDevice(hueState, item.getLabel(), key);
+    }
+
+    /**
+     * A tagged item and the JSON of its last seen state. Items get a new state object on every update, so comparing
+     * the state instance detects a state change without subscribing to item events.
+     */
+    private class HueDeviceEntry {
+        private final Integer id;
+        private final Item item;
+        private volatile CachedJson cachedJson;
+
+        private HueDeviceEntry(Integer id, Item item) {
+            this.id = id;
+            this.item = item;
+        }
+
+        private String getJson() {
+            State state = item.getState();
+            CachedJson cached = cachedJson;
+            if (cached == null || cached.state != state) {
+                cached = new CachedJson(state, gson.toJson(stateToDevice(item, state, id)));
+                cachedJson = cached;
+            }
+            return cached.json;
+        }
+    }
+
+    private static class CachedJson {
+        private final State state;
+        private final String json;
+
+        private CachedJson(State state, String json) {
+            this.state = state;
+            this.json = json;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.imperihome.internal.handler;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.io.imperihome.internal.processor.DeviceRegistry;
+
+import com.google.gson.Gson;
+
+/**
+ * Tests cases for the ETag handling of {@link DevicesListHandler}.
+ *
+ * @author agent - Initial contribution
+ */
+public class DevicesListHandlerTest {
+    private final Gson gson = new Gson();
+    private DeviceRegistry registry;
+    private DevicesListHandler handler;
+
+    private HttpServletRequest request;
+    private HttpServletResponse response;
+    private StringWriter body;
+
+    @Before
+    public void setUp() throws IOException {
+        registry = new DeviceRegistry();
+        handler = new DevicesListHandler(registry, gson);
+        request = mock(HttpServletRequest.class);
+        response = mock(HttpServletResponse.class);
+        body = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(body, true));
+    }
+
+    @Test
+    public void sendsListWithEtag() throws IOException {
+        handler.handle(request, response);
+
+        String etag = registry.getDeviceListSnapshot(gson).getEtag();
+        verify(response).setHeader("ETag", etag);
+        verify(response, never()).setStatus(anyInt());
+        assertEquals("{\"devices\":[]}", body.toString());
+    }
+
+    @Test
+    public void answersNotModifiedForCurrentEtag() throws IOException {
+        String etag = registry.getDeviceListSnapshot(gson).getEtag();
+        when(request.getHeader("If-None-Match")).thenReturn(etag);
+
+        handler.handle(request, response);
+        verify(response).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        verify(response, never()).getWriter();
+    }
+
+    @Test
+    public void sendsListForOutdatedEtag() throws IOException {
+        when(request.getHeader("If-None-Match")).thenReturn("\"outdated\"");
+
+        handler.handle(request, response);
+        verify(response, never()).setStatus(anyInt());
+        assertEquals("{\"devices\":[]}", body.toString());
+    }
+}
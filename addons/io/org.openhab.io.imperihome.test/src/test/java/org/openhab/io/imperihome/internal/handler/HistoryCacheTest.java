@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.imperihome.internal.handler;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.persistence.FilterCriteria;
+import org.eclipse.smarthome.core.persistence.HistoricItem;
+import org.eclipse.smarthome.core.persistence.QueryablePersistenceService;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.openhab.io.imperihome.internal.handler.HistoryCache.HistoryWindow;
+
+/**
+ * Tests cases for {@link HistoryCache}.
+ *
+ * @author agent - Initial contribution
+ */
+public class HistoryCacheTest {
+    private static final long HOUR = 3600000;
+    // one value per hour, ending a day ago
+    private static final long BASE = System.currentTimeMillis() - 124 * HOUR;
+    private static final int VALUES = 100;
+
+    private QueryablePersistenceService persistence;
+
+    @Before
+    public void setUp() {
+        persistence = mock(QueryablePersistenceService.class);
+        when(persistence.getId()).thenReturn("test");
+        when(persistence.query(any(FilterCriteria.class))).thenAnswer(invocation -> {
+            FilterCriteria criteria = (FilterCriteria) invocation.getArguments()[0];
+            List<HistoricItem> result = new ArrayList<>();
+            for (int i = 0; i < VALUES; i++) {
+                long timestamp = time(i);
+                if (timestamp >= criteria.getBeginDate().getTime() && timestamp <= criteria.getEndDate().getTime()) {
+                    HistoricItem historicItem = mock(HistoricItem.class);
+                    when(historicItem.getTimestamp()).thenReturn(new Date(timestamp));
+                    when(historicItem.getState()).thenReturn(new DecimalType(i));
+                    result.add(historicItem);
+                }
+            }
+            return result;
+        });
+    }
+
+    private static long time(int index) {
+        return BASE + index * HOUR;
+    }
+
+    private List<FilterCriteria> queries() {
+        ArgumentCaptor<FilterCriteria> criteria = ArgumentCaptor.forClass(FilterCriteria.class);
+        verify(persistence, atLeast(0)).query(criteria.capture());
+        return criteria.getAllValues();
+    }
+
+    @Test
+    public void cachedWindowIsExtendedWithNewerValuesOnly() {
+        HistoryCache cache = new HistoryCache();
+        HistoryWindow window = cache.get(persistence, "Temperature", time(0), time(49));
+        assertEquals(50, window.size());
+
+        window = cache.get(persistence, "Temperature", time(0), time(99));
+        assertEquals(100, window.size());
+        assertEquals(99, window.getValue(99), 0);
+        // only the refresh margin before the end of the cached window is queried again
+        List<FilterCriteria> queries = queries();
+        assertEquals(2, queries.size());
+        assertEquals(time(49) - 60000, queries.get(1).getBeginDate().getTime());
+
+        // a request within the cached window does not query again
+        window = cache.get(persistence, "Temperature", time(10), time(20));
+        assertEquals(2, queries().size());
+        assertEquals(10, window.indexOf(time(10)));
+    }
+
+    @Test
+    public void extendedWindowDropsValuesBeforeStart() {
+        HistoryCache cache = new HistoryCache();
+        cache.get(persistence, "Temperature", time(0), time(49));
+
+        HistoryWindow window = cache.get(persistence, "Temperature", time(40), time(99));
+        assertEquals(60, window.size());
+        assertEquals(time(40), window.getTimestamp(0));
+
+        // the window now starts at the previous start, so older values are queried again
+        window = cache.get(persistence, "Temperature", time(30), time(99));
+        assertEquals(3, queries().size());
+        assertEquals(time(30), queries().get(2).getBeginDate().getTime());
+        assertEquals(70, window.size());
+    }
+
+    @Test
+    public void largeWindowIsTrimmedFromTheHead() {
+        HistoryCache cache = new HistoryCache(10, 30);
+        HistoryWindow window = cache.get(persistence, "Temperature", time(0), time(49));
+        // the caller gets all requested values
+        assertEquals(50, window.size());
+
+        // only the newest values are cached, so a request for the older values queries again
+        cache.get(persistence, "Temperature", time(0), time(49));
+        assertEquals(2, queries().size());
+        assertEquals(time(0), queries().get(1).getBeginDate().getTime());
+
+        cache.get(persistence, "Temperature", time(20), time(49));
+        assertEquals(2, queries().size());
+    }
+
+    @Test
+    public void leastRecentlyUsedWindowsAreEvicted() {
+        HistoryCache cache = new HistoryCache(2, 100);
+        cache.get(persistence, "First", time(0), time(9));
+        cache.get(persistence, "Second", time(0), time(9));
+        cache.get(persistence, "First", time(0), time(9));
+        assertEquals(2, queries().size());
+
+        cache.get(persistence, "Third", time(0), time(9));
+        cache.get(persistence, "First", time(0), time(9));
+        assertEquals(3, queries().size());
+        cache.get(persistence, "Second", time(0), time(9));
+        assertEquals(4, queries().size());
+    }
+
+    @Test
+    public void windowsAreEvictedWhenTooManyValuesAreCached() {
+        HistoryCache cache = new HistoryCache(10, 60);
+        cache.get(persistence, "First", time(0), time(29));
+        cache.get(persistence, "Second", time(0), time(29));
+        cache.get(persistence, "Third", time(0), time(29));
+        assertEquals(3, queries().size());
+
+        cache.get(persistence, "First", time(0), time(29));
+        assertEquals(4, queries().size());
+        cache.get(persistence, "Third", time(0), time(29));
+        assertEquals(4, queries().size());
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.imperihome.internal.processor;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
+import org.openhab.io.imperihome.internal.model.device.SwitchDevice;
+import org.openhab.io.imperihome.internal.model.param.DeviceParam;
+import org.openhab.io.imperihome.internal.model.param.ParamType;
+import org.openhab.io.imperihome.internal.processor.DeviceRegistry.DeviceListSnapshot;
+
+import com.google.gson.Gson;
+
+/**
+ * Tests cases for the device list snapshot of {@link DeviceRegistry}.
+ *
+ * @author agent - Initial contribution
+ */
+public class DeviceRegistryTest {
+    private final Gson gson = new Gson();
+    private DeviceRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new DeviceRegistry();
+    }
+
+    private static AbstractDevice device(String id) {
+        Item item = mock(Item.class);
+        when(item.getName()).thenReturn(id);
+        AbstractDevice device = new SwitchDevice(item);
+        device.setId(id);
+        device.setName(id);
+        device.setRoom("room");
+        return device;
+    }
+
+    @Test
+    public void snapshotIsReusedWhileNothingChanges() {
+        registry.add(device("light"));
+
+        DeviceListSnapshot snapshot = registry.getDeviceListSnapshot(gson);
+        assertTrue(snapshot.getJson().startsWith("{\"devices\":[{"));
+        assertTrue(snapshot.getJson().contains("\"id\":\"light\""));
+        assertTrue(snapshot.getEtag().matches("\"[0-9a-f]+\""));
+        assertSame(snapshot, registry.getDeviceListSnapshot(gson));
+    }
+
+    @Test
+    public void changedParamCreatesNewSnapshot() {
+        AbstractDevice device = device("light");
+        registry.add(device);
+        device.addParam(new DeviceParam(ParamType.STATUS, "0"));
+        DeviceListSnapshot snapshot = registry.getDeviceListSnapshot(gson);
+
+        // setting the same value again changes nothing
+        device.addParam(new DeviceParam(ParamType.STATUS, "0"));
+        assertSame(snapshot, registry.getDeviceListSnapshot(gson));
+
+        device.addParam(new DeviceParam(ParamType.STATUS, "1"));
+        DeviceListSnapshot changed = registry.getDeviceListSnapshot(gson);
+        assertNotSame(snapshot, changed);
+        assertNotEquals(snapshot.getEtag(), changed.getEtag());
+        assertTrue(changed.getJson().contains("\"1\""));
+    }
+
+    @Test
+    public void addedAndRemovedDevicesCreateNewSnapshots() {
+        registry.add(device("light"));
+        DeviceListSnapshot first = registry.getDeviceListSnapshot(gson);
+
+        registry.add(device("switch"));
+        DeviceListSnapshot second = registry.getDeviceListSnapshot(gson);
+        assertNotEquals(first.getEtag(), second.getEtag());
+        assertTrue(second.getJson().contains("\"id\":\"switch\""));
+
+        registry.remove("switch");
+        DeviceListSnapshot third = registry.getDeviceListSnapshot(gson);
+        assertEquals(first.getJson(), third.getJson());
+        assertEquals(first.getEtag(), third.getEtag());
+
+        registry.clear();
+        assertEquals("{\"devices\":[]}", registry.getDeviceListSnapshot(gson).getJson());
+    }
+
+    @Test
+    public void changesOfRemovedDevicesAreIgnored() {
+        AbstractDevice device = device("light");
+        registry.add(device);
+        registry.remove("light");
+        DeviceListSnapshot snapshot = registry.getDeviceListSnapshot(gson);
+
+        registry.deviceChanged(device);
+        assertSame(snapshot, registry.getDeviceListSnapshot(gson));
+    }
+
+    @Test
+    public void linksAreResolvedOnceAfterFilling() {
+        AbstractDevice light = spy(device("light"));
+        AbstractDevice other = spy(device("switch"));
+        registry.beginFill();
+        registry.add(light);
+        registry.add(other);
+        verify(light, never()).updateParams();
+        verify(other, never()).updateParams();
+
+        registry.endFill();
+        verify(light, times(1)).updateParams();
+        verify(other, times(1)).updateParams();
+
+        // Devices added later resolve their links at once
+        AbstractDevice late = spy(device("late"));
+        registry.add(late);
+        verify(late, times(1)).updateParams();
+    }
+}
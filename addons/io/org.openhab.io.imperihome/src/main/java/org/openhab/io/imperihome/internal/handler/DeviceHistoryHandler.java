@@ -8,32 +8,28 @@
  */
 package org.openhab.io.imperihome.internal.handler;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
-import java.util.Date;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.regex.Matcher;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
-import org.eclipse.smarthome.core.library.types.DecimalType;
-import org.eclipse.smarthome.core.persistence.FilterCriteria;
-import org.eclipse.smarthome.core.persistence.HistoricItem;
 import org.eclipse.smarthome.core.persistence.PersistenceService;
 import org.eclipse.smarthome.core.persistence.PersistenceServiceRegistry;
 import org.eclipse.smarthome.core.persistence.QueryablePersistenceService;
-import org.eclipse.smarthome.core.types.State;
-import org.openhab.io.imperihome.internal.model.HistoryItem;
-import org.openhab.io.imperihome.internal.model.HistoryList;
+import org.openhab.io.imperihome.internal.handler.HistoryCache.HistoryWindow;
 import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
 import org.openhab.io.imperihome.internal.processor.DeviceRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.stream.JsonWriter;
+
 /**
- * Device history request handler.
+ * Device history request handler. Long periods are reduced to at most {@link #MAX_POINTS} values by averaging the
+ * values in equal time buckets. The response is written while the values are read from the {@link HistoryCache}.
  *
  * @author Pepijn de Geus - Initial contribution
  */
@@ -41,17 +37,23 @@ public class DeviceHistoryHandler {
 
     private static final String CHARSET = "UTF-8";
 
+    /**
+     * Maximum number of values in a history response.
+     */
+    private static final int MAX_POINTS = 500;
+
     private final Logger logger = LoggerFactory.getLogger(DeviceHistoryHandler.class);
 
     private final DeviceRegistry deviceRegistry;
     private final PersistenceServiceRegistry persistenceServiceRegistry;
+    private final HistoryCache historyCache = new HistoryCache();
 
     public DeviceHistoryHandler(DeviceRegistry deviceRegistry, PersistenceServiceRegistry persistenceServiceRegistry) {
         this.deviceRegistry = deviceRegistry;
         this.persistenceServiceRegistry = persistenceServiceRegistry;
     }
 
-    public HistoryList handle(HttpServletRequest req, Matcher urlMatcher) {
+    public void handle(HttpServletRequest req, HttpServletResponse resp, Matcher urlMatcher) throws IOException {
         String deviceId, field;
         long start, end;
         try {
@@ -68,52 +70,65 @@ public class DeviceHistoryHandler {
         AbstractDevice device = deviceRegistry.getDevice(deviceId);
         if (device == null) {
             logger.warn("Received history request for unknown device: {}", urlMatcher.group(0));
-            return null;
+            resp.getWriter().write("null");
+            return;
         }
 
         PersistenceService persistence = persistenceServiceRegistry.getDefault();
         if (persistence == null) {
             logger.warn("Could not retrieve default persistence service; can't serve history request");
-            return null;
+            resp.getWriter().write("null");
+            return;
         }
         if (!(persistence instanceof QueryablePersistenceService)) {
             logger.warn("Default persistence service is not queryable; can't serve history request");
-            return null;
+            resp.getWriter().write("null");
+            return;
         }
 
-        return serveHistory(device, (QueryablePersistenceService) persistence, start, end);
+        serveHistory(device, (QueryablePersistenceService) persistence, start, end, resp);
     }
 
-    private HistoryList serveHistory(AbstractDevice device, QueryablePersistenceService persistence, long start,
-            long end) {
-        logger.info("Querying persistence for history of Item {}, from {} to {}", device.getItemName(), start, end);
-
-        FilterCriteria criteria = new FilterCriteria().setItemName(device.getItemName()).setBeginDate(new Date(start))
-                .setEndDate(new Date(end));
-
-        List<HistoryItem> resultItems = new LinkedList<>();
-        Iterable<HistoricItem> historicItems = persistence.query(criteria);
-
-        Iterator<HistoricItem> iterator = historicItems.iterator();
-        if (!iterator.hasNext()) {
+    private void serveHistory(AbstractDevice device, QueryablePersistenceService persistence, long start, long end,
+            HttpServletResponse resp) throws IOException {
+        HistoryWindow window = historyCache.get(persistence, device.getItemName(), start, end);
+        int first = window.indexOf(start);
+        int last = window.indexOf(end + 1);
+        if (first == last) {
             logger.info("Persistence returned no results for history query");
+        }
+
+        JsonWriter writer = new JsonWriter(resp.getWriter());
+        writer.beginObject().name("values").beginArray();
+        if (last - first <= MAX_POINTS) {
+            for (int i = first; i < last; i++) {
+                writeValue(writer, window.getTimestamp(i), window.getValue(i));
+            }
         } else {
-            while (iterator.hasNext()) {
-                HistoricItem historicItem = iterator.next();
-                State state = historicItem.getState();
-                if (state instanceof DecimalType) {
-                    Number value = ((DecimalType) state).toBigDecimal();
-                    resultItems.add(new HistoryItem(historicItem.getTimestamp(), value));
+            // Average the values in each bucket, at the average time of these values
+            double bucketSize = (double) (end - start + 1) / MAX_POINTS;
+            int i = first;
+            while (i < last) {
+                long bucket = (long) ((window.getTimestamp(i) - start) / bucketSize);
+                double timeSum = 0;
+                double valueSum = 0;
+                int count = 0;
+                for (; i < last && (long) ((window.getTimestamp(i) - start) / bucketSize) == bucket; i++) {
+                    timeSum += window.getTimestamp(i);
+                    valueSum += window.getValue(i);
+                    count++;
                 }
-            }
-
-            if (resultItems.isEmpty()) {
-                logger.warn(
-                        "Persistence returned results for history query, but could not be interpreted as DecimalTypes");
+                writeValue(writer, Math.round(timeSum / count), valueSum / count);
             }
         }
+        writer.endArray().endObject();
+        writer.flush();
+    }
 
-        return new HistoryList(resultItems);
+    private void writeValue(JsonWriter writer, long date, double value) throws IOException {
+        if (!Double.isNaN(value) && !Double.isInfinite(value)) {
+            writer.beginObject().name("date").value(date).name("value").value(value).endObject();
+        }
     }
 
 }
@@ -8,18 +8,21 @@
  */
 package org.openhab.io.imperihome.internal.handler;
 
-import java.util.Collection;
+import java.io.IOException;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
-import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
-import org.openhab.io.imperihome.internal.model.device.DeviceList;
 import org.openhab.io.imperihome.internal.processor.DeviceRegistry;
+import org.openhab.io.imperihome.internal.processor.DeviceRegistry.DeviceListSnapshot;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.Gson;
+
 /**
- * Device list request handler.
+ * Device list request handler. Serves the serialized device list of the {@link DeviceRegistry} and answers with
+ * 304 Not Modified if the client already has the current list.
  *
  * @author Pepijn de Geus - Initial contribution
  */
@@ -28,23 +31,25 @@ public class DevicesListHandler {
     private final Logger logger = LoggerFactory.getLogger(DevicesListHandler.class);
 
     private final DeviceRegistry deviceRegistry;
+    private final Gson gson;
 
-    public DevicesListHandler(DeviceRegistry deviceRegistry) {
+    public DevicesListHandler(DeviceRegistry deviceRegistry, Gson gson) {
         this.deviceRegistry = deviceRegistry;
+        this.gson = gson;
     }
 
-    public DeviceList handle(HttpServletRequest req) {
-        DeviceList response = new DeviceList();
+    public void handle(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        DeviceListSnapshot snapshot = deviceRegistry.getDeviceListSnapshot(gson);
+        resp.setHeader("ETag", snapshot.getEtag());
 
-        Collection<AbstractDevice> devices = deviceRegistry.getDevices().values();
-        for (AbstractDevice device : devices) {
-            device.updateParams();
+        if (snapshot.getEtag().equals(req.getHeader("If-None-Match"))) {
+            logger.debug("Device list not modified");
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
         }
 
-        response.setDevices(devices);
-
-        logger.debug("Device list response: {}", response);
-        return response;
+        logger.debug("Device list response: {}", snapshot.getJson());
+        resp.getWriter().write(snapshot.getJson());
     }
 
 }
@@ -0,0 +1,233 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.imperihome.internal.handler;
+
+import java.util.Arrays;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.persistence.FilterCriteria;
+import org.eclipse.smarthome.core.persistence.FilterCriteria.Ordering;
+import org.eclipse.smarthome.core.persistence.HistoricItem;
+import org.eclipse.smarthome.core.persistence.QueryablePersistenceService;
+import org.eclipse.smarthome.core.types.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Least recently used cache of the persisted numeric values of Items. A cached window is extended by querying only the
+ * values persisted since the last query, so repeated history requests for the same graph don't read the full range
+ * from the persistence service again. Values before the requested start are dropped when a window is extended, and
+ * the oldest values of a window are dropped if it alone exceeds the maximum number of cached values.
+ *
+ * @author agent - Initial contribution
+ */
+public class HistoryCache {
+
+    /**
+     * Maximum number of Items with a cached window.
+     */
+    private static final int MAX_ITEMS = 50;
+
+    /**
+     * Maximum number of values in all cached windows.
+     */
+    private static final int MAX_VALUES = 1000000;
+
+    /**
+     * Values persisted less than this number of milliseconds before the end of a window are queried again when the
+     * window is extended, in case the persistence service stored them late.
+     */
+    private static final long REFRESH_MARGIN = 60000;
+
+    private final Logger logger = LoggerFactory.getLogger(HistoryCache.class);
+
+    private final Map<String, HistoryWindow> windows = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxItems;
+    private final int maxValues;
+    private int cachedValues;
+
+    public HistoryCache() {
+        this(MAX_ITEMS, MAX_VALUES);
+    }
+
+    HistoryCache(int maxItems, int maxValues) {
+        this.maxItems = maxItems;
+        this.maxValues = maxValues;
+    }
+
+    /**
+     * Returns the persisted values of the given Item between start and end.
+     *
+     * @param persistence Persistence service to query.
+     * @param itemName Name of the Item.
+     * @param start Start time in milliseconds.
+     * @param end End time in milliseconds.
+     * @return Values ordered by their timestamp; the window may contain values outside of start and end.
+     */
+    public HistoryWindow get(QueryablePersistenceService persistence, String itemName, long start, long end) {
+        String key = persistence.getId() + ':' + itemName;
+        // Values in the future may still be persisted, so they are never cached
+        long until = Math.min(end, System.currentTimeMillis());
+
+        HistoryWindow window;
+        synchronized (this) {
+            window = windows.get(key);
+        }
+
+        if (window != null && window.from <= start) {
+            if (window.to < until) {
+                long begin = Math.max(start, window.to - REFRESH_MARGIN);
+                logger.debug("Extending cached history of Item {} from {} to {}", itemName, begin, until);
+                window = window.extend(query(persistence, itemName, begin, until), start, begin, until);
+            }
+        } else {
+            logger.debug("Querying persistence for history of Item {}, from {} to {}", itemName, start, until);
+            window = query(persistence, itemName, start, until);
+        }
+
+        // The requested values are returned in full, only the newest values of a large window are cached
+        HistoryWindow cached = window.size > maxValues ? window.trim(maxValues) : window;
+        synchronized (this) {
+            HistoryWindow previous = windows.put(key, cached);
+            if (previous != null) {
+                cachedValues -= previous.size;
+            }
+            cachedValues += cached.size;
+
+            // The window just added is the most recently used one and not larger than the maximum on its own
+            Iterator<HistoryWindow> eldest = windows.values().iterator();
+            while (windows.size() > 1 && (windows.size() > maxItems || cachedValues > maxValues)) {
+                cachedValues -= eldest.next().size;
+                eldest.remove();
+            }
+        }
+        return window;
+    }
+
+    private HistoryWindow query(QueryablePersistenceService persistence, String itemName, long from, long to) {
+        FilterCriteria criteria = new FilterCriteria().setItemName(itemName).setBeginDate(new Date(from))
+                .setEndDate(new Date(to)).setOrdering(Ordering.ASCENDING);
+
+        HistoryWindow window = new HistoryWindow(from, to);
+        boolean found = false;
+        for (HistoricItem historicItem : persistence.query(criteria)) {
+            found = true;
+            State state = historicItem.getState();
+            if (state instanceof DecimalType) {
+                window.add(historicItem.getTimestamp().getTime(), ((DecimalType) state).doubleValue());
+            }
+        }
+
+        if (found && window.size == 0) {
+            logger.warn("Persistence returned results for history query, but could not be interpreted as DecimalTypes");
+        }
+        return window;
+    }
+
+    /**
+     * Numeric values of an Item ordered by timestamp, covering the time from {@code from} to {@code to}.
+     * A window is not modified after it has been cached; extending it creates a new window.
+     */
+    public static class HistoryWindow {
+
+        private final long from;
+        private final long to;
+        private long[] timestamps;
+        private double[] values;
+        private int size;
+
+        private HistoryWindow(long from, long to) {
+            this(from, to, new long[64], new double[64], 0);
+        }
+
+        private HistoryWindow(long from, long to, long[] timestamps, double[] values, int size) {
+            this.from = from;
+            this.to = to;
+            this.timestamps = timestamps;
+            this.values = values;
+            this.size = size;
+        }
+
+        private void add(long timestamp, double value) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            // Keep the values ordered, even if the persistence service ignores the requested ordering
+            int index = size;
+            while (index > 0 && timestamps[index - 1] > timestamp) {
+                index--;
+            }
+            System.arraycopy(timestamps, index, timestamps, index + 1, size - index);
+            System.arraycopy(values, index, values, index + 1, size - index);
+            timestamps[index] = timestamp;
+            values[index] = value;
+            size++;
+        }
+
+        /**
+         * Creates a window starting at {@code start} with the values of this window between {@code start} and
+         * {@code begin} and the values of the given window.
+         */
+        private HistoryWindow extend(HistoryWindow newer, long start, long begin, long until) {
+            int first = indexOf(start);
+            int keep = Math.max(indexOf(begin) - first, 0);
+            int newSize = keep + newer.size;
+            HistoryWindow window = new HistoryWindow(Math.max(from, start), until, new long[newSize],
+                    new double[newSize], newSize);
+            System.arraycopy(timestamps, first, window.timestamps, 0, keep);
+            System.arraycopy(values, first, window.values, 0, keep);
+            System.arraycopy(newer.timestamps, 0, window.timestamps, keep, newer.size);
+            System.arraycopy(newer.values, 0, window.values, keep, newer.size);
+            return window;
+        }
+
+        /**
+         * Creates a window with the newest {@code maxValues} values of this window.
+         */
+        private HistoryWindow trim(int maxValues) {
+            int first = size - maxValues;
+            return new HistoryWindow(timestamps[first], to, Arrays.copyOfRange(timestamps, first, size),
+                    Arrays.copyOfRange(values, first, size), maxValues);
+        }
+
+        /**
+         * @return Index of the first value at or after the given time.
+         */
+        public int indexOf(long time) {
+            int index = Arrays.binarySearch(timestamps, 0, size, time);
+            if (index < 0) {
+                return -index - 1;
+            }
+            // Find the first of several values with the same timestamp
+            while (index > 0 && timestamps[index - 1] == time) {
+                index--;
+            }
+            return index;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public long getTimestamp(int index) {
+            return timestamps[index];
+        }
+
+        public double getValue(int index) {
+            return values[index];
+        }
+
+    }
+
+}
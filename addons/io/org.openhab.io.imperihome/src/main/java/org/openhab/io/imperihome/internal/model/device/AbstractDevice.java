@@ -27,6 +27,8 @@ import org.openhab.io.imperihome.internal.processor.TagType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.Gson;
+
 /**
  * Abstract parent of all devices. Sets up and tears down state listeners and contains parameter and link data.
  *
@@ -53,6 +55,21 @@ public abstract class AbstractDevice implements StateChangeListener {
     private transient DeviceRegistry deviceRegistry;
     private transient ActionRegistry actionRegistry;
 
+    private transient volatile String json;
+
+    private final transient StateChangeListener stateListener = new StateChangeListener() {
+        @Override
+        public void stateUpdated(Item item, State newState) {
+            AbstractDevice.this.stateUpdated(item, newState);
+            updateParams();
+        }
+
+        @Override
+        public void stateChanged(Item item, State oldState, State newState) {
+            AbstractDevice.this.stateChanged(item, oldState, newState);
+        }
+    };
+
     public AbstractDevice(DeviceType type, Item item) {
         this.type = type;
         this.item = item;
@@ -60,13 +77,13 @@ public abstract class AbstractDevice implements StateChangeListener {
         links = new HashMap<>();
 
         if (item instanceof GenericItem) {
-            ((GenericItem) item).addStateChangeListener(this);
+            ((GenericItem) item).addStateChangeListener(stateListener);
         }
     }
 
     public void destroy() {
         if (item instanceof GenericItem) {
-            ((GenericItem) item).removeStateChangeListener(this);
+            ((GenericItem) item).removeStateChangeListener(stateListener);
         }
 
         deviceRegistry = null;
@@ -136,7 +153,38 @@ public abstract class AbstractDevice implements StateChangeListener {
 
     public void addParam(DeviceParam param) {
         logger.trace("Setting param for device {}: {}", this, param);
-        params.set(param);
+        boolean changed;
+        synchronized (this) {
+            changed = params.set(param);
+            if (changed) {
+                json = null;
+            }
+        }
+
+        DeviceRegistry registry = deviceRegistry;
+        if (changed && registry != null) {
+            registry.deviceChanged(this);
+        }
+    }
+
+    /**
+     * Returns the JSON representation of this device. It is kept until a param of this device changes.
+     *
+     * @param gson Gson instance to serialize the device with.
+     * @return JSON object of this device.
+     */
+    public String toJson(Gson gson) {
+        String result = json;
+        if (result == null) {
+            synchronized (this) {
+                result = json;
+                if (result == null) {
+                    result = gson.toJson(this);
+                    json = result;
+                }
+            }
+        }
+        return result;
     }
 
     public Map<String, String> getLinks() {
@@ -189,7 +237,8 @@ public abstract class AbstractDevice implements StateChangeListener {
     /**
      * Can be implemented by Devices that require their state to be updated manually, instead of relying (only) on Item
      * state change events.
-     * This method is called just before serializing the device to JSON.
+     * This method is called after each state update of the Item, when the device is added to the registry and when the
+     * params of a linked device have changed.
      */
     public void updateParams() {
         logger.trace("updateParams on {}", this);
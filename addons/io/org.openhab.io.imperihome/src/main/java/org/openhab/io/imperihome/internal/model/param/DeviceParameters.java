@@ -21,8 +21,14 @@ public class DeviceParameters extends HashMap<ParamType, DeviceParam> {
 
     private static final long serialVersionUID = -3877582034887195137L;
 
-    public void set(DeviceParam param) {
-        put(param.getKey(), param);
+    /**
+     * Sets the given param, replacing any param of the same type.
+     *
+     * @param param Param to set.
+     * @return true if the param differs from the replaced param.
+     */
+    public boolean set(DeviceParam param) {
+        return !param.equals(put(param.getKey(), param));
     }
 
 }
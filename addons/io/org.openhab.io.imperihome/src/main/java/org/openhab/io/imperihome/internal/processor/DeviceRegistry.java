@@ -15,14 +15,19 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.openhab.io.imperihome.internal.model.Room;
 import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
+import org.openhab.io.imperihome.internal.util.DigestUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.Gson;
+
 /**
- * The device registry stores created devices by ID.
+ * The device registry stores created devices by ID. It also keeps the serialized device list, which is rebuilt from the
+ * JSON of the single devices after a device has been added, removed or changed.
  *
  * @author Pepijn de Geus - Initial contribution
  */
@@ -33,6 +38,10 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
     private final Map<String, AbstractDevice> devices;
     private Set<Room> rooms;
 
+    private final AtomicLong version = new AtomicLong();
+    private volatile DeviceListSnapshot snapshot;
+    private volatile boolean filling;
+
     public DeviceRegistry() {
         devices = new ConcurrentHashMap<>();
     }
@@ -65,9 +74,18 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
             return;
         }
 
+        device.setDeviceRegistry(this);
         devices.put(device.getId(), device);
         updateRooms();
 
+        // Resolve the links of the new device and of the devices linking to it. While the registry is filled, the
+        // linked devices may not have been added yet.
+        if (!filling) {
+            device.updateParams();
+            updateLinkingDevices(device);
+        }
+        version.incrementAndGet();
+
         logger.debug("Device {} added, registry now contains {} total", device.getName(), devices.size());
     }
 
@@ -75,6 +93,7 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
         AbstractDevice removed = devices.remove(deviceId);
         if (removed != null) {
             updateRooms();
+            version.incrementAndGet();
             logger.debug("Device {} removed, registry now contains {} total", removed.getName(), devices.size());
         }
         return removed;
@@ -90,6 +109,7 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
             device.destroy();
         }
         devices.clear();
+        version.incrementAndGet();
 
         if (rooms != null) {
             rooms.clear();
@@ -98,6 +118,74 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
         logger.debug("Device registry cleared");
     }
 
+    /**
+     * Defers the link resolution of added devices until {@link #endFill()}.
+     */
+    public void beginFill() {
+        filling = true;
+    }
+
+    /**
+     * Resolves the links of all devices, after the devices have been added in one go.
+     */
+    public void endFill() {
+        filling = false;
+        for (AbstractDevice device : devices.values()) {
+            device.updateParams();
+        }
+        version.incrementAndGet();
+    }
+
+    /**
+     * Called by a device after one of its params has changed. Updates the devices linking to the changed device and
+     * invalidates the device list.
+     *
+     * @param device The changed device.
+     */
+    public void deviceChanged(AbstractDevice device) {
+        if (devices.get(device.getId()) == device) {
+            if (!filling) {
+                updateLinkingDevices(device);
+            }
+            version.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the serialized device list and its ETag. The list is only serialized again if a device has changed.
+     *
+     * @param gson Gson instance to serialize the devices with.
+     * @return Current device list snapshot.
+     */
+    public DeviceListSnapshot getDeviceListSnapshot(Gson gson) {
+        DeviceListSnapshot current = snapshot;
+        long currentVersion = version.get();
+        if (current == null || current.version != currentVersion) {
+            StringBuilder json = new StringBuilder("{\"devices\":[");
+            boolean first = true;
+            for (AbstractDevice device : devices.values()) {
+                if (!first) {
+                    json.append(',');
+                }
+                json.append(device.toJson(gson));
+                first = false;
+            }
+            json.append("]}");
+            current = new DeviceListSnapshot(currentVersion, json.toString());
+            snapshot = current;
+        }
+        return current;
+    }
+
+    private void updateLinkingDevices(AbstractDevice device) {
+        String itemName = device.getItemName();
+        for (AbstractDevice linkingDevice : devices.values()) {
+            if (linkingDevice != device && linkingDevice.getLinks().containsValue(itemName)) {
+                linkingDevice.updateParams();
+            }
+        }
+    }
+
     private void updateRooms() {
         Set<Room> newRooms = new HashSet<>();
         for (AbstractDevice device : devices.values()) {
@@ -109,4 +197,29 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
         rooms = newRooms;
     }
 
+    /**
+     * Serialized device list with its ETag.
+     */
+    public static class DeviceListSnapshot {
+
+        private final long version;
+        private final String json;
+        private final String etag;
+
+        private DeviceListSnapshot(long version, String json) {
+            this.version = version;
+            this.json = json;
+            this.etag = '"' + DigestUtil.sha1(json) + '"';
+        }
+
+        public String getJson() {
+            return json;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+    }
+
 }
@@ -440,8 +440,14 @@ public class ItemProcessor implements ItemRegistryChangeListener {
                 deviceRegistry.clear();
             }
 
-            for (Item item : itemRegistry.getItems()) {
-                parseItem(item);
+            // Resolve the links once, after all devices have been added
+            deviceRegistry.beginFill();
+            try {
+                for (Item item : itemRegistry.getItems()) {
+                    parseItem(item);
+                }
+            } finally {
+                deviceRegistry.endFill();
             }
         }
     }
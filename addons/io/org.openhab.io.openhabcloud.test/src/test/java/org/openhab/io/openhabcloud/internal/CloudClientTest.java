@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.openhabcloud.internal;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.eclipse.jetty.util.Callback;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link CloudClient}, which do not need a connection to the openHAB Cloud.
+ *
+ * @author agent - Initial contribution
+ */
+public class CloudClientTest {
+    private CloudClient client;
+
+    @Before
+    public void setUp() {
+        client = new CloudClient("uuid", "secret", "https://localhost/", "http://localhost:8080", true,
+                Collections.<String> emptySet());
+        client.setItemUpdateInterval(1000);
+    }
+
+    @Test
+    public void itemUpdatesAreCoalescedPerItem() {
+        client.sendItemUpdate("Light", "ON");
+        client.sendItemUpdate("Light", "OFF");
+        client.sendItemUpdate("Temperature", "21.5");
+        client.sendItemUpdate("Light", "ON");
+
+        assertEquals(2, client.getCoalescedItemUpdates());
+        assertEquals(0, client.getDroppedItemUpdates());
+        // no updates are sent without a connection
+        assertEquals(0, client.getEmittedItemUpdates());
+    }
+
+    @Test
+    public void oldestItemUpdatesAreDroppedWhenTheQueueIsFull() {
+        for (int i = 0; i < 1005; i++) {
+            client.sendItemUpdate("Item" + i, "ON");
+        }
+        assertEquals(5, client.getDroppedItemUpdates());
+
+        // the update of a pending item replaces its state and drops nothing
+        client.sendItemUpdate("Item1004", "OFF");
+        assertEquals(5, client.getDroppedItemUpdates());
+        assertEquals(1, client.getCoalescedItemUpdates());
+
+        // the update of a dropped item needs a new entry
+        client.sendItemUpdate("Item0", "OFF");
+        assertEquals(6, client.getDroppedItemUpdates());
+    }
+
+    @Test
+    public void responsesArePausedUntilTheSocketIsDrained() {
+        Callback first = mock(Callback.class);
+        client.responseContentEmitted(512 * 1024);
+        client.resumeOrPauseResponse(first);
+        verify(first).succeeded();
+
+        Callback second = mock(Callback.class);
+        client.responseContentEmitted(1);
+        client.resumeOrPauseResponse(second);
+        verify(second, never()).succeeded();
+
+        client.onTransportDrain();
+        verify(second).succeeded();
+
+        Callback third = mock(Callback.class);
+        client.resumeOrPauseResponse(third);
+        verify(third).succeeded();
+    }
+
+    @Test
+    public void pausedResponsesFailOnDisconnect() {
+        Callback callback = mock(Callback.class);
+        client.responseContentEmitted(1024 * 1024);
+        client.resumeOrPauseResponse(callback);
+
+        client.releasePausedResponses();
+        verify(callback).failed(any(IOException.class));
+        verify(callback, never()).succeeded();
+
+        Callback next = mock(Callback.class);
+        client.resumeOrPauseResponse(next);
+        verify(next).succeeded();
+    }
+}
@@ -15,19 +15,23 @@ import java.net.URL;
 import java.net.URLEncoder;
 import java.net.MalformedURLException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.client.api.Request.FailureListener;
 import org.eclipse.jetty.client.api.Response;
-import org.eclipse.jetty.client.api.Response.ContentListener;
+import org.eclipse.jetty.client.api.Response.AsyncContentListener;
 import org.eclipse.jetty.client.api.Response.HeadersListener;
 import org.eclipse.jetty.client.api.Result;
 import org.eclipse.jetty.client.util.BytesContentProvider;
@@ -35,7 +39,7 @@ import org.eclipse.jetty.http.HttpField;
 import org.eclipse.jetty.http.HttpFields;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpStatus;
-import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.URIUtil;
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.json.JSONException;
@@ -79,6 +83,31 @@ public class CloudClient {
      */
     private static final int HTTP_CLIENT_TIMEOUT = 30000;
 
+    /*
+     * This constant defines the maximum number of items with a pending update. If more items are
+     * updated while the connection is down, the updates of the items which were updated first are dropped
+     */
+    private static final int MAX_PENDING_ITEM_UPDATES = 1000;
+
+    /*
+     * This constant defines the maximum size of the response content sent to the openHAB Cloud in one message
+     */
+    private static final int RESPONSE_FRAME_SIZE = 64 * 1024;
+
+    /*
+     * This constant defines how long in milliseconds response content is collected before it is sent,
+     * even if the message is not full yet
+     */
+    private static final int RESPONSE_FRAME_DELAY = 20;
+
+    /*
+     * This constant defines how many bytes of response content may be waiting to be written to the socket.
+     * If more content is waiting, the local requests are paused until the socket has written it
+     */
+    private static final int MAX_UNFLUSHED_RESPONSE_BYTES = 512 * 1024;
+
+    private static final String THREADPOOL_OPENHABCLOUD = "openhabcloud";
+
     /*
      * This variable holds base URL for the openHAB Cloud connections
      */
@@ -138,6 +167,29 @@ public class CloudClient {
     private boolean remoteAccessEnabled;
     private Set<String> exposedItems;
 
+    /*
+     * This variable holds the time in milliseconds item updates are collected before they are sent
+     */
+    private int itemUpdateInterval;
+
+    /*
+     * This map holds the latest state of each item which has not been sent yet, in the order of
+     * the first update. It is also used as the lock for the item update job
+     */
+    private final LinkedHashMap<String, String> pendingItemUpdates = new LinkedHashMap<String, String>();
+    private ScheduledFuture<?> itemUpdateJob;
+
+    private final AtomicLong emittedItemUpdates = new AtomicLong();
+    private final AtomicLong coalescedItemUpdates = new AtomicLong();
+    private final AtomicLong droppedItemUpdates = new AtomicLong();
+
+    /*
+     * These variables hold the size of the response content which was emitted since the socket
+     * transport was drained the last time and the callbacks of the paused local requests
+     */
+    private int unflushedResponseBytes;
+    private final List<Callback> pausedResponses = new ArrayList<Callback>();
+
     /**
      * Constructor of CloudClient
      *
@@ -193,6 +245,12 @@ public class CloudClient {
                         headers.put("remoteaccess", Arrays.asList(((Boolean) remoteAccessEnabled).toString()));
                     }
                 });
+                transport.on(Transport.EVENT_DRAIN, new Emitter.Listener() {
+                    @Override
+                    public void call(Object... args) {
+                        onTransportDrain();
+                    }
+                });
             }
         });
         socket.on(Socket.EVENT_CONNECT, new Emitter.Listener() {
@@ -249,6 +307,12 @@ public class CloudClient {
                 logger.error("Could not start Jetty client: {}", e.getMessage());
             }
         }
+        // Send the item updates which were collected while the connection was down
+        synchronized (pendingItemUpdates) {
+            if (!pendingItemUpdates.isEmpty()) {
+                scheduleItemUpdates();
+            }
+        }
     }
 
     /**
@@ -271,6 +335,7 @@ public class CloudClient {
         if (runningRequests != null) {
             runningRequests.clear();
         }
+        releasePausedResponses();
     }
 
     /**
@@ -361,7 +426,8 @@ public class CloudClient {
                 return;
             }
             ResponseListener listener = new ResponseListener(requestId);
-            request.onResponseHeaders(listener).onResponseContent(listener).onRequestFailure(listener).send(listener);
+            request.onResponseHeaders(listener).onResponseContentAsync(listener).onRequestFailure(listener)
+                    .send(listener);
             // If successfully submitted request to http client, add it to the list of currently
             // running requests to be able to cancel it if needed
             runningRequests.put(requestId, request);
@@ -499,25 +565,143 @@ public class CloudClient {
     }
 
     /**
-     * Send item update to openHAB Cloud
+     * Send item update to openHAB Cloud. Updates are collected for the item update interval and
+     * only the latest state of each item is sent. While there is no connection, the updates are
+     * kept until the connection is established again.
      *
      * @param itemName the name of the item
      * @param itemState updated item state
      *
      */
     public void sendItemUpdate(String itemName, String itemState) {
-        if (isConnected()) {
-            logger.debug("Sending update '{}' for item '{}'", itemState, itemName);
+        synchronized (pendingItemUpdates) {
+            if (pendingItemUpdates.containsKey(itemName)) {
+                coalescedItemUpdates.incrementAndGet();
+            } else if (pendingItemUpdates.size() >= MAX_PENDING_ITEM_UPDATES) {
+                Iterator<String> oldest = pendingItemUpdates.keySet().iterator();
+                logger.debug("Too many pending item updates, dropping update of item '{}'", oldest.next());
+                oldest.remove();
+                droppedItemUpdates.incrementAndGet();
+            }
+            pendingItemUpdates.put(itemName, itemState);
+            if (isConnected()) {
+                scheduleItemUpdates();
+            } else {
+                logger.debug("No connection, Item update is queued");
+            }
+        }
+    }
+
+    private void scheduleItemUpdates() {
+        if (itemUpdateJob == null) {
+            itemUpdateJob = ThreadPoolManager.getScheduledPool(THREADPOOL_OPENHABCLOUD).schedule(new Runnable() {
+                @Override
+                public void run() {
+                    sendPendingItemUpdates();
+                }
+            }, itemUpdateInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void sendPendingItemUpdates() {
+        Map<String, String> itemUpdates;
+        synchronized (pendingItemUpdates) {
+            itemUpdateJob = null;
+            if (!isConnected() || pendingItemUpdates.isEmpty()) {
+                return;
+            }
+            itemUpdates = new LinkedHashMap<String, String>(pendingItemUpdates);
+            pendingItemUpdates.clear();
+        }
+        // The updates are emitted in one go, so the socket can write them together
+        for (Map.Entry<String, String> itemUpdate : itemUpdates.entrySet()) {
+            logger.debug("Sending update '{}' for item '{}'", itemUpdate.getValue(), itemUpdate.getKey());
             JSONObject itemUpdateMessage = new JSONObject();
             try {
-                itemUpdateMessage.put("itemName", itemName);
-                itemUpdateMessage.put("itemStatus", itemState);
+                itemUpdateMessage.put("itemName", itemUpdate.getKey());
+                itemUpdateMessage.put("itemStatus", itemUpdate.getValue());
                 socket.emit("itemupdate", itemUpdateMessage);
+                emittedItemUpdates.incrementAndGet();
             } catch (JSONException e) {
                 logger.error("{}", e.getMessage());
             }
-        } else {
-            logger.debug("No connection, Item update is not sent");
+        }
+        logger.debug("Item updates sent: {}, coalesced: {}, dropped: {}", emittedItemUpdates.get(),
+                coalescedItemUpdates.get(), droppedItemUpdates.get());
+    }
+
+    /**
+     * Returns the number of item updates sent to the openHAB Cloud
+     */
+    public long getEmittedItemUpdates() {
+        return emittedItemUpdates.get();
+    }
+
+    /**
+     * Returns the number of item updates which were replaced by a newer state of the same item before they were sent
+     */
+    public long getCoalescedItemUpdates() {
+        return coalescedItemUpdates.get();
+    }
+
+    /**
+     * Returns the number of item updates which were dropped because too many items had a pending update
+     */
+    public long getDroppedItemUpdates() {
+        return droppedItemUpdates.get();
+    }
+
+    /**
+     * Counts response content which is passed to the socket
+     */
+    void responseContentEmitted(int length) {
+        synchronized (pausedResponses) {
+            unflushedResponseBytes += length;
+        }
+    }
+
+    /**
+     * Completes the callback of a local request, or pauses the request if too much content is waiting to be
+     * written to the socket
+     */
+    void resumeOrPauseResponse(Callback callback) {
+        synchronized (pausedResponses) {
+            if (unflushedResponseBytes > MAX_UNFLUSHED_RESPONSE_BYTES) {
+                pausedResponses.add(callback);
+                return;
+            }
+        }
+        callback.succeeded();
+    }
+
+    /**
+     * Callback method for socket.io client which is called when the transport has written all packets
+     */
+    void onTransportDrain() {
+        List<Callback> resumed;
+        synchronized (pausedResponses) {
+            unflushedResponseBytes = 0;
+            if (pausedResponses.isEmpty()) {
+                return;
+            }
+            resumed = new ArrayList<Callback>(pausedResponses);
+            pausedResponses.clear();
+        }
+        logger.trace("Resuming {} paused requests", resumed.size());
+        for (Callback callback : resumed) {
+            callback.succeeded();
+        }
+    }
+
+    void releasePausedResponses() {
+        List<Callback> released;
+        synchronized (pausedResponses) {
+            unflushedResponseBytes = 0;
+            released = new ArrayList<Callback>(pausedResponses);
+            pausedResponses.clear();
+        }
+        for (Callback callback : released) {
+            callback.failed(new IOException("Disconnected from the openHAB Cloud"));
         }
     }
 
@@ -533,6 +717,13 @@ public class CloudClient {
      */
     public void shutdown() {
         logger.info("Shutting down openHAB Cloud service connection");
+        synchronized (pendingItemUpdates) {
+            if (itemUpdateJob != null) {
+                itemUpdateJob.cancel(false);
+                itemUpdateJob = null;
+            }
+            pendingItemUpdates.clear();
+        }
         try {
             jettyClient.stop();
         } catch (Exception e) {
@@ -549,6 +740,10 @@ public class CloudClient {
         this.openHABVersion = openHABVersion;
     }
 
+    public void setItemUpdateInterval(int itemUpdateInterval) {
+        this.itemUpdateInterval = itemUpdateInterval;
+    }
+
     public void setListener(CloudClientListener listener) {
         this.listener = listener;
     }
@@ -557,12 +752,18 @@ public class CloudClient {
      * An internal class which forwards response headers and data back to the openHAB Cloud
      */
     private class ResponseListener
-            implements Response.CompleteListener, HeadersListener, ContentListener, FailureListener {
+            implements Response.CompleteListener, HeadersListener, AsyncContentListener, FailureListener {
 
-        private static final String THREADPOOL_OPENHABCLOUD = "openhabcloud";
         private int mRequestId;
         private boolean mHeadersSent = false;
 
+        /*
+         * The response content which has not been sent yet, collected into messages of up to RESPONSE_FRAME_SIZE
+         */
+        private byte[] mFrame;
+        private int mFrameLength;
+        private ScheduledFuture<?> mFrameJob;
+
         public ResponseListener(int requestId) {
             mRequestId = requestId;
         }
@@ -583,6 +784,8 @@ public class CloudClient {
         public void onComplete(Result result) {
             // Remove this request from list of running requests
             runningRequests.remove(mRequestId);
+            // Send the rest of the content before the response is finished
+            sendFrame();
             if (result.isFailed() && result.getResponse().getStatus() != HttpStatus.OK_200) {
                 logger.warn("Jetty request {} failed: {}", mRequestId, result.getFailure().getMessage());
                 logger.warn("{}", result.getRequestFailure().getMessage());
@@ -624,14 +827,63 @@ public class CloudClient {
         }
 
         @Override
-        public void onContent(Response response, ByteBuffer content) {
+        public void onContent(Response response, ByteBuffer content, Callback callback) {
             logger.debug("Jetty received response content of size {}", String.valueOf(content.remaining()));
+            synchronized (this) {
+                // the content is copied before the callback is completed, Jetty reuses the buffer afterwards
+                while (content.hasRemaining()) {
+                    if (mFrame == null) {
+                        mFrame = new byte[RESPONSE_FRAME_SIZE];
+                    }
+                    int length = Math.min(content.remaining(), RESPONSE_FRAME_SIZE - mFrameLength);
+                    content.get(mFrame, mFrameLength, length);
+                    mFrameLength += length;
+                    if (mFrameLength == RESPONSE_FRAME_SIZE) {
+                        sendFrame();
+                    }
+                }
+                if (mFrameLength > 0 && mFrameJob == null) {
+                    mFrameJob = ThreadPoolManager.getScheduledPool(THREADPOOL_OPENHABCLOUD).schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            synchronized (ResponseListener.this) {
+                                mFrameJob = null;
+                                sendFrame();
+                            }
+                        }
+                    }, RESPONSE_FRAME_DELAY, TimeUnit.MILLISECONDS);
+                }
+            }
+            resumeOrPauseResponse(callback);
+        }
+
+        /**
+         * Sends the collected content to the openHAB Cloud, the byte array is passed to the socket
+         * as binary attachment
+         */
+        private synchronized void sendFrame() {
+            if (mFrameJob != null) {
+                mFrameJob.cancel(false);
+                mFrameJob = null;
+            }
+            int length = mFrameLength;
+            if (length == 0) {
+                return;
+            }
+            byte[] body = length == mFrame.length ? mFrame : Arrays.copyOf(mFrame, length);
+            if (body == mFrame) {
+                // the socket keeps the array until it is written
+                mFrame = null;
+            }
+            mFrameLength = 0;
+            // the content is counted before it is emitted, a drain of the socket may happen during the emit
+            responseContentEmitted(length);
             JSONObject responseJson = new JSONObject();
             try {
                 responseJson.put("id", mRequestId);
-                responseJson.put("body", BufferUtil.toArray(content));
+                responseJson.put("body", body);
                 socket.emit("responseContentBinary", responseJson);
-                logger.debug("Sent content to request {}", mRequestId);
+                logger.debug("Sent content of size {} to request {}", length, mRequestId);
             } catch (JSONException e) {
                 logger.error("{}", e.getMessage());
             }
@@ -60,8 +60,10 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
     private static final String CFG_EXPOSE = "expose";
     private static final String CFG_BASE_URL = "baseURL";
     private static final String CFG_MODE = "mode";
+    private static final String CFG_ITEM_UPDATE_INTERVAL = "itemUpdateInterval";
     private static final String SECRET_FILE_NAME = "openhabcloud" + File.separator + "secret";
     private static final String DEFAULT_URL = "https://myopenhab.org/";
+    private static final int DEFAULT_ITEM_UPDATE_INTERVAL = 1000;
 
     private Logger logger = LoggerFactory.getLogger(CloudService.class);
 
@@ -73,6 +75,7 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
 
     private boolean remoteAccessEnabled = true;
     private Set<String> exposedItems = null;
+    private int itemUpdateInterval = DEFAULT_ITEM_UPDATE_INTERVAL;
     private int localPort;
 
     public CloudService() {
@@ -165,6 +168,19 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
             cloudBaseUrl = DEFAULT_URL;
         }
 
+        itemUpdateInterval = DEFAULT_ITEM_UPDATE_INTERVAL;
+        Object intervalCfg = config.get(CFG_ITEM_UPDATE_INTERVAL);
+        if (intervalCfg instanceof Number) {
+            itemUpdateInterval = ((Number) intervalCfg).intValue();
+        } else if (intervalCfg instanceof String && StringUtils.isNotBlank((String) intervalCfg)) {
+            try {
+                itemUpdateInterval = Integer.parseInt(((String) intervalCfg).trim());
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid item update interval '{}', using {} ms", intervalCfg,
+                        DEFAULT_ITEM_UPDATE_INTERVAL);
+            }
+        }
+
         exposedItems = new HashSet<>();
         Object expCfg = config.get(CFG_EXPOSE);
         if (expCfg instanceof String) {
@@ -194,6 +210,7 @@ public class CloudService implements ActionService, CloudClientListener, EventSu
         cloudClient = new CloudClient(InstanceUUID.get(), getSecret(), cloudBaseUrl, localBaseUrl, remoteAccessEnabled,
                 exposedItems);
         cloudClient.setOpenHABVersion(OpenHAB.getVersion());
+        cloudClient.setItemUpdateInterval(itemUpdateInterval);
         cloudClient.connect();
         cloudClient.setListener(this);
         NotificationAction.cloudService = this;
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.backend;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link ChartSeries}.
+ *
+ * @author agent - Initial contribution
+ */
+public class ChartSeriesTest {
+
+    private static String write(ChartSeries series) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        series.write(output);
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void writesRrdToolFormat() throws Exception {
+        ChartSeries series = new ChartSeries(new long[] { 1000, 2000 },
+                new double[][] { { 1.5, Double.NaN }, { -2, 0 } });
+        assertEquals("[[1000,[\"1.5000000000E00\",\"-2.0000000000E00\"]],"
+                + "[2000,[\"null\",\"0.0000000000E00\"]]]", write(series));
+        assertEquals("[]", write(new ChartSeries(new long[0], new double[][] { {} })));
+    }
+
+    @Test
+    public void mergeCombinesRowsWithSameTimestamp() throws Exception {
+        ChartSeries first = new ChartSeries(new long[] { 1000, 2000 }, new double[][] { { 1, 2 } });
+        ChartSeries second = new ChartSeries(new long[] { 2000, 3000 }, new double[][] { { 3, 4 } });
+
+        ChartSeries merged = ChartSeries.merge(Arrays.asList(first, second));
+        assertEquals(3, merged.getRowCount());
+        assertEquals(2, merged.getColumnCount());
+        assertEquals("[[1000,[\"1.0000000000E00\",\"null\"]],[2000,[\"2.0000000000E00\",\"3.0000000000E00\"]],"
+                + "[3000,[\"null\",\"4.0000000000E00\"]]]", write(merged));
+
+        assertSame(first, ChartSeries.merge(Arrays.asList(first)));
+    }
+
+    @Test
+    public void downsampleKeepsFirstLastAndPeak() throws Exception {
+        long[] timestamps = new long[100];
+        double[] values = new double[100];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = i * 1000L;
+        }
+        values[42] = 10;
+        values[99] = 1;
+        ChartSeries series = new ChartSeries(timestamps, new double[][] { values });
+
+        ChartSeries sampled = series.downsample(10);
+        assertEquals(10, sampled.getRowCount());
+        String json = write(sampled);
+        assertTrue(json.startsWith("[[0,["));
+        assertTrue(json.contains("[42000,[\"1.0000000000E01\"]]"));
+        assertTrue(json.endsWith("[99000,[\"1.0000000000E00\"]]]"));
+    }
+
+    @Test
+    public void downsampleReturnsSmallOrMultiColumnSeriesUnchanged() {
+        ChartSeries small = new ChartSeries(new long[] { 1, 2, 3 }, new double[][] { { 1, 2, 3 } });
+        assertSame(small, small.downsample(10));
+
+        ChartSeries multiColumn = new ChartSeries(new long[] { 1, 2, 3, 4 },
+                new double[][] { { 1, 2, 3, 4 }, { 1, 2, 3, 4 } });
+        assertSame(multiColumn, multiColumn.downsample(3));
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.backend;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.glassfish.jersey.media.sse.OutboundEvent;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.openhab.ui.cometvisu.internal.backend.beans.StateBean;
+
+/**
+ * Tests cases for {@link ClientSubscription}.
+ *
+ * @author agent - Initial contribution
+ */
+public class ClientSubscriptionTest {
+    private EventOutput eventOutput;
+    private ClientSubscription subscription;
+    private Item item;
+
+    @Before
+    public void setUp() {
+        eventOutput = mock(EventOutput.class);
+        subscription = new ClientSubscription(eventOutput);
+        item = mock(Item.class);
+        when(item.getName()).thenReturn("Light");
+        when(item.getState()).thenReturn(new DecimalType(42));
+        when(item.getStateAs(OnOffType.class)).thenReturn(OnOffType.ON);
+    }
+
+    private static StateBean state(String name, String state) {
+        StateBean stateBean = new StateBean();
+        stateBean.name = name;
+        stateBean.state = state;
+        return stateBean;
+    }
+
+    private String sentData() throws Exception {
+        ArgumentCaptor<OutboundEvent> event = ArgumentCaptor.forClass(OutboundEvent.class);
+        verify(eventOutput).write(event.capture());
+        return (String) event.getValue().getData();
+    }
+
+    @Test
+    public void createsStateBeansOfRequestedItemsOnly() {
+        subscription.addItem("Light", "Light", null);
+        subscription.addItem("Light", "switch:Light", OnOffType.class);
+
+        List<StateBean> states = subscription.createStateBeans(item, false);
+        assertEquals(2, states.size());
+        for (StateBean state : states) {
+            assertEquals("Light".equals(state.name) ? "42" : "ON", state.state);
+        }
+
+        List<StateBean> typedStates = subscription.createStateBeans(item, true);
+        assertEquals(1, typedStates.size());
+        assertEquals("switch:Light", typedStates.get(0).name);
+
+        when(item.getName()).thenReturn("Other");
+        assertTrue(subscription.createStateBeans(item, false).isEmpty());
+    }
+
+    @Test
+    public void queueKeepsLatestStateOfEachItem() throws Exception {
+        assertTrue(subscription.queue(Arrays.asList(state("Light", "1"))));
+        subscription.setFlushJob(mock(ScheduledFuture.class));
+        assertFalse(subscription.queue(Arrays.asList(state("Light", "2"))));
+        verify(eventOutput, never()).write(any(OutboundEvent.class));
+
+        subscription.flush();
+        assertEquals("{\"d\":{\"Light\":\"2\"}}", sentData());
+        assertTrue(subscription.queue(Arrays.asList(state("Light", "3"))));
+    }
+
+    @Test
+    public void flushWithoutPendingStatesSendsNothing() throws Exception {
+        subscription.flush();
+        verify(eventOutput, never()).write(any(OutboundEvent.class));
+    }
+
+    @Test
+    public void closeCancelsPendingFlush() throws Exception {
+        ScheduledFuture<?> flushJob = mock(ScheduledFuture.class);
+        subscription.queue(Arrays.asList(state("Light", "1")));
+        subscription.setFlushJob(flushJob);
+
+        subscription.close();
+        verify(flushJob).cancel(false);
+        verify(eventOutput).close();
+
+        subscription.flush();
+        verify(eventOutput, never()).write(any(OutboundEvent.class));
+    }
+}
@@ -48,6 +48,13 @@ public class Config {
     public static String COMETVISU_WEBAPP_ALIAS = "/cometvisu";
     public static boolean COMETVISU_AUTO_DOWNLOAD = false;
 
+    /*
+     * time in milliseconds to collect state changes for a client before they are sent, only the latest state of an
+     * item is sent (0 sends every state change immediately)
+     */
+    public static final String COMETVISU_COALESCE_INTERVAL_PROPERTY = "coalesceInterval";
+    public static int COMETVISU_COALESCE_INTERVAL = 0;
+
     public static String COMETVISU_WEBAPP_USERFILE_FOLDER = File.separator + "cometvisu";
 
     /*
@@ -14,6 +14,7 @@ import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -21,7 +22,8 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
@@ -49,6 +51,7 @@ import org.rrd4j.ConsolFun;
 import org.rrd4j.core.FetchData;
 import org.rrd4j.core.FetchRequest;
 import org.rrd4j.core.RrdDb;
+import org.rrd4j.core.RrdDbPool;
 import org.rrd4j.core.Util;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -79,6 +82,25 @@ public class ChartResource implements RESTResource {
         // df.setPositivePrefix("+");
     }
 
+    // maximum number of cached series and the maximum time a series is cached
+    private static final int MAX_CACHE_ENTRIES = 200;
+    private static final long MAX_CACHE_MILLIS = 5 * 60 * 1000L;
+
+    /**
+     * a cached series and the time in milliseconds, when the series expires
+     */
+    private static class CachedSeries {
+        private final ChartSeries series;
+        private final long expires;
+
+        CachedSeries(ChartSeries series, long expires) {
+            this.series = series;
+            this.expires = expires;
+        }
+    }
+
+    private final Map<String, CachedSeries> seriesCache = new ConcurrentHashMap<String, CachedSeries>();
+
     protected static Map<String, QueryablePersistenceService> persistenceServices = new HashMap<String, QueryablePersistenceService>();
 
     private ItemRegistry itemRegistry;
@@ -112,22 +134,24 @@ public class ChartResource implements RESTResource {
     @Produces({ MediaType.APPLICATION_JSON })
     public Response getChartSeries(@Context HttpHeaders headers, @QueryParam("rrd") String itemName,
             @QueryParam("ds") String consFunction, @QueryParam("start") String start, @QueryParam("end") String end,
-            @QueryParam("res") long resolution) {
+            @QueryParam("res") final long resolution) {
         if (logger.isDebugEnabled()) {
             logger.debug("Received GET request at '{}' for rrd '{}'.", uriInfo.getPath(), itemName);
         }
         String responseType = MediaType.APPLICATION_JSON;
 
         // RRD specific: no equivalent in PersistenceService known
-        ConsolFun consilidationFunction = ConsolFun.valueOf(consFunction);
+        final ConsolFun consilidationFunction = ConsolFun.valueOf(consFunction);
 
         // read the start/end time as they are provided in the RRD-way, we use
-        // the RRD4j to read them
+        // the RRD4j to read them. The times are aligned to the resolution,
+        // so that requests within the same bucket can be served from the cache
         long[] times = Util.getTimestamps(start, end);
-        Date startTime = new Date();
-        startTime.setTime(times[0] * 1000L);
-        Date endTime = new Date();
-        endTime.setTime(times[1] * 1000L);
+        final long bucketMillis = Math.max(resolution, 1) * 1000L;
+        final Date startTime = new Date();
+        startTime.setTime(times[0] * 1000L / bucketMillis * bucketMillis);
+        final Date endTime = new Date();
+        endTime.setTime((times[1] * 1000L + bucketMillis - 1) / bucketMillis * bucketMillis);
 
         if (itemName.endsWith(".rrd")) {
             itemName = itemName.substring(0, itemName.length() - 4);
@@ -157,24 +181,80 @@ public class ChartResource implements RESTResource {
                     throw new IllegalArgumentException("No Persistence service found.");
                 }
             }
-            Object data = null;
-            if (persistenceService.getId().equals("rrd4j")) {
-                data = getRrdSeries(persistenceService, item, consilidationFunction, startTime, endTime, resolution);
-            } else {
-                data = getPersistenceSeries(persistenceService, item, startTime, endTime, resolution);
-            }
+            final QueryablePersistenceService queryService = persistenceService;
+            final Item queryItem = item;
+            String key = persistenceService.getId() + ":" + itemName + ":" + consilidationFunction + ":"
+                    + startTime.getTime() + ":" + endTime.getTime() + ":" + resolution;
+            ChartSeries data = getCachedSeries(key, bucketMillis, new Callable<ChartSeries>() {
+
+                @Override
+                public ChartSeries call() {
+                    if (queryService.getId().equals("rrd4j")) {
+                        return getRrdSeries(queryService, queryItem, consilidationFunction, startTime, endTime,
+                                resolution);
+                    } else {
+                        return getPersistenceSeries(queryService, queryItem, startTime, endTime, resolution);
+                    }
+                }
+            });
             return Response.ok(data, responseType).build();
         } catch (ItemNotFoundException e1) {
             logger.error("Item '{}' not found error while requesting series data.", itemName);
-
+        } catch (Exception e) {
+            logger.error("Error while requesting series data for '{}': {}", itemName, e.getLocalizedMessage());
         }
         return Response.serverError().build();
     }
 
-    public Object getPersistenceSeries(QueryablePersistenceService persistenceService, Item item, Date timeBegin,
-            Date timeEnd, long resolution) {
-        Map<Long, ArrayList<String>> data = new HashMap<Long, ArrayList<String>>();
+    /**
+     * returns the cached series for the request or loads it
+     *
+     * @param key
+     *            - the cache key of the request
+     * @param loader
+     *            - loads the series if it is not cached
+     * @return the series
+     */
+    private ChartSeries getCachedSeries(String key, long bucketMillis, Callable<ChartSeries> loader) throws Exception {
+        long now = System.currentTimeMillis();
+        CachedSeries cached = seriesCache.get(key);
+        if (cached != null && cached.expires > now) {
+            logger.trace("using cached series for '{}'", key);
+            return cached.series;
+        }
+        ChartSeries series = loader.call();
+        if (seriesCache.size() >= MAX_CACHE_ENTRIES) {
+            removeExpiredSeries(now);
+        }
+        if (seriesCache.size() < MAX_CACHE_ENTRIES) {
+            seriesCache.put(key, new CachedSeries(series, now + Math.min(bucketMillis, MAX_CACHE_MILLIS)));
+        }
+        return series;
+    }
+
+    private void removeExpiredSeries(long now) {
+        Iterator<CachedSeries> it = seriesCache.values().iterator();
+        while (it.hasNext()) {
+            if (it.next().expires <= now) {
+                it.remove();
+            }
+        }
+    }
 
+    /**
+     * returns the series of a generic persistence service, downsampled to one
+     * value per resolution step
+     *
+     * @param persistenceService
+     * @param item
+     * @param timeBegin
+     * @param timeEnd
+     * @param resolution
+     *            - resolution in seconds, 0 returns all values
+     * @return
+     */
+    public ChartSeries getPersistenceSeries(QueryablePersistenceService persistenceService, Item item,
+            Date timeBegin, Date timeEnd, long resolution) {
         // Define the data filter
         FilterCriteria filter = new FilterCriteria();
         filter.setBeginDate(timeBegin);
@@ -188,19 +268,38 @@ public class ChartResource implements RESTResource {
 
         // Iterate through the data
         int dataCounter = 0;
+        int rowCount = 0;
+        long[] timestamps = new long[256];
+        double[] values = new double[256];
         while (it.hasNext()) {
             dataCounter++;
             HistoricItem historicItem = it.next();
             org.eclipse.smarthome.core.types.State state = historicItem.getState();
             if (state instanceof DecimalType) {
-                ArrayList<String> vals = new ArrayList<String>();
-                vals.add(formatDouble(((DecimalType) state).doubleValue(), "null", true));
-                data.put(historicItem.getTimestamp().getTime(), vals);
+                long time = historicItem.getTimestamp().getTime();
+                if (rowCount > 0 && timestamps[rowCount - 1] == time) {
+                    // keep the last value of a timestamp
+                    rowCount--;
+                } else if (rowCount == timestamps.length) {
+                    timestamps = Arrays.copyOf(timestamps, rowCount * 2);
+                    values = Arrays.copyOf(values, rowCount * 2);
+                }
+                timestamps[rowCount] = time;
+                values[rowCount] = ((DecimalType) state).doubleValue();
+                rowCount++;
             }
         }
         logger.debug("'{}' querying item '{}' from '{}' to '{}' => '{}' results", persistenceService.getId(),
                 filter.getItemName(), filter.getBeginDate(), filter.getEndDate(), dataCounter);
-        return convertToRrd(data);
+
+        ChartSeries series = new ChartSeries(Arrays.copyOf(timestamps, rowCount),
+                new double[][] { Arrays.copyOf(values, rowCount) });
+        if (resolution > 0) {
+            long points = (timeEnd.getTime() - timeBegin.getTime()) / (resolution * 1000L) + 1;
+            series = series.downsample((int) Math.min(points, Integer.MAX_VALUE));
+            logger.debug("downsampled '{}' values to '{}' values", rowCount, series.getRowCount());
+        }
+        return series;
     }
 
     /**
@@ -214,9 +313,9 @@ public class ChartResource implements RESTResource {
      * @param resolution
      * @return
      */
-    public Object getRrdSeries(QueryablePersistenceService persistenceService, Item item,
+    public ChartSeries getRrdSeries(QueryablePersistenceService persistenceService, Item item,
             ConsolFun consilidationFunction, Date timeBegin, Date timeEnd, long resolution) {
-        Map<Long, ArrayList<String>> data = new TreeMap<Long, ArrayList<String>>();
+        List<ChartSeries> series = new ArrayList<ChartSeries>();
         try {
             List<String> itemNames = new ArrayList<String>();
 
@@ -229,7 +328,7 @@ public class ChartResource implements RESTResource {
                 itemNames.add(item.getName());
             }
             for (String itemName : itemNames) {
-                addRrdData(data, itemName, consilidationFunction, timeBegin, timeEnd, resolution);
+                series.add(getRrdData(itemName, consilidationFunction, timeBegin, timeEnd, resolution));
             }
 
         } catch (FileNotFoundException e) {
@@ -240,60 +339,33 @@ public class ChartResource implements RESTResource {
             logger.error("{}: fallback to generic persistance service", e.getLocalizedMessage());
             return getPersistenceSeries(persistenceService, item, timeBegin, timeEnd, resolution);
         }
-        return convertToRrd(data);
-    }
-
-    private ArrayList<Object> convertToRrd(Map<Long, ArrayList<String>> data) {
-        // sort data by key
-        Map<Long, ArrayList<String>> treeMap = new TreeMap<Long, ArrayList<String>>(data);
-        ArrayList<Object> rrd = new ArrayList<Object>();
-        for (Long time : treeMap.keySet()) {
-            Object[] entry = new Object[2];
-            entry[0] = time;
-            entry[1] = data.get(time);
-            rrd.add(entry);
+        if (series.isEmpty()) {
+            return new ChartSeries(new long[0], new double[0][]);
         }
-        return rrd;
+        return ChartSeries.merge(series);
     }
 
-    private Map<Long, ArrayList<String>> addRrdData(Map<Long, ArrayList<String>> data, String itemName,
-            ConsolFun consilidationFunction, Date timeBegin, Date timeEnd, long resolution) throws IOException {
-        RrdDb rrdDb = new RrdDb(RRD_FOLDER + File.separator + itemName + ".rrd");
-        FetchRequest fetchRequest = rrdDb.createFetchRequest(consilidationFunction, Util.getTimestamp(timeBegin),
-                Util.getTimestamp(timeEnd), resolution);
-        FetchData fetchData = fetchRequest.fetchData();
-        // logger.info(fetchData.toString());
-        long[] timestamps = fetchData.getTimestamps();
-        double[][] values = fetchData.getValues();
-
-        logger.debug("RRD fetch returned '{}' rows and '{}' columns", fetchData.getRowCount(),
-                fetchData.getColumnCount());
-
-        for (int row = 0; row < fetchData.getRowCount(); row++) {
-            // change to microseconds
-            long time = timestamps[row] * 1000;
-
-            if (!data.containsKey(time)) {
-                data.put(time, new ArrayList<String>());
-            }
-            ArrayList<String> vals = data.get(time);
-            int indexOffset = vals.size();
-            for (int dsIndex = 0; dsIndex < fetchData.getColumnCount(); dsIndex++) {
-                vals.add(dsIndex + indexOffset, formatDouble(values[dsIndex][row], "null", true));
+    private ChartSeries getRrdData(String itemName, ConsolFun consilidationFunction, Date timeBegin, Date timeEnd,
+            long resolution) throws IOException {
+        RrdDbPool pool = RrdDbPool.getInstance();
+        RrdDb rrdDb = pool.requestRrdDb(RRD_FOLDER + File.separator + itemName + ".rrd");
+        try {
+            FetchRequest fetchRequest = rrdDb.createFetchRequest(consilidationFunction, Util.getTimestamp(timeBegin),
+                    Util.getTimestamp(timeEnd), resolution);
+            FetchData fetchData = fetchRequest.fetchData();
+            long[] timestamps = fetchData.getTimestamps();
+
+            logger.debug("RRD fetch returned '{}' rows and '{}' columns", fetchData.getRowCount(),
+                    fetchData.getColumnCount());
+
+            // change to milliseconds
+            long[] times = new long[timestamps.length];
+            for (int row = 0; row < timestamps.length; row++) {
+                times[row] = timestamps[row] * 1000;
             }
+            return new ChartSeries(times, fetchData.getValues());
+        } finally {
+            pool.release(rrdDb);
         }
-        rrdDb.close();
-
-        return data;
-    }
-
-    static String formatDouble(double x, String nanString, boolean forceExponents) {
-        if (Double.isNaN(x)) {
-            return nanString;
-        }
-        if (forceExponents) {
-            return df.format(x);
-        }
-        return "" + x;
     }
 }
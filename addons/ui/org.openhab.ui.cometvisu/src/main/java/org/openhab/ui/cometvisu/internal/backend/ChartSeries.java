@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.backend;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * chart series data stored in columns of primitive values, written to the
+ * CometVisu client as [[timestamp,["value1","value2",...]],...]
+ *
+ * @author agent - Initial contribution
+ */
+public class ChartSeries implements StreamingOutput {
+
+    // timestamps in milliseconds, ascending
+    private final long[] timestamps;
+
+    // values[column][row], NaN if there is no value
+    private final double[][] values;
+
+    public ChartSeries(long[] timestamps, double[][] values) {
+        this.timestamps = timestamps;
+        this.values = values;
+    }
+
+    public int getRowCount() {
+        return timestamps.length;
+    }
+
+    public int getColumnCount() {
+        return values.length;
+    }
+
+    /**
+     * merges the columns of several series into one series, rows with the
+     * same timestamp are combined, missing values are NaN
+     *
+     * @param series
+     *            - the series to merge
+     * @return the merged series
+     */
+    public static ChartSeries merge(List<ChartSeries> series) {
+        if (series.size() == 1) {
+            return series.get(0);
+        }
+        int rowCount = 0;
+        int columnCount = 0;
+        for (ChartSeries s : series) {
+            rowCount += s.getRowCount();
+            columnCount += s.getColumnCount();
+        }
+        long[] allTimestamps = new long[rowCount];
+        int pos = 0;
+        for (ChartSeries s : series) {
+            System.arraycopy(s.timestamps, 0, allTimestamps, pos, s.getRowCount());
+            pos += s.getRowCount();
+        }
+        Arrays.sort(allTimestamps);
+        int uniqueCount = 0;
+        for (int i = 0; i < allTimestamps.length; i++) {
+            if (i == 0 || allTimestamps[i] != allTimestamps[i - 1]) {
+                allTimestamps[uniqueCount++] = allTimestamps[i];
+            }
+        }
+        long[] mergedTimestamps = Arrays.copyOf(allTimestamps, uniqueCount);
+
+        double[][] mergedValues = new double[columnCount][uniqueCount];
+        int column = 0;
+        for (ChartSeries s : series) {
+            for (int dsIndex = 0; dsIndex < s.getColumnCount(); dsIndex++, column++) {
+                Arrays.fill(mergedValues[column], Double.NaN);
+                int row = 0;
+                for (int i = 0; i < s.getRowCount(); i++) {
+                    while (mergedTimestamps[row] != s.timestamps[i]) {
+                        row++;
+                    }
+                    mergedValues[column][row] = s.values[dsIndex][i];
+                }
+            }
+        }
+        return new ChartSeries(mergedTimestamps, mergedValues);
+    }
+
+    /**
+     * reduces a single column series to the given number of points with the
+     * Largest-Triangle-Three-Buckets algorithm, which keeps the visual shape
+     * of the series
+     *
+     * @param threshold
+     *            - the maximum number of points
+     * @return the downsampled series, or this series if it is already small
+     *         enough
+     */
+    public ChartSeries downsample(int threshold) {
+        int rowCount = getRowCount();
+        if (getColumnCount() != 1 || threshold < 3 || rowCount <= threshold) {
+            return this;
+        }
+        double[] data = values[0];
+        long[] sampledTimestamps = new long[threshold];
+        double[] sampledValues = new double[threshold];
+
+        // the first and the last point are always kept
+        sampledTimestamps[0] = timestamps[0];
+        sampledValues[0] = data[0];
+        int selected = 0;
+        double bucketSize = (double) (rowCount - 2) / (threshold - 2);
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // average of the next bucket
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, rowCount);
+            double avgTime = 0;
+            double avgValue = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgTime += timestamps[i];
+                avgValue += data[i];
+            }
+            avgTime /= nextEnd - nextStart;
+            avgValue /= nextEnd - nextStart;
+
+            // the point of the current bucket with the largest triangle
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double selectedTime = timestamps[selected];
+            double selectedValue = data[selected];
+            double maxArea = -1;
+            int maxIndex = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((selectedTime - avgTime) * (data[i] - selectedValue)
+                        - (selectedTime - timestamps[i]) * (avgValue - selectedValue));
+                if (area > maxArea) {
+                    maxArea = area;
+                    maxIndex = i;
+                }
+            }
+            sampledTimestamps[bucket + 1] = timestamps[maxIndex];
+            sampledValues[bucket + 1] = data[maxIndex];
+            selected = maxIndex;
+        }
+
+        sampledTimestamps[threshold - 1] = timestamps[rowCount - 1];
+        sampledValues[threshold - 1] = data[rowCount - 1];
+        return new ChartSeries(sampledTimestamps, new double[][] { sampledValues });
+    }
+
+    @Override
+    public void write(OutputStream output) throws IOException {
+        // DecimalFormat is not thread safe
+        DecimalFormat df = (DecimalFormat) ChartResource.df.clone();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        writer.write('[');
+        for (int row = 0; row < timestamps.length; row++) {
+            if (row > 0) {
+                writer.write(',');
+            }
+            writer.write('[');
+            writer.write(Long.toString(timestamps[row]));
+            writer.write(",[");
+            for (int column = 0; column < values.length; column++) {
+                if (column > 0) {
+                    writer.write(',');
+                }
+                writer.write('"');
+                double value = values[column][row];
+                writer.write(Double.isNaN(value) ? "null" : df.format(value));
+                writer.write('"');
+            }
+            writer.write("]]");
+        }
+        writer.write(']');
+        writer.flush();
+    }
+}
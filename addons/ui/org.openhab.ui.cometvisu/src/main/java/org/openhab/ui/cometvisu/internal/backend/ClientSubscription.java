@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.backend;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.types.State;
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.openhab.ui.cometvisu.internal.backend.beans.StateBean;
+import org.openhab.ui.cometvisu.internal.util.SseUtil;
+
+/**
+ * The items a connected CometVisu client has requested and the SSE connection to this client.
+ *
+ * The pending states are only accessed from the sender thread of the {@link ReadResource}.
+ *
+ * @author agent - Initial contribution
+ */
+public class ClientSubscription {
+
+    private final EventOutput eventOutput;
+
+    /**
+     * openHAB item name -> CometVisu item names (with the optional type prefix) and the requested state classes
+     */
+    private final Map<String, Map<String, Class<? extends State>>> items = new HashMap<String, Map<String, Class<? extends State>>>();
+
+    /**
+     * latest state per CometVisu item name, which has not been sent yet
+     */
+    private final Map<String, StateBean> pendingStates = new LinkedHashMap<String, StateBean>();
+
+    private ScheduledFuture<?> flushJob;
+
+    public ClientSubscription(EventOutput eventOutput) {
+        this.eventOutput = eventOutput;
+    }
+
+    /**
+     * adds a requested CometVisu item
+     *
+     * @param ohItemName
+     *            - the name of the openHAB item
+     * @param cvItemName
+     *            - the name requested by the client, maybe with a type prefix
+     * @param stateClass
+     *            - the state class of the type prefix or null
+     */
+    public void addItem(String ohItemName, String cvItemName, Class<? extends State> stateClass) {
+        if (!items.containsKey(ohItemName)) {
+            items.put(ohItemName, new HashMap<String, Class<? extends State>>());
+        }
+        items.get(ohItemName).put(cvItemName, stateClass);
+    }
+
+    /**
+     * @return the names of all openHAB items this client listens to
+     */
+    public Set<String> getItemNames() {
+        return items.keySet();
+    }
+
+    /**
+     * creates the state beans of the given item for this client
+     *
+     * @param item
+     *            - the item which has changed
+     * @param typedOnly
+     *            - only create beans for CometVisu items with a type prefix
+     * @return the state beans, empty if the client does not listen to this item
+     */
+    public List<StateBean> createStateBeans(Item item, boolean typedOnly) {
+        List<StateBean> states = new ArrayList<StateBean>();
+        Map<String, Class<? extends State>> clientItems = items.get(item.getName());
+        if (clientItems != null) {
+            for (Map.Entry<String, Class<? extends State>> clientItem : clientItems.entrySet()) {
+                Class<? extends State> stateClass = clientItem.getValue();
+                if (stateClass != null || !typedOnly) {
+                    StateBean stateBean = new StateBean();
+                    stateBean.name = clientItem.getKey();
+                    if (stateClass != null) {
+                        stateBean.state = item.getStateAs(stateClass).toString();
+                    } else {
+                        stateBean.state = item.getState().toString();
+                    }
+                    states.add(stateBean);
+                }
+            }
+        }
+        return states;
+    }
+
+    /**
+     * sends the given states to the client immediately
+     */
+    public void send(Object eventObject) throws IOException {
+        eventOutput.write(SseUtil.buildEvent(eventObject));
+    }
+
+    /**
+     * keeps the latest state of each item until {@link #flush()} is called
+     *
+     * @return true, if no flush is pending for this client
+     */
+    public boolean queue(Collection<StateBean> states) {
+        for (StateBean state : states) {
+            pendingStates.remove(state.name);
+            pendingStates.put(state.name, state);
+        }
+        return flushJob == null;
+    }
+
+    public void setFlushJob(ScheduledFuture<?> flushJob) {
+        this.flushJob = flushJob;
+    }
+
+    /**
+     * sends all pending states to the client
+     */
+    public void flush() throws IOException {
+        flushJob = null;
+        if (!pendingStates.isEmpty()) {
+            List<StateBean> states = new ArrayList<StateBean>(pendingStates.values());
+            pendingStates.clear();
+            send(states.size() == 1 ? states.get(0) : states);
+        }
+    }
+
+    /**
+     * closes the connection to the client
+     */
+    public void close() {
+        if (flushJob != null) {
+            flushJob.cancel(false);
+            flushJob = null;
+        }
+        pendingStates.clear();
+        try {
+            eventOutput.close();
+        } catch (IOException e) {
+            // ignore, the connection is already gone
+        }
+    }
+
+    public boolean isClosed() {
+        return eventOutput.isClosed();
+    }
+}
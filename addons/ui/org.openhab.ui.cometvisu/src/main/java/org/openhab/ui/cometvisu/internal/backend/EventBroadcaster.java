@@ -8,10 +8,7 @@
  */
 package org.openhab.ui.cometvisu.internal.backend;
 
-import java.util.Map;
-
 import org.eclipse.smarthome.core.items.Item;
-import org.eclipse.smarthome.core.types.State;
 
 /**
  * Broadcast state change events of items to listening clients
@@ -21,15 +18,17 @@ import org.eclipse.smarthome.core.types.State;
  */
 public interface EventBroadcaster {
     /**
-     * Broadcasts an event described by the given parameters to all currently
-     * listening clients.
+     * Sends the state of the given item to all clients that have requested
+     * this item.
      *
      * @param item
-     *            - the item that should be broadcasted
-     * @param eventObject
-     *            - bean that can be converted to a JSON object.
+     *            - the item which has changed
+     * @param typedOnly
+     *            - only send the states which have been requested with a type
+     *            prefix (e.g. number:Item), which can change with every update
+     *            of a group item
      */
-    public void broadcastEvent(final Object eventObject);
+    public void broadcastItemState(Item item, boolean typedOnly);
 
     /**
      * listens to state changes of the given item, if it is part of the
@@ -53,14 +52,4 @@ public interface EventBroadcaster {
      * listen for state changes from the requested items
      */
     public void registerItems();
-
-    /**
-     * lists all client item names and the associated type which must be notified
-     * when the item changes
-     *
-     * @param item
-     *            - the item that is listened to
-     * @return
-     */
-    public Map<String, Class<? extends State>> getClientItems(Item item);
 }
@@ -11,12 +11,16 @@ package org.openhab.ui.cometvisu.internal.backend;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.ExecutorService;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -35,18 +39,17 @@ import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.io.rest.RESTResource;
 import org.glassfish.jersey.media.sse.EventOutput;
-import org.glassfish.jersey.media.sse.SseBroadcaster;
 import org.glassfish.jersey.media.sse.SseFeature;
 import org.openhab.ui.cometvisu.internal.Config;
 import org.openhab.ui.cometvisu.internal.backend.beans.StateBean;
 import org.openhab.ui.cometvisu.internal.listeners.StateEventListener;
-import org.openhab.ui.cometvisu.internal.util.SseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * handles read request from the CometVisu client every request initializes a
- * SSE communication
+ * SSE communication, state changes are only sent to the clients which have
+ * requested the item
  *
  * @author Tobias Bräutigam
  * @since 2.0.0
@@ -55,16 +58,17 @@ import org.slf4j.LoggerFactory;
 public class ReadResource implements EventBroadcaster, RESTResource {
     private final Logger logger = LoggerFactory.getLogger(ReadResource.class);
 
-    private SseBroadcaster broadcaster = new SseBroadcaster();
-
-    private final ExecutorService executorService;
+    // all writes to the clients are done by this thread
+    private final ScheduledExecutorService executorService;
 
     private ItemRegistry itemRegistry;
 
     private StateEventListener stateEventListener;
 
-    private List<String> itemNames = new ArrayList<String>();
-    private Map<Item, Map<String, Class<? extends State>>> items = new HashMap<Item, Map<String, Class<? extends State>>>();
+    /**
+     * openHAB item name -> clients that have requested the item
+     */
+    private final Map<String, Set<ClientSubscription>> subscriptionsByItem = new ConcurrentHashMap<String, Set<ClientSubscription>>();
 
     @Context
     private UriInfo uriInfo;
@@ -78,7 +82,7 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     private Collection<ItemFactory> itemFactories = new CopyOnWriteArrayList<ItemFactory>();
 
     public ReadResource() {
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.executorService = Executors.newSingleThreadScheduledExecutor();
         this.stateEventListener = new StateEventListener();
         this.stateEventListener.setEventBroadcaster(this);
     }
@@ -100,10 +104,11 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     }
 
     /**
-     * Subscribes the connecting client to the stream of events filtered by the
-     * given eventFilter.
+     * Subscribes the connecting client to the state changes of the requested
+     * items.
      *
-     * @param eventFilter
+     * @param itemNames
+     *            - the requested item names, optionally with a type prefix
      * @return {@link EventOutput} object associated with the incoming
      *         connection.
      * @throws IOException
@@ -114,14 +119,9 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     public Object getStates(@QueryParam("a") List<String> itemNames, @QueryParam("i") long index,
             @QueryParam("t") long time) throws IOException, InterruptedException {
         final EventOutput eventOutput = new EventOutput();
+        final ClientSubscription subscription = new ClientSubscription(eventOutput);
 
-        this.itemNames = itemNames;
-
-        broadcaster.add(eventOutput);
-
-        // get all requested items and send their states to the client
-        items = new HashMap<Item, Map<String, Class<? extends State>>>();
-        // send the current states of all items to the client
+        // send the current states of all requested items to the client
         if (this.itemRegistry != null) {
             List<StateBean> states = new ArrayList<StateBean>();
             for (String cvItemName : itemNames) {
@@ -141,10 +141,7 @@ public class ReadResource implements EventBroadcaster, RESTResource {
                         ohItemName = parts[1];
                     }
                     Item item = this.itemRegistry.getItem(ohItemName);
-                    if (!items.containsKey(item)) {
-                        items.put(item, new HashMap<String, Class<? extends State>>());
-                    }
-                    items.get(item).put(cvItemName, stateClass);
+                    subscription.addItem(ohItemName, cvItemName, stateClass);
                     StateBean itemState = new StateBean();
                     itemState.name = cvItemName;
 
@@ -159,24 +156,107 @@ public class ReadResource implements EventBroadcaster, RESTResource {
                     logger.error("{}", e.getLocalizedMessage());
                 }
             }
-            logger.debug("initially broadcasting {}/{} item states", states.size(), itemNames.size());
-            broadcaster.broadcast(SseUtil.buildEvent(states));
+            logger.debug("initially sending {}/{} item states", states.size(), itemNames.size());
+            subscription.send(states);
         }
-        // listen to state changes of the requested items
-        registerItems();
+        addSubscription(subscription);
 
         return eventOutput;
     }
 
+    /**
+     * adds the client to the subscribers of all its items and listens to
+     * state changes of these items
+     */
+    private void addSubscription(final ClientSubscription subscription) {
+        executorService.execute(new Runnable() {
+
+            @Override
+            public void run() {
+                removeClosedSubscriptions();
+            }
+        });
+        for (String itemName : subscription.getItemNames()) {
+            synchronized (subscriptionsByItem) {
+                Set<ClientSubscription> subscriptions = subscriptionsByItem.get(itemName);
+                if (subscriptions == null) {
+                    subscriptions = new CopyOnWriteArraySet<ClientSubscription>();
+                    subscriptionsByItem.put(itemName, subscriptions);
+                }
+                subscriptions.add(subscription);
+            }
+            registerItem(getItem(itemName));
+        }
+        logger.debug("{} clients are listening to {} items", countSubscriptions(), subscriptionsByItem.size());
+    }
+
+    /**
+     * removes the client from the subscribers of all its items, stops
+     * listening to items without subscribers
+     */
+    private void removeSubscription(ClientSubscription subscription) {
+        subscription.close();
+        for (String itemName : subscription.getItemNames()) {
+            boolean lastSubscription = false;
+            synchronized (subscriptionsByItem) {
+                Set<ClientSubscription> subscriptions = subscriptionsByItem.get(itemName);
+                if (subscriptions != null && subscriptions.remove(subscription) && subscriptions.isEmpty()) {
+                    subscriptionsByItem.remove(itemName);
+                    lastSubscription = true;
+                }
+            }
+            if (lastSubscription) {
+                Item item = getItem(itemName);
+                if (item instanceof GenericItem) {
+                    ((GenericItem) item).removeStateChangeListener(stateEventListener);
+                }
+            }
+        }
+    }
+
+    /**
+     * removes all clients that have closed the connection
+     */
+    private void removeClosedSubscriptions() {
+        Set<ClientSubscription> closedSubscriptions = new HashSet<ClientSubscription>();
+        for (Set<ClientSubscription> subscriptions : subscriptionsByItem.values()) {
+            for (ClientSubscription subscription : subscriptions) {
+                if (subscription.isClosed()) {
+                    closedSubscriptions.add(subscription);
+                }
+            }
+        }
+        for (ClientSubscription subscription : closedSubscriptions) {
+            removeSubscription(subscription);
+        }
+    }
+
+    private int countSubscriptions() {
+        Set<ClientSubscription> clients = new HashSet<ClientSubscription>();
+        for (Set<ClientSubscription> subscriptions : subscriptionsByItem.values()) {
+            clients.addAll(subscriptions);
+        }
+        return clients.size();
+    }
+
+    private Item getItem(String itemName) {
+        if (itemRegistry != null) {
+            try {
+                return itemRegistry.getItem(itemName);
+            } catch (ItemNotFoundException e) {
+                // the item has been removed, the clients keep listening to its name
+            }
+        }
+        return null;
+    }
+
     /**
      * listen for state changes from the requested items
      */
     @Override
     public void registerItems() {
-        for (Item item : items.keySet()) {
-            if (item instanceof GenericItem) {
-                ((GenericItem) item).addStateChangeListener(stateEventListener);
-            }
+        for (String itemName : subscriptionsByItem.keySet()) {
+            registerItem(getItem(itemName));
         }
     }
 
@@ -189,7 +269,7 @@ public class ReadResource implements EventBroadcaster, RESTResource {
      */
     @Override
     public void registerItem(Item item) {
-        if (item == null || items.containsKey(item) || !itemNames.contains(item.getName())) {
+        if (item == null || !subscriptionsByItem.containsKey(item.getName())) {
             return;
         }
         if (item instanceof GenericItem) {
@@ -198,45 +278,72 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     }
 
     /**
-     * listens to state changes of the given item, if it is part of the
-     * requested items
+     * stops listening to state changes of the given item, the clients keep
+     * their subscription in case the item is added again
      *
      * @param item
-     *            - the new item, that should be listened to
+     *            - the removed item
      */
     @Override
     public void unregisterItem(Item item) {
-        if (item == null || items.containsKey(item) || !itemNames.contains(item.getName())) {
-            return;
-        }
         if (item instanceof GenericItem) {
             ((GenericItem) item).removeStateChangeListener(stateEventListener);
-            items.remove(item);
         }
     }
 
     /**
-     * Broadcasts an event described by the given parameters to all currently
-     * listening clients.
+     * Sends the state of the given item to the clients that have requested
+     * it, the states are collected for {@link Config#COMETVISU_COALESCE_INTERVAL}
+     * milliseconds if configured.
      *
      * @param item
      *            - the item which has changed
-     * @param eventObject
-     *            - bean that can be converted to a JSON object.
+     * @param typedOnly
+     *            - only send the states requested with a type prefix
      */
     @Override
-    public void broadcastEvent(final Object eventObject) {
+    public void broadcastItemState(final Item item, final boolean typedOnly) {
+        final Set<ClientSubscription> subscriptions = subscriptionsByItem.get(item.getName());
+        if (subscriptions == null) {
+            return;
+        }
         executorService.execute(new Runnable() {
 
             @Override
             public void run() {
-                broadcaster.broadcast(SseUtil.buildEvent(eventObject));
+                int coalesceInterval = Config.COMETVISU_COALESCE_INTERVAL;
+                for (final ClientSubscription subscription : subscriptions) {
+                    List<StateBean> states = subscription.createStateBeans(item, typedOnly);
+                    if (states.isEmpty() || subscription.isClosed()) {
+                        continue;
+                    }
+                    if (coalesceInterval > 0) {
+                        if (subscription.queue(states)) {
+                            subscription.setFlushJob(executorService.schedule(new Runnable() {
+
+                                @Override
+                                public void run() {
+                                    try {
+                                        subscription.flush();
+                                    } catch (IOException e) {
+                                        logger.debug("client disconnected: {}", e.getMessage());
+                                        removeSubscription(subscription);
+                                    }
+                                }
+                            }, coalesceInterval, TimeUnit.MILLISECONDS));
+                        }
+                    } else {
+                        try {
+                            for (StateBean state : states) {
+                                subscription.send(state);
+                            }
+                        } catch (IOException e) {
+                            logger.debug("client disconnected: {}", e.getMessage());
+                            removeSubscription(subscription);
+                        }
+                    }
+                }
             }
         });
     }
-
-    @Override
-    public Map<String, Class<? extends State>> getClientItems(Item item) {
-        return items.get(item);
-    }
 }
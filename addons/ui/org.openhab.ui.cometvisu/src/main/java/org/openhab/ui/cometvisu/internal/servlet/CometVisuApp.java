@@ -199,6 +199,15 @@ public class CometVisuApp {
                 }
                 Config.COMETVISU_AUTO_DOWNLOAD = newValue;
             }
+            if (properties.get(Config.COMETVISU_COALESCE_INTERVAL_PROPERTY) != null) {
+                try {
+                    Config.COMETVISU_COALESCE_INTERVAL = Integer
+                            .parseInt(properties.get(Config.COMETVISU_COALESCE_INTERVAL_PROPERTY).toString());
+                } catch (NumberFormatException e) {
+                    logger.warn("invalid value for '{}': {}", Config.COMETVISU_COALESCE_INTERVAL_PROPERTY,
+                            properties.get(Config.COMETVISU_COALESCE_INTERVAL_PROPERTY));
+                }
+            }
             for (String key : properties.keySet()) {
                 String[] parts = key.split(">");
                 String propKey = parts.length > 1 ? parts[1] : parts[0];
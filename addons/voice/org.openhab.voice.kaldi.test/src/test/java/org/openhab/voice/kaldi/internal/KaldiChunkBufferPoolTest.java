@@ -0,0 +1,48 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.kaldi.internal;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link KaldiChunkBufferPool}.
+ *
+ * @author agent - Initial contribution
+ */
+public class KaldiChunkBufferPoolTest {
+
+    @Test
+    public void releasedBufferIsReusedForTheSameSize() {
+        KaldiChunkBufferPool pool = new KaldiChunkBufferPool(2);
+        byte[] buffer = pool.acquire(3200);
+        assertEquals(3200, buffer.length);
+        pool.release(buffer);
+
+        assertNotSame(buffer, pool.acquire(1600));
+        assertSame(buffer, pool.acquire(3200));
+        assertNotSame(buffer, pool.acquire(3200));
+    }
+
+    @Test
+    public void idleBuffersAreLimitedPerSize() {
+        KaldiChunkBufferPool pool = new KaldiChunkBufferPool(1);
+        byte[] first = pool.acquire(3200);
+        byte[] second = pool.acquire(3200);
+        byte[] small = pool.acquire(1600);
+        pool.release(first);
+        pool.release(second);
+        pool.release(small);
+
+        assertSame(first, pool.acquire(3200));
+        assertNotSame(second, pool.acquire(3200));
+        assertSame(small, pool.acquire(1600));
+    }
+}
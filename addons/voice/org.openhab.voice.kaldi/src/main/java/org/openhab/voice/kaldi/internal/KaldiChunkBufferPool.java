@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.kaldi.internal;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Pool of the byte arrays used as audio chunks. The chunk size depends on the bit rate of the audio, so the
+ * buffers are pooled by size. The data of a chunk is copied into a WebSocket frame when it is sent, so a buffer can be
+ * reused as soon as sendChunk() returns.
+ *
+ * @author agent - Initial contribution
+ */
+class KaldiChunkBufferPool {
+
+    /**
+     * Maximum number of idle buffers kept for each size
+     */
+    private final int maxIdle;
+
+    /**
+     * Idle buffers by their size
+     */
+    private final Map<Integer, Queue<byte[]>> idleBuffers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a pool which keeps at most the passed number of idle buffers of each size
+     *
+     * @param maxIdle The maximum number of idle buffers of each size
+     */
+    KaldiChunkBufferPool(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Takes a buffer of the passed size from the pool or creates one if there is no idle buffer
+     *
+     * @param size The size of the buffer
+     * @return A buffer of the passed size, its content is undefined
+     */
+    byte[] acquire(int size) {
+        Queue<byte[]> buffers = idleBuffers.get(size);
+        byte[] buffer = buffers == null ? null : buffers.poll();
+        return buffer == null ? new byte[size] : buffer;
+    }
+
+    /**
+     * Returns a buffer taken by {@link #acquire(int)} to the pool
+     *
+     * @param buffer The buffer, which must not be used by the caller afterwards
+     */
+    void release(byte[] buffer) {
+        Queue<byte[]> buffers = idleBuffers.computeIfAbsent(buffer.length, size -> new ConcurrentLinkedQueue<>());
+        // The size of a ConcurrentLinkedQueue is not exact under contention, which is fine for a limit of idle buffers
+        if (buffers.size() < maxIdle) {
+            buffers.offer(buffer);
+        }
+    }
+}
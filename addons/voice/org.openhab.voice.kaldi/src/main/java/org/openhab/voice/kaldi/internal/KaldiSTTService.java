@@ -13,6 +13,12 @@ import java.net.URISyntaxException;
 import java.util.HashSet;
 import java.util.Locale;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.smarthome.core.audio.AudioFormat;
 import org.eclipse.smarthome.core.audio.AudioStream;
@@ -20,6 +26,8 @@ import org.eclipse.smarthome.core.voice.STTException;
 import org.eclipse.smarthome.core.voice.STTListener;
 import org.eclipse.smarthome.core.voice.STTService;
 import org.eclipse.smarthome.core.voice.STTServiceHandle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import ee.ioc.phon.netspeechapi.duplex.WsDuplexRecognitionSession;
 
@@ -31,6 +39,18 @@ import ee.ioc.phon.netspeechapi.duplex.WsDuplexRecognitionSession;
  */
 public class KaldiSTTService implements STTService {
 
+    /**
+     * Maximum number of recognitions streaming audio to the server at the same time
+     */
+    private static final int MAX_SESSIONS = 8;
+
+    /**
+     * Maximum number of recognitions waiting for a free session, further recognitions are rejected
+     */
+    private static final int MAX_QUEUED_SESSIONS = 16;
+
+    private final Logger logger = LoggerFactory.getLogger(KaldiSTTService.class);
+
     /**
      * WebSocket URL to the head node of the Kaldi server cluster
      */
@@ -46,6 +66,41 @@ public class KaldiSTTService implements STTService {
      */
     private final HashSet<AudioFormat> audioFormats = initAudioFormats();
 
+    /**
+     * Executor running the recognitions, shared by all recognitions of this service
+     */
+    private ThreadPoolExecutor executor;
+
+    /**
+     * Pool of the chunk buffers used to read the audio data
+     */
+    private final KaldiChunkBufferPool bufferPool = new KaldiChunkBufferPool(MAX_SESSIONS);
+
+    // Statistics
+    private final AtomicLong completedSessions = new AtomicLong();
+    private final AtomicLong totalQueueTimeNs = new AtomicLong();
+    private final AtomicLong totalRecognitionTimeNs = new AtomicLong();
+    private final AtomicLong maxRecognitionTimeNs = new AtomicLong();
+
+    protected void activate() {
+        final AtomicInteger threadCounter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(MAX_SESSIONS, MAX_SESSIONS, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_SESSIONS), runnable -> {
+                    Thread thread = new Thread(runnable, "kaldiSTT-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // Idle threads are released again, the executor only consumes threads while recognitions run.
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    protected void deactivate() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -107,15 +162,83 @@ public class KaldiSTTService implements STTService {
         recognitionSession.addRecognitionEventListener(new RecognitionEventListenerKaldi(sttListener));
 
         // Start recognition
-        STTServiceKaldiRunnable sttServiceKaldiRunnable = new STTServiceKaldiRunnable(recognitionSession, sttListener,
-                audioStream);
-        Thread thread = new Thread(sttServiceKaldiRunnable);
-        thread.start();
+        STTServiceKaldiRunnable sttServiceKaldiRunnable = new STTServiceKaldiRunnable(this, recognitionSession,
+                sttListener, audioStream);
+        ThreadPoolExecutor executor = this.executor;
+        if (executor == null) {
+            throw new STTException("The Kaldi service is not active");
+        }
+        try {
+            executor.execute(sttServiceKaldiRunnable);
+        } catch (RejectedExecutionException e) {
+            throw new STTException("Too many concurrent recognitions", e);
+        }
 
         // Return STTServiceHandleKaldi
         return new STTServiceHandleKaldi(sttServiceKaldiRunnable);
     }
 
+    /**
+     * Returns the pool of the chunk buffers, shared by all recognitions
+     *
+     * @return The KaldiChunkBufferPool of this instance
+     */
+    KaldiChunkBufferPool getBufferPool() {
+        return bufferPool;
+    }
+
+    /**
+     * Records the timing of a finished recognition
+     *
+     * @param queueTimeNs Time in nanoseconds the recognition waited for a free session
+     * @param recognitionTimeNs Time in nanoseconds from the end of the audio data to the end of the session
+     */
+    void recordSession(long queueTimeNs, long recognitionTimeNs) {
+        long completed = completedSessions.incrementAndGet();
+        long totalQueueTime = totalQueueTimeNs.addAndGet(queueTimeNs);
+        long totalRecognitionTime = totalRecognitionTimeNs.addAndGet(recognitionTimeNs);
+        maxRecognitionTimeNs.accumulateAndGet(recognitionTimeNs, Math::max);
+        if (logger.isDebugEnabled()) {
+            logger.debug(
+                    "Recognition finished after {} ms in queue and {} ms latency. Sessions: {}, "
+                            + "avg. queue time {} ms, avg. latency {} ms, max. latency {} ms",
+                    TimeUnit.NANOSECONDS.toMillis(queueTimeNs), TimeUnit.NANOSECONDS.toMillis(recognitionTimeNs),
+                    completed, TimeUnit.NANOSECONDS.toMillis(totalQueueTime / completed),
+                    TimeUnit.NANOSECONDS.toMillis(totalRecognitionTime / completed),
+                    TimeUnit.NANOSECONDS.toMillis(maxRecognitionTimeNs.get()));
+        }
+    }
+
+    /**
+     * @return The number of finished recognitions
+     */
+    public long getCompletedSessions() {
+        return completedSessions.get();
+    }
+
+    /**
+     * @return The average time in milliseconds a recognition waited for a free session
+     */
+    public long getAverageQueueTimeMillis() {
+        long completed = completedSessions.get();
+        return completed == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalQueueTimeNs.get() / completed);
+    }
+
+    /**
+     * @return The average time in milliseconds from the end of the audio data to the end of the recognition
+     */
+    public long getAverageRecognitionTimeMillis() {
+        long completed = completedSessions.get();
+        return completed == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalRecognitionTimeNs.get() / completed);
+    }
+
+    /**
+     * @return The longest time in milliseconds from the end of the audio data to the end of a recognition
+     */
+    public long getMaxRecognitionTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxRecognitionTimeNs.get());
+    }
+
     /**
      * Initializes this.locales
      *
@@ -29,6 +29,16 @@ import ee.ioc.phon.netspeechapi.duplex.WsDuplexRecognitionSession;
  */
 public class STTServiceKaldiRunnable implements Runnable, RecognitionEventListener {
 
+    /**
+     * Chunks per second of audio data, 4 <= chunkRate [See: http://bit.ly/1V4Ktw2]
+     */
+    private static final int CHUNK_RATE = 4;
+
+    /**
+     * Empty chunk, sent to end the audio data if the last chunk was already sent in full
+     */
+    private static final byte[] EMPTY_CHUNK = new byte[0];
+
     /**
      * Boolean indicating if the server closed the connection
      */
@@ -54,15 +64,38 @@ public class STTServiceKaldiRunnable implements Runnable, RecognitionEventListen
      */
     private final WsDuplexRecognitionSession recognitionSession;
 
+    /**
+     * The service providing the chunk buffers and collecting the statistics
+     */
+    private final KaldiSTTService service;
+
+    /**
+     * Time in nanoseconds this instance was submitted for execution
+     */
+    private final long submittedNs;
+
+    /**
+     * Time in nanoseconds this instance was started, 0 if not yet started
+     */
+    private volatile long startedNs;
+
+    /**
+     * Time in nanoseconds the end of the audio data was sent, 0 if not yet sent
+     */
+    private volatile long lastChunkSentNs;
+
     /**
      * Constructs an instance targeting the passed WsDuplexRecognitionSession
      *
+     * @param service The KaldiSTTService running this instance
      * @param recognitionSession The WsDuplexRecognitionSession sesion
      * @param sttListener The STTListener targeted for STTEvents
      * @param audioStream The AudioSource data
      */
-    public STTServiceKaldiRunnable(WsDuplexRecognitionSession recognitionSession, STTListener sttListener,
-            AudioStream audioStream) {
+    public STTServiceKaldiRunnable(KaldiSTTService service, WsDuplexRecognitionSession recognitionSession,
+            STTListener sttListener, AudioStream audioStream) {
+        this.service = service;
+        this.submittedNs = System.nanoTime();
         this.isClosed = false;
         this.isAborting = false;
         this.audioStream = audioStream;
@@ -77,46 +110,40 @@ public class STTServiceKaldiRunnable implements Runnable, RecognitionEventListen
      */
     @Override
     public void run() {
+        if (this.isAborting) {
+            // Aborted while waiting for a free session
+            return;
+        }
+        this.startedNs = System.nanoTime();
+
+        AudioFormat audioFormat = this.audioStream.getFormat();
+        int bitRate = audioFormat.getBitRate().intValue();
+        int byteRate = (bitRate / 8);
+        byte buffer[] = service.getBufferPool().acquire(byteRate / CHUNK_RATE);
         try {
             this.recognitionSession.connect();
-            AudioFormat audioFormat = this.audioStream.getFormat();
-            int bitRate = audioFormat.getBitRate().intValue();
-            int byteRate = (bitRate / 8);
-            int chunkRate = 4; // 4 <= chunkRate [See: http://bit.ly/1V4Ktw2]
-            byte buffer[] = new byte[byteRate / chunkRate];
 
             sttListener.sttEventReceived(new RecognitionStartEvent());
 
+            // Chunks are sent as soon as they are read. Reading blocks until audio data is available, so a live
+            // stream is forwarded at the rate it is captured and a recorded stream as fast as the server accepts it.
             boolean sentLastChunk = false;
             while (!this.isAborting && !this.isClosed) {
-                long millisWithinChunkSecond = System.currentTimeMillis() % (1000 / chunkRate);
-                int size = audioStream.read(buffer);
-                if (size < 0) {
-                    sentLastChunk = true;
-                    byte buffer2[] = new byte[0];
-                    this.recognitionSession.sendChunk(buffer2, true);
-                    break;
-                }
-                if (size == (byteRate / chunkRate)) {
+                int size = readChunk(buffer);
+                if (size == buffer.length) {
                     this.recognitionSession.sendChunk(buffer, false);
                 } else {
                     sentLastChunk = true;
-                    byte buffer2[] = Arrays.copyOf(buffer, size);
-                    this.recognitionSession.sendChunk(buffer2, true);
+                    sendLastChunk(size == 0 ? EMPTY_CHUNK : Arrays.copyOf(buffer, size));
                     break;
                 }
-                Thread.sleep(1000 / chunkRate - millisWithinChunkSecond);
             }
 
             if (this.isAborting && !this.isClosed && !sentLastChunk) {
-                byte buffer2[] = new byte[0];
-                this.recognitionSession.sendChunk(buffer2, true);
+                sendLastChunk(EMPTY_CHUNK);
             }
         } catch (IOException e) {
             sttListener.sttEventReceived(new SpeechRecognitionErrorEvent("Unable to send audio data to the server"));
-        } catch (InterruptedException e) {
-            sttListener.sttEventReceived(
-                    new SpeechRecognitionErrorEvent("Unable to send data to the server at the proper rate"));
         } catch (RuntimeException e) {
             // Note: This is a workaround for a bug in net-speech-api and Java-WebSocket.
             //
@@ -134,7 +161,39 @@ public class STTServiceKaldiRunnable implements Runnable, RecognitionEventListen
             // This temporary, but working, solution is to catch a RuntimeException
             // here and assume that it results from sendChunk() being called on a
             // closed session then proceede as if onClose() was called.
+        } finally {
+            service.getBufferPool().release(buffer);
+        }
+    }
+
+    /**
+     * Reads audio data until the passed buffer is full or the end of the AudioStream is reached
+     *
+     * @param buffer The buffer to fill
+     * @return The number of bytes read, less than the buffer size only at the end of the AudioStream
+     * @throws IOException If the AudioStream could not be read
+     */
+    private int readChunk(byte[] buffer) throws IOException {
+        int size = 0;
+        while (size < buffer.length && !this.isAborting) {
+            int read = audioStream.read(buffer, size, buffer.length - size);
+            if (read < 0) {
+                break;
+            }
+            size += read;
         }
+        return size;
+    }
+
+    /**
+     * Sends the passed chunk as the end of the audio data
+     *
+     * @param chunk The last chunk
+     * @throws IOException If the chunk could not be sent
+     */
+    private void sendLastChunk(byte[] chunk) throws IOException {
+        this.recognitionSession.sendChunk(chunk, true);
+        this.lastChunkSentNs = System.nanoTime();
     }
 
     /**
@@ -158,5 +217,12 @@ public class STTServiceKaldiRunnable implements Runnable, RecognitionEventListen
     @Override
     public void onClose() {
         this.isClosed = true;
+        long started = this.startedNs;
+        if (started != 0) {
+            // A session closed by the server before the end of the audio data has no latency after the audio
+            long lastChunkSent = this.lastChunkSentNs;
+            long recognitionTime = lastChunkSent == 0 ? 0 : System.nanoTime() - lastChunkSent;
+            service.recordSession(started - submittedNs, recognitionTime);
+        }
     }
 }
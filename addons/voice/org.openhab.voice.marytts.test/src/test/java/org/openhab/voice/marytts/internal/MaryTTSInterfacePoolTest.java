@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.marytts.internal;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+
+import marytts.MaryInterface;
+
+/**
+ * Tests cases for {@link MaryTTSInterfacePool}.
+ *
+ * @author agent - Initial contribution
+ */
+public class MaryTTSInterfacePoolTest {
+
+    /**
+     * Creates mocks instead of loading the MaryTTS runtime.
+     */
+    private static class TestPool extends MaryTTSInterfacePool {
+        private int createdInterfaces;
+
+        TestPool(int size) {
+            super(Locale.US, "cmu-slt-hsmm", size);
+        }
+
+        @Override
+        MaryInterface createInterface() {
+            createdInterfaces++;
+            return mock(MaryInterface.class);
+        }
+    }
+
+    @Test
+    public void releasedInterfaceIsReused() throws Exception {
+        TestPool pool = new TestPool(2);
+        MaryInterface first = pool.acquire();
+        pool.release(first);
+
+        assertSame(first, pool.acquire());
+        assertEquals(1, pool.createdInterfaces);
+    }
+
+    @Test
+    public void interfacesAreCreatedUpToThePoolSize() throws Exception {
+        TestPool pool = new TestPool(2);
+        MaryInterface first = pool.acquire();
+        MaryInterface second = pool.acquire();
+        assertNotSame(first, second);
+        assertEquals(2, pool.createdInterfaces);
+
+        CompletableFuture<MaryInterface> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return pool.acquire();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        try {
+            waiting.get(100, TimeUnit.MILLISECONDS);
+            fail("A full pool must block");
+        } catch (TimeoutException e) {
+            // expected
+        }
+
+        pool.release(second);
+        assertSame(second, waiting.get(1, TimeUnit.SECONDS));
+        assertEquals(2, pool.createdInterfaces);
+    }
+
+    @Test(expected = InterruptedException.class)
+    public void waitingIsInterruptible() throws Exception {
+        TestPool pool = new TestPool(1);
+        pool.acquire();
+        Thread.currentThread().interrupt();
+        pool.acquire();
+    }
+}
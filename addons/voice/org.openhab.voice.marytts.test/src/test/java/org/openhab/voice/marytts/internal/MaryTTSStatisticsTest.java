@@ -0,0 +1,39 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.marytts.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests cases for {@link MaryTTSStatistics}.
+ *
+ * @author agent - Initial contribution
+ */
+public class MaryTTSStatisticsTest {
+
+    @Test
+    public void statisticsSeparateCacheHits() {
+        MaryTTSStatistics statistics = new MaryTTSStatistics();
+        assertEquals(0, statistics.getAverageSynthesisMillis());
+
+        statistics.recordSynthesis(TimeUnit.MILLISECONDS.toNanos(10), TimeUnit.MILLISECONDS.toNanos(100));
+        statistics.recordSynthesis(TimeUnit.MILLISECONDS.toNanos(30), TimeUnit.MILLISECONDS.toNanos(300));
+        statistics.recordCacheHit();
+
+        assertEquals(2, statistics.getSynthesisCount());
+        assertEquals(1, statistics.getCacheHitCount());
+        assertEquals(200, statistics.getAverageSynthesisMillis());
+        assertEquals(300, statistics.getMaxSynthesisMillis());
+        assertEquals(20, statistics.getAverageWaitMillis());
+    }
+}
@@ -50,10 +50,21 @@ class MaryTTSAudioStream extends FixedLengthAudioStream {
      * @throws IOException
      */
     public MaryTTSAudioStream(AudioInputStream inputStream, AudioFormat audioFormat) throws IOException {
-        rawAudio = IOUtils.toByteArray(inputStream);
+        this(IOUtils.toByteArray(inputStream), audioFormat);
+    }
+
+    /**
+     * Constructs an instance for already synthesized audio
+     *
+     * @param rawAudio The PCM data of this instance, which is not copied and must not be modified
+     * @param audioFormat The AudioFormat of this instance
+     * @throws IOException
+     */
+    public MaryTTSAudioStream(byte[] rawAudio, AudioFormat audioFormat) throws IOException {
+        this.rawAudio = rawAudio;
+        this.audioFormat = audioFormat;
         this.length = rawAudio.length + 36;
         this.inputStream = new SequenceInputStream(getWavHeaderInputStream(length), new ByteArrayInputStream(rawAudio));
-        this.audioFormat = audioFormat;
     }
 
     @Override
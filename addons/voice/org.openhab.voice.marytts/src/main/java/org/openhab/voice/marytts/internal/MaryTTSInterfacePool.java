@@ -0,0 +1,94 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.marytts.internal;
+
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import marytts.LocalMaryInterface;
+import marytts.MaryInterface;
+import marytts.exceptions.MaryConfigurationException;
+
+/**
+ * Pool of {@link MaryInterface} instances, all configured for the same voice. The MaryTTS runtime and the voice data
+ * are shared by all instances, so an instance only holds the settings of a single request and several instances can
+ * synthesize in parallel.
+ *
+ * Instances are created on demand up to the size of the pool. If all instances are in use, callers wait for one to be
+ * released.
+ *
+ * @author agent - Initial contribution
+ */
+class MaryTTSInterfacePool {
+
+    private final Locale locale;
+    private final String voiceLabel;
+    private final int size;
+
+    private final BlockingQueue<MaryInterface> idle = new LinkedBlockingQueue<>();
+    private int created;
+
+    /**
+     * Constructs a pool for the passed voice
+     *
+     * @param locale The Locale of the voice
+     * @param voiceLabel The label of the voice
+     * @param size The maximum number of instances
+     */
+    MaryTTSInterfacePool(Locale locale, String voiceLabel, int size) {
+        this.locale = locale;
+        this.voiceLabel = voiceLabel;
+        this.size = size;
+    }
+
+    /**
+     * Takes an instance from the pool, which must be passed to {@link #release(MaryInterface)} after use.
+     *
+     * @return An instance configured for the voice of this pool
+     * @throws MaryConfigurationException If a new instance could not be created
+     * @throws InterruptedException If interrupted while waiting for an instance
+     */
+    MaryInterface acquire() throws MaryConfigurationException, InterruptedException {
+        MaryInterface marytts = idle.poll();
+        if (marytts != null) {
+            return marytts;
+        }
+        synchronized (this) {
+            if (created < size) {
+                marytts = createInterface();
+                created++;
+                return marytts;
+            }
+        }
+        return idle.take();
+    }
+
+    /**
+     * Creates a new instance configured for the voice of this pool
+     *
+     * @return The new instance
+     * @throws MaryConfigurationException If the instance could not be created
+     */
+    MaryInterface createInterface() throws MaryConfigurationException {
+        MaryInterface marytts = new LocalMaryInterface();
+        marytts.setLocale(locale);
+        marytts.setVoice(voiceLabel);
+        return marytts;
+    }
+
+    /**
+     * Returns an instance taken by {@link #acquire()} to the pool
+     *
+     * @param marytts The instance to return
+     */
+    void release(MaryInterface marytts) {
+        idle.offer(marytts);
+    }
+}
@@ -17,12 +17,17 @@ package org.openhab.voice.marytts.internal;
 
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
 
+import org.apache.commons.io.IOUtils;
 import org.eclipse.smarthome.core.audio.AudioFormat;
 import org.eclipse.smarthome.core.audio.AudioStream;
 import org.eclipse.smarthome.core.voice.TTSException;
@@ -46,8 +51,37 @@ public class MaryTTSService implements TTSService {
 
     private final Logger logger = LoggerFactory.getLogger(MaryTTSService.class);
 
+    /**
+     * Maximum number of texts synthesized in parallel for each voice. Each synthesis keeps a core busy, so there is no
+     * point in running more than one per core.
+     */
+    private static final int POOL_SIZE = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Maximum size in bytes of the PCM data in the phrase cache
+     */
+    private static final long MAX_CACHE_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * Texts with more PCM data than this are not cached, so a long text does not replace all short announcements
+     */
+    private static final long MAX_CACHED_PHRASE_BYTES = MAX_CACHE_BYTES / 8;
+
     private MaryInterface marytts;
 
+    /**
+     * Pools of MaryInterfaces by voice label
+     */
+    private final Map<String, MaryTTSInterfacePool> pools = new ConcurrentHashMap<>();
+
+    /**
+     * PCM data of recently synthesized texts, least recently used first. Guarded by itself.
+     */
+    private final LinkedHashMap<String, byte[]> phraseCache = new LinkedHashMap<>(16, 0.75f, true);
+    private long phraseCacheBytes;
+
+    private final MaryTTSStatistics statistics = new MaryTTSStatistics();
+
     /**
      * Set of supported voices
      */
@@ -122,23 +156,95 @@ public class MaryTTSService implements TTSService {
         Voice maryTTSVoice = Voice.getVoice(voice.getLabel());
         AudioFormat maryTTSVoiceAudioFormat = getAudioFormat(maryTTSVoice.dbAudioFormat());
 
-        // Synchronize on marytts
-        synchronized (marytts) {
-            // AudioStream to return
-            AudioStream audioStream = null;
+        String cacheKey = voice.getUID() + '\n' + text;
+        byte[] rawAudio;
+        synchronized (phraseCache) {
+            rawAudio = phraseCache.get(cacheKey);
+        }
+        if (rawAudio != null) {
+            statistics.recordCacheHit();
+        } else {
+            rawAudio = generateAudio(text, voice);
+            cachePhrase(cacheKey, rawAudio);
+        }
 
-            // Set voice (Each voice supports onl a single AudioFormat)
-            marytts.setLocale(voice.getLocale());
-            marytts.setVoice(voice.getLabel());
+        try {
+            return new MaryTTSAudioStream(rawAudio, maryTTSVoiceAudioFormat);
+        } catch (IOException e) {
+            throw new TTSException("Error generating an AudioStream", e);
+        }
+    }
 
-            try {
-                AudioInputStream audioInputStream = marytts.generateAudio(text);
-                audioStream = new MaryTTSAudioStream(audioInputStream, maryTTSVoiceAudioFormat);
-            } catch (SynthesisException | IOException e) {
-                throw new TTSException("Error generating an AudioStream", e);
+    /**
+     * Returns the latency statistics of this service
+     *
+     * @return The statistics of all synthesized texts since activation
+     */
+    public MaryTTSStatistics getStatistics() {
+        return statistics;
+    }
+
+    /**
+     * Synthesizes the passed text with a MaryInterface of the pool of the voice
+     *
+     * @param text The text to synthesize
+     * @param voice The voice to use
+     * @return The PCM data
+     * @throws TTSException If the text could not be synthesized
+     */
+    private byte[] generateAudio(String text, org.eclipse.smarthome.core.voice.Voice voice) throws TTSException {
+        MaryTTSInterfacePool pool = pools.computeIfAbsent(voice.getLabel(),
+                label -> new MaryTTSInterfacePool(voice.getLocale(), label, POOL_SIZE));
+
+        long start = System.nanoTime();
+        MaryInterface maryInterface;
+        try {
+            maryInterface = pool.acquire();
+        } catch (MaryConfigurationException e) {
+            throw new TTSException("Error creating MaryInterface", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TTSException("Interrupted while waiting for MaryInterface", e);
+        }
+
+        long acquired = System.nanoTime();
+        try {
+            AudioInputStream audioInputStream = maryInterface.generateAudio(text);
+            byte[] rawAudio = IOUtils.toByteArray(audioInputStream);
+            long end = System.nanoTime();
+            statistics.recordSynthesis(acquired - start, end - acquired);
+            logger.debug("Synthesized {} characters with voice {} in {} ms ({})", text.length(), voice.getLabel(),
+                    (end - acquired) / 1000000, statistics);
+            return rawAudio;
+        } catch (SynthesisException | IOException e) {
+            throw new TTSException("Error generating an AudioStream", e);
+        } finally {
+            pool.release(maryInterface);
+        }
+    }
+
+    /**
+     * Adds the PCM data of a text to the phrase cache and removes the least recently used texts if the cache is full
+     *
+     * @param cacheKey The key of voice and text
+     * @param rawAudio The PCM data
+     */
+    private void cachePhrase(String cacheKey, byte[] rawAudio) {
+        if (rawAudio.length > MAX_CACHED_PHRASE_BYTES) {
+            return;
+        }
+        synchronized (phraseCache) {
+            byte[] previous = phraseCache.put(cacheKey, rawAudio);
+            if (previous != null) {
+                phraseCacheBytes -= previous.length;
             }
+            phraseCacheBytes += rawAudio.length;
 
-            return audioStream;
+            Iterator<byte[]> eldest = phraseCache.values().iterator();
+            while (phraseCacheBytes > MAX_CACHE_BYTES) {
+                phraseCacheBytes -= eldest.next().length;
+                eldest.remove();
+            }
         }
     }
 
@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.marytts.internal;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency statistics of the {@link MaryTTSService}. Requests answered from the phrase cache are counted separately, so
+ * the average synthesis time only covers requests that were actually synthesized.
+ *
+ * @author agent - Initial contribution
+ */
+public class MaryTTSStatistics {
+
+    private final AtomicLong synthesisCount = new AtomicLong();
+    private final AtomicLong synthesisNanos = new AtomicLong();
+    private final AtomicLong maxSynthesisNanos = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong cacheHitCount = new AtomicLong();
+
+    void recordSynthesis(long waitNanos, long synthesisNanos) {
+        this.synthesisCount.incrementAndGet();
+        this.waitNanos.addAndGet(waitNanos);
+        this.synthesisNanos.addAndGet(synthesisNanos);
+        this.maxSynthesisNanos.accumulateAndGet(synthesisNanos, Math::max);
+    }
+
+    void recordCacheHit() {
+        cacheHitCount.incrementAndGet();
+    }
+
+    /**
+     * @return The number of synthesized texts
+     */
+    public long getSynthesisCount() {
+        return synthesisCount.get();
+    }
+
+    /**
+     * @return The number of texts answered from the phrase cache
+     */
+    public long getCacheHitCount() {
+        return cacheHitCount.get();
+    }
+
+    /**
+     * @return The average time in milliseconds to synthesize a text, without waiting for a free MaryInterface
+     */
+    public long getAverageSynthesisMillis() {
+        long count = synthesisCount.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(synthesisNanos.get() / count);
+    }
+
+    /**
+     * @return The longest time in milliseconds to synthesize a text
+     */
+    public long getMaxSynthesisMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(maxSynthesisNanos.get());
+    }
+
+    /**
+     * @return The average time in milliseconds a request waited for a free MaryInterface
+     */
+    public long getAverageWaitMillis() {
+        long count = synthesisCount.get();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(waitNanos.get() / count);
+    }
+
+    @Override
+    public String toString() {
+        return "synthesized=" + getSynthesisCount() + ", cacheHits=" + getCacheHitCount() + ", avgSynthesisMs="
+                + getAverageSynthesisMillis() + ", maxSynthesisMs=" + getMaxSynthesisMillis() + ", avgWaitMs="
+                + getAverageWaitMillis();
+    }
+}
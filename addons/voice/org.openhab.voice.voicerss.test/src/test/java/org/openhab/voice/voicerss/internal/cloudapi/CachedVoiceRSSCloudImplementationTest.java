@@ -0,0 +1,129 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.voicerss.internal.cloudapi;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests cases for the disk and memory cache of {@link CachedVoiceRSSCloudImplementation}.
+ *
+ * @author agent - Initial contribution
+ */
+public class CachedVoiceRSSCloudImplementationTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<String> requestedTexts = new ArrayList<>();
+    private String cacheFolder;
+
+    /**
+     * Returns 10 bytes of audio data for each text instead of calling the cloud service.
+     */
+    private class TestCloudImplementation extends CachedVoiceRSSCloudImplementation {
+        TestCloudImplementation(long maxDiskCacheSize, long maxMemoryCacheSize) {
+            super(cacheFolder, maxDiskCacheSize, maxMemoryCacheSize);
+        }
+
+        @Override
+        public InputStream getTextToSpeech(String apiKey, String text, String locale, String audioFormat) {
+            requestedTexts.add(text);
+            return new ByteArrayInputStream(String.format("%-10s", text).getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @Before
+    public void setUp() {
+        cacheFolder = folder.getRoot().getAbsolutePath();
+    }
+
+    private int audioFileCount() {
+        return folder.getRoot().list((dir, name) -> name.endsWith(".mp3")).length;
+    }
+
+    @Test
+    public void audioIsRequestedOnce() throws IOException {
+        TestCloudImplementation cloud = new TestCloudImplementation(0, 0);
+        File first = cloud.getTextToSpeechAsFile("key", "hello", "en-us", "MP3");
+        File second = cloud.getTextToSpeechAsFile("key", "hello", "en-us", "MP3");
+
+        assertEquals(first, second);
+        assertEquals(10, first.length());
+        assertEquals(1, requestedTexts.size());
+        assertEquals(1, folder.getRoot().list((dir, name) -> name.endsWith(".txt")).length);
+    }
+
+    @Test
+    public void cachedFilesAreFoundAfterRestart() throws IOException {
+        new TestCloudImplementation(0, 0).getTextToSpeechAsFile("key", "hello", "en-us", "MP3");
+        new File(folder.getRoot(), "leftover.mp3.tmp").createNewFile();
+
+        TestCloudImplementation cloud = new TestCloudImplementation(0, 0);
+        assertNotNull(cloud.getTextToSpeechAsFile("key", "hello", "en-us", "MP3"));
+        assertEquals(1, requestedTexts.size());
+        assertFalse(new File(folder.getRoot(), "leftover.mp3.tmp").exists());
+    }
+
+    @Test
+    public void leastRecentlyUsedFilesAreDeleted() throws IOException {
+        TestCloudImplementation cloud = new TestCloudImplementation(25, 0);
+        File first = cloud.getTextToSpeechAsFile("key", "first", "en-us", "MP3");
+        File second = cloud.getTextToSpeechAsFile("key", "second", "en-us", "MP3");
+        cloud.getTextToSpeechAsFile("key", "first", "en-us", "MP3");
+
+        cloud.getTextToSpeechAsFile("key", "third", "en-us", "MP3");
+        assertEquals(2, audioFileCount());
+        assertTrue(first.exists());
+        assertFalse(second.exists());
+        assertFalse(new File(folder.getRoot(), second.getName().replace(".mp3", ".txt")).exists());
+
+        cloud.setCacheSizes(10, 0);
+        assertEquals(1, audioFileCount());
+    }
+
+    @Test
+    public void textFileIsKeptWhileAnotherFormatUsesIt() throws IOException {
+        TestCloudImplementation cloud = new TestCloudImplementation(15, 0);
+        File mp3 = cloud.getTextToSpeechAsFile("key", "hello", "en-us", "MP3");
+        cloud.getTextToSpeechAsFile("key", "hello", "en-us", "WAV");
+
+        assertFalse(mp3.exists());
+        assertTrue(new File(folder.getRoot(), mp3.getName().replace(".mp3", ".txt")).exists());
+    }
+
+    @Test
+    public void recentAudioIsKeptInMemory() throws IOException {
+        TestCloudImplementation cloud = new TestCloudImplementation(0, 20);
+        assertTrue(cloud.isMemoryCacheEnabled());
+        byte[] first = cloud.getTextToSpeechAsBytes("key", "first", "en-us", "MP3");
+        assertSame(first, cloud.getTextToSpeechAsBytes("key", "first", "en-us", "MP3"));
+
+        byte[] second = cloud.getTextToSpeechAsBytes("key", "second", "en-us", "MP3");
+        byte[] third = cloud.getTextToSpeechAsBytes("key", "third", "en-us", "MP3");
+        assertSame(third, cloud.getTextToSpeechAsBytes("key", "third", "en-us", "MP3"));
+        assertSame(second, cloud.getTextToSpeechAsBytes("key", "second", "en-us", "MP3"));
+        // the first audio was evicted from memory and is read from the file again
+        byte[] reloaded = cloud.getTextToSpeechAsBytes("key", "first", "en-us", "MP3");
+        assertNotSame(first, reloaded);
+        assertArrayEquals(first, reloaded);
+        assertEquals(3, requestedTexts.size());
+    }
+}
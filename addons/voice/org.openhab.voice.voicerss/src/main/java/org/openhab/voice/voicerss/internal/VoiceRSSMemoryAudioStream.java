@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.voice.voicerss.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.eclipse.smarthome.core.audio.AudioException;
+import org.eclipse.smarthome.core.audio.AudioFormat;
+import org.eclipse.smarthome.core.audio.AudioStream;
+import org.eclipse.smarthome.core.audio.FixedLengthAudioStream;
+
+/**
+ * Implementation of the {@link AudioStream} interface for the
+ * {@link VoiceRSSTTSService}, which reads the audio data from memory. The audio
+ * data is shared with the cache and is never modified.
+ *
+ * @author agent - Initial contribution
+ */
+class VoiceRSSMemoryAudioStream extends FixedLengthAudioStream {
+
+    private final byte[] audio;
+    private final AudioFormat format;
+    private InputStream inputStream;
+
+    public VoiceRSSMemoryAudioStream(byte[] audio, AudioFormat format) {
+        this.audio = audio;
+        this.format = format;
+        this.inputStream = new ByteArrayInputStream(audio);
+    }
+
+    @Override
+    public AudioFormat getFormat() {
+        return format;
+    }
+
+    @Override
+    public int read() throws IOException {
+        return inputStream.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        return inputStream.read(b, off, len);
+    }
+
+    @Override
+    public int available() throws IOException {
+        return inputStream.available();
+    }
+
+    @Override
+    public long length() {
+        return audio.length;
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        inputStream = new ByteArrayInputStream(audio);
+    }
+
+    @Override
+    public InputStream getClonedStream() throws AudioException {
+        return new ByteArrayInputStream(audio);
+    }
+
+}
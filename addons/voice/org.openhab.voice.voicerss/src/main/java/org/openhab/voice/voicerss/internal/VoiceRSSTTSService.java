@@ -41,6 +41,14 @@ public class VoiceRSSTTSService implements TTSService {
     private static final String CONFIG_API_KEY = "apiKey";
     private String apiKey = null;
 
+    // Cache sizes in MB come from ConfigAdmin
+    private static final String CONFIG_CACHE_SIZE = "cacheSize";
+    private static final String CONFIG_MEMORY_CACHE_SIZE = "memoryCacheSize";
+    private static final long DEFAULT_CACHE_SIZE = 100;
+    private static final long DEFAULT_MEMORY_CACHE_SIZE = 4;
+    private long cacheSize = DEFAULT_CACHE_SIZE;
+    private long memoryCacheSize = DEFAULT_MEMORY_CACHE_SIZE;
+
     private final Logger logger = LoggerFactory.getLogger(VoiceRSSTTSService.class);
 
     /**
@@ -77,6 +85,24 @@ public class VoiceRSSTTSService implements TTSService {
     protected void modified(Map<String, Object> config) {
         if (config != null) {
             this.apiKey = config.containsKey(CONFIG_API_KEY) ? config.get(CONFIG_API_KEY).toString() : null;
+            this.cacheSize = getSize(config, CONFIG_CACHE_SIZE, DEFAULT_CACHE_SIZE);
+            this.memoryCacheSize = getSize(config, CONFIG_MEMORY_CACHE_SIZE, DEFAULT_MEMORY_CACHE_SIZE);
+            if (voiceRssImpl != null) {
+                voiceRssImpl.setCacheSizes(cacheSize * 1024 * 1024, memoryCacheSize * 1024 * 1024);
+            }
+        }
+    }
+
+    private long getSize(Map<String, Object> config, String key, long defaultSize) {
+        Object value = config.get(key);
+        if (value == null) {
+            return defaultSize;
+        }
+        try {
+            return Long.parseLong(value.toString().trim());
+        } catch (NumberFormatException ex) {
+            logger.warn("Invalid value '{}' for {}, using {}", value, key, defaultSize);
+            return defaultSize;
         }
     }
 
@@ -120,6 +146,14 @@ public class VoiceRSSTTSService implements TTSService {
         // now create the input stream for given text, locale, format. There is
         // only a default voice
         try {
+            if (voiceRssImpl.isMemoryCacheEnabled()) {
+                byte[] audio = voiceRssImpl.getTextToSpeechAsBytes(this.apiKey, text,
+                        voice.getLocale().toLanguageTag(), getApiAudioFormat(requestedFormat));
+                if (audio == null) {
+                    throw new TTSException("Could not read from VoiceRSS service");
+                }
+                return new VoiceRSSMemoryAudioStream(audio, requestedFormat);
+            }
             File cacheAudioFile = voiceRssImpl.getTextToSpeechAsFile(this.apiKey, text,
                     voice.getLocale().toLanguageTag(), getApiAudioFormat(requestedFormat));
             if (cacheAudioFile == null) {
@@ -205,7 +239,8 @@ public class VoiceRSSTTSService implements TTSService {
     }
 
     private final CachedVoiceRSSCloudImplementation initVoiceImplementation() {
-        CachedVoiceRSSCloudImplementation apiImpl = new CachedVoiceRSSCloudImplementation(getCacheFolderName());
+        CachedVoiceRSSCloudImplementation apiImpl = new CachedVoiceRSSCloudImplementation(getCacheFolderName(),
+                cacheSize * 1024 * 1024, memoryCacheSize * 1024 * 1024);
         return apiImpl;
     }
 
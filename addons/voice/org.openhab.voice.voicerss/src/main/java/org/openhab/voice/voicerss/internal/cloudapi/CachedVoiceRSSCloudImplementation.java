@@ -16,8 +16,17 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
+import java.nio.file.Files;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +36,12 @@ import org.slf4j.LoggerFactory;
  * them in file system, as audio files with an additional .txt file to indicate
  * what content is in the audio file.
  *
+ * The cache folder is limited in size, the least recently used audio files are
+ * deleted first. The last access is kept as last modified time of the files, so
+ * it survives a restart. Additionally, the audio data of recently used files
+ * can be kept in memory. Concurrent requests for the same text are merged into
+ * a single request to the cloud service.
+ *
  * @author Jochen Hiller - Initial contribution
  */
 public class CachedVoiceRSSCloudImplementation extends VoiceRSSCloudImplementation {
@@ -35,7 +50,28 @@ public class CachedVoiceRSSCloudImplementation extends VoiceRSSCloudImplementati
 
     private final File cacheFolder;
 
+    /** Maximum size of the audio files in bytes, 0 means unlimited. */
+    private long maxDiskCacheSize;
+
+    /** Maximum size of the audio data in memory in bytes, 0 disables the memory cache. */
+    private long maxMemoryCacheSize;
+
+    /** Audio file names and their size, the least recently used first. */
+    private final LinkedHashMap<String, Long> diskCache = new LinkedHashMap<String, Long>(16, 0.75f, true);
+    private long diskCacheSize;
+
+    /** Audio data by audio file name, the least recently used first. */
+    private final LinkedHashMap<String, byte[]> memoryCache = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+    private long memoryCacheSize;
+
+    /** Running requests to the cloud service by audio file name. */
+    private final Map<String, CompletableFuture<File>> runningRequests = new ConcurrentHashMap<>();
+
     public CachedVoiceRSSCloudImplementation(String cacheFolderName) {
+        this(cacheFolderName, 0, 0);
+    }
+
+    public CachedVoiceRSSCloudImplementation(String cacheFolderName, long maxDiskCacheSize, long maxMemoryCacheSize) {
         if (cacheFolderName == null) {
             throw new RuntimeException("Folder for cache must be defined");
         }
@@ -44,34 +80,239 @@ public class CachedVoiceRSSCloudImplementation extends VoiceRSSCloudImplementati
         if (!cacheFolder.exists()) {
             cacheFolder.mkdirs();
         }
+        loadDiskCache();
+        setCacheSizes(maxDiskCacheSize, maxMemoryCacheSize);
+    }
+
+    /**
+     * Sets the maximum cache sizes, evicts audio data if the cache is larger.
+     *
+     * @param maxDiskCacheSize
+     *            maximum size of the audio files in bytes, 0 means unlimited
+     * @param maxMemoryCacheSize
+     *            maximum size of the audio data kept in memory in bytes, 0
+     *            disables the memory cache
+     */
+    public synchronized void setCacheSizes(long maxDiskCacheSize, long maxMemoryCacheSize) {
+        this.maxDiskCacheSize = maxDiskCacheSize;
+        this.maxMemoryCacheSize = maxMemoryCacheSize;
+        evictFromDisk();
+        evictFromMemory();
+    }
+
+    public synchronized boolean isMemoryCacheEnabled() {
+        return maxMemoryCacheSize > 0;
+    }
+
+    /**
+     * Returns the audio data for the given text, from memory if possible. The
+     * audio data is put into the memory cache after it was read from the file.
+     *
+     * @return the audio data or null, if the audio could not be retrieved
+     */
+    public byte[] getTextToSpeechAsBytes(String apiKey, String text, String locale, String audioFormat)
+            throws IOException {
+        String fileName = getAudioFileName(text, locale, audioFormat);
+        synchronized (this) {
+            byte[] audio = memoryCache.get(fileName);
+            if (audio != null) {
+                touch(fileName);
+                return audio;
+            }
+        }
+
+        File audioFile = getTextToSpeechAsFile(apiKey, text, locale, audioFormat);
+        if (audioFile == null) {
+            return null;
+        }
+        byte[] audio = Files.readAllBytes(audioFile.toPath());
+        synchronized (this) {
+            if (audio.length <= maxMemoryCacheSize && !memoryCache.containsKey(fileName)) {
+                memoryCache.put(fileName, audio);
+                memoryCacheSize += audio.length;
+                evictFromMemory();
+            }
+        }
+        return audio;
     }
 
     public File getTextToSpeechAsFile(String apiKey, String text, String locale, String audioFormat)
             throws IOException {
-        String fileNameInCache = getUniqeFilenameForText(text, locale);
+        String fileName = getAudioFileName(text, locale, audioFormat);
+        File audioFileInCache = new File(cacheFolder, fileName);
         // check if in cache
-        File audioFileInCache = new File(cacheFolder, fileNameInCache + "." + audioFormat.toLowerCase());
-        if (audioFileInCache.exists()) {
+        if (touch(fileName)) {
             return audioFileInCache;
         }
 
+        // if not in cache, merge with a running request for the same text or start a new one
+        CompletableFuture<File> request = new CompletableFuture<File>();
+        CompletableFuture<File> runningRequest = runningRequests.putIfAbsent(fileName, request);
+        if (runningRequest != null) {
+            logger.debug("Waiting for running request of '{}'", text);
+            try {
+                return runningRequest.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the VoiceRSS service", ex);
+            } catch (ExecutionException ex) {
+                throw new IOException(ex.getCause().getMessage(), ex.getCause());
+            }
+        }
+
+        try {
+            File audioFile = touch(fileName) ? audioFileInCache
+                    : downloadToCache(apiKey, text, locale, audioFormat, audioFileInCache);
+            request.complete(audioFile);
+            return audioFile;
+        } catch (RuntimeException ex) {
+            request.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            runningRequests.remove(fileName, request);
+        }
+    }
+
+    private File downloadToCache(String apiKey, String text, String locale, String audioFormat,
+            File audioFileInCache) {
+        // write to a temporary file first, files in the cache folder are always complete
+        File tempFile = new File(cacheFolder, audioFileInCache.getName() + ".tmp");
         // if not in cache, get audio data and put to cache
-        try (InputStream is = super.getTextToSpeech(apiKey, text, locale, audioFormat);
-                FileOutputStream fos = new FileOutputStream(audioFileInCache);) {
+        try (InputStream is = getTextToSpeech(apiKey, text, locale, audioFormat);
+                FileOutputStream fos = new FileOutputStream(tempFile);) {
             copyStream(is, fos);
-            // write text to file for transparency too
-            // this allows to know which contents is in which audio file
-            File txtFileInCache = new File(cacheFolder, fileNameInCache + ".txt");
-            writeText(txtFileInCache, text);
-            // return from cache
-            return audioFileInCache;
         } catch (FileNotFoundException ex) {
             logger.warn("Could not write {} to cache, return null", audioFileInCache, ex);
+            tempFile.delete();
             return null;
         } catch (IOException ex) {
-            logger.error("Could not write {} to cache, return null", audioFileInCache, ex);
+            logger.error("Could not write {} to cache, return null", audioFileInCache, ex);
+            tempFile.delete();
             return null;
         }
+
+        try {
+            if (!tempFile.renameTo(audioFileInCache)) {
+                throw new IOException("Could not rename " + tempFile);
+            }
+            // write text to file for transparency too
+            // this allows to know which contents is in which audio file
+            writeText(getTextFile(audioFileInCache.getName()), text);
+        } catch (IOException ex) {
+            logger.error("Could not write {} to cache, return null", audioFileInCache, ex);
+            tempFile.delete();
+            return null;
+        }
+
+        synchronized (this) {
+            addToDiskCache(audioFileInCache.getName(), audioFileInCache.length());
+            evictFromDisk();
+        }
+        // return from cache
+        return audioFileInCache;
+    }
+
+    /**
+     * Marks the audio file as recently used.
+     *
+     * @return true, if the audio file is in the cache
+     */
+    private synchronized boolean touch(String fileName) {
+        File audioFile = new File(cacheFolder, fileName);
+        if (diskCache.get(fileName) == null) {
+            // the file may have been added to the cache folder by the CreateTTSCache tool
+            if (!audioFile.exists()) {
+                return false;
+            }
+            addToDiskCache(fileName, audioFile.length());
+        }
+        audioFile.setLastModified(System.currentTimeMillis());
+        return true;
+    }
+
+    private void addToDiskCache(String fileName, long size) {
+        Long previous = diskCache.put(fileName, size);
+        diskCacheSize += size - (previous == null ? 0 : previous);
+    }
+
+    private void evictFromDisk() {
+        if (maxDiskCacheSize <= 0) {
+            return;
+        }
+        Iterator<Map.Entry<String, Long>> iterator = diskCache.entrySet().iterator();
+        // always keep the most recently used file
+        while (diskCacheSize > maxDiskCacheSize && diskCache.size() > 1) {
+            Map.Entry<String, Long> eldest = iterator.next();
+            String fileName = eldest.getKey();
+            iterator.remove();
+            diskCacheSize -= eldest.getValue();
+            byte[] audio = memoryCache.remove(fileName);
+            if (audio != null) {
+                memoryCacheSize -= audio.length;
+            }
+
+            logger.debug("Removing {} from cache", fileName);
+            new File(cacheFolder, fileName).delete();
+            // the text file is shared by all audio formats of the same text
+            String baseName = getBaseName(fileName);
+            boolean textInUse = false;
+            for (String otherFileName : diskCache.keySet()) {
+                if (getBaseName(otherFileName).equals(baseName)) {
+                    textInUse = true;
+                    break;
+                }
+            }
+            if (!textInUse) {
+                getTextFile(fileName).delete();
+            }
+        }
+    }
+
+    private void evictFromMemory() {
+        Iterator<byte[]> iterator = memoryCache.values().iterator();
+        while (memoryCacheSize > maxMemoryCacheSize && iterator.hasNext()) {
+            memoryCacheSize -= iterator.next().length;
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Reads the audio files in the cache folder, ordered by their last access.
+     */
+    private void loadDiskCache() {
+        File[] files = cacheFolder.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                return Long.compare(file1.lastModified(), file2.lastModified());
+            }
+        });
+        for (File file : files) {
+            String fileName = file.getName();
+            if (fileName.endsWith(".tmp")) {
+                // left over from an interrupted download
+                file.delete();
+            } else if (file.isFile() && !fileName.endsWith(".txt")) {
+                addToDiskCache(fileName, file.length());
+            }
+        }
+        logger.debug("Found {} audio files with {} bytes in cache", diskCache.size(), diskCacheSize);
+    }
+
+    private String getAudioFileName(String text, String locale, String audioFormat) {
+        return getUniqeFilenameForText(text, locale) + "." + audioFormat.toLowerCase();
+    }
+
+    private String getBaseName(String fileName) {
+        int extension = fileName.lastIndexOf('.');
+        return extension < 0 ? fileName : fileName.substring(0, extension);
+    }
+
+    private File getTextFile(String audioFileName) {
+        return new File(cacheFolder, getBaseName(audioFileName) + ".txt");
     }
 
     /**